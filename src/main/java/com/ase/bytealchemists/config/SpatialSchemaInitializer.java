@@ -0,0 +1,65 @@
+package com.ase.bytealchemists.config;
+
+import com.ase.bytealchemists.service.GeoQueryMode;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Prepares the {@code service} table for {@link GeoQueryMode#SPATIAL}.
+ *
+ * <p>
+ * Adds a {@code location POINT SRID 4326} column generated from {@code latitude} and
+ * {@code longitude}, and a SPATIAL INDEX on it. The column is STORED, so adding it
+ * backfills every existing row and MySQL keeps it in step with later inserts and
+ * updates without any change to {@code ServiceEntity}. Services without coordinates
+ * get a placeholder point and are excluded by the queries.
+ * Both steps are skipped when already done, so restarts are cheap.
+ * </p>
+ *
+ * @author Byte Alchemists
+ * @version 1.0
+ */
+@Component
+@DependsOn("entityManagerFactory")
+public class SpatialSchemaInitializer {
+
+  private static final String ADD_LOCATION_COLUMN = "ALTER TABLE service ADD COLUMN location "
+      + "POINT SRID 4326 GENERATED ALWAYS AS (ST_SRID(POINT(IFNULL(longitude, 0), "
+      + "IFNULL(latitude, 0)), 4326)) STORED NOT NULL";
+
+  private static final String ADD_LOCATION_INDEX =
+      "CREATE SPATIAL INDEX idx_service_location ON service (location)";
+
+  @Autowired
+  private JdbcTemplate jdbcTemplate;
+
+  @Value("${geo.query-mode:INDEX}")
+  private GeoQueryMode queryMode = GeoQueryMode.INDEX;
+
+  /**
+   * Creates the location column and its SPATIAL INDEX when the spatial mode is active.
+   */
+  @PostConstruct
+  public void initialize() {
+    if (queryMode != GeoQueryMode.SPATIAL) {
+      return;
+    }
+    if (count("SELECT COUNT(*) FROM information_schema.COLUMNS WHERE TABLE_SCHEMA = DATABASE() "
+        + "AND TABLE_NAME = 'service' AND COLUMN_NAME = 'location'") == 0) {
+      jdbcTemplate.execute(ADD_LOCATION_COLUMN);
+    }
+    if (count("SELECT COUNT(*) FROM information_schema.STATISTICS WHERE TABLE_SCHEMA = DATABASE() "
+        + "AND TABLE_NAME = 'service' AND INDEX_NAME = 'idx_service_location'") == 0) {
+      jdbcTemplate.execute(ADD_LOCATION_INDEX);
+    }
+  }
+
+  private int count(String sql) {
+    Integer count = jdbcTemplate.queryForObject(sql, Integer.class);
+    return count == null ? 0 : count;
+  }
+}
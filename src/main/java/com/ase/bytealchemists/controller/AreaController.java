@@ -0,0 +1,111 @@
+package com.ase.bytealchemists.controller;
+
+import com.ase.bytealchemists.model.ServiceEntity;
+import com.ase.bytealchemists.service.AreaService;
+import com.ase.bytealchemists.service.GeoPolygon;
+import com.ase.bytealchemists.service.ServiceService;
+import com.fasterxml.jackson.databind.JsonNode;
+import java.util.List;
+import java.util.Optional;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Controller for managing named search areas in the Homeless Support API.
+ * An area is a GeoJSON boundary, such as a borough or a service catchment area,
+ * that clients can search for services by name.
+ *
+ * @author Byte Alchemists
+ * @version 1.0
+ */
+@RestController
+@RequestMapping("/services/areas")
+public class AreaController {
+  @Autowired
+  private AreaService areaService;
+
+  @Autowired
+  private ServiceService serviceService;
+
+  /**
+   * Creates or replaces a named area.
+   *
+   * @param name    the name of the area
+   * @param geoJson a GeoJSON Polygon, MultiPolygon or Feature wrapping one
+   * @return HTTP 201 if the area was created, HTTP 200 if it was replaced,
+   *         or HTTP 400 if the GeoJSON is not a valid polygonal geometry
+   */
+  @PutMapping("/{name}")
+  public ResponseEntity<String> saveArea(@PathVariable String name,
+      @RequestBody JsonNode geoJson) {
+    if (name.trim().isEmpty()) {
+      return new ResponseEntity<>("Invalid area name.", HttpStatus.BAD_REQUEST);
+    }
+    try {
+      boolean created = areaService.saveArea(name, geoJson);
+      return created
+          ? new ResponseEntity<>("Area '" + name + "' was created.", HttpStatus.CREATED)
+          : ResponseEntity.ok("Area '" + name + "' was updated.");
+    } catch (IllegalArgumentException e) {
+      return new ResponseEntity<>("Invalid GeoJSON: " + e.getMessage(),
+          HttpStatus.BAD_REQUEST);
+    }
+  }
+
+  /**
+   * Retrieves the names of all areas.
+   *
+   * @return a {@link ResponseEntity} containing the area names in alphabetical order
+   */
+  @GetMapping
+  public ResponseEntity<List<String>> getAllAreaNames() {
+    return ResponseEntity.ok(areaService.getAllAreaNames());
+  }
+
+  /**
+   * Deletes a named area.
+   *
+   * @param name the name of the area
+   * @return HTTP 200 if the area was deleted, or HTTP 404 if it does not exist
+   */
+  @DeleteMapping("/{name}")
+  public ResponseEntity<String> deleteArea(@PathVariable String name) {
+    if (!areaService.deleteArea(name)) {
+      return ResponseEntity.status(HttpStatus.NOT_FOUND)
+          .body("Area with name '" + name + "' does not exist.");
+    }
+    return ResponseEntity.ok("Area with name '" + name + "' was deleted successfully.");
+  }
+
+  /**
+   * Queries the services inside a named area.
+   *
+   * @param name         the name of the area
+   * @param category     the category of services to filter (optional)
+   * @param availability the availability status to filter services (optional)
+   * @return a {@link ResponseEntity} containing the services inside the area ordered by id,
+   *         or HTTP 404 if the area does not exist
+   */
+  @GetMapping("/{name}/services")
+  public ResponseEntity<?> queryServicesInArea(@PathVariable String name,
+      @RequestParam(value = "category", required = false) String category,
+      @RequestParam(value = "availability", required = false) Boolean availability) {
+    Optional<GeoPolygon> area = areaService.getArea(name);
+    if (area.isEmpty()) {
+      return ResponseEntity.status(HttpStatus.NOT_FOUND)
+          .body("Area with name '" + name + "' does not exist.");
+    }
+    List<ServiceEntity> services =
+        serviceService.findServicesInArea(area.get(), category, availability);
+    return ResponseEntity.ok(services);
+  }
+}
@@ -0,0 +1,69 @@
+package com.ase.bytealchemists.controller;
+
+import com.ase.bytealchemists.model.AutocompleteStats;
+import com.ase.bytealchemists.service.ServiceAutocomplete;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Controller for the typeahead suggestions of the search box in the Homeless Support API.
+ * Suggestions are served from memory, so the endpoint can be called on every keystroke.
+ *
+ * @author Byte Alchemists
+ * @version 1.0
+ */
+@RestController
+@RequestMapping("/autocomplete")
+public class AutocompleteController {
+  @Autowired
+  private ServiceAutocomplete autocomplete;
+
+  /**
+   * Completes the text typed into the search box with service names, cities and
+   * categories, most popular first.
+   *
+   * @param prefix the text typed so far
+   * @param type   {@code name}, {@code city} or {@code category} to only suggest that kind
+   *               (optional)
+   * @param limit  the maximum number of suggestions (default 10, capped at
+   *               {@code autocomplete.max-results})
+   * @return the suggestions with their type and popularity, or HTTP 400 if the prefix is
+   *         blank, the type is unknown or the limit is not positive
+   */
+  @GetMapping
+  public ResponseEntity<?> autocomplete(
+      @RequestParam("prefix") String prefix,
+      @RequestParam(value = "type", required = false) String type,
+      @RequestParam(value = "limit", defaultValue = "10") int limit) {
+    // Leading spaces are not typed on purpose; trailing ones separate words
+    String typed = prefix.stripLeading();
+    if (typed.isEmpty()) {
+      return new ResponseEntity<>("Prefix must not be blank.", HttpStatus.BAD_REQUEST);
+    }
+    if (limit < 1) {
+      return new ResponseEntity<>("Limit must be at least 1.", HttpStatus.BAD_REQUEST);
+    }
+    try {
+      ServiceAutocomplete.Type kind = type == null ? null
+          : ServiceAutocomplete.Type.fromParameter(type);
+      return ResponseEntity.ok(autocomplete.complete(typed, kind, limit));
+    } catch (IllegalArgumentException e) {
+      return new ResponseEntity<>(e.getMessage(), HttpStatus.BAD_REQUEST);
+    }
+  }
+
+  /**
+   * Reports the size and estimated memory footprint of the autocomplete index.
+   *
+   * @return the number of names, cities, categories and trie nodes, and the estimated bytes
+   */
+  @GetMapping("/stats")
+  public ResponseEntity<AutocompleteStats> getStats() {
+    return ResponseEntity.ok(autocomplete.stats());
+  }
+}
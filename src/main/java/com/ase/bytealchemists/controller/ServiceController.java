@@ -1,27 +1,65 @@
 package com.ase.bytealchemists.controller;
 
+import com.ase.bytealchemists.model.AvailabilityRequest;
+import com.ase.bytealchemists.model.BatchQueryRequest;
+import com.ase.bytealchemists.model.BatchQueryResult;
+import com.ase.bytealchemists.model.BulkDeleteRequest;
+import com.ase.bytealchemists.model.CursorPage;
+import com.ase.bytealchemists.model.ImportResult;
+import com.ase.bytealchemists.model.NearbyService;
+import com.ase.bytealchemists.model.QueryCacheStats;
+import com.ase.bytealchemists.model.RouteQueryRequest;
+import com.ase.bytealchemists.model.ServiceAlongRoute;
+import com.ase.bytealchemists.model.ServiceCluster;
 import com.ase.bytealchemists.model.ServiceEntity;
+import com.ase.bytealchemists.model.ServiceFields;
+import com.ase.bytealchemists.model.ServiceSort;
 import com.ase.bytealchemists.service.CategoryService;
+import com.ase.bytealchemists.service.GeoPolygon;
+import com.ase.bytealchemists.service.ImportFormat;
+import com.ase.bytealchemists.service.ServiceImportService;
+import com.ase.bytealchemists.service.ServicePatch;
 import com.ase.bytealchemists.service.ServiceService;
+import com.ase.bytealchemists.service.ServiceStreamWriter;
+import com.ase.bytealchemists.service.ServiceVersions;
+import com.ase.bytealchemists.service.StreamFormat;
+import com.ase.bytealchemists.service.ZipcodeCentroids;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.validation.Valid;
+import jakarta.validation.Validator;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeParseException;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.TreeMap;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.BindingResult;
 import org.springframework.validation.FieldError;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 /**
  * Controller for managing service queries in the Homeless Support API.
@@ -42,35 +80,388 @@ public class ServiceController {
   @Autowired
   private CategoryService categoryService;
 
+  @Autowired
+  private ServiceImportService serviceImportService;
+
+  @Autowired
+  private Validator validator;
+
+  @Autowired
+  private ObjectMapper objectMapper;
+
+  @Value("${geo.batch.max-origins:100}")
+  private int maxBatchOrigins = 100;
+
+  @Value("${geo.route.max-points:1000}")
+  private int maxRoutePoints = 1000;
+
   /**
-   * Queries services based on the provided latitude, longitude, category, and
-   * availability filters.
+   * Queries services based on the provided latitude, longitude, radius, category,
+   * availability, zipcode, city and state filters.
+   * A zipcode without coordinates is resolved to its centroid and searched like coordinates.
    *
    * @param latitude     the latitude for filtering services based on location
    *                     (optional)
    * @param longitude    the longitude for filtering services based on location
    *                     (optional)
+   * @param radius       the search radius in kilometers (optional, default 10)
    * @param category     the category of services to filter
    *                     (e.g., shelter, food bank) (optional)
    * @param availability the availability status to filter services
    *                     (true for available, false for unavailable) (optional)
-   * @return a list of services that match the given filters
+   * @param zipcode      the 5-digit zipcode to search around (optional)
+   * @param city         the city to filter services (optional)
+   * @param state        the state to filter services (optional)
+   * @param openAt       an ISO-8601 date and time with offset, e.g.
+   *                     {@code 2024-05-01T18:30:00-04:00}, to only return services open
+   *                     then in their local time (optional)
+   * @param openNow      true to only return services open now (optional)
+   * @param fields       the comma separated fields to return (optional, default all)
+   * @param request      the request, for its {@code If-None-Match} header
+   * @return a list of services that match the given filters, closest first, HTTP 304 if
+   *         no service changed since the ETag the client sent, or HTTP 400 if the radius is
+   *         not positive, the zipcode is malformed, a field is unknown, {@code openAt} is
+   *         malformed or given with {@code openNow}
    */
   @GetMapping("/query")
-  public ResponseEntity<List<ServiceEntity>> queryServices(
+  public ResponseEntity<?> queryServices(
       @RequestParam(value = "latitude", required = false) Double latitude,
       @RequestParam(value = "longitude", required = false) Double longitude,
+      @RequestParam(value = "radius", required = false) Double radius,
       @RequestParam(value = "category", required = false) String category,
-      @RequestParam(value = "availability", required = false) Boolean availability) {
+      @RequestParam(value = "availability", required = false) Boolean availability,
+      @RequestParam(value = "zipcode", required = false) String zipcode,
+      @RequestParam(value = "city", required = false) String city,
+      @RequestParam(value = "state", required = false) String state,
+      @RequestParam(value = "openAt", required = false) String openAt,
+      @RequestParam(value = "openNow", defaultValue = "false") boolean openNow,
+      @RequestParam(value = "fields", required = false) String fields,
+      WebRequest request) {
+    if (radius != null && radius <= 0) {
+      return new ResponseEntity<>("Radius must be positive.", HttpStatus.BAD_REQUEST);
+    }
+    if (zipcode != null && !ZipcodeCentroids.isValid(zipcode)) {
+      return new ResponseEntity<>("Zipcode must be a 5-digit number.", HttpStatus.BAD_REQUEST);
+    }
+    Instant openInstant = null;
+    if (openAt != null) {
+      if (openNow) {
+        return new ResponseEntity<>("Give either openAt or openNow, not both.",
+            HttpStatus.BAD_REQUEST);
+      }
+      try {
+        openInstant = OffsetDateTime.parse(openAt).toInstant();
+      } catch (DateTimeParseException e) {
+        return new ResponseEntity<>("openAt must be a date and time with an offset, "
+            + "e.g. 2024-05-01T18:30:00-04:00.", HttpStatus.BAD_REQUEST);
+      }
+    } else if (openNow) {
+      openInstant = Instant.now();
+    }
+    ServiceFields fieldset;
+    try {
+      fieldset = ServiceFields.parse(fields);
+    } catch (IllegalArgumentException e) {
+      return new ResponseEntity<>(e.getMessage(), HttpStatus.BAD_REQUEST);
+    }
+    // What is open now changes with the clock, not only with the services
+    if (!openNow && notModified(request, datasetEtag("/services/query", request))) {
+      return null;
+    }
+    if (fieldset != null) {
+      return ResponseEntity.ok(openInstant == null
+          ? serviceService.queryServices(latitude, longitude, radius, category, availability,
+              zipcode, city, state, fieldset)
+          : serviceService.queryServices(latitude, longitude, radius, category, availability,
+              zipcode, city, state, openInstant, fieldset));
+    }
 
     // Call the service layer to get the filtered results
-    List<ServiceEntity> services = serviceService.queryServices(
-        latitude, longitude, category, availability);
+    List<ServiceEntity> services = openInstant == null
+        ? serviceService.queryServices(latitude, longitude, radius, category, availability,
+            zipcode, city, state)
+        : serviceService.queryServices(latitude, longitude, radius, category, availability,
+            zipcode, city, state, openInstant);
 
     // Return the result with HTTP 200 OK status
     return ResponseEntity.ok(services);
   }
 
+  /**
+   * Streams the services matching the same filters as {@code /services/query}, writing each
+   * one to the response as it is read from the database. Services are in id order.
+   *
+   * @param latitude     the latitude of the search origin (optional)
+   * @param longitude    the longitude of the search origin (optional)
+   * @param radius       the search radius in kilometers (optional, default 10)
+   * @param category     the category of services to filter (optional)
+   * @param availability the availability status to filter services (optional)
+   * @param format       {@code ndjson} (default) or {@code geojson}
+   * @return a streamed response body, or HTTP 400 if the radius or format is invalid
+   */
+  @GetMapping("/query/stream")
+  public ResponseEntity<?> streamQueryServices(
+      @RequestParam(value = "latitude", required = false) Double latitude,
+      @RequestParam(value = "longitude", required = false) Double longitude,
+      @RequestParam(value = "radius", required = false) Double radius,
+      @RequestParam(value = "category", required = false) String category,
+      @RequestParam(value = "availability", required = false) Boolean availability,
+      @RequestParam(value = "format", defaultValue = "ndjson") String format) {
+    if (radius != null && radius <= 0) {
+      return new ResponseEntity<>("Radius must be positive.", HttpStatus.BAD_REQUEST);
+    }
+    return stream(format, writer -> serviceService.streamServices(
+        latitude, longitude, radius, category, availability, writer));
+  }
+
+  /**
+   * Returns one page of the services within a radius, ordered by distance.
+   * Pass the {@code next} cursor of a page back to fetch the following page.
+   *
+   * @param latitude     the latitude of the search origin
+   * @param longitude    the longitude of the search origin
+   * @param radius       the search radius in kilometers (optional, default 10)
+   * @param category     the category of services to filter (optional)
+   * @param availability the availability status to filter services (optional)
+   * @param cursor       the cursor returned with the previous page (optional)
+   * @param limit        the page size (optional)
+   * @return a {@link ResponseEntity} containing the page and the next cursor,
+   *         or HTTP 400 if the coordinates, radius, limit or cursor are invalid
+   */
+  @GetMapping("/query/page")
+  public ResponseEntity<?> queryServicesPage(
+      @RequestParam("latitude") Double latitude,
+      @RequestParam("longitude") Double longitude,
+      @RequestParam(value = "radius", required = false) Double radius,
+      @RequestParam(value = "category", required = false) String category,
+      @RequestParam(value = "availability", required = false) Boolean availability,
+      @RequestParam(value = "cursor", required = false) String cursor,
+      @RequestParam(value = "limit", required = false) Integer limit) {
+    if (latitude < -90 || latitude > 90 || longitude < -180 || longitude > 180) {
+      return new ResponseEntity<>("Invalid coordinates.", HttpStatus.BAD_REQUEST);
+    }
+    if (radius != null && radius <= 0) {
+      return new ResponseEntity<>("Radius must be positive.", HttpStatus.BAD_REQUEST);
+    }
+    if (limit != null && limit < 1) {
+      return new ResponseEntity<>("Limit must be at least 1.", HttpStatus.BAD_REQUEST);
+    }
+
+    try {
+      CursorPage<NearbyService> page = serviceService.queryServicesPage(
+          latitude, longitude, radius, category, availability, cursor, limit);
+      return ResponseEntity.ok(page);
+    } catch (IllegalArgumentException e) {
+      return new ResponseEntity<>(e.getMessage(), HttpStatus.BAD_REQUEST);
+    }
+  }
+
+  /**
+   * Runs the same radius query around many origins in one request, e.g. every stop
+   * of a route. Services near several origins appear once in {@code services} and
+   * are referenced by id from each origin's {@code matches}.
+   *
+   * @param request the origins, the radius (optional) and the category and
+   *                availability filters (optional)
+   * @return a {@link ResponseEntity} containing the distinct services and the matches
+   *         of each origin, or HTTP 400 if the origins or the radius are invalid
+   */
+  @PostMapping("/query/batch")
+  public ResponseEntity<?> queryServicesBatch(@RequestBody BatchQueryRequest request) {
+    List<BatchQueryRequest.Origin> origins = request.getOrigins();
+    if (origins == null || origins.isEmpty()) {
+      return new ResponseEntity<>("At least one origin is required.", HttpStatus.BAD_REQUEST);
+    }
+    if (origins.size() > maxBatchOrigins) {
+      return new ResponseEntity<>("At most " + maxBatchOrigins + " origins are allowed.",
+          HttpStatus.BAD_REQUEST);
+    }
+    for (BatchQueryRequest.Origin origin : origins) {
+      if (origin == null || origin.getLatitude() == null || origin.getLongitude() == null
+          || origin.getLatitude() < -90 || origin.getLatitude() > 90
+          || origin.getLongitude() < -180 || origin.getLongitude() > 180) {
+        return new ResponseEntity<>("Invalid coordinates.", HttpStatus.BAD_REQUEST);
+      }
+    }
+    if (request.getRadius() != null && request.getRadius() <= 0) {
+      return new ResponseEntity<>("Radius must be positive.", HttpStatus.BAD_REQUEST);
+    }
+
+    BatchQueryResult result = serviceService.queryServicesBatch(origins,
+        request.getRadius(), request.getCategory(), request.getAvailability());
+    return ResponseEntity.ok(result);
+  }
+
+  /**
+   * Finds the services within a corridor around a walking or driving route, ordered by how
+   * far along the route they are, instead of querying around each point of the route.
+   *
+   * @param request the route points, the corridor width in kilometers (optional) and the
+   *                category and availability filters (optional)
+   * @return a {@link ResponseEntity} containing the services in the corridor with their
+   *         {@code distanceKm} from the route and {@code alongRouteKm},
+   *         or HTTP 400 if the route or the width are invalid
+   */
+  @PostMapping("/query/route")
+  public ResponseEntity<?> queryServicesAlongRoute(@RequestBody RouteQueryRequest request) {
+    List<RouteQueryRequest.Point> route = request.getRoute();
+    if (route == null || route.size() < 2) {
+      return new ResponseEntity<>("A route needs at least two points.",
+          HttpStatus.BAD_REQUEST);
+    }
+    if (route.size() > maxRoutePoints) {
+      return new ResponseEntity<>("At most " + maxRoutePoints + " route points are allowed.",
+          HttpStatus.BAD_REQUEST);
+    }
+    for (RouteQueryRequest.Point point : route) {
+      if (point == null || point.getLatitude() == null || point.getLongitude() == null
+          || point.getLatitude() < -90 || point.getLatitude() > 90
+          || point.getLongitude() < -180 || point.getLongitude() > 180) {
+        return new ResponseEntity<>("Invalid coordinates.", HttpStatus.BAD_REQUEST);
+      }
+    }
+    if (request.getWidth() != null && request.getWidth() <= 0) {
+      return new ResponseEntity<>("Width must be positive.", HttpStatus.BAD_REQUEST);
+    }
+
+    List<ServiceAlongRoute> services = serviceService.queryServicesAlongRoute(route,
+        request.getWidth(), request.getCategory(), request.getAvailability());
+    return ResponseEntity.ok(services);
+  }
+
+  /**
+   * Queries the services inside an ad-hoc area given as GeoJSON.
+   *
+   * @param geoJson      a GeoJSON Polygon, MultiPolygon or Feature wrapping one
+   * @param category     the category of services to filter (optional)
+   * @param availability the availability status to filter services (optional)
+   * @return a {@link ResponseEntity} containing the services inside the area ordered by id,
+   *         or HTTP 400 if the GeoJSON is not a valid polygonal geometry
+   */
+  @PostMapping("/query/area")
+  public ResponseEntity<?> queryServicesInArea(
+      @RequestBody JsonNode geoJson,
+      @RequestParam(value = "category", required = false) String category,
+      @RequestParam(value = "availability", required = false) Boolean availability) {
+    GeoPolygon area;
+    try {
+      area = GeoPolygon.fromGeoJson(geoJson);
+    } catch (IllegalArgumentException e) {
+      return new ResponseEntity<>("Invalid GeoJSON: " + e.getMessage(),
+          HttpStatus.BAD_REQUEST);
+    }
+    return ResponseEntity.ok(serviceService.findServicesInArea(area, category, availability));
+  }
+
+  /**
+   * Returns the hit and miss counters of the {@code /services/query} result cache.
+   *
+   * @return a {@link ResponseEntity} containing the cache counters
+   */
+  @GetMapping("/query/cache-stats")
+  public ResponseEntity<QueryCacheStats> getQueryCacheStats() {
+    return ResponseEntity.ok(serviceService.getQueryCacheStats());
+  }
+
+  /**
+   * Returns the map markers for a viewport, so that the map does not have to load and
+   * cluster every service itself. Nearby services are merged into clusters with their
+   * counts per category; services on their own are returned individually.
+   *
+   * @param minLat the southern edge of the viewport
+   * @param minLon the western edge of the viewport, greater than {@code maxLon} when the
+   *               viewport crosses the antimeridian
+   * @param maxLat the northern edge of the viewport
+   * @param maxLon the eastern edge of the viewport
+   * @param zoom   the map zoom level
+   * @return a {@link ResponseEntity} containing the markers, or HTTP 400 if the viewport
+   *         or the zoom level are invalid
+   */
+  @GetMapping("/clusters")
+  public ResponseEntity<?> findClusters(
+      @RequestParam("minLat") Double minLat,
+      @RequestParam("minLon") Double minLon,
+      @RequestParam("maxLat") Double maxLat,
+      @RequestParam("maxLon") Double maxLon,
+      @RequestParam("zoom") int zoom) {
+    if (minLat < -90 || maxLat > 90 || minLat > maxLat
+        || minLon < -180 || minLon > 180 || maxLon < -180 || maxLon > 180) {
+      return new ResponseEntity<>("Invalid bounding box.", HttpStatus.BAD_REQUEST);
+    }
+    if (zoom < 0 || zoom > 30) {
+      return new ResponseEntity<>("Zoom must be between 0 and 30.", HttpStatus.BAD_REQUEST);
+    }
+
+    List<ServiceCluster> clusters =
+        serviceService.findClusters(minLat, minLon, maxLat, maxLon, zoom);
+    return ResponseEntity.ok(clusters);
+  }
+
+  /**
+   * Finds the {@code k} services closest to a point, ordered by distance.
+   *
+   * @param latitude     the latitude of the search origin
+   * @param longitude    the longitude of the search origin
+   * @param k            the number of services to return (default 5)
+   * @param category     the category of services to filter (optional)
+   * @param availability the availability status to filter services (optional)
+   * @return a {@link ResponseEntity} containing the closest services with their
+   *         {@code distanceKm}, or HTTP 400 if the coordinates or {@code k} are invalid
+   */
+  @GetMapping("/nearest")
+  public ResponseEntity<?> findNearestServices(
+      @RequestParam("lat") Double latitude,
+      @RequestParam("lon") Double longitude,
+      @RequestParam(value = "k", defaultValue = "5") int k,
+      @RequestParam(value = "category", required = false) String category,
+      @RequestParam(value = "availability", required = false) Boolean availability) {
+    if (latitude < -90 || latitude > 90 || longitude < -180 || longitude > 180) {
+      return new ResponseEntity<>("Invalid coordinates.", HttpStatus.BAD_REQUEST);
+    }
+    if (k < 1) {
+      return new ResponseEntity<>("k must be at least 1.", HttpStatus.BAD_REQUEST);
+    }
+
+    List<NearbyService> services = serviceService.findNearestServices(
+        latitude, longitude, k, category, availability);
+    return ResponseEntity.ok(services);
+  }
+
+  /**
+   * Searches services by text. The words of the query are matched against the name,
+   * address, city and category of every service, ranked with BM25, and can be combined
+   * with the location, category and availability filters of {@code /services/query}.
+   *
+   * @param query        the words to search for
+   * @param latitude     the latitude of the search origin (optional)
+   * @param longitude    the longitude of the search origin (optional)
+   * @param radius       the search radius in kilometers (optional, default 10)
+   * @param category     the category of services to filter (optional)
+   * @param availability the availability status to filter services (optional)
+   * @param limit        the maximum number of services to return (optional)
+   * @return the matching services with their {@code score}, best first, or HTTP 400 if the
+   *         query has no words or the coordinates, radius or limit are invalid
+   */
+  @GetMapping("/search")
+  public ResponseEntity<?> searchServices(
+      @RequestParam("q") String query,
+      @RequestParam(value = "latitude", required = false) Double latitude,
+      @RequestParam(value = "longitude", required = false) Double longitude,
+      @RequestParam(value = "radius", required = false) Double radius,
+      @RequestParam(value = "category", required = false) String category,
+      @RequestParam(value = "availability", required = false) Boolean availability,
+      @RequestParam(value = "limit", required = false) Integer limit) {
+    if (radius != null && radius <= 0) {
+      return new ResponseEntity<>("Radius must be positive.", HttpStatus.BAD_REQUEST);
+    }
+    try {
+      return ResponseEntity.ok(serviceService.searchServices(query, latitude, longitude,
+          radius, category, availability, limit));
+    } catch (IllegalArgumentException e) {
+      return new ResponseEntity<>(e.getMessage(), HttpStatus.BAD_REQUEST);
+    }
+  }
+
   /**
    * Deletes a service by its ID.
    *
@@ -89,6 +480,25 @@ public class ServiceController {
     }
   }
 
+  /**
+   * Deletes many services at once, either by id or by filter. The services are deleted in
+   * chunks of {@code service.delete.chunk-size}, each in its own short transaction, so a
+   * large delete does not hold row locks that stall other requests.
+   *
+   * @param request the ids to delete, or the category, availability, city, state and
+   *                zipcode the deleted services must all match
+   * @return HTTP 200 with the number of services deleted, or HTTP 400 if the request has
+   *         both ids and a filter, or neither
+   */
+  @PostMapping("/delete")
+  public ResponseEntity<?> deleteServices(@RequestBody BulkDeleteRequest request) {
+    try {
+      return ResponseEntity.ok(serviceService.deleteServices(request));
+    } catch (IllegalArgumentException e) {
+      return new ResponseEntity<>(e.getMessage(), HttpStatus.BAD_REQUEST);
+    }
+  }
+
   /**
    * Updates a service identified by its ID with the provided service data.
    *
@@ -100,29 +510,159 @@ public class ServiceController {
    * {@code service} object will be updated.
    * </p>
    *
+   * <p>
+   * With an {@code If-Match} header holding the ETag of the service, the update is only
+   * applied if nobody changed the service since that ETag was handed out, so concurrent
+   * clients fail fast instead of overwriting each other.
+   * </p>
+   *
    * @param id      the ID of the service to update
    * @param service the service data containing the fields to be updated
+   * @param ifMatch the ETag the update is based on (optional)
    * @return a {@link ResponseEntity} containing the updated {@link ServiceEntity}
    *         and the appropriate HTTP status:
    *         <ul>
    *         <li>{@code 200 OK} if the update is successful</li>
    *         <li>{@code 404 Not Found} if the service with the given ID does not
    *         exist</li>
+   *         <li>{@code 412 Precondition Failed} if the service no longer matches
+   *         {@code If-Match}</li>
+   *         <li>{@code 409 Conflict} if another update was saved while this one was
+   *         applied without {@code If-Match}</li>
    *         </ul>
    */
   @PutMapping("/{id}")
-  public ResponseEntity<ServiceEntity> updateService(@PathVariable Long id,
-      @RequestBody ServiceEntity service) {
-    ServiceEntity updatedService = serviceService.updateService(id, service);
+  public ResponseEntity<?> updateService(@PathVariable Long id,
+      @RequestBody ServiceEntity service,
+      @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+    ServiceEntity updatedService;
+    try {
+      if (ifMatch == null || "*".equals(ifMatch.trim())) {
+        updatedService = serviceService.updateService(id, service);
+      } else {
+        Long expectedVersion = ServiceVersions.parseServiceEtag(id, ifMatch);
+        if (expectedVersion == null) {
+          return new ResponseEntity<>("If-Match must be a strong ETag of this service.",
+              HttpStatus.PRECONDITION_FAILED);
+        }
+        updatedService = serviceService.updateService(id, service, expectedVersion);
+      }
+    } catch (OptimisticLockingFailureException e) {
+      return new ResponseEntity<>("Service was modified by another request.",
+          ifMatch == null ? HttpStatus.CONFLICT : HttpStatus.PRECONDITION_FAILED);
+    }
     if (updatedService != null) {
-      // Update successful, return the updated service with HTTP 200 OK
-      return ResponseEntity.ok(updatedService);
+      // Update successful, return the updated service and its new ETag with HTTP 200 OK
+      String etag = serviceService.getServiceEtag(id, null);
+      return etag == null ? ResponseEntity.ok(updatedService)
+          : ResponseEntity.ok().eTag(etag).body(updatedService);
     } else {
       // Service not found, return HTTP 404 Not Found
       return ResponseEntity.notFound().build();
     }
   }
 
+  /**
+   * Changes some fields of a service with a single conditional UPDATE.
+   *
+   * <p>
+   * The body is a JSON merge patch: the fields present are set, {@code null} clears a
+   * field. The update only applies if the service is still at the version it is based on,
+   * given as an {@code If-Match} ETag or as {@code version} in the body, so concurrent
+   * writers cannot silently overwrite each other.
+   * </p>
+   *
+   * @param id      the ID of the service to update
+   * @param body    the fields to change, optionally with {@code version}
+   * @param ifMatch the ETag the patch is based on (optional if the body has a version)
+   * @return the updated service with its new version and ETag, or:
+   *         <ul>
+   *         <li>{@code 400 Bad Request} if a field is unknown or invalid, or the category
+   *         does not exist</li>
+   *         <li>{@code 404 Not Found} if the service does not exist</li>
+   *         <li>{@code 409 Conflict} if the service is no longer at the version of the
+   *         body</li>
+   *         <li>{@code 412 Precondition Failed} if the service no longer matches
+   *         {@code If-Match}</li>
+   *         <li>{@code 428 Precondition Required} if no version is given</li>
+   *         </ul>
+   */
+  @PatchMapping("/{id}")
+  public ResponseEntity<?> patchService(@PathVariable Long id, @RequestBody JsonNode body,
+      @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+    ServicePatch patch;
+    try {
+      patch = ServicePatch.parse(body, validator);
+    } catch (IllegalArgumentException e) {
+      return new ResponseEntity<>(e.getMessage(), HttpStatus.BAD_REQUEST);
+    }
+    Long expectedVersion = patch.getVersion();
+    if (ifMatch != null) {
+      expectedVersion = ServiceVersions.parseServiceEtag(id, ifMatch);
+      if (expectedVersion == null) {
+        return new ResponseEntity<>("If-Match must be a strong ETag of this service.",
+            HttpStatus.PRECONDITION_FAILED);
+      }
+    }
+    if (expectedVersion == null) {
+      return new ResponseEntity<>("Send If-Match or a version to patch a service.",
+          HttpStatus.PRECONDITION_REQUIRED);
+    }
+    if (patch.changes("category")
+        && !categoryService.categoryExists((String) patch.get("category"))) {
+      return new ResponseEntity<>("Category does not exist", HttpStatus.BAD_REQUEST);
+    }
+
+    ServiceEntity patchedService;
+    try {
+      patchedService = serviceService.patchService(id, patch, expectedVersion);
+    } catch (OptimisticLockingFailureException e) {
+      return new ResponseEntity<>("Service was modified by another request.",
+          ifMatch == null ? HttpStatus.CONFLICT : HttpStatus.PRECONDITION_FAILED);
+    }
+    if (patchedService == null) {
+      return ResponseEntity.notFound().build();
+    }
+    String etag = serviceService.getServiceEtag(id, null);
+    return etag == null ? ResponseEntity.ok(patchedService)
+        : ResponseEntity.ok().eTag(etag).body(patchedService);
+  }
+
+  /**
+   * Sets whether a service is available, for shelters that open and fill up many times a
+   * day. The change is visible to queries at once and written to the database in the
+   * background, batched with other changes, instead of reading and saving the whole
+   * service.
+   *
+   * <p>
+   * A 200 response means the change was accepted, not that it was stored. If the row is
+   * changed or deleted outside this application before the change is written, the stored
+   * row wins and the change is dropped without telling the client; reads then return the
+   * stored service under a new ETag, so a client that must know can compare the ETag of a
+   * later {@code GET}.
+   * </p>
+   *
+   * @param id      the ID of the service
+   * @param request the new availability
+   * @return the service as it now is, with its new ETag, HTTP 400 if the availability is
+   *         missing, or HTTP 404 if the service does not exist
+   */
+  @PutMapping("/{id}/availability")
+  public ResponseEntity<?> setAvailability(@PathVariable Long id,
+      @RequestBody AvailabilityRequest request) {
+    if (request.getAvailability() == null) {
+      return new ResponseEntity<>("Availability must be true or false.",
+          HttpStatus.BAD_REQUEST);
+    }
+    ServiceEntity service = serviceService.setAvailability(id, request.getAvailability());
+    if (service == null) {
+      return ResponseEntity.notFound().build();
+    }
+    String etag = serviceService.getServiceEtag(id, null);
+    return etag == null ? ResponseEntity.ok(service)
+        : ResponseEntity.ok().eTag(etag).body(service);
+  }
+
   /**
    * End point for registering a new service.
    * This method validates the service entity and checks if the specified
@@ -168,24 +708,137 @@ public class ServiceController {
   }
 
   /**
-   * Retrieves all services for all categories.
+   * Imports a catalog of services in bulk, streaming the request body.
+   * Every valid record becomes a new service; the others are reported with their row
+   * without stopping the import.
    *
-   * @return a list of all services
+   * @param contentType {@code application/json} for an array of services, or
+   *                    {@code text/csv} for CSV with a header row of service fields
+   * @param body        the catalog
+   * @return HTTP 200 with the number of imported and rejected records and the row errors,
+   *         or HTTP 400 if the catalog is not a JSON array or has an unknown CSV column
+   * @throws IOException if the body cannot be read
+   */
+  @PostMapping(value = "/import", consumes = {MediaType.APPLICATION_JSON_VALUE, "text/csv"})
+  public ResponseEntity<?> importServices(
+      @RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType, InputStream body)
+      throws IOException {
+    ImportFormat format = ImportFormat.fromContentType(contentType);
+    if (format == null) {
+      return new ResponseEntity<>("Content type must be application/json or text/csv.",
+          HttpStatus.UNSUPPORTED_MEDIA_TYPE);
+    }
+    try {
+      ImportResult result = serviceImportService.importServices(body, format);
+      return ResponseEntity.ok(result);
+    } catch (IllegalArgumentException e) {
+      return new ResponseEntity<>(e.getMessage(), HttpStatus.BAD_REQUEST);
+    }
+  }
+
+  /**
+   * Retrieves all services for all categories, one page at a time.
+   * Pass the {@code next} cursor of a page back, with the same sort, to fetch the following
+   * page. The whole table is only returned as one array when {@code unpaged=true}.
+   *
+   * @param sort    {@code id} (default), {@code name}, {@code city} or {@code category}
+   * @param cursor  the cursor returned with the previous page (optional)
+   * @param limit   the page size (optional)
+   * @param unpaged true to return every service as a single array instead of a page
+   * @param fields  the comma separated fields to return (optional, default all)
+   * @param request the request, for its {@code If-None-Match} header
+   * @return a {@link ResponseEntity} containing the page and the next cursor, or all
+   *         services when unpaged, HTTP 304 if no service changed since the ETag the
+   *         client sent, or HTTP 400 if the sort, limit, cursor or a field is invalid
    */
   @GetMapping
-  public ResponseEntity<List<ServiceEntity>> getAllServices() {
-    List<ServiceEntity> services = serviceService.getAllServices();
-    return ResponseEntity.ok(services);
+  public ResponseEntity<?> getAllServices(
+      @RequestParam(value = "sort", defaultValue = "id") String sort,
+      @RequestParam(value = "cursor", required = false) String cursor,
+      @RequestParam(value = "limit", required = false) Integer limit,
+      @RequestParam(value = "unpaged", defaultValue = "false") boolean unpaged,
+      @RequestParam(value = "fields", required = false) String fields,
+      WebRequest request) {
+    ServiceFields fieldset;
+    try {
+      fieldset = ServiceFields.parse(fields);
+    } catch (IllegalArgumentException e) {
+      return new ResponseEntity<>(e.getMessage(), HttpStatus.BAD_REQUEST);
+    }
+    if (notModified(request, datasetEtag("/services", request))) {
+      return null;
+    }
+    if (unpaged) {
+      List<ServiceEntity> services = serviceService.getAllServices();
+      if (fieldset != null) {
+        return ResponseEntity.ok(services.stream().map(fieldset::project).toList());
+      }
+      return ResponseEntity.ok(services);
+    }
+    ServiceSort serviceSort = ServiceSort.fromParameter(sort);
+    if (serviceSort == null) {
+      return new ResponseEntity<>("Sort must be id, name, city or category.",
+          HttpStatus.BAD_REQUEST);
+    }
+    if (limit != null && limit < 1) {
+      return new ResponseEntity<>("Limit must be at least 1.", HttpStatus.BAD_REQUEST);
+    }
+
+    try {
+      if (fieldset != null) {
+        return ResponseEntity.ok(serviceService.getServicesPage(serviceSort, cursor, limit,
+            fieldset));
+      }
+      CursorPage<ServiceEntity> page = serviceService.getServicesPage(serviceSort, cursor,
+          limit);
+      return ResponseEntity.ok(page);
+    } catch (IllegalArgumentException e) {
+      return new ResponseEntity<>(e.getMessage(), HttpStatus.BAD_REQUEST);
+    }
+  }
+
+  /**
+   * Streams all services in id order, writing each one to the response as it is read from
+   * the database instead of building the whole listing in memory.
+   *
+   * @param format {@code ndjson} (default) or {@code geojson}
+   * @return a streamed response body, or HTTP 400 if the format is invalid
+   */
+  @GetMapping("/stream")
+  public ResponseEntity<?> streamAllServices(
+      @RequestParam(value = "format", defaultValue = "ndjson") String format) {
+    return stream(format, serviceService::streamAllServices);
   }
 
   /**
    * Retrieves all data for a service with the given id.
    *
-   * @param id the id of the service to retrieve
-   * @return the service entity if found, or a 404 Not Found status if not found
+   * @param id     the id of the service to retrieve
+   * @param fields  the comma separated fields to return (optional, default all)
+   * @param request the request, for its {@code If-None-Match} header
+   * @return the service entity if found, HTTP 304 if it has not changed since the ETag the
+   *         client sent, a 404 Not Found status if not found, or HTTP 400 if a field is
+   *         unknown
    */
   @GetMapping("/{id}")
-  public ResponseEntity<ServiceEntity> getServiceById(@PathVariable Long id) {
+  public ResponseEntity<?> getServiceById(@PathVariable Long id,
+      @RequestParam(value = "fields", required = false) String fields,
+      WebRequest request) {
+    ServiceFields fieldset;
+    try {
+      fieldset = ServiceFields.parse(fields);
+    } catch (IllegalArgumentException e) {
+      return new ResponseEntity<>(e.getMessage(), HttpStatus.BAD_REQUEST);
+    }
+    // Answered from the version column alone, without reading the service
+    if (notModified(request, serviceService.getServiceEtag(id, fieldset))) {
+      return null;
+    }
+    if (fieldset != null) {
+      return serviceService.getServiceById(id, fieldset)
+          .<ResponseEntity<?>>map(ResponseEntity::ok)
+          .orElseGet(() -> ResponseEntity.status(HttpStatus.NOT_FOUND).build());
+    }
     Optional<ServiceEntity> service = serviceService.getServiceById(id);
     if (service.isPresent()) {
       return ResponseEntity.ok(service.get());
@@ -193,4 +846,44 @@ public class ServiceController {
       return ResponseEntity.status(HttpStatus.NOT_FOUND).build(); // Return 404 if service not found
     }
   }
+
+  private static boolean notModified(WebRequest request, String etag) {
+    // Also sets the ETag header on the response when the content has changed
+    return etag != null && request.checkNotModified(etag);
+  }
+
+  private String datasetEtag(String path, WebRequest request) {
+    StringBuilder query = new StringBuilder(path);
+    new TreeMap<>(request.getParameterMap()).forEach((name, values) -> {
+      query.append('\n').append(name);
+      for (String value : values) {
+        query.append('\u0000').append(value);
+      }
+    });
+    return serviceService.getDatasetEtag(query.toString());
+  }
+
+  private ResponseEntity<?> stream(String format, StreamSource source) {
+    StreamFormat streamFormat = StreamFormat.fromParameter(format);
+    if (streamFormat == null) {
+      return new ResponseEntity<>("Format must be ndjson or geojson.", HttpStatus.BAD_REQUEST);
+    }
+    StreamingResponseBody body = out -> {
+      try (ServiceStreamWriter writer =
+          new ServiceStreamWriter(out, streamFormat, objectMapper)) {
+        source.writeTo(writer);
+      }
+    };
+    return ResponseEntity.ok()
+        .contentType(MediaType.parseMediaType(streamFormat.getMediaType()))
+        .body(body);
+  }
+
+  /**
+   * Sends services to a stream writer.
+   */
+  @FunctionalInterface
+  private interface StreamSource {
+    void writeTo(ServiceStreamWriter writer) throws IOException;
+  }
 }
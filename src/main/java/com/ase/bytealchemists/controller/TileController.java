@@ -0,0 +1,66 @@
+package com.ase.bytealchemists.controller;
+
+import com.ase.bytealchemists.service.ServiceService;
+import com.ase.bytealchemists.service.ServiceTileCache;
+import com.ase.bytealchemists.service.ServiceTiles;
+import java.util.concurrent.TimeUnit;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Controller serving the services as map tiles in the Homeless Support API.
+ * Tiles use the usual {@code z/x/y} Web Mercator scheme and are cached on the server;
+ * each carries a strong ETag so that browsers and proxies can revalidate it cheaply.
+ *
+ * @author Byte Alchemists
+ * @version 1.0
+ */
+@RestController
+@RequestMapping("/tiles")
+public class TileController {
+  @Autowired
+  private ServiceService serviceService;
+
+  @Value("${geo.tiles.max-age-seconds:60}")
+  private long maxAgeSeconds = 60;
+
+  /**
+   * Returns the services inside a map tile as compact JSON, or their clusters when the tile
+   * holds more than {@code geo.tiles.max-features} of them.
+   *
+   * @param z            the zoom level
+   * @param x            the tile column
+   * @param y            the tile row, counted from the north
+   * @param category     the category of services to filter (optional)
+   * @param availability the availability status to filter services (optional)
+   * @return the tile, HTTP 304 if the client's copy is current,
+   *         or HTTP 400 if the tile coordinates are invalid
+   */
+  @GetMapping("/{z}/{x}/{y}")
+  public ResponseEntity<?> getTile(@PathVariable int z, @PathVariable int x,
+      @PathVariable int y,
+      @RequestParam(value = "category", required = false) String category,
+      @RequestParam(value = "availability", required = false) Boolean availability) {
+    if (z < 0 || z > ServiceTiles.MAX_ZOOM || x < 0 || y < 0 || x >= 1L << z
+        || y >= 1L << z) {
+      return new ResponseEntity<>("Invalid tile coordinates.", HttpStatus.BAD_REQUEST);
+    }
+
+    ServiceTileCache.Tile tile = serviceService.getTile(z, x, y, category, availability);
+    // Spring answers a matching If-None-Match with 304 and no body
+    return ResponseEntity.ok()
+        .eTag(tile.getEtag())
+        .cacheControl(CacheControl.maxAge(maxAgeSeconds, TimeUnit.SECONDS))
+        .contentType(MediaType.APPLICATION_JSON)
+        .body(tile.getContent());
+  }
+}
@@ -0,0 +1,37 @@
+package com.ase.bytealchemists.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Entity representing a named search area, such as a borough or a catchment area.
+ * This class maps to the "area" table in the database and stores the area's boundary
+ * as a GeoJSON Polygon or MultiPolygon.
+ *
+ * @author Byte Alchemists
+ * @version 1.0
+ */
+@Entity
+@Table(name = "area")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AreaEntity {
+
+  @Id
+  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  private Long id;
+
+  @Column(nullable = false, unique = true)
+  private String name;
+
+  @Column(nullable = false, columnDefinition = "LONGTEXT")
+  private String geoJson;
+}
@@ -0,0 +1,28 @@
+package com.ase.bytealchemists.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Size of the in-memory autocomplete index.
+ *
+ * @author Byte Alchemists
+ * @version 1.0
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AutocompleteStats {
+
+  private int names;
+
+  private int cities;
+
+  private int categories;
+
+  private long nodes;
+
+  // Estimated heap size of the tries and of the per-service bookkeeping
+  private long estimatedBytes;
+}
@@ -0,0 +1,25 @@
+package com.ase.bytealchemists.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One completion offered for a prefix typed into the search box.
+ *
+ * @author Byte Alchemists
+ * @version 1.0
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AutocompleteSuggestion {
+
+  private String text;
+
+  // name, city or category
+  private String type;
+
+  // How many services have this name, are in this city or in this category
+  private long popularity;
+}
@@ -0,0 +1,19 @@
+package com.ase.bytealchemists.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Body of an availability change: whether the service can currently take people in.
+ *
+ * @author Byte Alchemists
+ * @version 1.0
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AvailabilityRequest {
+
+  private Boolean availability;
+}
@@ -0,0 +1,40 @@
+package com.ase.bytealchemists.model;
+
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Body of a batch radius query: several origins searched with the same radius
+ * and filters, e.g. the stops of an outreach route.
+ *
+ * @author Byte Alchemists
+ * @version 1.0
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchQueryRequest {
+
+  private List<Origin> origins;
+
+  private Double radius;
+
+  private String category;
+
+  private Boolean availability;
+
+  /**
+   * One search origin.
+   */
+  @Data
+  @NoArgsConstructor
+  @AllArgsConstructor
+  public static class Origin {
+
+    private Double latitude;
+
+    private Double longitude;
+  }
+}
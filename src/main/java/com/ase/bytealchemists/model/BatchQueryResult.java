@@ -0,0 +1,52 @@
+package com.ase.bytealchemists.model;
+
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Result of a batch radius query.
+ * Every matching service appears once in {@code services}; the per-origin results in
+ * {@code results}, in request order, refer to them by id with their distance.
+ *
+ * @author Byte Alchemists
+ * @version 1.0
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchQueryResult {
+
+  private List<ServiceEntity> services;
+
+  private List<OriginResult> results;
+
+  /**
+   * The services found around one origin, closest first.
+   */
+  @Data
+  @NoArgsConstructor
+  @AllArgsConstructor
+  public static class OriginResult {
+
+    private Double latitude;
+
+    private Double longitude;
+
+    private List<Match> matches;
+  }
+
+  /**
+   * A reference to a service in {@code services} and its distance from the origin.
+   */
+  @Data
+  @NoArgsConstructor
+  @AllArgsConstructor
+  public static class Match {
+
+    private Long id;
+
+    private Double distanceKm;
+  }
+}
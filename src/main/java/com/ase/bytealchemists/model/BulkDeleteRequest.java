@@ -0,0 +1,31 @@
+package com.ase.bytealchemists.model;
+
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Body of a bulk service delete: either the ids to delete, or a filter that selects them.
+ * The filter fields combine like the query parameters of {@code GET /services/query}.
+ *
+ * @author Byte Alchemists
+ * @version 1.0
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkDeleteRequest {
+
+  private List<Long> ids;
+
+  private String category;
+
+  private Boolean availability;
+
+  private String city;
+
+  private String state;
+
+  private String zipcode;
+}
@@ -0,0 +1,22 @@
+package com.ase.bytealchemists.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Outcome of a bulk service delete.
+ *
+ * @author Byte Alchemists
+ * @version 1.0
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkDeleteResult {
+
+  private long deleted;
+
+  // Each chunk is deleted in its own short transaction
+  private int chunks;
+}
@@ -0,0 +1,25 @@
+package com.ase.bytealchemists.model;
+
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One page of a keyset-paginated listing.
+ * {@code next} is an opaque cursor to pass back to fetch the following page,
+ * or null when there are no more results.
+ *
+ * @param <T> the type of the items on the page
+ * @author Byte Alchemists
+ * @version 1.0
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CursorPage<T> {
+
+  private List<T> items;
+
+  private String next;
+}
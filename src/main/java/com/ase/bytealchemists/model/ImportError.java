@@ -0,0 +1,22 @@
+package com.ase.bytealchemists.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A record of a bulk service import that was not imported, and why.
+ *
+ * @author Byte Alchemists
+ * @version 1.0
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ImportError {
+
+  // 1-based position of the record: the array element, or the CSV line after the header
+  private long row;
+
+  private String message;
+}
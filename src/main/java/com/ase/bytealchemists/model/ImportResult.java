@@ -0,0 +1,28 @@
+package com.ase.bytealchemists.model;
+
+import java.util.ArrayList;
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Outcome of a bulk service import.
+ *
+ * @author Byte Alchemists
+ * @version 1.0
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ImportResult {
+
+  private long received;
+
+  private long imported;
+
+  private long failed;
+
+  // The first failures, up to service.import.max-errors; failed counts all of them
+  private List<ImportError> errors = new ArrayList<>();
+}
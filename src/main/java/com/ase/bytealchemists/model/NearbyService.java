@@ -0,0 +1,25 @@
+package com.ase.bytealchemists.model;
+
+import com.fasterxml.jackson.annotation.JsonUnwrapped;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A service returned by a location-based search together with its great-circle
+ * distance from the search origin.
+ * The service fields are serialized inline, next to {@code distanceKm}.
+ *
+ * @author Byte Alchemists
+ * @version 1.0
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class NearbyService {
+
+  @JsonUnwrapped
+  private ServiceEntity service;
+
+  private Double distanceKm;
+}
@@ -0,0 +1,26 @@
+package com.ase.bytealchemists.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One period a service is open on one weekday, as returned with the service.
+ *
+ * @author Byte Alchemists
+ * @version 1.0
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OpeningInterval {
+
+  // MONDAY to SUNDAY
+  private String day;
+
+  // Local time of the service, from 00:00
+  private String open;
+
+  // Local time of the service, up to 24:00
+  private String close;
+}
@@ -0,0 +1,201 @@
+package com.ase.bytealchemists.model;
+
+import java.time.DayOfWeek;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * The weekly opening hours of a service, parsed from its {@code operationHour} text.
+ *
+ * <p>
+ * The text is one or more ranges separated by {@code "; "}, each optionally preceded by a
+ * day or a range of days: {@code "9 AM - 5 PM"} (every day), {@code "Mon-Fri 8:30 AM - 6 PM;
+ * Sat 10 AM - 2 PM"}. A range that ends at or before its start runs overnight into the next
+ * day, so {@code "Fri 10 PM - 6 AM"} is open until Saturday morning, and one that ends at
+ * its start is open around the clock.
+ * </p>
+ *
+ * <p>
+ * The hours are kept as sorted, merged {@code [open, close)} intervals of minutes since
+ * Monday midnight in the local time of the service, so checking a time is a binary search.
+ * Instances are immutable and can be shared between threads.
+ * </p>
+ *
+ * @author Byte Alchemists
+ * @version 1.0
+ */
+public final class OperatingHours {
+
+  private static final String DAY = "(Mon|Tue|Wed|Thu|Fri|Sat|Sun)";
+  private static final String TIME = "\\d{1,2}(:\\d{2})? (AM|PM)";
+  private static final String RANGE = "(" + DAY + "(-" + DAY + ")? )?" + TIME + " - " + TIME;
+
+  /**
+   * The accepted format of the {@code operationHour} text.
+   */
+  public static final String PATTERN = RANGE + "(; " + RANGE + ")*";
+
+  /**
+   * The number of minutes in a week.
+   */
+  public static final int MINUTES_PER_WEEK = 7 * 24 * 60;
+
+  private static final int MINUTES_PER_DAY = 24 * 60;
+  private static final String[] DAYS = {"Mon", "Tue", "Wed", "Thu", "Fri", "Sat", "Sun"};
+  private static final Pattern FORMAT = Pattern.compile(PATTERN);
+  private static final Pattern PARTS = Pattern.compile(
+      "(?:(\\w{3})(?:-(\\w{3}))? )?(\\d{1,2})(?::(\\d{2}))? (AM|PM) - "
+          + "(\\d{1,2})(?::(\\d{2}))? (AM|PM)");
+
+  // Flattened {open, close} pairs, sorted and neither overlapping nor touching
+  private final int[] intervals;
+
+  private OperatingHours(int[] intervals) {
+    this.intervals = intervals;
+  }
+
+  /**
+   * Parses an {@code operationHour} text.
+   *
+   * @param text the text, e.g. {@code "Mon-Fri 9 AM - 5 PM; Sat 10 AM - 2 PM"}
+   * @return the hours
+   * @throws IllegalArgumentException if the text does not follow {@link #PATTERN}, or an
+   *         hour is not between 1 and 12 or a minute not between 0 and 59
+   */
+  public static OperatingHours parse(String text) {
+    if (text == null || !FORMAT.matcher(text).matches()) {
+      throw new IllegalArgumentException("Operation hours must follow the format: "
+          + "'9 AM - 5 PM' or 'Mon-Fri 9 AM - 5 PM; Sat 10 AM - 2 PM'");
+    }
+    List<int[]> ranges = new ArrayList<>();
+    for (String range : text.split("; ")) {
+      Matcher parts = PARTS.matcher(range);
+      parts.matches();
+      int firstDay = parts.group(1) == null ? 0 : day(parts.group(1));
+      int lastDay = parts.group(1) == null ? 6
+          : parts.group(2) == null ? firstDay : day(parts.group(2));
+      int open = minuteOfDay(parts.group(3), parts.group(4), parts.group(5));
+      int close = minuteOfDay(parts.group(6), parts.group(7), parts.group(8));
+      if (close <= open) {
+        close += MINUTES_PER_DAY;
+      }
+      // Day ranges may wrap around the week, e.g. Fri-Mon
+      int days = (lastDay - firstDay + 7) % 7 + 1;
+      for (int i = 0; i < days; i++) {
+        int start = (firstDay + i) % 7 * MINUTES_PER_DAY + open;
+        int end = start + close - open;
+        if (end > MINUTES_PER_WEEK) {
+          // Sunday night runs into Monday morning
+          ranges.add(new int[] {start, MINUTES_PER_WEEK});
+          ranges.add(new int[] {0, end - MINUTES_PER_WEEK});
+        } else {
+          ranges.add(new int[] {start, end});
+        }
+      }
+    }
+
+    ranges.sort((a, b) -> Integer.compare(a[0], b[0]));
+    int[] merged = new int[ranges.size() * 2];
+    int size = 0;
+    for (int[] range : ranges) {
+      if (size > 0 && range[0] <= merged[size - 1]) {
+        merged[size - 1] = Math.max(merged[size - 1], range[1]);
+      } else {
+        merged[size++] = range[0];
+        merged[size++] = range[1];
+      }
+    }
+    return new OperatingHours(Arrays.copyOf(merged, size));
+  }
+
+  /**
+   * Returns the minute of the week of a local time, counted from Monday midnight.
+   *
+   * @param time the local time
+   * @return the minute, from 0 to {@link #MINUTES_PER_WEEK} - 1
+   */
+  public static int minuteOfWeek(LocalDateTime time) {
+    return (time.getDayOfWeek().getValue() - 1) * MINUTES_PER_DAY + time.getHour() * 60
+        + time.getMinute();
+  }
+
+  /**
+   * Tells whether the service is open at a minute of the week, in its own local time.
+   *
+   * @param minuteOfWeek the minute, counted from Monday midnight
+   * @return true if the minute falls inside one of the intervals
+   */
+  public boolean isOpenAt(int minuteOfWeek) {
+    // Find the last interval opening at or before the minute
+    int low = 0;
+    int high = intervals.length / 2 - 1;
+    int found = -1;
+    while (low <= high) {
+      int middle = (low + high) >>> 1;
+      if (intervals[2 * middle] <= minuteOfWeek) {
+        found = middle;
+        low = middle + 1;
+      } else {
+        high = middle - 1;
+      }
+    }
+    return found >= 0 && minuteOfWeek < intervals[2 * found + 1];
+  }
+
+  /**
+   * Tells whether the service is open at a local time.
+   *
+   * @param time the local time of the service
+   * @return true if the service is open then
+   */
+  public boolean isOpenAt(LocalDateTime time) {
+    return isOpenAt(minuteOfWeek(time));
+  }
+
+  /**
+   * Returns the hours as opening and closing times per weekday, Monday first. An interval
+   * running past midnight is split at midnight, the first part closing at {@code 24:00}.
+   *
+   * @return the intervals
+   */
+  public List<OpeningInterval> toIntervals() {
+    List<OpeningInterval> days = new ArrayList<>();
+    for (int i = 0; i < intervals.length; i += 2) {
+      int start = intervals[i];
+      while (start < intervals[i + 1]) {
+        int day = start / MINUTES_PER_DAY;
+        int end = Math.min(intervals[i + 1], (day + 1) * MINUTES_PER_DAY);
+        days.add(new OpeningInterval(DayOfWeek.of(day + 1).name(),
+            clock(start - day * MINUTES_PER_DAY), clock(end - day * MINUTES_PER_DAY)));
+        start = end;
+      }
+    }
+    return days;
+  }
+
+  private static int day(String name) {
+    return Arrays.asList(DAYS).indexOf(name);
+  }
+
+  private static int minuteOfDay(String hour, String minute, String half) {
+    int hours = Integer.parseInt(hour);
+    int minutes = minute == null ? 0 : Integer.parseInt(minute);
+    if (hours < 1 || hours > 12) {
+      throw new IllegalArgumentException("Hour must be between 1 and 12: " + hour);
+    }
+    if (minutes > 59) {
+      throw new IllegalArgumentException("Minute must be between 0 and 59: " + minute);
+    }
+    // 12 AM is midnight and 12 PM is noon
+    return (hours % 12 + ("PM".equals(half) ? 12 : 0)) * 60 + minutes;
+  }
+
+  private static String clock(int minuteOfDay) {
+    return String.format(Locale.ROOT, "%02d:%02d", minuteOfDay / 60, minuteOfDay % 60);
+  }
+}
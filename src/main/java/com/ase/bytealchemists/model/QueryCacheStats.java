@@ -0,0 +1,35 @@
+package com.ase.bytealchemists.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Counters of the geo query result cache since startup.
+ *
+ * @author Byte Alchemists
+ * @version 1.0
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class QueryCacheStats {
+
+  private long hits;
+
+  private long misses;
+
+  private double hitRate;
+
+  private int size;
+
+  private int maxSize;
+
+  private long evictions;
+
+  private long invalidations;
+
+  private long services;
+
+  private long maxServices;
+}
@@ -0,0 +1,40 @@
+package com.ase.bytealchemists.model;
+
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Body of a route-corridor query: the services within {@code width} kilometers of a walking
+ * or driving route given as a polyline.
+ *
+ * @author Byte Alchemists
+ * @version 1.0
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RouteQueryRequest {
+
+  private List<Point> route;
+
+  private Double width;
+
+  private String category;
+
+  private Boolean availability;
+
+  /**
+   * One point of the route.
+   */
+  @Data
+  @NoArgsConstructor
+  @AllArgsConstructor
+  public static class Point {
+
+    private Double latitude;
+
+    private Double longitude;
+  }
+}
@@ -0,0 +1,27 @@
+package com.ase.bytealchemists.model;
+
+import com.fasterxml.jackson.annotation.JsonUnwrapped;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A service returned by a route-corridor search together with its great-circle distance
+ * from the route and the distance along the route to the point closest to it.
+ * The service fields are serialized inline, next to the two distances.
+ *
+ * @author Byte Alchemists
+ * @version 1.0
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ServiceAlongRoute {
+
+  @JsonUnwrapped
+  private ServiceEntity service;
+
+  private Double distanceKm;
+
+  private Double alongRouteKm;
+}
@@ -0,0 +1,40 @@
+package com.ase.bytealchemists.model;
+
+import java.util.Map;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A map marker standing for one or more services at a given zoom level.
+ *
+ * @author Byte Alchemists
+ * @version 1.0
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ServiceCluster {
+
+  private Double latitude;
+
+  private Double longitude;
+
+  private Integer count;
+
+  /**
+   * Number of services per category.
+   */
+  private Map<String, Integer> categories;
+
+  /**
+   * Id of the service when the marker stands for a single service, otherwise null.
+   */
+  private Long serviceId;
+
+  /**
+   * The zoom level at which this cluster splits into several markers, or null for a
+   * single service.
+   */
+  private Integer expansionZoom;
+}
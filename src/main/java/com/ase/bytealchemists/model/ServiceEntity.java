@@ -1,18 +1,30 @@
 package com.ase.bytealchemists.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.PreUpdate;
 import jakarta.persistence.Table;
+import jakarta.persistence.Transient;
+import jakarta.persistence.Version;
 import jakarta.validation.constraints.DecimalMax;
 import jakarta.validation.constraints.DecimalMin;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Pattern;
-import lombok.AllArgsConstructor;
+import java.util.List;
+import lombok.AccessLevel;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
 import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
 
 /**
  * Entity representing a service in the Homeless Support API.
@@ -25,10 +37,16 @@ import lombok.NoArgsConstructor;
  * @version 1.0
  */
 @Entity
-@Table(name = "service")
+@Table(name = "service", indexes = {
+    @Index(name = "idx_service_lat_lon", columnList = "latitude, longitude"),
+    @Index(name = "idx_service_category_availability", columnList = "category, availability"),
+    @Index(name = "idx_service_zipcode", columnList = "zipcode"),
+    @Index(name = "idx_service_state_city", columnList = "state, city"),
+    @Index(name = "idx_service_name", columnList = "name"),
+    @Index(name = "idx_service_city", columnList = "city")
+})
 @Data
 @NoArgsConstructor
-@AllArgsConstructor
 public class ServiceEntity {
 
   @Id
@@ -66,10 +84,132 @@ public class ServiceEntity {
 
   private String contactNumber;
 
-  @Pattern(regexp = "\\d{1,2} (AM|PM) - \\d{1,2} (AM|PM)", 
-        message = "Operation hours must follow the format: '9 AM - 5 PM'")
+  @Pattern(regexp = OperatingHours.PATTERN,
+        message = "Operation hours must follow the format: '9 AM - 5 PM' "
+            + "or 'Mon-Fri 9 AM - 5 PM; Sat 10 AM - 2 PM'")
   private String operationHour;
 
   private Boolean availability;
 
+  // Incremented by JPA on every update, so that a write based on a stale read fails
+  // instead of silently overwriting the newer row. Clients cannot set it.
+  @Version
+  @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+  private Long version;
+
+  // Unit vector of (latitude, longitude), kept in sync on every insert and update so
+  // radius queries can compare a dot product instead of evaluating trigonometry per row
+  @JsonIgnore
+  private Double unitX;
+
+  @JsonIgnore
+  private Double unitY;
+
+  @JsonIgnore
+  private Double unitZ;
+
+  // The parsed operation hours with the text they were parsed from, so a service serialized
+  // again and again is parsed once; replaced whenever the text no longer matches
+  @Transient
+  @JsonIgnore
+  @Getter(AccessLevel.NONE)
+  @Setter(AccessLevel.NONE)
+  @EqualsAndHashCode.Exclude
+  @ToString.Exclude
+  private ParsedHours parsedHours;
+
+  /**
+   * Creates a service with all of its client-visible fields.
+   *
+   * @param id            the service id, or null for a new service
+   * @param name          the service name
+   * @param category      the service category
+   * @param latitude      the latitude in degrees
+   * @param longitude     the longitude in degrees
+   * @param address       the street address
+   * @param city          the city
+   * @param state         the state
+   * @param zipcode       the 5-digit zipcode
+   * @param contactNumber the contact number
+   * @param operationHour the operation hours, e.g. '9 AM - 5 PM'
+   * @param availability  whether the service is currently available
+   */
+  public ServiceEntity(Long id, String name, String category, Double latitude,
+      Double longitude, String address, String city, String state, String zipcode,
+      String contactNumber, String operationHour, Boolean availability) {
+    this.id = id;
+    this.name = name;
+    this.category = category;
+    this.latitude = latitude;
+    this.longitude = longitude;
+    this.address = address;
+    this.city = city;
+    this.state = state;
+    this.zipcode = zipcode;
+    this.contactNumber = contactNumber;
+    this.operationHour = operationHour;
+    this.availability = availability;
+  }
+
+  /**
+   * Returns the operation hours as opening and closing times per weekday, so clients do not
+   * have to parse the text. Derived from {@code operationHour} and not stored; the text is
+   * parsed once and again only after it changes.
+   *
+   * @return the intervals, Monday first, or null if the service has no valid hours
+   */
+  @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+  public List<OpeningInterval> getOpeningHours() {
+    if (operationHour == null) {
+      return null;
+    }
+    ParsedHours parsed = parsedHours;
+    if (parsed == null || !parsed.text().equals(operationHour)) {
+      parsed = new ParsedHours(operationHour, openingHoursOf(operationHour));
+      parsedHours = parsed;
+    }
+    return parsed.intervals();
+  }
+
+  /**
+   * Parses operation hours into opening and closing times per weekday.
+   *
+   * @param operationHour the operation hours, e.g. '9 AM - 5 PM'
+   * @return the intervals, Monday first, or null if the hours are missing or not valid
+   */
+  static List<OpeningInterval> openingHoursOf(String operationHour) {
+    if (operationHour == null) {
+      return null;
+    }
+    try {
+      return List.copyOf(OperatingHours.parse(operationHour).toIntervals());
+    } catch (IllegalArgumentException e) {
+      // Rows written before validation may hold other text
+      return null;
+    }
+  }
+
+  /**
+   * Recomputes the unit vector from the current coordinates before the row is written.
+   */
+  @PrePersist
+  @PreUpdate
+  public void updateUnitVector() {
+    if (latitude == null || longitude == null) {
+      unitX = null;
+      unitY = null;
+      unitZ = null;
+      return;
+    }
+    double phi = Math.toRadians(latitude);
+    double lambda = Math.toRadians(longitude);
+    unitX = Math.cos(phi) * Math.cos(lambda);
+    unitY = Math.cos(phi) * Math.sin(lambda);
+    unitZ = Math.sin(phi);
+  }
+
+  // Immutable, so an entity shared between requests never shows one thread a half-written
+  // cache entry
+  private record ParsedHours(String text, List<OpeningInterval> intervals) {
+  }
 }
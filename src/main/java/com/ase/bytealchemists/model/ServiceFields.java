@@ -0,0 +1,181 @@
+package com.ase.bytealchemists.model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * A sparse fieldset: the subset of service fields a client asked for with {@code fields=}.
+ *
+ * <p>
+ * Field names are the JSON property names of {@link ServiceEntity}. They are checked
+ * against a fixed list before being used as JPQL paths, so a fieldset can be turned into a
+ * select list safely. Fields are kept in the order the entity declares them, whatever order
+ * the client listed them in. {@code openingHours} is not a column: it is derived from
+ * {@code operationHour}, which is read in its place. Instances are immutable.
+ * </p>
+ *
+ * @author Byte Alchemists
+ * @version 1.0
+ */
+public final class ServiceFields {
+
+  private static final Map<String, Function<ServiceEntity, Object>> ACCESSORS =
+      new LinkedHashMap<>();
+
+  static {
+    ACCESSORS.put("id", ServiceEntity::getId);
+    ACCESSORS.put("name", ServiceEntity::getName);
+    ACCESSORS.put("category", ServiceEntity::getCategory);
+    ACCESSORS.put("latitude", ServiceEntity::getLatitude);
+    ACCESSORS.put("longitude", ServiceEntity::getLongitude);
+    ACCESSORS.put("address", ServiceEntity::getAddress);
+    ACCESSORS.put("city", ServiceEntity::getCity);
+    ACCESSORS.put("state", ServiceEntity::getState);
+    ACCESSORS.put("zipcode", ServiceEntity::getZipcode);
+    ACCESSORS.put("contactNumber", ServiceEntity::getContactNumber);
+    ACCESSORS.put("operationHour", ServiceEntity::getOperationHour);
+    ACCESSORS.put("openingHours", ServiceEntity::getOpeningHours);
+    ACCESSORS.put("availability", ServiceEntity::getAvailability);
+    ACCESSORS.put("version", ServiceEntity::getVersion);
+  }
+
+  private static final String DERIVED = "openingHours";
+
+  private static final String DERIVED_FROM = "operationHour";
+
+  private final List<String> names;
+
+  private final List<String> columns;
+
+  private ServiceFields(List<String> names) {
+    this.names = Collections.unmodifiableList(names);
+    List<String> columns = new ArrayList<>(names);
+    int derived = columns.indexOf(DERIVED);
+    if (derived >= 0) {
+      columns.remove(derived);
+      if (!columns.contains(DERIVED_FROM)) {
+        columns.add(derived, DERIVED_FROM);
+      }
+    }
+    this.columns = Collections.unmodifiableList(columns);
+  }
+
+  /**
+   * Parses a comma separated {@code fields=} parameter.
+   *
+   * @param fields the field names, e.g. {@code id,name,latitude,longitude}
+   * @return the fieldset, or null if {@code fields} is null, meaning every field
+   * @throws IllegalArgumentException if a field is unknown or none is given
+   */
+  public static ServiceFields parse(String fields) {
+    if (fields == null) {
+      return null;
+    }
+    List<String> requested = new ArrayList<>();
+    for (String field : fields.split(",")) {
+      String name = field.trim();
+      if (name.isEmpty()) {
+        continue;
+      }
+      if (!ACCESSORS.containsKey(name)) {
+        throw new IllegalArgumentException("Unknown field: " + name);
+      }
+      requested.add(name);
+    }
+    if (requested.isEmpty()) {
+      throw new IllegalArgumentException("At least one field is required");
+    }
+    return of(requested);
+  }
+
+  private static ServiceFields of(List<String> requested) {
+    List<String> names = new ArrayList<>();
+    for (String name : ACCESSORS.keySet()) {
+      if (requested.contains(name)) {
+        names.add(name);
+      }
+    }
+    return new ServiceFields(names);
+  }
+
+  /**
+   * Returns the field names, in the order the entity declares them.
+   *
+   * @return the field names
+   */
+  public List<String> getNames() {
+    return names;
+  }
+
+  /**
+   * Returns the columns to read for this fieldset, with {@code operationHour} in place of
+   * {@code openingHours}.
+   *
+   * @return the column names, in the order the entity declares them
+   */
+  public List<String> getColumns() {
+    return columns;
+  }
+
+  /**
+   * Turns the column values read for this fieldset into field values, deriving
+   * {@code openingHours} and dropping {@code operationHour} if only read for it.
+   *
+   * @param values the values of {@link #getColumns()} by name
+   * @return the field values by name, in the order of {@link #getNames()}
+   */
+  public Map<String, Object> fromColumns(Map<String, Object> values) {
+    if (columns.equals(names)) {
+      return values;
+    }
+    Map<String, Object> fields = new LinkedHashMap<>();
+    for (String name : names) {
+      fields.put(name, name.equals(DERIVED)
+          ? ServiceEntity.openingHoursOf((String) values.get(DERIVED_FROM))
+          : values.get(name));
+    }
+    return fields;
+  }
+
+  /**
+   * Returns this fieldset with some more fields, e.g. the keys needed to sort or page.
+   *
+   * @param extra the field names to add
+   * @return the larger fieldset
+   */
+  public ServiceFields with(String... extra) {
+    List<String> requested = new ArrayList<>(names);
+    Collections.addAll(requested, extra);
+    return of(requested);
+  }
+
+  /**
+   * Copies the fields of this fieldset from a service.
+   *
+   * @param service the service
+   * @return the field values by name, in the order of {@link #getNames()}
+   */
+  public Map<String, Object> project(ServiceEntity service) {
+    Map<String, Object> values = new LinkedHashMap<>();
+    for (String name : names) {
+      values.put(name, ACCESSORS.get(name).apply(service));
+    }
+    return values;
+  }
+
+  /**
+   * Removes the fields that are not part of this fieldset from projected values, e.g. the
+   * keys added with {@link #with(String...)}.
+   *
+   * @param values the projected values, modified in place
+   * @return the same values
+   */
+  public Map<String, Object> retain(Map<String, Object> values) {
+    values.keySet().retainAll(names);
+    return values;
+  }
+}
@@ -0,0 +1,18 @@
+package com.ase.bytealchemists.model;
+
+/**
+ * Lightweight projection of a {@link ServiceEntity} carrying its operation hours and the
+ * state they are local to. Used to build the in-memory opening hours index without
+ * hydrating full entities.
+ *
+ * @author Byte Alchemists
+ * @version 1.0
+ */
+public interface ServiceHours {
+
+  Long getId();
+
+  String getOperationHour();
+
+  String getState();
+}
@@ -0,0 +1,22 @@
+package com.ase.bytealchemists.model;
+
+/**
+ * Lightweight projection of a {@link ServiceEntity} carrying only the columns
+ * needed to place a service on the map and filter it.
+ * Used to build in-memory indexes without hydrating full entities.
+ *
+ * @author Byte Alchemists
+ * @version 1.0
+ */
+public interface ServiceLocation {
+
+  Long getId();
+
+  Double getLatitude();
+
+  Double getLongitude();
+
+  String getCategory();
+
+  Boolean getAvailability();
+}
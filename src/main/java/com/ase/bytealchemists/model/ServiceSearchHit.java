@@ -0,0 +1,24 @@
+package com.ase.bytealchemists.model;
+
+import com.fasterxml.jackson.annotation.JsonUnwrapped;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A service returned by a text search together with its relevance score.
+ * The service fields are serialized inline, next to {@code score}.
+ *
+ * @author Byte Alchemists
+ * @version 1.0
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ServiceSearchHit {
+
+  @JsonUnwrapped
+  private ServiceEntity service;
+
+  private Double score;
+}
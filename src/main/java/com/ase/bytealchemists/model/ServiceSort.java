@@ -0,0 +1,76 @@
+package com.ase.bytealchemists.model;
+
+import java.util.Locale;
+import java.util.function.Function;
+
+/**
+ * Sort orders of the paginated service listing. Every order is completed by the id, so that
+ * it is total and a page can start strictly after the last service of the previous one.
+ *
+ * @author Byte Alchemists
+ * @version 1.0
+ */
+public enum ServiceSort {
+  /**
+   * By id, i.e. in creation order.
+   */
+  ID("id", service -> ""),
+
+  /**
+   * By name, then id.
+   */
+  NAME("name", ServiceEntity::getName),
+
+  /**
+   * By city, then id.
+   */
+  CITY("city", ServiceEntity::getCity),
+
+  /**
+   * By category, then id.
+   */
+  CATEGORY("category", ServiceEntity::getCategory);
+
+  private final String property;
+  private final Function<ServiceEntity, String> key;
+
+  ServiceSort(String property, Function<ServiceEntity, String> key) {
+    this.property = property;
+    this.key = key;
+  }
+
+  /**
+   * Returns the entity property sorted on before the id.
+   *
+   * @return the property name, {@code id} when sorting by id only
+   */
+  public String getProperty() {
+    return property;
+  }
+
+  /**
+   * Returns the sort key of a service besides its id.
+   *
+   * @param service the service
+   * @return the value of the sorted field, or an empty string when sorting by id
+   */
+  public String keyOf(ServiceEntity service) {
+    String value = key.apply(service);
+    return value == null ? "" : value;
+  }
+
+  /**
+   * Looks up a sort order by its request parameter value, ignoring case.
+   *
+   * @param value the parameter value, such as {@code name} or {@code city}
+   * @return the sort order, or null if there is no such order
+   */
+  public static ServiceSort fromParameter(String value) {
+    for (ServiceSort sort : values()) {
+      if (sort.name().equals(value.toUpperCase(Locale.ROOT))) {
+        return sort;
+      }
+    }
+    return null;
+  }
+}
@@ -0,0 +1,18 @@
+package com.ase.bytealchemists.model;
+
+/**
+ * Lightweight projection of a {@link ServiceEntity} carrying the searchable text of a
+ * service along with the columns its search results are filtered on.
+ * Used to build the in-memory full-text index without hydrating full entities.
+ *
+ * @author Byte Alchemists
+ * @version 1.0
+ */
+public interface ServiceText extends ServiceLocation {
+
+  String getName();
+
+  String getAddress();
+
+  String getCity();
+}
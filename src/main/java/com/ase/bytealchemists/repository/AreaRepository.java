@@ -0,0 +1,34 @@
+package com.ase.bytealchemists.repository;
+
+import com.ase.bytealchemists.model.AreaEntity;
+import java.util.List;
+import java.util.Optional;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Repository interface for managing named search areas in the "area" table.
+ *
+ * @author Byte Alchemists
+ * @version 1.0
+ */
+@Repository
+public interface AreaRepository extends JpaRepository<AreaEntity, Long> {
+
+  /**
+   * Retrieves an area by its name.
+   *
+   * @param name the name of the area
+   * @return an Optional containing the area if found, or an empty Optional if not found
+   */
+  Optional<AreaEntity> findByName(String name);
+
+  /**
+   * Fetches the names of all areas.
+   *
+   * @return a list of area names
+   */
+  @Query("SELECT a.name FROM AreaEntity a ORDER BY a.name")
+  List<String> findAllNames();
+}
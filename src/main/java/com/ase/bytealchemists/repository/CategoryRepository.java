@@ -1,10 +1,12 @@
 package com.ase.bytealchemists.repository;
 
 import com.ase.bytealchemists.model.CategoryEntity;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 /**
@@ -60,4 +62,13 @@ public interface CategoryRepository extends JpaRepository<CategoryEntity, Long>
    */
   @Query("SELECT c.categoryName FROM CategoryEntity c")
   List<String> findAllCategoryNames();
+
+  /**
+   * Fetches which of the given category names exist, in one query.
+   *
+   * @param categoryNames the names to look up
+   * @return the names that exist, as stored
+   */
+  @Query("SELECT c.categoryName FROM CategoryEntity c WHERE c.categoryName IN :names")
+  List<String> findExistingCategoryNames(@Param("names") Collection<String> categoryNames);
 }
@@ -3,7 +3,11 @@ package com.ase.bytealchemists.repository;
 import com.ase.bytealchemists.model.FeedbackEntity;
 import java.util.List;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 /**
  * Repository interface for managing feedback entities in the database.
@@ -22,4 +26,15 @@ public interface FeedbackRepository extends JpaRepository<FeedbackEntity, Long>
    * @return A list of feedback entities.
    */
   List<FeedbackEntity> findAllByServiceId(Long serviceId);
+
+  /**
+   * Deletes a feedback with one {@code DELETE} statement, without loading it first.
+   *
+   * @param id The ID of the feedback to delete.
+   * @return 1 if the feedback was deleted, 0 if it does not exist.
+   */
+  @Transactional
+  @Modifying
+  @Query("DELETE FROM FeedbackEntity f WHERE f.id = :id")
+  int deleteRowById(@Param("id") Long id);
 }
@@ -0,0 +1,32 @@
+package com.ase.bytealchemists.repository;
+
+import com.ase.bytealchemists.model.ServiceEntity;
+import java.util.List;
+
+/**
+ * Writes many services at once, for bulk imports and buffered availability changes.
+ *
+ * @author Byte Alchemists
+ * @version 1.0
+ */
+public interface ServiceBulkRepository {
+
+  /**
+   * Inserts services as one batch in one transaction, then sets their generated ids and
+   * initial versions. Either every service is inserted or none is.
+   *
+   * @param services new services, without ids
+   */
+  void insertAll(List<ServiceEntity> services);
+
+  /**
+   * Writes the availability and version of services as one batch in one transaction. Each
+   * row is only updated if it is still at its expected version.
+   *
+   * @param services       the services, with their new availability and version
+   * @param storedVersions the version each row is expected to be at, in the same order
+   * @return for each service, 0 if its row was not at the expected version or no longer
+   *         exists, otherwise a positive count or {@link java.sql.Statement#SUCCESS_NO_INFO}
+   */
+  int[] updateAvailability(List<ServiceEntity> services, long[] storedVersions);
+}
@@ -0,0 +1,116 @@
+package com.ase.bytealchemists.repository;
+
+import com.ase.bytealchemists.model.ServiceEntity;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.List;
+import java.util.Map;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.IncorrectResultSizeDataAccessException;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Inserts services and writes availability changes through JDBC batches instead of
+ * {@code save}.
+ *
+ * <p>
+ * Hibernate cannot batch inserts of an {@code IDENTITY} id, since it needs each generated
+ * id before the next row. Here the ids come back from the batch as generated keys, and with
+ * {@code rewriteBatchedStatements=true} on the MySQL URL the driver sends the whole batch
+ * as multi-row INSERT statements, so MySQL hands out the auto-increment ids a block per
+ * statement. The unit vector columns are filled in the same way as
+ * {@link ServiceEntity#updateUnitVector()} does for JPA writes.
+ * </p>
+ *
+ * @author Byte Alchemists
+ * @version 1.0
+ */
+public class ServiceBulkRepositoryImpl implements ServiceBulkRepository {
+
+  private static final String INSERT = "INSERT INTO service (name, category, latitude, "
+      + "longitude, address, city, state, zipcode, contact_number, operation_hour, "
+      + "availability, unit_x, unit_y, unit_z, version) "
+      + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, 0)";
+
+  private static final String UPDATE_AVAILABILITY = "UPDATE service SET availability = ?, "
+      + "version = ? WHERE id = ? AND version = ?";
+
+  @Autowired
+  private JdbcTemplate jdbcTemplate;
+
+  @Override
+  @Transactional
+  public void insertAll(List<ServiceEntity> services) {
+    if (services.isEmpty()) {
+      return;
+    }
+    KeyHolder keys = new GeneratedKeyHolder();
+    jdbcTemplate.batchUpdate(
+        connection -> connection.prepareStatement(INSERT, Statement.RETURN_GENERATED_KEYS),
+        new BatchPreparedStatementSetter() {
+          @Override
+          public void setValues(PreparedStatement statement, int i) throws SQLException {
+            ServiceEntity service = services.get(i);
+            service.updateUnitVector();
+            statement.setString(1, service.getName());
+            statement.setString(2, service.getCategory());
+            statement.setObject(3, service.getLatitude(), Types.DOUBLE);
+            statement.setObject(4, service.getLongitude(), Types.DOUBLE);
+            statement.setString(5, service.getAddress());
+            statement.setString(6, service.getCity());
+            statement.setString(7, service.getState());
+            statement.setString(8, service.getZipcode());
+            statement.setString(9, service.getContactNumber());
+            statement.setString(10, service.getOperationHour());
+            statement.setObject(11, service.getAvailability(), Types.BOOLEAN);
+            statement.setObject(12, service.getUnitX(), Types.DOUBLE);
+            statement.setObject(13, service.getUnitY(), Types.DOUBLE);
+            statement.setObject(14, service.getUnitZ(), Types.DOUBLE);
+          }
+
+          @Override
+          public int getBatchSize() {
+            return services.size();
+          }
+        }, keys);
+
+    List<Map<String, Object>> generated = keys.getKeyList();
+    if (generated.size() != services.size()) {
+      throw new IncorrectResultSizeDataAccessException(services.size(), generated.size());
+    }
+    for (int i = 0; i < services.size(); i++) {
+      Number id = (Number) generated.get(i).values().iterator().next();
+      services.get(i).setId(id.longValue());
+      services.get(i).setVersion(0L);
+    }
+  }
+
+  @Override
+  @Transactional
+  public int[] updateAvailability(List<ServiceEntity> services, long[] storedVersions) {
+    if (services.isEmpty()) {
+      return new int[0];
+    }
+    return jdbcTemplate.batchUpdate(UPDATE_AVAILABILITY, new BatchPreparedStatementSetter() {
+      @Override
+      public void setValues(PreparedStatement statement, int i) throws SQLException {
+        ServiceEntity service = services.get(i);
+        statement.setObject(1, service.getAvailability(), Types.BOOLEAN);
+        statement.setLong(2, service.getVersion());
+        statement.setLong(3, service.getId());
+        statement.setLong(4, storedVersions[i]);
+      }
+
+      @Override
+      public int getBatchSize() {
+        return services.size();
+      }
+    });
+  }
+}
@@ -0,0 +1,24 @@
+package com.ase.bytealchemists.repository;
+
+import java.util.Map;
+
+/**
+ * Applies partial updates to services with a single conditional UPDATE.
+ *
+ * @author Byte Alchemists
+ * @version 1.0
+ */
+public interface ServicePatchRepository {
+
+  /**
+   * Sets the given columns of a service and moves it to the next version, only if it is
+   * still at the expected version. The unit vector is recomputed when a coordinate changes.
+   *
+   * @param id              the service id
+   * @param expectedVersion the version the update is based on
+   * @param columns         the new values by column name, from the fixed list of
+   *                        {@code ServicePatch}
+   * @return 1 if the service was updated, 0 if it does not exist or is at another version
+   */
+  int patch(Long id, long expectedVersion, Map<String, Object> columns);
+}
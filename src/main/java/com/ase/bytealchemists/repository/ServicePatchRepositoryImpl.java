@@ -0,0 +1,49 @@
+package com.ase.bytealchemists.repository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Builds the UPDATE of {@link ServicePatchRepository} from the changed columns only.
+ *
+ * <p>
+ * The version check is part of the WHERE clause, so reading, checking and writing are one
+ * statement and two writers can never both succeed from the same version. MySQL evaluates
+ * the assignments of a single-table UPDATE from left to right, so the unit vector
+ * expressions placed after the coordinates see their new values.
+ * </p>
+ *
+ * @author Byte Alchemists
+ * @version 1.0
+ */
+public class ServicePatchRepositoryImpl implements ServicePatchRepository {
+
+  private static final String UNIT_VECTOR =
+      ", unit_x = COS(RADIANS(latitude)) * COS(RADIANS(longitude))"
+      + ", unit_y = COS(RADIANS(latitude)) * SIN(RADIANS(longitude))"
+      + ", unit_z = SIN(RADIANS(latitude))";
+
+  @Autowired
+  private JdbcTemplate jdbcTemplate;
+
+  @Override
+  public int patch(Long id, long expectedVersion, Map<String, Object> columns) {
+    StringBuilder sql = new StringBuilder("UPDATE service SET ");
+    List<Object> arguments = new ArrayList<>(columns.size() + 2);
+    for (Map.Entry<String, Object> column : columns.entrySet()) {
+      sql.append(column.getKey()).append(" = ?, ");
+      arguments.add(column.getValue());
+    }
+    sql.append("version = version + 1");
+    if (columns.containsKey("latitude") || columns.containsKey("longitude")) {
+      sql.append(UNIT_VECTOR);
+    }
+    sql.append(" WHERE id = ? AND version = ?");
+    arguments.add(id);
+    arguments.add(expectedVersion);
+    return jdbcTemplate.update(sql.toString(), arguments.toArray());
+  }
+}
@@ -0,0 +1,43 @@
+package com.ase.bytealchemists.repository;
+
+import com.ase.bytealchemists.model.ServiceFields;
+import com.ase.bytealchemists.model.ServiceSort;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Queries of {@link ServiceRepository} that select only the columns of a sparse fieldset.
+ * Rows are read as tuples rather than entities, so they are never attached to the
+ * persistence context, snapshotted for dirty checking or hydrated beyond the requested
+ * columns.
+ *
+ * @author Byte Alchemists
+ * @version 1.0
+ */
+public interface ServiceProjectionRepository {
+
+  /**
+   * Finds the requested fields of the services with the given ids.
+   *
+   * @param ids the service ids
+   * @param fields the fields to select
+   * @return the field values of each service found, in no particular order
+   */
+  List<Map<String, Object>> findFieldsByIds(Collection<Long> ids, ServiceFields fields);
+
+  /**
+   * Returns one page of the requested fields of all services, keyed like the
+   * {@code findPageBy...} queries of {@link ServiceRepository}: ordered by the sort property
+   * and then id, starting strictly after {@code (after, afterId)}.
+   *
+   * @param sort the sort order
+   * @param after the sort key of the last service already returned, "" for the first page
+   * @param afterId the id of the last service already returned, 0 for the first page
+   * @param limit the maximum number of services to return
+   * @param fields the fields to select; should include the id and the sort property
+   * @return the field values of the services of the page, in order
+   */
+  List<Map<String, Object>> findFieldsPage(ServiceSort sort, String after, long afterId,
+      int limit, ServiceFields fields);
+}
@@ -0,0 +1,84 @@
+package com.ase.bytealchemists.repository;
+
+import com.ase.bytealchemists.model.ServiceFields;
+import com.ase.bytealchemists.model.ServiceSort;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.TypedQuery;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Builds the select list of {@link ServiceProjectionRepository} queries from a fieldset.
+ * Field names come from the fixed list of {@link ServiceFields}, never from the client
+ * directly, so they can be concatenated into JPQL. Derived fields are computed from the
+ * columns they come from.
+ *
+ * @author Byte Alchemists
+ * @version 1.0
+ */
+public class ServiceProjectionRepositoryImpl implements ServiceProjectionRepository {
+
+  @PersistenceContext
+  private EntityManager entityManager;
+
+  @Override
+  public List<Map<String, Object>> findFieldsByIds(Collection<Long> ids,
+      ServiceFields fields) {
+    if (ids.isEmpty()) {
+      return new ArrayList<>();
+    }
+    TypedQuery<Tuple> query = entityManager.createQuery(select(fields)
+        + " FROM ServiceEntity s WHERE s.id IN :ids", Tuple.class);
+    query.setParameter("ids", ids);
+    return toMaps(query.getResultList(), fields);
+  }
+
+  @Override
+  public List<Map<String, Object>> findFieldsPage(ServiceSort sort, String after,
+      long afterId, int limit, ServiceFields fields) {
+    TypedQuery<Tuple> query;
+    if (sort == ServiceSort.ID) {
+      query = entityManager.createQuery(select(fields)
+          + " FROM ServiceEntity s WHERE s.id > :afterId ORDER BY s.id", Tuple.class);
+    } else {
+      String key = "s." + sort.getProperty();
+      query = entityManager.createQuery(select(fields)
+          + " FROM ServiceEntity s WHERE " + key + " >= :after "
+          + "AND (" + key + " > :after OR s.id > :afterId) ORDER BY " + key + ", s.id",
+          Tuple.class);
+      query.setParameter("after", after);
+    }
+    query.setParameter("afterId", afterId);
+    query.setMaxResults(limit);
+    return toMaps(query.getResultList(), fields);
+  }
+
+  private static String select(ServiceFields fields) {
+    StringBuilder select = new StringBuilder("SELECT ");
+    for (String name : fields.getColumns()) {
+      if (select.length() > "SELECT ".length()) {
+        select.append(", ");
+      }
+      select.append("s.").append(name);
+    }
+    return select.toString();
+  }
+
+  private static List<Map<String, Object>> toMaps(List<Tuple> tuples, ServiceFields fields) {
+    List<Map<String, Object>> rows = new ArrayList<>(tuples.size());
+    for (Tuple tuple : tuples) {
+      Map<String, Object> row = new LinkedHashMap<>();
+      List<String> columns = fields.getColumns();
+      for (int i = 0; i < columns.size(); i++) {
+        row.put(columns.get(i), tuple.get(i));
+      }
+      rows.add(fields.fromColumns(row));
+    }
+    return rows;
+  }
+}
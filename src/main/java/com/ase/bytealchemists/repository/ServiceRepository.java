@@ -1,26 +1,60 @@
 package com.ase.bytealchemists.repository;
 
 import com.ase.bytealchemists.model.ServiceEntity;
+import com.ase.bytealchemists.model.ServiceHours;
+import com.ase.bytealchemists.model.ServiceLocation;
+import com.ase.bytealchemists.model.ServiceText;
+import com.ase.bytealchemists.util.GeoUtils;
+import jakarta.persistence.QueryHint;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 /**
  * Repository interface for managing Service entities in the database.
  * This interface extends {@link JpaRepository}
  * to provide CRUD operations for {@link ServiceEntity}.
  * It also includes a custom query to filter services based on latitude, longitude, radius,
- * category, and availability. The query calculates the distance between the given coordinates
- * and the service's coordinates using the Haversine formula, allowing services within a
+ * category, and availability. The query compares the unit vectors stored with each service
+ * against the unit vector of the given coordinates, allowing services within a
  * specific radius to be returned.
  *
  * @author Jason
  * @version 1.0
  */
 @Repository
-public interface ServiceRepository extends JpaRepository<ServiceEntity, Long> {
+public interface ServiceRepository extends JpaRepository<ServiceEntity, Long>,
+    ServiceProjectionRepository,
+    ServiceBulkRepository, ServicePatchRepository {
+
+  /**
+   * Dot product of the unit vector of the service and the {@code :x}/{@code :y}/{@code :z}
+   * unit vector of the search origin, i.e. the cosine of the angle between them.
+   */
+  String DOT_PRODUCT = "(s.unitX * :x + s.unitY * :y + s.unitZ * :z)";
+
+  /**
+   * Great-circle distance in kilometers between the search origin and the service,
+   * clamped so rounding never pushes {@code acos} out of its domain.
+   */
+  String DISTANCE_KM = "(6371 * acos(least(1.0, greatest(-1.0, " + DOT_PRODUCT + "))))";
+
+  /**
+   * JDBC fetch size of the streaming queries. MySQL Connector/J only streams a result set
+   * row by row, instead of reading all of it into memory, when the fetch size is
+   * {@link Integer#MIN_VALUE}.
+   */
+  String STREAM_FETCH_SIZE = "-2147483648";
 
   /**
    * Finds services based on the given filters of
@@ -33,17 +67,500 @@ public interface ServiceRepository extends JpaRepository<ServiceEntity, Long> {
    * @param availability the availability of services to filter (optional)
    * @return a list of services that match the given filters
    */
+  default List<ServiceEntity> findByFilters(Double latitude, Double longitude, Double radius,
+      String category, Boolean availability) {
+    if (latitude == null || longitude == null) {
+      return findByUnitVector(null, null, null, null, category, availability);
+    }
+    double[] origin = GeoUtils.unitVector(latitude, longitude);
+    return findByUnitVector(origin[0], origin[1], origin[2],
+        GeoUtils.minDotProduct(radius), category, availability);
+  }
+
+  /**
+   * Finds services whose unit vector has a dot product with the origin's unit vector above
+   * {@code minDot}, which is the same as being within the corresponding great-circle
+   * radius. Each row costs three multiplications instead of five trigonometric calls.
+   * When {@code x} is null only the category and availability filters apply.
+   *
+   * @param x the x component of the origin's unit vector (optional)
+   * @param y the y component of the origin's unit vector
+   * @param z the z component of the origin's unit vector
+   * @param minDot the threshold from {@link GeoUtils#minDotProduct(double)}
+   * @param category the category of services to filter (optional)
+   * @param availability the availability of services to filter (optional)
+   * @return a list of services that match the given filters
+   */
   @Query("SELECT s FROM ServiceEntity s "
       + "WHERE (:category IS NULL OR s.category = :category) "
       + "AND (:availability IS NULL OR s.availability = :availability) "
-      + "AND (:latitude IS NULL OR :longitude IS NULL OR "
-      + "(6371 * acos(cos(radians(:latitude)) * cos(radians(s.latitude)) "
-      + "* cos(radians(s.longitude) - radians(:longitude)) + sin(radians(:latitude)) "
-      + "* sin(radians(s.latitude)))) < :radius)")
-  List<ServiceEntity> findByFilters(
+      + "AND (:x IS NULL OR " + DOT_PRODUCT + " > :minDot)")
+  List<ServiceEntity> findByUnitVector(
+      @Param("x") Double x,
+      @Param("y") Double y,
+      @Param("z") Double z,
+      @Param("minDot") Double minDot,
+      @Param("category") String category,
+      @Param("availability") Boolean availability);
+
+  /**
+   * Finds services by zipcode, city and state, using the {@code zipcode} and
+   * {@code (state, city)} indexes. Comparisons follow the column collation, which is
+   * case-insensitive in MySQL by default.
+   *
+   * @param zipcode the 5-digit zipcode to filter (optional)
+   * @param city the city to filter (optional)
+   * @param state the state to filter (optional)
+   * @param category the category of services to filter (optional)
+   * @param availability the availability of services to filter (optional)
+   * @return a list of services that match the given filters, in id order
+   */
+  @Query("SELECT s FROM ServiceEntity s "
+      + "WHERE (:zipcode IS NULL OR s.zipcode = :zipcode) "
+      + "AND (:city IS NULL OR s.city = :city) "
+      + "AND (:state IS NULL OR s.state = :state) "
+      + "AND (:category IS NULL OR s.category = :category) "
+      + "AND (:availability IS NULL OR s.availability = :availability) "
+      + "ORDER BY s.id")
+  List<ServiceEntity> findByPlace(
+      @Param("zipcode") String zipcode,
+      @Param("city") String city,
+      @Param("state") String state,
+      @Param("category") String category,
+      @Param("availability") Boolean availability);
+
+  /**
+   * Returns one page of services in id order, starting strictly after {@code afterId}.
+   * The primary key is range-scanned, so earlier pages are never read again.
+   *
+   * @param afterId the id of the last service already returned, 0 for the first page
+   * @param page the page size; only {@link Pageable#getPageSize()} is relevant
+   * @return the services of the page, in id order
+   */
+  @Query("SELECT s FROM ServiceEntity s WHERE s.id > :afterId ORDER BY s.id")
+  List<ServiceEntity> findPageById(@Param("afterId") Long afterId, Pageable page);
+
+  /**
+   * Returns one page of services ordered by name and then id, starting strictly after the
+   * {@code (after, afterId)} key of the last service of the previous page. The
+   * {@code s.name >= :after} bound lets MySQL range-scan the name index.
+   *
+   * @param after the name of the last service already returned, "" for the first page
+   * @param afterId the id of the last service already returned, 0 for the first page
+   * @param page the page size; only {@link Pageable#getPageSize()} is relevant
+   * @return the services of the page, ordered by name and then id
+   */
+  @Query("SELECT s FROM ServiceEntity s WHERE s.name >= :after "
+      + "AND (s.name > :after OR s.id > :afterId) ORDER BY s.name, s.id")
+  List<ServiceEntity> findPageByName(@Param("after") String after,
+      @Param("afterId") Long afterId, Pageable page);
+
+  /**
+   * Returns one page of services ordered by city and then id, starting strictly after the
+   * {@code (after, afterId)} key of the last service of the previous page. The
+   * {@code s.city >= :after} bound lets MySQL range-scan the city index.
+   *
+   * @param after the city of the last service already returned, "" for the first page
+   * @param afterId the id of the last service already returned, 0 for the first page
+   * @param page the page size; only {@link Pageable#getPageSize()} is relevant
+   * @return the services of the page, ordered by city and then id
+   */
+  @Query("SELECT s FROM ServiceEntity s WHERE s.city >= :after "
+      + "AND (s.city > :after OR s.id > :afterId) ORDER BY s.city, s.id")
+  List<ServiceEntity> findPageByCity(@Param("after") String after,
+      @Param("afterId") Long afterId, Pageable page);
+
+  /**
+   * Returns one page of services ordered by category and then id, starting strictly after the
+   * {@code (after, afterId)} key of the last service of the previous page. The
+   * {@code s.category >= :after} bound lets MySQL range-scan the leading column of the
+   * {@code (category, availability)} index.
+   *
+   * @param after the category of the last service already returned, "" for the first page
+   * @param afterId the id of the last service already returned, 0 for the first page
+   * @param page the page size; only {@link Pageable#getPageSize()} is relevant
+   * @return the services of the page, ordered by category and then id
+   */
+  @Query("SELECT s FROM ServiceEntity s WHERE s.category >= :after "
+      + "AND (s.category > :after OR s.id > :afterId) ORDER BY s.category, s.id")
+  List<ServiceEntity> findPageByCategory(@Param("after") String after,
+      @Param("afterId") Long afterId, Pageable page);
+
+  /**
+   * Streams every service in id order. The rows are fetched from the database as the stream
+   * is consumed instead of being loaded into one list, so the stream must be consumed and
+   * closed inside a transaction.
+   *
+   * @return the services, in id order
+   */
+  @QueryHints({
+      @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = STREAM_FETCH_SIZE),
+      @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")})
+  @Query("SELECT s FROM ServiceEntity s ORDER BY s.id")
+  Stream<ServiceEntity> streamAll();
+
+  /**
+   * Streams the services matching the given filters in id order, like
+   * {@link #findByFilters(Double, Double, Double, String, Boolean)} but without loading the
+   * whole result into memory. The stream must be consumed and closed inside a transaction.
+   *
+   * @param latitude the latitude of the search origin (optional)
+   * @param longitude the longitude of the search origin (optional)
+   * @param radius the maximum distance (in kilometers) to search for services
+   * @param category the category of services to filter (optional)
+   * @param availability the availability of services to filter (optional)
+   * @return the matching services, in id order
+   */
+  default Stream<ServiceEntity> streamByFilters(Double latitude, Double longitude,
+      Double radius, String category, Boolean availability) {
+    if (latitude == null || longitude == null) {
+      return streamByUnitVector(null, null, null, null, category, availability);
+    }
+    double[] origin = GeoUtils.unitVector(latitude, longitude);
+    return streamByUnitVector(origin[0], origin[1], origin[2],
+        GeoUtils.minDotProduct(radius), category, availability);
+  }
+
+  /**
+   * Streams the services matched by
+   * {@link #findByUnitVector(Double, Double, Double, Double, String, Boolean)}, in id order.
+   *
+   * @param x the x component of the origin's unit vector (optional)
+   * @param y the y component of the origin's unit vector
+   * @param z the z component of the origin's unit vector
+   * @param minDot the threshold from {@link GeoUtils#minDotProduct(double)}
+   * @param category the category of services to filter (optional)
+   * @param availability the availability of services to filter (optional)
+   * @return the matching services, in id order
+   */
+  @QueryHints({
+      @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = STREAM_FETCH_SIZE),
+      @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")})
+  @Query("SELECT s FROM ServiceEntity s "
+      + "WHERE (:category IS NULL OR s.category = :category) "
+      + "AND (:availability IS NULL OR s.availability = :availability) "
+      + "AND (:x IS NULL OR " + DOT_PRODUCT + " > :minDot) "
+      + "ORDER BY s.id")
+  Stream<ServiceEntity> streamByUnitVector(
+      @Param("x") Double x,
+      @Param("y") Double y,
+      @Param("z") Double z,
+      @Param("minDot") Double minDot,
+      @Param("category") String category,
+      @Param("availability") Boolean availability);
+
+  /**
+   * Finds services within a radius, first restricting candidates to a latitude/longitude
+   * bounding box so that MySQL can range-scan the {@code (latitude, longitude)} index.
+   * The exact great-circle predicate is the same as in
+   * {@link #findByFilters(Double, Double, Double, String, Boolean)}; it only runs on rows
+   * that survive the box, so as long as the box contains the whole search circle both
+   * queries return the same services.
+   *
+   * @param latitude the latitude of the point from which to calculate distances
+   * @param longitude the longitude of the point from which to calculate distances
+   * @param radius the maximum distance (in kilometers) to search for services
+   * @param minLat the southern edge of the bounding box
+   * @param maxLat the northern edge of the bounding box
+   * @param minLon the western edge of the bounding box
+   * @param maxLon the eastern edge of the bounding box
+   * @param category the category of services to filter (optional)
+   * @param availability the availability of services to filter (optional)
+   * @return a list of services that match the given filters
+   */
+  default List<ServiceEntity> findByFiltersWithinBounds(Double latitude, Double longitude,
+      Double radius, Double minLat, Double maxLat, Double minLon, Double maxLon,
+      String category, Boolean availability) {
+    double[] origin = GeoUtils.unitVector(latitude, longitude);
+    return findByUnitVectorWithinBounds(origin[0], origin[1], origin[2],
+        GeoUtils.minDotProduct(radius), minLat, maxLat, minLon, maxLon, category, availability);
+  }
+
+  /**
+   * Bounding box variant of
+   * {@link #findByUnitVector(Double, Double, Double, Double, String, Boolean)}.
+   *
+   * @param x the x component of the origin's unit vector
+   * @param y the y component of the origin's unit vector
+   * @param z the z component of the origin's unit vector
+   * @param minDot the threshold from {@link GeoUtils#minDotProduct(double)}
+   * @param minLat the southern edge of the bounding box
+   * @param maxLat the northern edge of the bounding box
+   * @param minLon the western edge of the bounding box
+   * @param maxLon the eastern edge of the bounding box
+   * @param category the category of services to filter (optional)
+   * @param availability the availability of services to filter (optional)
+   * @return a list of services that match the given filters
+   */
+  @Query("SELECT s FROM ServiceEntity s "
+      + "WHERE s.latitude BETWEEN :minLat AND :maxLat "
+      + "AND s.longitude BETWEEN :minLon AND :maxLon "
+      + "AND (:category IS NULL OR s.category = :category) "
+      + "AND (:availability IS NULL OR s.availability = :availability) "
+      + "AND " + DOT_PRODUCT + " > :minDot")
+  List<ServiceEntity> findByUnitVectorWithinBounds(
+      @Param("x") Double x,
+      @Param("y") Double y,
+      @Param("z") Double z,
+      @Param("minDot") Double minDot,
+      @Param("minLat") Double minLat,
+      @Param("maxLat") Double maxLat,
+      @Param("minLon") Double minLon,
+      @Param("maxLon") Double maxLon,
+      @Param("category") String category,
+      @Param("availability") Boolean availability);
+
+  /**
+   * Finds services inside a latitude/longitude rectangle, range-scanning the
+   * {@code (latitude, longitude)} index. Used to load the candidates shared by several
+   * origins in one query before the exact distances are checked in memory.
+   *
+   * @param minLat the southern edge of the rectangle
+   * @param maxLat the northern edge of the rectangle
+   * @param minLon the western edge of the rectangle
+   * @param maxLon the eastern edge of the rectangle
+   * @param category the category of services to filter (optional)
+   * @param availability the availability of services to filter (optional)
+   * @return a list of services that match the given filters
+   */
+  @Query("SELECT s FROM ServiceEntity s "
+      + "WHERE s.latitude BETWEEN :minLat AND :maxLat "
+      + "AND s.longitude BETWEEN :minLon AND :maxLon "
+      + "AND (:category IS NULL OR s.category = :category) "
+      + "AND (:availability IS NULL OR s.availability = :availability)")
+  List<ServiceEntity> findWithinBounds(
+      @Param("minLat") Double minLat,
+      @Param("maxLat") Double maxLat,
+      @Param("minLon") Double minLon,
+      @Param("maxLon") Double maxLon,
+      @Param("category") String category,
+      @Param("availability") Boolean availability);
+
+  /**
+   * Finds services within a radius using the {@code location POINT SRID 4326} column and
+   * its SPATIAL INDEX, which are created when {@code geo.query-mode=SPATIAL}.
+   * {@code MBRContains} lets MySQL walk the R-tree for rows inside the bounding box, and
+   * {@code ST_Distance_Sphere} on the same sphere as the JPQL query keeps only the rows
+   * inside the circle.
+   *
+   * @param latitude the latitude of the point from which to calculate distances
+   * @param longitude the longitude of the point from which to calculate distances
+   * @param radius the maximum distance (in kilometers) to search for services
+   * @param box the bounding box of the search circle as WKT in longitude-latitude order
+   * @param category the category of services to filter (optional)
+   * @param availability the availability of services to filter (optional)
+   * @return a list of services that match the given filters
+   */
+  @Query(value = "SELECT s.* FROM service s "
+      + "WHERE MBRContains(ST_GeomFromText(:box, 4326, 'axis-order=long-lat'), s.location) "
+      + "AND s.latitude IS NOT NULL AND s.longitude IS NOT NULL "
+      + "AND (:category IS NULL OR s.category = :category) "
+      + "AND (:availability IS NULL OR s.availability = :availability) "
+      + "AND ST_Distance_Sphere(s.location, "
+      + "ST_SRID(POINT(:longitude, :latitude), 4326), 6371000) < :radius * 1000",
+      nativeQuery = true)
+  List<ServiceEntity> findWithinSpatialBox(
       @Param("latitude") Double latitude,
       @Param("longitude") Double longitude,
       @Param("radius") Double radius,
+      @Param("box") String box,
       @Param("category") String category,
       @Param("availability") Boolean availability);
+
+  /**
+   * Returns one page of services within a radius, ordered by distance and then id.
+   *
+   * <p>
+   * The page starts strictly after the {@code (afterDistance, afterId)} key of the last
+   * service of the previous page, so MySQL seeks past earlier pages instead of
+   * recomputing and discarding them. Pass a negative {@code afterDistance} for the
+   * first page. The bounding box should surround the search circle, as in
+   * {@link #findByFiltersWithinBounds}.
+   * </p>
+   *
+   * @param latitude the latitude of the point from which to calculate distances
+   * @param longitude the longitude of the point from which to calculate distances
+   * @param radius the maximum distance (in kilometers) to search for services
+   * @param minLat the southern edge of the bounding box
+   * @param maxLat the northern edge of the bounding box
+   * @param minLon the western edge of the bounding box
+   * @param maxLon the eastern edge of the bounding box
+   * @param category the category of services to filter (optional)
+   * @param availability the availability of services to filter (optional)
+   * @param afterDistance the distance of the last service already returned
+   * @param afterId the id of the last service already returned
+   * @param page the page size; only {@link Pageable#getPageSize()} is relevant
+   * @return rows of {@code [ServiceEntity, Double distanceKm]}
+   */
+  default List<Object[]> findNearbyPage(Double latitude, Double longitude, Double radius,
+      Double minLat, Double maxLat, Double minLon, Double maxLon, String category,
+      Boolean availability, Double afterDistance, Long afterId, Pageable page) {
+    double[] origin = GeoUtils.unitVector(latitude, longitude);
+    return findNearbyPageByUnitVector(origin[0], origin[1], origin[2],
+        GeoUtils.minDotProduct(radius), minLat, maxLat, minLon, maxLon, category,
+        availability, afterDistance, afterId, page);
+  }
+
+  /**
+   * Unit vector variant of {@link #findNearbyPage}; the radius is applied as a dot
+   * product threshold and {@code acos} only runs for the distance of matching rows.
+   *
+   * @param x the x component of the origin's unit vector
+   * @param y the y component of the origin's unit vector
+   * @param z the z component of the origin's unit vector
+   * @param minDot the threshold from {@link GeoUtils#minDotProduct(double)}
+   * @param minLat the southern edge of the bounding box
+   * @param maxLat the northern edge of the bounding box
+   * @param minLon the western edge of the bounding box
+   * @param maxLon the eastern edge of the bounding box
+   * @param category the category of services to filter (optional)
+   * @param availability the availability of services to filter (optional)
+   * @param afterDistance the distance of the last service already returned
+   * @param afterId the id of the last service already returned
+   * @param page the page size; only {@link Pageable#getPageSize()} is relevant
+   * @return rows of {@code [ServiceEntity, Double distanceKm]}
+   */
+  @Query("SELECT s, " + DISTANCE_KM + " AS distance FROM ServiceEntity s "
+      + "WHERE s.latitude BETWEEN :minLat AND :maxLat "
+      + "AND s.longitude BETWEEN :minLon AND :maxLon "
+      + "AND (:category IS NULL OR s.category = :category) "
+      + "AND (:availability IS NULL OR s.availability = :availability) "
+      + "AND " + DOT_PRODUCT + " > :minDot "
+      + "AND (" + DISTANCE_KM + " > :afterDistance "
+      + "OR (" + DISTANCE_KM + " = :afterDistance AND s.id > :afterId)) "
+      + "ORDER BY distance, s.id")
+  List<Object[]> findNearbyPageByUnitVector(
+      @Param("x") Double x,
+      @Param("y") Double y,
+      @Param("z") Double z,
+      @Param("minDot") Double minDot,
+      @Param("minLat") Double minLat,
+      @Param("maxLat") Double maxLat,
+      @Param("minLon") Double minLon,
+      @Param("maxLon") Double maxLon,
+      @Param("category") String category,
+      @Param("availability") Boolean availability,
+      @Param("afterDistance") Double afterDistance,
+      @Param("afterId") Long afterId,
+      Pageable page);
+
+  /**
+   * Fills in the unit vector of services stored before it was introduced, or written
+   * without going through JPA.
+   *
+   * @return the number of services updated
+   */
+  @Transactional
+  @Modifying
+  @Query("UPDATE ServiceEntity s SET "
+      + "s.unitX = cos(radians(s.latitude)) * cos(radians(s.longitude)), "
+      + "s.unitY = cos(radians(s.latitude)) * sin(radians(s.longitude)), "
+      + "s.unitZ = sin(radians(s.latitude)) "
+      + "WHERE s.unitX IS NULL AND s.latitude IS NOT NULL AND s.longitude IS NOT NULL")
+  int backfillUnitVectors();
+
+  /**
+   * Loads the id, coordinates, category and availability of every service.
+   * Used to build the in-memory spatial index without hydrating full entities.
+   *
+   * @return the location projection of all services
+   */
+  @Query("SELECT s.id AS id, s.latitude AS latitude, s.longitude AS longitude, "
+      + "s.category AS category, s.availability AS availability FROM ServiceEntity s")
+  List<ServiceLocation> findAllLocations();
+
+  /**
+   * Loads the name, address, city, category, coordinates and availability of every
+   * service. Used to build the in-memory full-text index without hydrating full entities.
+   *
+   * @return the text projection of all services
+   */
+  @Query("SELECT s.id AS id, s.name AS name, s.address AS address, s.city AS city, "
+      + "s.category AS category, s.latitude AS latitude, s.longitude AS longitude, "
+      + "s.availability AS availability FROM ServiceEntity s")
+  List<ServiceText> findAllTexts();
+
+  /**
+   * Loads the operation hours and state of every service. Used to build the in-memory
+   * opening hours index without hydrating full entities.
+   *
+   * @return the hours projection of all services
+   */
+  @Query("SELECT s.id AS id, s.operationHour AS operationHour, s.state AS state "
+      + "FROM ServiceEntity s")
+  List<ServiceHours> findAllHours();
+
+  /**
+   * Gives a version to services stored before optimistic locking was introduced, or written
+   * without going through JPA.
+   *
+   * @return the number of services updated
+   */
+  @Transactional
+  @Modifying
+  @Query("UPDATE ServiceEntity s SET s.version = 0 WHERE s.version IS NULL")
+  int backfillVersions();
+
+  /**
+   * Loads the version of one service by primary key.
+   * Used to answer conditional requests without hydrating the entity.
+   *
+   * @param id the id of the service
+   * @return the version, or empty if the service does not exist
+   */
+  @Query("SELECT s.version FROM ServiceEntity s WHERE s.id = :id")
+  Optional<Long> findVersionById(@Param("id") Long id);
+
+  /**
+   * Deletes a service with one {@code DELETE} statement, without loading or checking it
+   * first.
+   *
+   * @param id the id of the service
+   * @return 1 if the service was deleted, 0 if it does not exist
+   */
+  @Transactional
+  @Modifying
+  @Query("DELETE FROM ServiceEntity s WHERE s.id = :id")
+  int deleteRowById(@Param("id") Long id);
+
+  /**
+   * Deletes the services with the given ids with one {@code DELETE} statement.
+   *
+   * @param ids the ids of the services; keep the list short, as the statement locks
+   *            every row it deletes until it commits
+   * @return the number of services deleted; ids that do not exist are skipped
+   */
+  @Transactional
+  @Modifying
+  @Query("DELETE FROM ServiceEntity s WHERE s.id IN :ids")
+  int deleteRowsByIdIn(@Param("ids") Collection<Long> ids);
+
+  /**
+   * Returns the ids of one chunk of the services matching the given filters, in id order,
+   * starting strictly after {@code afterId}. Null filters are ignored.
+   *
+   * @param zipcode the 5-digit zipcode to filter (optional)
+   * @param city the city to filter (optional)
+   * @param state the state to filter (optional)
+   * @param category the category of services to filter (optional)
+   * @param availability the availability of services to filter (optional)
+   * @param afterId the last id of the previous chunk, 0 for the first chunk
+   * @param page the chunk size; only {@link Pageable#getPageSize()} is relevant
+   * @return the ids of the chunk, in id order
+   */
+  @Query("SELECT s.id FROM ServiceEntity s WHERE s.id > :afterId "
+      + "AND (:zipcode IS NULL OR s.zipcode = :zipcode) "
+      + "AND (:city IS NULL OR s.city = :city) "
+      + "AND (:state IS NULL OR s.state = :state) "
+      + "AND (:category IS NULL OR s.category = :category) "
+      + "AND (:availability IS NULL OR s.availability = :availability) "
+      + "ORDER BY s.id")
+  List<Long> findIdsByPlace(
+      @Param("zipcode") String zipcode,
+      @Param("city") String city,
+      @Param("state") String state,
+      @Param("category") String category,
+      @Param("availability") Boolean availability,
+      @Param("afterId") Long afterId,
+      Pageable page);
 }
@@ -0,0 +1,123 @@
+package com.ase.bytealchemists.service;
+
+import com.ase.bytealchemists.model.AreaEntity;
+import com.ase.bytealchemists.repository.AreaRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Service class for managing named search areas in the Homeless Support API.
+ * Areas are stored as GeoJSON and compiled into a {@link GeoPolygon} once; the compiled
+ * form is cached by name so that repeated searches of the same borough or catchment area
+ * neither reparse the GeoJSON nor reload it from the database.
+ *
+ * @author Byte Alchemists
+ * @version 1.0
+ */
+@Service
+public class AreaService {
+  @Autowired
+  private AreaRepository areaRepository;
+
+  private final ObjectMapper objectMapper = new ObjectMapper();
+
+  private final Map<String, GeoPolygon> compiledAreas = new ConcurrentHashMap<>();
+
+  /**
+   * Creates or replaces a named area.
+   *
+   * @param name    the name of the area
+   * @param geoJson the boundary as a GeoJSON Polygon, MultiPolygon or Feature
+   * @return true if the area was created, false if an existing area was replaced
+   * @throws IllegalArgumentException if the GeoJSON is not a valid polygonal geometry
+   */
+  @Transactional
+  public boolean saveArea(String name, JsonNode geoJson) {
+    GeoPolygon polygon = GeoPolygon.fromGeoJson(geoJson);
+    Optional<AreaEntity> existing = areaRepository.findByName(name);
+    AreaEntity area = existing.orElseGet(AreaEntity::new);
+    area.setName(name);
+    area.setGeoJson(geoJson.toString());
+    areaRepository.save(area);
+    afterCommit(() -> compiledAreas.put(name, polygon));
+    return existing.isEmpty();
+  }
+
+  /**
+   * Returns the compiled boundary of a named area, compiling and caching it on first use.
+   *
+   * @param name the name of the area
+   * @return an Optional containing the compiled area, or empty if no such area exists
+   */
+  public Optional<GeoPolygon> getArea(String name) {
+    GeoPolygon cached = compiledAreas.get(name);
+    if (cached != null) {
+      return Optional.of(cached);
+    }
+    Optional<AreaEntity> area = areaRepository.findByName(name);
+    if (area.isEmpty()) {
+      return Optional.empty();
+    }
+    try {
+      GeoPolygon polygon = GeoPolygon.fromGeoJson(
+          objectMapper.readTree(area.get().getGeoJson()));
+      compiledAreas.put(name, polygon);
+      return Optional.of(polygon);
+    } catch (JsonProcessingException e) {
+      throw new IllegalStateException("Stored area '" + name + "' is not valid JSON", e);
+    }
+  }
+
+  /**
+   * Deletes a named area. The compiled area is evicted once the delete commits, so a
+   * concurrent search cannot cache it again from the row that is still visible until then.
+   *
+   * @param name the name of the area
+   * @return true if the area existed and was deleted, false otherwise
+   */
+  @Transactional
+  public boolean deleteArea(String name) {
+    Optional<AreaEntity> area = areaRepository.findByName(name);
+    if (area.isEmpty()) {
+      return false;
+    }
+    areaRepository.delete(area.get());
+    afterCommit(() -> compiledAreas.remove(name));
+    return true;
+  }
+
+  /**
+   * Runs a cache update once the current transaction commits, or right away outside one.
+   */
+  private static void afterCommit(Runnable update) {
+    if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+      update.run();
+      return;
+    }
+    TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+      @Override
+      public void afterCommit() {
+        update.run();
+      }
+    });
+  }
+
+  /**
+   * Retrieves the names of all areas.
+   *
+   * @return the area names in alphabetical order
+   */
+  public List<String> getAllAreaNames() {
+    return areaRepository.findAllNames();
+  }
+}
@@ -0,0 +1,86 @@
+package com.ase.bytealchemists.service;
+
+import com.ase.bytealchemists.util.GeoUtils;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Covers a set of search boxes with few latitude/longitude rectangles, each loaded with one
+ * range query.
+ *
+ * <p>
+ * Boxes are merged only while the merged rectangle is no larger than the boxes it replaces,
+ * i.e. where they overlap enough, so distant origins such as New York and Los Angeles are
+ * queried separately instead of loading everything between them. Only when more than
+ * {@code maxRectangles} remain are the neighbouring rectangles that waste the least area
+ * merged further. Boxes that wrap the antimeridian or span every longitude cover every
+ * longitude.
+ * </p>
+ *
+ * @author Byte Alchemists
+ * @version 1.0
+ */
+final class BoundingBoxCover {
+
+  private BoundingBoxCover() {
+  }
+
+  /**
+   * Computes the rectangles covering the boxes.
+   *
+   * @param boxes         the boxes to cover, e.g. in route or request order
+   * @param maxRectangles the most rectangles to return
+   * @return the rectangles as {@code {minLat, maxLat, minLon, maxLon}}
+   */
+  static List<double[]> cover(List<GeoUtils.BoundingBox> boxes, int maxRectangles) {
+    List<double[]> rectangles = new ArrayList<>();
+    for (GeoUtils.BoundingBox box : boxes) {
+      boolean allLongitudes = box.isFullLongitude() || box.crossesAntimeridian();
+      rectangles.add(new double[] {box.getMinLat(), box.getMaxLat(),
+          allLongitudes ? -180.0 : box.getMinLon(), allLongitudes ? 180.0 : box.getMaxLon()});
+    }
+
+    boolean merged = true;
+    while (merged) {
+      merged = false;
+      for (int i = 0; i < rectangles.size() && !merged; i++) {
+        for (int j = i + 1; j < rectangles.size(); j++) {
+          if (waste(rectangles.get(i), rectangles.get(j)) <= 0) {
+            rectangles.set(i, union(rectangles.get(i), rectangles.get(j)));
+            rectangles.remove(j);
+            merged = true;
+            break;
+          }
+        }
+      }
+    }
+
+    while (rectangles.size() > Math.max(1, maxRectangles)) {
+      int best = 0;
+      for (int i = 1; i + 1 < rectangles.size(); i++) {
+        if (waste(rectangles.get(i), rectangles.get(i + 1))
+            < waste(rectangles.get(best), rectangles.get(best + 1))) {
+          best = i;
+        }
+      }
+      rectangles.set(best, union(rectangles.get(best), rectangles.get(best + 1)));
+      rectangles.remove(best + 1);
+    }
+    return rectangles;
+  }
+
+  // The area the union of two rectangles covers beyond the two of them, negative if they
+  // overlap by more than it adds
+  private static double waste(double[] a, double[] b) {
+    return area(union(a, b)) - area(a) - area(b);
+  }
+
+  private static double[] union(double[] a, double[] b) {
+    return new double[] {Math.min(a[0], b[0]), Math.max(a[1], b[1]), Math.min(a[2], b[2]),
+        Math.max(a[3], b[3])};
+  }
+
+  private static double area(double[] rectangle) {
+    return (rectangle[1] - rectangle[0]) * (rectangle[3] - rectangle[2]);
+  }
+}
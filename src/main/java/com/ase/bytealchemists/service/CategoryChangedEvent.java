@@ -0,0 +1,32 @@
+package com.ase.bytealchemists.service;
+
+/**
+ * Published by {@link CategoryService} after a category has been added or deleted,
+ * so that in-memory views of the categories can update themselves.
+ *
+ * @author Byte Alchemists
+ * @version 1.0
+ */
+public final class CategoryChangedEvent {
+  private final String categoryName;
+  private final boolean deleted;
+
+  /**
+   * Creates an event.
+   *
+   * @param categoryName the name of the category
+   * @param deleted      true if the category was deleted, false if it was added
+   */
+  public CategoryChangedEvent(String categoryName, boolean deleted) {
+    this.categoryName = categoryName;
+    this.deleted = deleted;
+  }
+
+  public String getCategoryName() {
+    return categoryName;
+  }
+
+  public boolean isDeleted() {
+    return deleted;
+  }
+}
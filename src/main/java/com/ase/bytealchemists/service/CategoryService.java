@@ -5,6 +5,7 @@ import com.ase.bytealchemists.repository.CategoryRepository;
 import java.util.List;
 import java.util.Optional;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.TransactionException;
 import org.springframework.transaction.annotation.Transactional;
@@ -28,6 +29,9 @@ public class CategoryService {
   @Autowired
   private CategoryRepository categoryRepository;
 
+  @Autowired
+  private ApplicationEventPublisher eventPublisher;
+
   /**
    * Adds a category to the database by its name if it doesn't exist.
    * This method checks if a category with the specified name is present
@@ -50,6 +54,7 @@ public class CategoryService {
     category.setCategoryName(categoryName);
 
     CategoryEntity savedCategory = categoryRepository.save(category);
+    eventPublisher.publishEvent(new CategoryChangedEvent(categoryName, false));
     return Optional.of(savedCategory);
   }
 
@@ -67,7 +72,10 @@ public class CategoryService {
   @Transactional
   public void deleteCategoryByName(String categoryName) {
     Optional<CategoryEntity> category = categoryRepository.findByCategoryName(categoryName);
-    category.ifPresent(categoryRepository::delete);
+    if (category.isPresent()) {
+      categoryRepository.delete(category.get());
+      eventPublisher.publishEvent(new CategoryChangedEvent(categoryName, true));
+    }
   }
 
   /**
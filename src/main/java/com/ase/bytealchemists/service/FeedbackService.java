@@ -31,26 +31,15 @@ public class FeedbackService {
 
   /**
    * Delete a feedback in the database by its id.
-   * This method checks if a feedback with the specified id is present
-   * in the database first. If found, then it can be deleted and return true;
-   * else return false.
+   * A single DELETE statement removes the feedback, and the number of rows it
+   * affected tells whether the feedback existed, so no lookup is needed first.
    *
    * @param id the name of the feedback to delete.
    * @return true if the feedback is deleted successfully,
    *         false if the feedback does not exist.
    */
   public boolean deleteFeedbackById(int id) {
-    // Check if the specified feedback exists
-    Optional<FeedbackEntity> feedbackEntity = feedbackRepository.findById((long) id);
-
-    if (feedbackEntity.isPresent()) {
-      // If the feedback exists, delete it
-      feedbackRepository.deleteById((long) id);
-      return true;
-    } else {
-      // If the feedback does not exist, return false
-      return false;
-    }
+    return feedbackRepository.deleteRowById((long) id) > 0;
   }
 
   /**
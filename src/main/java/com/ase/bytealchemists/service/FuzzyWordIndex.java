@@ -0,0 +1,317 @@
+package com.ase.bytealchemists.service;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Finds the known words within a few typos of a misspelled one.
+ *
+ * <p>
+ * Every word is split into the overlapping three letter pieces of {@code "$" + word + "$"},
+ * and each piece maps to the words containing it. A typo changes at most four pieces of a
+ * word, so a lookup only has to check the words sharing enough pieces with the misspelled
+ * one, found by counting over the piece lists. Those few candidates are then checked with
+ * an edit distance that gives up as soon as it exceeds the allowed number of typos.
+ * </p>
+ *
+ * <p>
+ * Not thread safe on its own: writes must be serialized with reads by the owner. Reads may
+ * run concurrently.
+ * </p>
+ *
+ * @author Byte Alchemists
+ * @version 1.0
+ */
+final class FuzzyWordIndex {
+
+  // Candidate counters are reused across lookups to avoid allocating one per word; only as
+  // many are kept as lookups can run at once, not one per request thread
+  private final BlockingQueue<Scratch> scratches =
+      new ArrayBlockingQueue<>(Runtime.getRuntime().availableProcessors());
+  private final Map<Long, Pieces> pieces = new HashMap<>();
+  private final Map<String, Integer> ordinals = new HashMap<>();
+  private final ArrayDeque<Integer> free = new ArrayDeque<>();
+  private String[] words = new String[16];
+  private int next;
+
+  /**
+   * Returns how many typos a word of some length may contain: none up to three letters,
+   * one up to eight and two from nine on. Shorter words with more typos would share no
+   * piece with the word meant.
+   *
+   * @param length the length of the word
+   * @return the number of edits allowed
+   */
+  static int maxEdits(int length) {
+    return length < 4 ? 0 : length < 9 ? 1 : 2;
+  }
+
+  /**
+   * Adds a word, if it is not known yet.
+   *
+   * @param word the word
+   */
+  void add(String word) {
+    if (ordinals.containsKey(word)) {
+      return;
+    }
+    int ordinal;
+    if (!free.isEmpty()) {
+      ordinal = free.pop();
+    } else {
+      if (next == words.length) {
+        words = Arrays.copyOf(words, next * 2);
+      }
+      ordinal = next++;
+    }
+    ordinals.put(word, ordinal);
+    words[ordinal] = word;
+    for (long piece : pieces(word)) {
+      pieces.computeIfAbsent(piece, key -> new Pieces()).add(ordinal);
+    }
+  }
+
+  /**
+   * Removes a word, if it is known.
+   *
+   * @param word the word
+   */
+  void remove(String word) {
+    Integer ordinal = ordinals.remove(word);
+    if (ordinal == null) {
+      return;
+    }
+    for (long piece : pieces(word)) {
+      Pieces list = pieces.get(piece);
+      list.remove(ordinal);
+      if (list.size == 0) {
+        pieces.remove(piece);
+      }
+    }
+    words[ordinal] = null;
+    free.push(ordinal);
+  }
+
+  /**
+   * Returns the number of known words.
+   *
+   * @return the number of words
+   */
+  int size() {
+    return ordinals.size();
+  }
+
+  /**
+   * Finds the known words within {@link #maxEdits(int)} typos of a word, counting an
+   * inserted, deleted or replaced letter and two swapped letters as one typo each.
+   *
+   * @param word the possibly misspelled word
+   * @return the close words with their distance, closest first and then alphabetical;
+   *         empty for words too short to correct
+   */
+  List<Match> lookup(String word) {
+    List<Match> matches = new ArrayList<>();
+    int maxEdits = maxEdits(word.length());
+    if (maxEdits == 0) {
+      return matches;
+    }
+    long[] wordPieces = pieces(word);
+    // A swap changes four pieces and any other typo at most three. Single swaps are probed
+    // for directly below, so a word one typo away shares all but three pieces
+    int changed = maxEdits == 1 ? 3 : 4 * maxEdits;
+    int minShared = Math.max(1, wordPieces.length - changed);
+
+    Scratch scratch = scratches.poll();
+    if (scratch == null) {
+      scratch = new Scratch();
+    }
+    int[] counts = scratch.counts(next);
+    int[] touched = scratch.touched;
+    int touchedCount = 0;
+    for (long piece : wordPieces) {
+      Pieces list = pieces.get(piece);
+      if (list == null) {
+        continue;
+      }
+      for (int i = 0; i < list.size; i++) {
+        int ordinal = list.ordinals[i];
+        if (counts[ordinal]++ == 0) {
+          if (touchedCount == touched.length) {
+            touched = Arrays.copyOf(touched, touchedCount * 2);
+            scratch.touched = touched;
+          }
+          touched[touchedCount++] = ordinal;
+        }
+      }
+    }
+    for (int i = 0; i + 1 < word.length(); i++) {
+      if (word.charAt(i) == word.charAt(i + 1)) {
+        continue;
+      }
+      char[] letters = word.toCharArray();
+      letters[i] = word.charAt(i + 1);
+      letters[i + 1] = word.charAt(i);
+      Integer ordinal = ordinals.get(new String(letters));
+      if (ordinal != null && counts[ordinal] >= 0) {
+        matches.add(new Match(words[ordinal], 1));
+        // Keep the loop below from matching it a second time
+        counts[ordinal] = counts[ordinal] == 0 ? 0 : -1;
+      }
+    }
+    for (int i = 0; i < touchedCount; i++) {
+      int ordinal = touched[i];
+      int shared = counts[ordinal];
+      // Clear as we go, so the scratch array is all zeros for the next lookup
+      counts[ordinal] = 0;
+      String candidate = words[ordinal];
+      if (shared < minShared || Math.abs(candidate.length() - word.length()) > maxEdits) {
+        continue;
+      }
+      int distance = distance(word, candidate, maxEdits);
+      if (distance <= maxEdits) {
+        matches.add(new Match(candidate, distance));
+      }
+    }
+    // Only handed back once every count it holds is cleared
+    scratches.offer(scratch);
+    matches.sort((a, b) -> a.distance != b.distance ? Integer.compare(a.distance, b.distance)
+        : a.word.compareTo(b.word));
+    return matches;
+  }
+
+  /**
+   * Computes the edit distance between two words, counting two swapped neighbouring letters
+   * as one edit, and stops once it is certain to exceed a bound.
+   *
+   * @param a   one word
+   * @param b   the other word
+   * @param max the bound
+   * @return the distance, or {@code max + 1} if it is larger than {@code max}
+   */
+  static int distance(String a, String b, int max) {
+    if (Math.abs(a.length() - b.length()) > max) {
+      return max + 1;
+    }
+    int[] beforePrevious = new int[b.length() + 1];
+    int[] previous = new int[b.length() + 1];
+    int[] current = new int[b.length() + 1];
+    for (int j = 0; j <= b.length(); j++) {
+      previous[j] = j;
+    }
+    int previousMin = 0;
+    for (int i = 1; i <= a.length(); i++) {
+      current[0] = i;
+      int rowMin = i;
+      for (int j = 1; j <= b.length(); j++) {
+        int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+        int value = Math.min(Math.min(previous[j] + 1, current[j - 1] + 1),
+            previous[j - 1] + cost);
+        if (i > 1 && j > 1 && a.charAt(i - 1) == b.charAt(j - 2)
+            && a.charAt(i - 2) == b.charAt(j - 1)) {
+          value = Math.min(value, beforePrevious[j - 2] + 1);
+        }
+        current[j] = value;
+        rowMin = Math.min(rowMin, value);
+      }
+      // A later row is never below this row's minimum, or the one before it plus a swap
+      if (rowMin > max && previousMin >= max) {
+        return max + 1;
+      }
+      previousMin = rowMin;
+      int[] recycled = beforePrevious;
+      beforePrevious = previous;
+      previous = current;
+      current = recycled;
+    }
+    return Math.min(previous[b.length()], max + 1);
+  }
+
+  /**
+   * Splits a word into its distinct three letter pieces, each packed into a long.
+   */
+  private static long[] pieces(String word) {
+    String padded = "$" + word + "$";
+    long[] result = new long[Math.max(0, padded.length() - 2)];
+    int count = 0;
+    for (int i = 0; i + 3 <= padded.length(); i++) {
+      long piece = (long) padded.charAt(i) << 32 | (long) padded.charAt(i + 1) << 16
+          | padded.charAt(i + 2);
+      boolean seen = false;
+      for (int k = 0; k < count && !seen; k++) {
+        seen = result[k] == piece;
+      }
+      if (!seen) {
+        result[count++] = piece;
+      }
+    }
+    return count == result.length ? result : Arrays.copyOf(result, count);
+  }
+
+  /**
+   * A known word close to a looked up one.
+   */
+  static final class Match {
+    private final String word;
+    private final int distance;
+
+    Match(String word, int distance) {
+      this.word = word;
+      this.distance = distance;
+    }
+
+    String getWord() {
+      return word;
+    }
+
+    int getDistance() {
+      return distance;
+    }
+  }
+
+  /**
+   * Candidate counters of one lookup, kept all zeros between lookups. Arrays much larger
+   * than needed, e.g. after many words were removed, are replaced rather than kept.
+   */
+  private static final class Scratch {
+    private int[] counts = new int[0];
+    private int[] touched = new int[1024];
+
+    private int[] counts(int capacity) {
+      if (counts.length < capacity || counts.length > 2 * capacity + 1024) {
+        counts = new int[capacity];
+      }
+      return counts;
+    }
+  }
+
+  /**
+   * The words containing one piece, in no particular order.
+   */
+  private static final class Pieces {
+    private int[] ordinals = new int[4];
+    private int size;
+
+    private void add(int ordinal) {
+      if (size == ordinals.length) {
+        ordinals = Arrays.copyOf(ordinals, size * 2);
+      }
+      ordinals[size++] = ordinal;
+    }
+
+    private void remove(int ordinal) {
+      for (int i = 0; i < size; i++) {
+        if (ordinals[i] == ordinal) {
+          size--;
+          ordinals[i] = ordinals[size];
+          return;
+        }
+      }
+    }
+  }
+}
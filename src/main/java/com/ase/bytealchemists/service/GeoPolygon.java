@@ -0,0 +1,258 @@
+package com.ase.bytealchemists.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A GeoJSON Polygon or MultiPolygon compiled for fast point-in-polygon tests.
+ *
+ * <p>
+ * Coordinates are treated as planar longitude/latitude, as GeoJSON specifies, and holes are
+ * honoured with the even-odd rule. Compiling computes the bounding box of each polygon and
+ * sorts its edges into horizontal latitude bands, so a test only looks at the edges of the
+ * band the point falls in instead of every vertex. Instances are immutable and can be
+ * shared between threads.
+ * </p>
+ *
+ * @author Byte Alchemists
+ * @version 1.0
+ */
+public final class GeoPolygon {
+
+  private static final int MAX_BANDS = 1024;
+
+  private final List<Part> parts;
+  private final double minLat;
+  private final double maxLat;
+  private final double minLon;
+  private final double maxLon;
+
+  private GeoPolygon(List<Part> parts) {
+    this.parts = parts;
+    double south = 90.0;
+    double north = -90.0;
+    double west = 180.0;
+    double east = -180.0;
+    for (Part part : parts) {
+      south = Math.min(south, part.minLat);
+      north = Math.max(north, part.maxLat);
+      west = Math.min(west, part.minLon);
+      east = Math.max(east, part.maxLon);
+    }
+    this.minLat = south;
+    this.maxLat = north;
+    this.minLon = west;
+    this.maxLon = east;
+  }
+
+  /**
+   * Compiles a GeoJSON geometry. Accepts a Polygon, a MultiPolygon, a Feature wrapping one,
+   * or a FeatureCollection whose features are all polygons.
+   *
+   * @param geoJson the parsed GeoJSON
+   * @return the compiled polygon
+   * @throws IllegalArgumentException if the GeoJSON is not a valid polygonal geometry
+   */
+  public static GeoPolygon fromGeoJson(JsonNode geoJson) {
+    List<Part> parts = new ArrayList<>();
+    collectParts(geoJson, parts);
+    if (parts.isEmpty()) {
+      throw new IllegalArgumentException("GeoJSON contains no polygon");
+    }
+    return new GeoPolygon(parts);
+  }
+
+  /**
+   * Tells whether a point lies inside the area.
+   *
+   * @param latitude  latitude in degrees
+   * @param longitude longitude in degrees
+   * @return true if the point is inside one of the polygons and outside its holes
+   */
+  public boolean contains(double latitude, double longitude) {
+    if (latitude < minLat || latitude > maxLat || longitude < minLon || longitude > maxLon) {
+      return false;
+    }
+    for (Part part : parts) {
+      if (part.contains(latitude, longitude)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  public double getMinLat() {
+    return minLat;
+  }
+
+  public double getMaxLat() {
+    return maxLat;
+  }
+
+  public double getMinLon() {
+    return minLon;
+  }
+
+  public double getMaxLon() {
+    return maxLon;
+  }
+
+  private static void collectParts(JsonNode node, List<Part> parts) {
+    if (node == null || !node.isObject()) {
+      throw new IllegalArgumentException("GeoJSON must be an object");
+    }
+    String type = node.path("type").asText();
+    switch (type) {
+      case "Polygon":
+        parts.add(compile(node.path("coordinates")));
+        break;
+      case "MultiPolygon":
+        JsonNode polygons = requireArray(node.path("coordinates"));
+        for (JsonNode polygon : polygons) {
+          parts.add(compile(polygon));
+        }
+        break;
+      case "Feature":
+        collectParts(node.get("geometry"), parts);
+        break;
+      case "FeatureCollection":
+        for (JsonNode feature : requireArray(node.path("features"))) {
+          collectParts(feature, parts);
+        }
+        break;
+      default:
+        throw new IllegalArgumentException("Unsupported GeoJSON type: " + type);
+    }
+  }
+
+  private static Part compile(JsonNode polygon) {
+    List<double[]> edges = new ArrayList<>();
+    double south = 90.0;
+    double north = -90.0;
+    double west = 180.0;
+    double east = -180.0;
+    JsonNode rings = requireArray(polygon);
+    if (rings.isEmpty()) {
+      throw new IllegalArgumentException("A polygon needs an outer ring");
+    }
+    for (JsonNode ring : rings) {
+      requireArray(ring);
+      if (ring.size() < 4) {
+        throw new IllegalArgumentException("A ring needs at least four positions");
+      }
+      double[] previous = position(ring.get(ring.size() - 1));
+      for (JsonNode coordinates : ring) {
+        double[] current = position(coordinates);
+        if (previous[1] != current[1]) {
+          // Horizontal edges never cross the eastward ray and are skipped
+          edges.add(new double[] {previous[0], previous[1], current[0], current[1]});
+        }
+        south = Math.min(south, current[1]);
+        north = Math.max(north, current[1]);
+        west = Math.min(west, current[0]);
+        east = Math.max(east, current[0]);
+        previous = current;
+      }
+    }
+    return new Part(edges, south, north, west, east);
+  }
+
+  private static double[] position(JsonNode coordinates) {
+    if (coordinates == null || !coordinates.isArray() || coordinates.size() < 2
+        || !coordinates.get(0).isNumber() || !coordinates.get(1).isNumber()) {
+      throw new IllegalArgumentException("A position must be [longitude, latitude]");
+    }
+    double longitude = coordinates.get(0).asDouble();
+    double latitude = coordinates.get(1).asDouble();
+    if (latitude < -90 || latitude > 90 || longitude < -180 || longitude > 180) {
+      throw new IllegalArgumentException("Position out of range: " + coordinates);
+    }
+    return new double[] {longitude, latitude};
+  }
+
+  private static JsonNode requireArray(JsonNode node) {
+    if (node == null || !node.isArray()) {
+      throw new IllegalArgumentException("Expected a coordinate array");
+    }
+    return node;
+  }
+
+  /**
+   * One polygon with its holes, edges bucketed by latitude band.
+   */
+  private static final class Part {
+    private final double[] fromLon;
+    private final double[] fromLat;
+    private final double[] toLon;
+    private final double[] toLat;
+    private final int[][] bands;
+    private final double bandHeight;
+    private final double minLat;
+    private final double maxLat;
+    private final double minLon;
+    private final double maxLon;
+
+    private Part(List<double[]> edges, double minLat, double maxLat, double minLon,
+        double maxLon) {
+      this.minLat = minLat;
+      this.maxLat = maxLat;
+      this.minLon = minLon;
+      this.maxLon = maxLon;
+      int count = edges.size();
+      fromLon = new double[count];
+      fromLat = new double[count];
+      toLon = new double[count];
+      toLat = new double[count];
+      for (int i = 0; i < count; i++) {
+        double[] edge = edges.get(i);
+        fromLon[i] = edge[0];
+        fromLat[i] = edge[1];
+        toLon[i] = edge[2];
+        toLat[i] = edge[3];
+      }
+
+      int bandCount = Math.max(1, Math.min(MAX_BANDS, count / 4));
+      bandHeight = Math.max((maxLat - minLat) / bandCount, Double.MIN_NORMAL);
+      int[] sizes = new int[bandCount];
+      for (int i = 0; i < count; i++) {
+        for (int band = band(Math.min(fromLat[i], toLat[i]), bandCount);
+            band <= band(Math.max(fromLat[i], toLat[i]), bandCount); band++) {
+          sizes[band]++;
+        }
+      }
+      bands = new int[bandCount][];
+      for (int band = 0; band < bandCount; band++) {
+        bands[band] = new int[sizes[band]];
+        sizes[band] = 0;
+      }
+      for (int i = 0; i < count; i++) {
+        for (int band = band(Math.min(fromLat[i], toLat[i]), bandCount);
+            band <= band(Math.max(fromLat[i], toLat[i]), bandCount); band++) {
+          bands[band][sizes[band]++] = i;
+        }
+      }
+    }
+
+    private int band(double latitude, int bandCount) {
+      int band = (int) ((latitude - minLat) / bandHeight);
+      return Math.min(Math.max(band, 0), bandCount - 1);
+    }
+
+    private boolean contains(double latitude, double longitude) {
+      if (latitude < minLat || latitude > maxLat || longitude < minLon || longitude > maxLon) {
+        return false;
+      }
+      boolean inside = false;
+      for (int i : bands[band(latitude, bands.length)]) {
+        // Count crossings of the ray going east from the point
+        if ((fromLat[i] > latitude) != (toLat[i] > latitude)
+            && longitude < fromLon[i] + (latitude - fromLat[i])
+                * (toLon[i] - fromLon[i]) / (toLat[i] - fromLat[i])) {
+          inside = !inside;
+        }
+      }
+      return inside;
+    }
+  }
+}
@@ -0,0 +1,33 @@
+package com.ase.bytealchemists.service;
+
+/**
+ * Strategies available for answering radius queries on services.
+ * The active mode is chosen at startup with the {@code geo.query-mode} property.
+ *
+ * @author Byte Alchemists
+ * @version 1.0
+ */
+public enum GeoQueryMode {
+  /**
+   * Evaluate the great-circle formula for every row in MySQL.
+   */
+  JPQL,
+
+  /**
+   * Restrict candidates in MySQL with an indexable latitude/longitude range derived
+   * from the radius, then evaluate the great-circle formula only on the survivors.
+   */
+  BOUNDING_BOX,
+
+  /**
+   * Store each location as a MySQL {@code POINT} with SRID 4326 behind a SPATIAL INDEX
+   * and let the R-tree find the candidates, see {@code SpatialSchemaInitializer}.
+   */
+  SPATIAL,
+
+  /**
+   * Answer radius queries from the in-memory {@link ServiceSpatialIndex}
+   * and load only the matching rows by primary key.
+   */
+  INDEX
+}
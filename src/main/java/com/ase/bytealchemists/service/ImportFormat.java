@@ -0,0 +1,57 @@
+package com.ase.bytealchemists.service;
+
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+
+/**
+ * Input formats of the bulk service import.
+ *
+ * @author Byte Alchemists
+ * @version 1.0
+ */
+public enum ImportFormat {
+  /**
+   * A JSON array of service objects, as returned by {@code GET /services?unpaged=true}.
+   */
+  JSON("application/json"),
+
+  /**
+   * Comma separated values with a header row naming the service fields.
+   */
+  CSV("text/csv");
+
+  private final String mediaType;
+
+  ImportFormat(String mediaType) {
+    this.mediaType = mediaType;
+  }
+
+  public String getMediaType() {
+    return mediaType;
+  }
+
+  /**
+   * Looks up a format by the {@code Content-Type} of a request, ignoring parameters such as
+   * the charset.
+   *
+   * @param contentType the content type header
+   * @return the format, or null if there is no such format
+   */
+  public static ImportFormat fromContentType(String contentType) {
+    if (contentType == null) {
+      return null;
+    }
+    MediaType type;
+    try {
+      type = MediaType.parseMediaType(contentType);
+    } catch (InvalidMediaTypeException e) {
+      return null;
+    }
+    for (ImportFormat format : values()) {
+      if (MediaType.parseMediaType(format.mediaType).equalsTypeAndSubtype(type)) {
+        return format;
+      }
+    }
+    return null;
+  }
+}
@@ -0,0 +1,52 @@
+package com.ase.bytealchemists.service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Encodes and decodes the opaque cursors used for keyset pagination.
+ * A cursor is the sort key of the last item of a page, base64url encoded so that
+ * clients treat it as a token rather than something to build themselves.
+ *
+ * @author Byte Alchemists
+ * @version 1.0
+ */
+public final class PageCursor {
+
+  private static final String SEPARATOR = "\u0000";
+
+  private PageCursor() {
+  }
+
+  /**
+   * Encodes the sort key values of the last item on a page.
+   *
+   * @param parts the sort key values, in order
+   * @return the opaque cursor
+   */
+  public static String encode(String... parts) {
+    return Base64.getUrlEncoder().withoutPadding()
+        .encodeToString(String.join(SEPARATOR, parts).getBytes(StandardCharsets.UTF_8));
+  }
+
+  /**
+   * Decodes a cursor produced by {@link #encode(String...)}.
+   *
+   * @param cursor        the opaque cursor sent by the client
+   * @param expectedParts the number of sort key values the cursor must contain
+   * @return the sort key values
+   * @throws IllegalArgumentException if the cursor is malformed
+   */
+  public static String[] decode(String cursor, int expectedParts) {
+    try {
+      String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+      String[] parts = decoded.split(SEPARATOR, -1);
+      if (parts.length != expectedParts) {
+        throw new IllegalArgumentException("Invalid cursor");
+      }
+      return parts;
+    } catch (IllegalArgumentException e) {
+      throw new IllegalArgumentException("Invalid cursor", e);
+    }
+  }
+}
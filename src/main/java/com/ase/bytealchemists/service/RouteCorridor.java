@@ -0,0 +1,195 @@
+package com.ase.bytealchemists.service;
+
+import com.ase.bytealchemists.util.GeoUtils;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The area within a given distance of a route, i.e. a polyline of great-circle segments.
+ *
+ * <p>
+ * Each segment is covered by circles around evenly spaced points on it, at most
+ * {@value #MAX_PIECES_PER_SEGMENT} per segment, so that every point of the corridor lies in
+ * one of the {@link #getSearchCircles() search circles}. Those circles are what a spatial
+ * index is asked for; {@link #locate(double, double)} then computes the exact distance from
+ * a candidate to the route and how far along the route its closest point is.
+ * </p>
+ *
+ * @author Byte Alchemists
+ * @version 1.0
+ */
+public final class RouteCorridor {
+
+  private static final int MAX_PIECES_PER_SEGMENT = 64;
+
+  private final double widthKm;
+  private final double[][] vertices;
+  private final double[] startKm;
+  private final double[][] normals;
+  private final double[] angles;
+  private final double[][] midpoints;
+  private final double[] minDots;
+  private final List<Circle> searchCircles = new ArrayList<>();
+
+  /**
+   * Builds the corridor of a route.
+   *
+   * @param route   the route as {@code {latitude, longitude}} points in travel order
+   * @param widthKm the maximum distance from the route in kilometers, on either side
+   * @throws IllegalArgumentException if the route is empty or the width is not positive
+   */
+  public RouteCorridor(List<double[]> route, double widthKm) {
+    if (route.isEmpty()) {
+      throw new IllegalArgumentException("A route needs at least one point");
+    }
+    if (!(widthKm > 0.0)) {
+      throw new IllegalArgumentException("Width must be positive");
+    }
+    this.widthKm = widthKm;
+    int count = route.size();
+    vertices = new double[count][];
+    for (int i = 0; i < count; i++) {
+      vertices[i] = GeoUtils.unitVector(route.get(i)[0], route.get(i)[1]);
+    }
+
+    int segments = Math.max(1, count - 1);
+    startKm = new double[segments + 1];
+    normals = new double[segments][];
+    angles = new double[segments];
+    midpoints = new double[segments][];
+    minDots = new double[segments];
+    for (int i = 0; i < segments; i++) {
+      double[] a = vertices[i];
+      double[] b = vertices[Math.min(i + 1, count - 1)];
+      double[] normal = cross(a, b);
+      double norm = Math.sqrt(dot(normal, normal));
+      angles[i] = Math.atan2(norm, dot(a, b));
+      normals[i] = norm < 1e-15 ? null : scale(normal, 1.0 / norm);
+      startKm[i + 1] = startKm[i] + angles[i] * GeoUtils.EARTH_RADIUS_KM;
+      midpoints[i] = slerp(a, b, angles[i], 0.5);
+      // Every point of the segment is within half its length of the midpoint
+      double reachKm = angles[i] / 2 * GeoUtils.EARTH_RADIUS_KM + widthKm;
+      minDots[i] = GeoUtils.minDotProduct(reachKm + 1e-6);
+
+      double segmentKm = angles[i] * GeoUtils.EARTH_RADIUS_KM;
+      int pieces = (int) Math.min(MAX_PIECES_PER_SEGMENT,
+          Math.max(1, Math.ceil(segmentKm / (2 * widthKm))));
+      for (int piece = 0; piece < pieces; piece++) {
+        double[] center = slerp(a, b, angles[i], (piece + 0.5) / pieces);
+        searchCircles.add(new Circle(Math.toDegrees(Math.asin(center[2])),
+            Math.toDegrees(Math.atan2(center[1], center[0])),
+            segmentKm / pieces / 2 + widthKm + 1e-6));
+      }
+    }
+  }
+
+  /**
+   * Returns circles that together cover the whole corridor.
+   *
+   * @return the search circles
+   */
+  public List<Circle> getSearchCircles() {
+    return Collections.unmodifiableList(searchCircles);
+  }
+
+  /**
+   * Returns the length of the route.
+   *
+   * @return the length in kilometers
+   */
+  public double getLengthKm() {
+    return startKm[startKm.length - 1];
+  }
+
+  /**
+   * Locates a point relative to the route.
+   *
+   * @param latitude  latitude in degrees
+   * @param longitude longitude in degrees
+   * @return the distance to the closest point of the route and how far along the route that
+   *         point is, or null if the point is farther than the width from the route
+   */
+  public Position locate(double latitude, double longitude) {
+    double[] point = GeoUtils.unitVector(latitude, longitude);
+    Position best = null;
+    for (int i = 0; i < angles.length; i++) {
+      if (dot(point, midpoints[i]) <= minDots[i]) {
+        continue;
+      }
+      Position position = project(i, point);
+      if (position.distanceKm() <= widthKm && (best == null
+          || position.distanceKm() < best.distanceKm())) {
+        best = position;
+      }
+    }
+    return best;
+  }
+
+  private Position project(int segment, double[] point) {
+    double[] a = vertices[segment];
+    double[] normal = normals[segment];
+    if (normal != null) {
+      double sinCrossTrack = dot(point, normal);
+      double[] onCircle = new double[] {point[0] - sinCrossTrack * normal[0],
+          point[1] - sinCrossTrack * normal[1], point[2] - sinCrossTrack * normal[2]};
+      double cosCrossTrack = Math.sqrt(dot(onCircle, onCircle));
+      // Signed angle from the start of the segment towards its end
+      double along = Math.atan2(dot(cross(a, onCircle), normal), dot(a, onCircle));
+      if (cosCrossTrack > 1e-15 && along >= 0.0 && along <= angles[segment]) {
+        double crossTrack = Math.atan2(Math.abs(sinCrossTrack), cosCrossTrack);
+        return new Position(crossTrack * GeoUtils.EARTH_RADIUS_KM,
+            startKm[segment] + along * GeoUtils.EARTH_RADIUS_KM);
+      }
+    }
+    // The closest point is one of the ends
+    double toStart = GeoUtils.distanceKm(point, a);
+    double[] b = vertices[Math.min(segment + 1, vertices.length - 1)];
+    double toEnd = GeoUtils.distanceKm(point, b);
+    return toStart <= toEnd
+        ? new Position(toStart, startKm[segment])
+        : new Position(toEnd, startKm[segment + 1]);
+  }
+
+  private static double[] slerp(double[] a, double[] b, double angle, double fraction) {
+    if (angle < 1e-12) {
+      return a.clone();
+    }
+    double sin = Math.sin(angle);
+    double wa = Math.sin((1 - fraction) * angle) / sin;
+    double wb = Math.sin(fraction * angle) / sin;
+    return new double[] {wa * a[0] + wb * b[0], wa * a[1] + wb * b[1], wa * a[2] + wb * b[2]};
+  }
+
+  private static double[] cross(double[] a, double[] b) {
+    return new double[] {a[1] * b[2] - a[2] * b[1], a[2] * b[0] - a[0] * b[2],
+        a[0] * b[1] - a[1] * b[0]};
+  }
+
+  private static double dot(double[] a, double[] b) {
+    return a[0] * b[0] + a[1] * b[1] + a[2] * b[2];
+  }
+
+  private static double[] scale(double[] a, double factor) {
+    return new double[] {a[0] * factor, a[1] * factor, a[2] * factor};
+  }
+
+  /**
+   * A circle to search a spatial index with.
+   *
+   * @param latitude  latitude of the centre in degrees
+   * @param longitude longitude of the centre in degrees
+   * @param radiusKm  radius in kilometers
+   */
+  public record Circle(double latitude, double longitude, double radiusKm) {
+  }
+
+  /**
+   * Where a point lies relative to the route.
+   *
+   * @param distanceKm   the distance to the closest point of the route
+   * @param alongRouteKm the distance from the start of the route to that closest point
+   */
+  public record Position(double distanceKm, double alongRouteKm) {
+  }
+}
@@ -0,0 +1,333 @@
+package com.ase.bytealchemists.service;
+
+import com.ase.bytealchemists.model.AutocompleteStats;
+import com.ase.bytealchemists.model.AutocompleteSuggestion;
+import com.ase.bytealchemists.model.ServiceEntity;
+import com.ase.bytealchemists.model.ServiceText;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Typeahead completions for the search box, over service names, cities and categories.
+ *
+ * <p>
+ * Each kind of suggestion lives in its own {@link SuggestionTrie}, weighted by popularity:
+ * the number of services with that name, in that city or in that category. Categories are
+ * suggested as long as they exist, even without services. The tries are loaded at startup
+ * and then kept up to date from {@link ServiceChangedEvent} and {@link CategoryChangedEvent},
+ * so completions never query the database.
+ * </p>
+ *
+ * @author Byte Alchemists
+ * @version 1.0
+ */
+@Component
+public class ServiceAutocomplete {
+
+  /**
+   * A kind of suggestion.
+   */
+  public enum Type {
+    NAME, CITY, CATEGORY;
+
+    /**
+     * Parses the {@code type} request parameter.
+     *
+     * @param value {@code name}, {@code city} or {@code category}, ignoring case
+     * @return the type
+     * @throws IllegalArgumentException if the value is none of them
+     */
+    public static Type fromParameter(String value) {
+      for (Type type : values()) {
+        if (type.name().equalsIgnoreCase(value)) {
+          return type;
+        }
+      }
+      throw new IllegalArgumentException("Type must be name, city or category");
+    }
+  }
+
+  // Rough heap size of one entry of the per-service map: node, boxed key, value and slot
+  private static final int BYTES_PER_SERVICE = 32 + 16 + 24 + 4;
+
+  private final int maxResults;
+  private final ReadWriteLock lock = new ReentrantReadWriteLock();
+  private SuggestionTrie names;
+  private SuggestionTrie cities;
+  private SuggestionTrie categories;
+  // The suggestions each service counts towards, to take them back when it changes
+  private Map<Long, Counted> services = new HashMap<>();
+  // Services per category, also for categories that are not suggested
+  private Map<String, Long> categoryCounts = new HashMap<>();
+
+  /**
+   * Creates an empty index.
+   *
+   * @param maxResults the most completions one request can ask for
+   */
+  public ServiceAutocomplete(@Value("${autocomplete.max-results:10}") int maxResults) {
+    if (maxResults < 1) {
+      throw new IllegalArgumentException("Max results must be at least 1");
+    }
+    this.maxResults = maxResults;
+    this.names = new SuggestionTrie(maxResults);
+    this.cities = new SuggestionTrie(maxResults);
+    this.categories = new SuggestionTrie(maxResults);
+  }
+
+  private record Counted(String name, String city, String category) {
+  }
+
+  /**
+   * Replaces the whole content of the index.
+   *
+   * @param texts         the name, city and category of every service
+   * @param categoryNames the name of every category
+   */
+  public void rebuild(Collection<? extends ServiceText> texts,
+      Collection<String> categoryNames) {
+    // Tally first and build each trie in one pass, which is much faster than a put per service
+    Map<String, String> nameTexts = new HashMap<>();
+    Map<String, String> cityTexts = new HashMap<>();
+    Map<String, Long> nameWeights = new HashMap<>();
+    Map<String, Long> cityWeights = new HashMap<>();
+    Map<Long, Counted> newServices = new HashMap<>();
+    Map<String, Long> newCategoryCounts = new HashMap<>();
+    for (ServiceText text : texts) {
+      if (text.getId() != null) {
+        String category = text.getCategory() == null || text.getCategory().isEmpty() ? null
+            : SuggestionTrie.key(text.getCategory());
+        if (category != null) {
+          newCategoryCounts.merge(category, 1L, Long::sum);
+        }
+        newServices.put(text.getId(), new Counted(tally(nameTexts, nameWeights, text.getName()),
+            tally(cityTexts, cityWeights, text.getCity()), category));
+      }
+    }
+    Map<String, Long> categoryWeights = new HashMap<>();
+    for (String categoryName : categoryNames) {
+      if (categoryName != null && !categoryName.isEmpty()) {
+        categoryWeights.putIfAbsent(categoryName,
+            newCategoryCounts.getOrDefault(SuggestionTrie.key(categoryName), 0L));
+      }
+    }
+    SuggestionTrie newNames = SuggestionTrie.build(maxResults, nameWeights);
+    SuggestionTrie newCities = SuggestionTrie.build(maxResults, cityWeights);
+    SuggestionTrie newCategories = SuggestionTrie.build(maxResults, categoryWeights);
+
+    lock.writeLock().lock();
+    try {
+      names = newNames;
+      cities = newCities;
+      categories = newCategories;
+      services = newServices;
+      categoryCounts = newCategoryCounts;
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Moves the counts of a created, updated or deleted service to its new name, city and
+   * category.
+   *
+   * @param event the change
+   */
+  @EventListener
+  public void onServiceChanged(ServiceChangedEvent event) {
+    ServiceEntity service = event.getService();
+    lock.writeLock().lock();
+    try {
+      Counted previous = services.remove(event.getServiceId());
+      if (previous != null) {
+        adjust(names, previous.name(), -1);
+        adjust(cities, previous.city(), -1);
+        adjustCategory(previous.category(), -1);
+      }
+      if (service != null) {
+        services.put(event.getServiceId(), count(names, cities, categories, categoryCounts,
+            service.getName(), service.getCity(), service.getCategory()));
+      }
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Starts or stops suggesting an added or deleted category.
+   *
+   * @param event the change
+   */
+  @EventListener
+  public void onCategoryChanged(CategoryChangedEvent event) {
+    String name = event.getCategoryName();
+    if (name == null || name.isEmpty()) {
+      return;
+    }
+    lock.writeLock().lock();
+    try {
+      if (event.isDeleted()) {
+        categories.remove(name);
+      } else if (categories.get(name) == null) {
+        categories.put(name, categoryCounts.getOrDefault(SuggestionTrie.key(name), 0L));
+      }
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Returns the most popular completions of a prefix, compared ignoring case. When nothing
+   * starts with the prefix, it is taken as mistyped and suggestions starting within one edit
+   * of it, or two for prefixes of nine letters or more, are returned instead.
+   *
+   * @param prefix the text typed so far
+   * @param type   the kind of suggestions to return, or null for every kind
+   * @param limit  the maximum number of suggestions, capped at
+   *               {@code autocomplete.max-results}
+   * @return the suggestions, most popular first and then alphabetical
+   */
+  public List<AutocompleteSuggestion> complete(String prefix, Type type, int limit) {
+    int size = Math.min(limit, maxResults);
+    List<AutocompleteSuggestion> suggestions = new ArrayList<>();
+    lock.readLock().lock();
+    try {
+      addCompletions(prefix, type, size, 0, suggestions);
+      int maxEdits = FuzzyWordIndex.maxEdits(SuggestionTrie.key(prefix).length());
+      if (suggestions.isEmpty() && maxEdits > 0) {
+        // Nothing starts with what was typed, so it was probably mistyped
+        addCompletions(prefix, type, size, maxEdits, suggestions);
+      }
+    } finally {
+      lock.readLock().unlock();
+    }
+    suggestions.sort((a, b) -> a.getPopularity() != b.getPopularity()
+        ? Long.compare(b.getPopularity(), a.getPopularity())
+        : a.getText().compareToIgnoreCase(b.getText()));
+    return suggestions.size() > size ? new ArrayList<>(suggestions.subList(0, size))
+        : suggestions;
+  }
+
+  /**
+   * Reports how many suggestions the index holds and roughly how much memory it uses.
+   *
+   * @return the sizes of the tries and the estimated heap bytes
+   */
+  public AutocompleteStats stats() {
+    lock.readLock().lock();
+    try {
+      long[] nameFootprint = names.footprint();
+      long[] cityFootprint = cities.footprint();
+      long[] categoryFootprint = categories.footprint();
+      return new AutocompleteStats(names.size(), cities.size(), categories.size(),
+          nameFootprint[0] + cityFootprint[0] + categoryFootprint[0],
+          nameFootprint[1] + cityFootprint[1] + categoryFootprint[1]
+              + (long) BYTES_PER_SERVICE * services.size());
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  private void addCompletions(String prefix, Type type, int size, int maxEdits,
+      List<AutocompleteSuggestion> suggestions) {
+    for (Type kind : Type.values()) {
+      if (type != null && type != kind) {
+        continue;
+      }
+      SuggestionTrie trie = trie(kind);
+      List<SuggestionTrie.Entry> entries = maxEdits == 0 ? trie.complete(prefix, size)
+          : trie.completeFuzzy(prefix, maxEdits, size);
+      for (SuggestionTrie.Entry entry : entries) {
+        suggestions.add(new AutocompleteSuggestion(entry.getText(),
+            kind.name().toLowerCase(Locale.ROOT), entry.getWeight()));
+      }
+    }
+  }
+
+  private SuggestionTrie trie(Type type) {
+    switch (type) {
+      case NAME:
+        return names;
+      case CITY:
+        return cities;
+      default:
+        return categories;
+    }
+  }
+
+  /**
+   * Counts a service towards its name, city and category.
+   *
+   * @return the suggestions it was counted towards
+   */
+  private static Counted count(SuggestionTrie names, SuggestionTrie cities,
+      SuggestionTrie categories, Map<String, Long> categoryCounts, String name, String city,
+      String category) {
+    String countedCategory = null;
+    if (category != null && !category.isEmpty()) {
+      String key = SuggestionTrie.key(category);
+      long count = categoryCounts.merge(key, 1L, Long::sum);
+      if (categories.get(category) != null) {
+        categories.put(category, count);
+      }
+      countedCategory = key;
+    }
+    return new Counted(adjust(names, name, 1), adjust(cities, city, 1), countedCategory);
+  }
+
+  /**
+   * Adds to the popularity of a name or city, dropping it when no service is left.
+   *
+   * @return the text as stored, shared by every service counted towards it
+   */
+  private static String adjust(SuggestionTrie trie, String text, long delta) {
+    if (text == null || text.isEmpty()) {
+      return null;
+    }
+    SuggestionTrie.Entry entry = trie.get(text);
+    long weight = (entry == null ? 0 : entry.getWeight()) + delta;
+    if (weight <= 0) {
+      trie.remove(text);
+      return null;
+    }
+    return trie.put(text, weight).getText();
+  }
+
+  /**
+   * Counts one more service towards a name or city while rebuilding.
+   *
+   * @return the text as first seen, shared by every service counted towards it
+   */
+  private static String tally(Map<String, String> texts, Map<String, Long> weights,
+      String text) {
+    if (text == null || text.isEmpty()) {
+      return null;
+    }
+    String stored = texts.computeIfAbsent(SuggestionTrie.key(text), key -> text);
+    weights.merge(stored, 1L, Long::sum);
+    return stored;
+  }
+
+  private void adjustCategory(String key, long delta) {
+    if (key == null) {
+      return;
+    }
+    long count = categoryCounts.merge(key, delta, Long::sum);
+    if (count <= 0) {
+      categoryCounts.remove(key);
+      count = 0;
+    }
+    if (categories.get(key) != null) {
+      categories.put(key, count);
+    }
+  }
+}
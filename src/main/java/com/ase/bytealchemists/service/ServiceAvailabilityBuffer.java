@@ -0,0 +1,356 @@
+package com.ase.bytealchemists.service;
+
+import com.ase.bytealchemists.model.ServiceEntity;
+import com.ase.bytealchemists.repository.ServiceRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Component;
+
+/**
+ * Write-behind buffer for availability changes, which shelters make many times an hour.
+ *
+ * <p>
+ * A change is applied in memory at once: the buffer keeps the service as it now is, with
+ * its new availability and a new version, updates the spatial index and publishes a
+ * {@link ServiceChangedEvent}, so queries, caches and ETags see it immediately. Only the
+ * first change of a service since the last flush reads its row; later ones reuse the
+ * buffered service. Events are published in the order the changes were made, but outside
+ * the lock guarding the buffer, so slow listeners do not hold up other changes. Every
+ * {@code service.availability.flush-interval-ms} the buffered services are written with
+ * JDBC batches of {@code service.availability.batch-size} rows, one row per service however
+ * often it changed, and sooner when that many services are waiting. A flush that fails is
+ * retried on the next run, and the buffer is flushed once more when the application shuts
+ * down.
+ * </p>
+ *
+ * <p>
+ * Each write only applies if the row is still at the version the service was read at. If
+ * it is not, because the service was changed outside this application or deleted, the
+ * change is dropped and the row as stored is published instead. Updates and deletes made
+ * through {@link ServiceService} flush or discard the buffered change of their service
+ * first, so they never race with it.
+ * </p>
+ *
+ * @author Byte Alchemists
+ * @version 1.0
+ */
+@Component
+public class ServiceAvailabilityBuffer {
+
+  @Autowired
+  private ServiceRepository serviceRepository;
+
+  @Autowired
+  private ServiceSpatialIndex spatialIndex;
+
+  @Autowired
+  private ApplicationEventPublisher eventPublisher;
+
+  @Value("${geo.query-mode:INDEX}")
+  private GeoQueryMode queryMode = GeoQueryMode.INDEX;
+
+  private final long flushIntervalMs;
+  private final int batchSize;
+  // Written under the lock of this buffer, read without it
+  private final Map<Long, Pending> pending = new ConcurrentHashMap<>();
+  private final Object flushLock = new Object();
+  private final AtomicBoolean flushRequested = new AtomicBoolean();
+  // Changes in the order they were made, published outside the lock of this buffer so
+  // listeners never hold up other changes or flushes
+  private final Queue<Change> unpublished = new ConcurrentLinkedQueue<>();
+  private final Object publishLock = new Object();
+  private ScheduledExecutorService executor;
+
+  /**
+   * Creates an empty buffer.
+   *
+   * @param flushIntervalMs the longest time a change waits before it is written, or 0 to
+   *                        write every change right away
+   * @param batchSize       the most rows written by one batch
+   */
+  public ServiceAvailabilityBuffer(
+      @Value("${service.availability.flush-interval-ms:1000}") long flushIntervalMs,
+      @Value("${service.availability.batch-size:500}") int batchSize) {
+    this.flushIntervalMs = flushIntervalMs;
+    this.batchSize = Math.max(1, batchSize);
+  }
+
+  /**
+   * A service with a change not written yet, and the version its row is at.
+   */
+  private record Pending(ServiceEntity service, long storedVersion) {
+  }
+
+  /**
+   * A service as it now is, or null if it no longer exists, to be published.
+   */
+  private record Change(Long id, ServiceEntity service) {
+  }
+
+  /**
+   * Starts flushing the buffer in the background.
+   */
+  @PostConstruct
+  public void start() {
+    if (flushIntervalMs <= 0) {
+      return;
+    }
+    executor = Executors.newSingleThreadScheduledExecutor(task -> {
+      Thread thread = new Thread(task, "availability-flush");
+      thread.setDaemon(true);
+      return thread;
+    });
+    executor.scheduleWithFixedDelay(this::flushInBackground, flushIntervalMs,
+        flushIntervalMs, TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Stops the background flushes and writes what is still buffered.
+   *
+   * @throws InterruptedException if interrupted while waiting for a running flush
+   */
+  @PreDestroy
+  public void stop() throws InterruptedException {
+    if (executor != null) {
+      executor.shutdown();
+      executor.awaitTermination(30, TimeUnit.SECONDS);
+    }
+    flush();
+  }
+
+  /**
+   * Sets the availability of a service. Setting the availability it already has changes
+   * nothing.
+   *
+   * @param id           the id of the service
+   * @param availability the new availability
+   * @return the service as it now is, or null if it does not exist
+   */
+  public ServiceEntity setAvailability(Long id, boolean availability) {
+    ServiceEntity changed;
+    while (true) {
+      Pending current = pending.get(id);
+      ServiceEntity stored = null;
+      if (current == null) {
+        Optional<ServiceEntity> row = serviceRepository.findById(id);
+        if (row.isEmpty()) {
+          return null;
+        }
+        stored = row.get();
+      }
+      synchronized (this) {
+        // Flushed or changed by another request while the row was read: start over
+        if (pending.get(id) != current) {
+          continue;
+        }
+        ServiceEntity service = current == null ? stored : current.service();
+        if (service.getAvailability() != null && service.getAvailability() == availability) {
+          return service;
+        }
+        long storedVersion = current == null ? versionOf(stored) : current.storedVersion();
+        changed = copyOf(service);
+        changed.setAvailability(availability);
+        changed.setVersion(versionOf(service) + 1);
+        pending.put(id, new Pending(changed, storedVersion));
+        unpublished.add(new Change(id, changed));
+      }
+      break;
+    }
+    publishChanges();
+
+    if (flushIntervalMs <= 0) {
+      flush(id);
+    } else if (executor != null && pending.size() >= batchSize
+        && flushRequested.compareAndSet(false, true)) {
+      executor.execute(this::flushInBackground);
+    }
+    return changed;
+  }
+
+  /**
+   * Returns a service with a change not written yet.
+   *
+   * @param id the id of the service
+   * @return the service as it now is, or null if nothing is buffered for it
+   */
+  public ServiceEntity get(Long id) {
+    Pending buffered = id == null ? null : pending.get(id);
+    return buffered == null ? null : buffered.service();
+  }
+
+  /**
+   * Returns every service with a change not written yet.
+   *
+   * @return the services as they now are
+   */
+  public List<ServiceEntity> getAll() {
+    List<ServiceEntity> services = new ArrayList<>();
+    for (Pending buffered : pending.values()) {
+      services.add(buffered.service());
+    }
+    return services;
+  }
+
+  /**
+   * Tells whether every change has been written.
+   *
+   * @return true if nothing is buffered
+   */
+  public boolean isEmpty() {
+    return pending.isEmpty();
+  }
+
+  /**
+   * Returns the number of services with a change not written yet.
+   *
+   * @return the number of services
+   */
+  public int size() {
+    return pending.size();
+  }
+
+  /**
+   * Writes every buffered change.
+   *
+   * @return the number of rows written
+   * @throws DataAccessException if a batch fails; its changes stay buffered
+   */
+  public int flush() {
+    synchronized (flushLock) {
+      List<Pending> all = new ArrayList<>(pending.values());
+      int written = 0;
+      for (int from = 0; from < all.size(); from += batchSize) {
+        written += write(all.subList(from, Math.min(all.size(), from + batchSize)));
+      }
+      return written;
+    }
+  }
+
+  /**
+   * Writes the buffered change of one service, if there is one, e.g. before the service
+   * is updated by other means.
+   *
+   * @param id the id of the service
+   * @throws DataAccessException if the write fails; the change stays buffered
+   */
+  public void flush(Long id) {
+    synchronized (flushLock) {
+      Pending buffered = pending.get(id);
+      if (buffered != null) {
+        write(List.of(buffered));
+      }
+    }
+  }
+
+  /**
+   * Forgets the buffered change of a deleted service.
+   *
+   * @param id the id of the service
+   */
+  public synchronized void discard(Long id) {
+    pending.remove(id);
+  }
+
+  private void flushInBackground() {
+    flushRequested.set(false);
+    try {
+      flush();
+    } catch (RuntimeException e) {
+      // The changes stay buffered and are written by the next run. Anything thrown out of
+      // here, not only data access errors, would cancel every later run
+    }
+  }
+
+  private int write(Collection<Pending> batch) {
+    List<ServiceEntity> services = new ArrayList<>(batch.size());
+    long[] storedVersions = new long[batch.size()];
+    for (Pending buffered : batch) {
+      storedVersions[services.size()] = buffered.storedVersion();
+      services.add(buffered.service());
+    }
+    int[] counts = serviceRepository.updateAvailability(services, storedVersions);
+
+    int written = 0;
+    List<Long> conflicts = new ArrayList<>();
+    synchronized (this) {
+      int i = 0;
+      for (Pending buffered : batch) {
+        Long id = buffered.service().getId();
+        Pending latest = pending.get(id);
+        if (counts[i++] == 0) {
+          pending.remove(id);
+          conflicts.add(id);
+        } else {
+          written++;
+          if (latest == buffered) {
+            pending.remove(id);
+          } else if (latest != null) {
+            // Changed again while being written: the row is now at the written version
+            pending.put(id, new Pending(latest.service(), versionOf(buffered.service())));
+          }
+        }
+      }
+    }
+    for (Long id : conflicts) {
+      // The row changed under the buffer; what is stored wins
+      unpublished.add(new Change(id, serviceRepository.findById(id).orElse(null)));
+    }
+    publishChanges();
+    return written;
+  }
+
+  // Whichever caller gets here first publishes every queued change, so listeners see the
+  // changes of a service in the order they were made
+  private void publishChanges() {
+    synchronized (publishLock) {
+      Change change;
+      while ((change = unpublished.poll()) != null) {
+        publish(change.id(), change.service());
+      }
+    }
+  }
+
+  private void publish(Long id, ServiceEntity service) {
+    if (queryMode == GeoQueryMode.INDEX) {
+      if (service == null) {
+        spatialIndex.remove(id);
+      } else {
+        spatialIndex.put(service);
+      }
+    }
+    eventPublisher.publishEvent(new ServiceChangedEvent(id, service));
+  }
+
+  private static long versionOf(ServiceEntity service) {
+    return service.getVersion() == null ? 0L : service.getVersion();
+  }
+
+  // Rows read through JPA are managed; the buffer keeps detached copies of its own
+  private static ServiceEntity copyOf(ServiceEntity service) {
+    ServiceEntity copy = new ServiceEntity(service.getId(), service.getName(),
+        service.getCategory(), service.getLatitude(), service.getLongitude(),
+        service.getAddress(), service.getCity(), service.getState(), service.getZipcode(),
+        service.getContactNumber(), service.getOperationHour(), service.getAvailability());
+    copy.setVersion(service.getVersion());
+    copy.setUnitX(service.getUnitX());
+    copy.setUnitY(service.getUnitY());
+    copy.setUnitZ(service.getUnitZ());
+    return copy;
+  }
+}
@@ -0,0 +1,43 @@
+package com.ase.bytealchemists.service;
+
+import com.ase.bytealchemists.model.ServiceEntity;
+
+/**
+ * Published by {@link ServiceService} after a service has been created, updated or deleted,
+ * so that in-memory views of the services can update themselves.
+ *
+ * @author Byte Alchemists
+ * @version 1.0
+ */
+public final class ServiceChangedEvent {
+  private final Long serviceId;
+  private final ServiceEntity service;
+
+  /**
+   * Creates an event.
+   *
+   * @param serviceId the id of the changed service
+   * @param service   the service as now persisted, or null if it was deleted
+   */
+  public ServiceChangedEvent(Long serviceId, ServiceEntity service) {
+    this.serviceId = serviceId;
+    this.service = service;
+  }
+
+  public Long getServiceId() {
+    return serviceId;
+  }
+
+  /**
+   * Returns the service as now persisted.
+   *
+   * @return the service, or null if it was deleted
+   */
+  public ServiceEntity getService() {
+    return service;
+  }
+
+  public boolean isDeleted() {
+    return service == null;
+  }
+}
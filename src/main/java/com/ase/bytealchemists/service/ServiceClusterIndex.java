@@ -0,0 +1,444 @@
+package com.ase.bytealchemists.service;
+
+import com.ase.bytealchemists.model.ServiceCluster;
+import com.ase.bytealchemists.model.ServiceLocation;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Precomputed marker clusters of the services for every map zoom level.
+ *
+ * <p>
+ * Services are placed in Web Mercator coordinates and, at each zoom level from 0 to
+ * {@code geo.cluster.max-zoom}, grouped into square cells of about
+ * {@code geo.cluster.radius-px} screen pixels. A cell halves in size from one zoom level to
+ * the next, so the cells form a quadtree: the clusters of a level are exactly the merged
+ * clusters of the level below. Each cell keeps its count, the sum of its positions for the
+ * centroid, and its counts per category and availability, so that filtered counts need no
+ * services either. Single services are listed individually and
+ * only the cells of the deepest level list their members, to keep memory proportional to
+ * the number of services times the number of levels.
+ * </p>
+ *
+ * <p>
+ * Creating, updating or deleting a service adjusts one cell per zoom level, and a viewport
+ * query only visits the cells it overlaps, whose number depends on the screen size rather
+ * than on the number of services.
+ * </p>
+ *
+ * @author Byte Alchemists
+ * @version 1.0
+ */
+@Component
+public class ServiceClusterIndex {
+
+  private static final double MAX_MERCATOR_LAT = 85.05112878;
+  private static final int TILE_SIZE_PX = 256;
+
+  private final int maxZoom;
+  private final int shift;
+  private final ReadWriteLock lock = new ReentrantReadWriteLock();
+  private Map<Long, Entry> entries = new HashMap<>();
+  private List<Map<Long, Cell>> levels;
+
+  /**
+   * Creates an empty index.
+   *
+   * @param maxZoom  the highest zoom level at which services are clustered
+   * @param radiusPx the approximate size of a cluster cell in screen pixels
+   */
+  public ServiceClusterIndex(@Value("${geo.cluster.max-zoom:16}") int maxZoom,
+      @Value("${geo.cluster.radius-px:64}") int radiusPx) {
+    if (maxZoom < 0 || maxZoom > 24) {
+      throw new IllegalArgumentException("Max zoom must be in [0, 24]");
+    }
+    if (radiusPx < 1 || radiusPx > TILE_SIZE_PX) {
+      throw new IllegalArgumentException("Radius must be in [1, 256] pixels");
+    }
+    this.maxZoom = maxZoom;
+    // Cells per tile edge, rounded to a power of two so that cells nest across levels
+    this.shift = (int) Math.round(Math.log((double) TILE_SIZE_PX / radiusPx) / Math.log(2));
+    this.levels = emptyLevels();
+  }
+
+  /**
+   * Replaces the whole content of the index.
+   *
+   * @param locations the services to cluster
+   */
+  public void rebuild(Collection<? extends ServiceLocation> locations) {
+    Map<Long, Entry> newEntries = new HashMap<>();
+    List<Map<Long, Cell>> newLevels = emptyLevels();
+    for (ServiceLocation location : locations) {
+      if (location.getId() == null || location.getLatitude() == null
+          || location.getLongitude() == null) {
+        continue;
+      }
+      Entry entry = new Entry(location.getId(), location.getLatitude(),
+          location.getLongitude(), location.getCategory(), location.getAvailability());
+      newEntries.put(entry.id, entry);
+      add(newLevels, newEntries, entry);
+    }
+
+    lock.writeLock().lock();
+    try {
+      entries = newEntries;
+      levels = newLevels;
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Moves a created, updated or deleted service to its cluster at every zoom level.
+   *
+   * @param event the change
+   */
+  @EventListener
+  public void onServiceChanged(ServiceChangedEvent event) {
+    Long id = event.getServiceId();
+    Entry entry = null;
+    if (event.getService() != null && event.getService().getLatitude() != null
+        && event.getService().getLongitude() != null) {
+      entry = new Entry(id, event.getService().getLatitude(),
+          event.getService().getLongitude(), event.getService().getCategory(),
+          event.getService().getAvailability());
+    }
+
+    lock.writeLock().lock();
+    try {
+      Entry previous = entries.remove(id);
+      if (previous != null) {
+        remove(levels, previous);
+      }
+      if (entry != null) {
+        entries.put(id, entry);
+        add(levels, entries, entry);
+      }
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Returns the markers to draw for a viewport. Above {@code geo.cluster.max-zoom} every
+   * service is its own marker.
+   *
+   * @param minLat the southern edge of the viewport
+   * @param minLon the western edge of the viewport; greater than {@code maxLon} when the
+   *               viewport crosses the antimeridian
+   * @param maxLat the northern edge of the viewport
+   * @param maxLon the eastern edge of the viewport
+   * @param zoom   the map zoom level
+   * @return the clusters and single services whose position lies in the viewport's cells
+   */
+  public List<ServiceCluster> clusters(double minLat, double minLon, double maxLat,
+      double maxLon, int zoom) {
+    int level = Math.max(0, Math.min(zoom, maxZoom));
+    long size = 1L << (level + shift);
+    long rowStart = cellOf(mercatorY(maxLat), size);
+    long rowEnd = cellOf(mercatorY(minLat), size);
+    long colStart = cellOf(mercatorX(minLon), size);
+    long colEnd = cellOf(mercatorX(maxLon), size);
+
+    List<ServiceCluster> clusters = new ArrayList<>();
+    lock.readLock().lock();
+    try {
+      List<Cell> cells = new ArrayList<>();
+      if (minLon > maxLon) {
+        collectCells(level, rowStart, rowEnd, colStart, size - 1, cells);
+        collectCells(level, rowStart, rowEnd, 0, colEnd, cells);
+      } else {
+        collectCells(level, rowStart, rowEnd, colStart, colEnd, cells);
+      }
+      for (Cell cell : cells) {
+        if (zoom > maxZoom) {
+          for (Long id : cell.members) {
+            clusters.add(single(entries.get(id)));
+          }
+        } else if (cell.count == 1) {
+          clusters.add(single(entries.get(cell.idSum)));
+        } else {
+          clusters.add(new ServiceCluster(latitude(cell.sumY / cell.count),
+              longitude(cell.sumX / cell.count), cell.count, categories(cell, null, null),
+              null, expansionZoom(level, cell)));
+        }
+      }
+      return clusters;
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Returns the clusters of the services matching the filters inside a map tile, one per cell
+   * of the tile's zoom level, so that a dense tile can be drawn without loading its services.
+   * A cluster keeps the centroid of all the services of its cell.
+   *
+   * @param z            the zoom level of the tile
+   * @param x            the tile column
+   * @param y            the tile row, counted from the north
+   * @param category     the category to count, or null for any
+   * @param availability the availability to count, or null for any
+   * @return the clusters with at least one matching service, or null above
+   *         {@code geo.cluster.max-zoom}
+   */
+  public List<ServiceCluster> tileClusters(int z, int x, int y, String category,
+      Boolean availability) {
+    if (z < 0 || z > maxZoom) {
+      return null;
+    }
+    long cellsPerTile = 1L << shift;
+    List<ServiceCluster> clusters = new ArrayList<>();
+    lock.readLock().lock();
+    try {
+      List<Cell> cells = new ArrayList<>();
+      collectCells(z, y * cellsPerTile, (y + 1) * cellsPerTile - 1, x * cellsPerTile,
+          (x + 1) * cellsPerTile - 1, cells);
+      for (Cell cell : cells) {
+        if (cell.count == 1) {
+          Entry entry = entries.get(cell.idSum);
+          if (matches(entry.category, entry.availability, category, availability)) {
+            clusters.add(single(entry));
+          }
+          continue;
+        }
+        int count = 0;
+        for (Map.Entry<Group, Integer> group : cell.groups.entrySet()) {
+          if (matches(group.getKey().category(), group.getKey().availability(), category,
+              availability)) {
+            count += group.getValue();
+          }
+        }
+        if (count > 0) {
+          clusters.add(new ServiceCluster(latitude(cell.sumY / cell.count),
+              longitude(cell.sumX / cell.count), count,
+              categories(cell, category, availability), null, expansionZoom(z, cell)));
+        }
+      }
+      return clusters;
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  private static boolean matches(String entryCategory, Boolean entryAvailability,
+      String category, Boolean availability) {
+    return (category == null || category.equalsIgnoreCase(entryCategory))
+        && (availability == null || availability.equals(entryAvailability));
+  }
+
+  private static Map<String, Integer> categories(Cell cell, String category,
+      Boolean availability) {
+    Map<String, Integer> categories = new TreeMap<>();
+    for (Map.Entry<Group, Integer> group : cell.groups.entrySet()) {
+      if (group.getKey().category() != null && matches(group.getKey().category(),
+          group.getKey().availability(), category, availability)) {
+        categories.merge(group.getKey().category(), group.getValue(), Integer::sum);
+      }
+    }
+    return categories;
+  }
+
+  private static ServiceCluster single(Entry entry) {
+    return new ServiceCluster(entry.latitude, entry.longitude, 1,
+        entry.category == null ? Map.of() : Map.of(entry.category, 1), entry.id, null);
+  }
+
+  private void collectCells(int level, long rowStart, long rowEnd, long colStart,
+      long colEnd, List<Cell> cells) {
+    Map<Long, Cell> levelCells = levels.get(level);
+    long size = 1L << (level + shift);
+    if ((rowEnd - rowStart + 1) * (colEnd - colStart + 1) > levelCells.size()) {
+      for (Map.Entry<Long, Cell> cell : levelCells.entrySet()) {
+        long row = cell.getKey() / size;
+        long col = cell.getKey() % size;
+        if (row >= rowStart && row <= rowEnd && col >= colStart && col <= colEnd) {
+          cells.add(cell.getValue());
+        }
+      }
+      return;
+    }
+    for (long row = rowStart; row <= rowEnd; row++) {
+      for (long col = colStart; col <= colEnd; col++) {
+        Cell cell = levelCells.get(row * size + col);
+        if (cell != null) {
+          cells.add(cell);
+        }
+      }
+    }
+  }
+
+  /**
+   * Follows the cluster down the quadtree until it has more than one non-empty child.
+   */
+  private int expansionZoom(int level, Cell cell) {
+    long row = cell.row;
+    long col = cell.col;
+    for (int child = level + 1; child <= maxZoom; child++) {
+      Map<Long, Cell> childCells = levels.get(child);
+      long size = 1L << (child + shift);
+      Cell only = null;
+      int occupied = 0;
+      for (long r = row * 2; r <= row * 2 + 1; r++) {
+        for (long c = col * 2; c <= col * 2 + 1; c++) {
+          Cell candidate = childCells.get(r * size + c);
+          if (candidate != null) {
+            only = candidate;
+            occupied++;
+          }
+        }
+      }
+      if (occupied > 1) {
+        return child;
+      }
+      row = only.row;
+      col = only.col;
+    }
+    return maxZoom + 1;
+  }
+
+  private void add(List<Map<Long, Cell>> target, Map<Long, Entry> targetEntries,
+      Entry entry) {
+    for (int level = 0; level <= maxZoom; level++) {
+      long size = 1L << (level + shift);
+      long row = cellOf(entry.y, size);
+      long col = cellOf(entry.x, size);
+      Cell cell = target.get(level).computeIfAbsent(row * size + col,
+          key -> new Cell(row, col));
+      if (cell.count == 1) {
+        // The cell stops being a single service and starts counting groups
+        cell.groups = new HashMap<>();
+        countGroup(cell, targetEntries.get(cell.idSum), 1);
+      }
+      cell.count++;
+      cell.sumX += entry.x;
+      cell.sumY += entry.y;
+      cell.idSum += entry.id;
+      if (cell.groups != null) {
+        countGroup(cell, entry, 1);
+      }
+      if (level == maxZoom) {
+        if (cell.members == null) {
+          cell.members = new HashSet<>();
+        }
+        cell.members.add(entry.id);
+      }
+    }
+  }
+
+  private void remove(List<Map<Long, Cell>> target, Entry entry) {
+    for (int level = 0; level <= maxZoom; level++) {
+      long size = 1L << (level + shift);
+      long key = cellOf(entry.y, size) * size + cellOf(entry.x, size);
+      Cell cell = target.get(level).get(key);
+      if (cell == null) {
+        continue;
+      }
+      if (--cell.count == 0) {
+        target.get(level).remove(key);
+        continue;
+      }
+      cell.sumX -= entry.x;
+      cell.sumY -= entry.y;
+      cell.idSum -= entry.id;
+      if (cell.count == 1) {
+        cell.groups = null;
+      } else {
+        countGroup(cell, entry, -1);
+      }
+      if (level == maxZoom) {
+        cell.members.remove(entry.id);
+      }
+    }
+  }
+
+  private static void countGroup(Cell cell, Entry entry, int delta) {
+    cell.groups.merge(new Group(entry.category, entry.availability), delta,
+        (count, change) -> count + change == 0 ? null : count + change);
+  }
+
+  private List<Map<Long, Cell>> emptyLevels() {
+    List<Map<Long, Cell>> empty = new ArrayList<>(maxZoom + 1);
+    for (int level = 0; level <= maxZoom; level++) {
+      empty.add(new HashMap<>());
+    }
+    return empty;
+  }
+
+  private static long cellOf(double coordinate, long size) {
+    return Math.min(Math.max((long) Math.floor(coordinate * size), 0), size - 1);
+  }
+
+  private static double mercatorX(double longitude) {
+    return (longitude + 180.0) / 360.0;
+  }
+
+  private static double mercatorY(double latitude) {
+    double clamped = Math.max(-MAX_MERCATOR_LAT, Math.min(MAX_MERCATOR_LAT, latitude));
+    double sin = Math.sin(Math.toRadians(clamped));
+    return 0.5 - Math.log((1 + sin) / (1 - sin)) / (4 * Math.PI);
+  }
+
+  private static double longitude(double x) {
+    return x * 360.0 - 180.0;
+  }
+
+  private static double latitude(double y) {
+    return Math.toDegrees(Math.atan(Math.sinh(Math.PI * (1 - 2 * y))));
+  }
+
+  private static final class Entry {
+    private final long id;
+    private final double latitude;
+    private final double longitude;
+    private final String category;
+    private final Boolean availability;
+    private final double x;
+    private final double y;
+
+    private Entry(long id, double latitude, double longitude, String category,
+        Boolean availability) {
+      this.id = id;
+      this.latitude = latitude;
+      this.longitude = longitude;
+      this.category = category;
+      this.availability = availability;
+      this.x = mercatorX(longitude);
+      this.y = mercatorY(latitude);
+    }
+  }
+
+  private static final class Cell {
+    private final long row;
+    private final long col;
+    private int count;
+    private double sumX;
+    private double sumY;
+    // The id of the only service while count is 1
+    private long idSum;
+    // Counts per category and availability, only kept for cells of more than one service
+    private Map<Group, Integer> groups;
+    // Only kept at the deepest level, where services are listed one by one above it
+    private Set<Long> members;
+
+    private Cell(long row, long col) {
+      this.row = row;
+      this.col = col;
+    }
+  }
+
+  private record Group(String category, Boolean availability) {
+  }
+}
@@ -0,0 +1,263 @@
+package com.ase.bytealchemists.service;
+
+import com.ase.bytealchemists.model.OperatingHours;
+import com.ase.bytealchemists.model.ServiceEntity;
+import com.ase.bytealchemists.model.ServiceHours;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.ToLongFunction;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * In-memory index of the opening hours of every service, answering whether services are
+ * open at a given instant.
+ *
+ * <p>
+ * Hours are evaluated in the local time of each service, taken from the time zone of its
+ * state, so one instant can be 9 PM in New York and 6 PM in Los Angeles. Services rarely
+ * have hours of their own: most share a handful of texts such as {@code "9 AM - 5 PM"}. Each
+ * distinct text and time zone is parsed once into an {@link OperatingHours} schedule, and
+ * services only point at their schedule. A filter works out whether each schedule it meets
+ * is open once, with a binary search over its weekly intervals; every other candidate costs
+ * a map lookup and an array read. The index is kept up to date from
+ * {@link ServiceChangedEvent}.
+ * </p>
+ *
+ * @author Byte Alchemists
+ * @version 1.0
+ */
+@Component
+public class ServiceHoursIndex {
+
+  // Time zone of each state, the one most of it uses where it has several
+  private static final Map<String, String> STATE_ZONES = new HashMap<>();
+
+  static {
+    for (String state : new String[] {"CT", "DC", "DE", "FL", "GA", "IN", "KY", "MA", "MD",
+        "ME", "MI", "NC", "NH", "NJ", "NY", "OH", "PA", "RI", "SC", "VA", "VT", "WV"}) {
+      STATE_ZONES.put(state, "America/New_York");
+    }
+    for (String state : new String[] {"AL", "AR", "IA", "IL", "KS", "LA", "MN", "MO", "MS",
+        "ND", "NE", "OK", "SD", "TN", "TX", "WI"}) {
+      STATE_ZONES.put(state, "America/Chicago");
+    }
+    for (String state : new String[] {"CO", "ID", "MT", "NM", "UT", "WY"}) {
+      STATE_ZONES.put(state, "America/Denver");
+    }
+    for (String state : new String[] {"CA", "NV", "OR", "WA"}) {
+      STATE_ZONES.put(state, "America/Los_Angeles");
+    }
+    // Arizona does not observe daylight saving time
+    STATE_ZONES.put("AZ", "America/Phoenix");
+    STATE_ZONES.put("AK", "America/Anchorage");
+    STATE_ZONES.put("HI", "Pacific/Honolulu");
+    STATE_ZONES.put("PR", "America/Puerto_Rico");
+  }
+
+  private final ZoneId defaultZone;
+  private final ReadWriteLock lock = new ReentrantReadWriteLock();
+  private final Map<Long, Integer> scheduleOf = new HashMap<>();
+  private final Map<ScheduleKey, Integer> ordinals = new HashMap<>();
+  private final ArrayDeque<Integer> free = new ArrayDeque<>();
+  private Schedule[] schedules = new Schedule[16];
+  private int next;
+
+  /**
+   * Creates an empty index.
+   *
+   * @param defaultZone the time zone of services in an unknown state
+   */
+  public ServiceHoursIndex(
+      @Value("${service.hours.default-time-zone:America/New_York}") String defaultZone) {
+    this.defaultZone = ZoneId.of(defaultZone);
+  }
+
+  private record ScheduleKey(String text, ZoneId zone) {
+  }
+
+  /**
+   * Parsed hours shared by every service with the same text and time zone.
+   */
+  private static final class Schedule {
+    private final ScheduleKey key;
+    private final OperatingHours hours;
+    private int services;
+
+    private Schedule(ScheduleKey key, OperatingHours hours) {
+      this.key = key;
+      this.hours = hours;
+    }
+  }
+
+  /**
+   * Returns the time zone the hours of a service in a state are local to.
+   *
+   * @param state the two letter state code, may be null
+   * @return the zone of the state, or the default zone if the state is unknown
+   */
+  public ZoneId zoneOf(String state) {
+    String zone = state == null ? null : STATE_ZONES.get(state.trim().toUpperCase(Locale.ROOT));
+    return zone == null ? defaultZone : ZoneId.of(zone);
+  }
+
+  /**
+   * Replaces the whole content of the index.
+   *
+   * @param services the hours and state of every service
+   */
+  public void rebuild(Collection<? extends ServiceHours> services) {
+    lock.writeLock().lock();
+    try {
+      scheduleOf.clear();
+      ordinals.clear();
+      free.clear();
+      schedules = new Schedule[16];
+      next = 0;
+      for (ServiceHours service : services) {
+        if (service.getId() != null) {
+          put(service.getId(), service.getOperationHour(), service.getState());
+        }
+      }
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Re-indexes the hours of a created or updated service, or drops a deleted one.
+   *
+   * @param event the change
+   */
+  @EventListener
+  public void onServiceChanged(ServiceChangedEvent event) {
+    ServiceEntity service = event.getService();
+    lock.writeLock().lock();
+    try {
+      remove(event.getServiceId());
+      if (service != null) {
+        put(event.getServiceId(), service.getOperationHour(), service.getState());
+      }
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Returns the number of services with valid hours.
+   *
+   * @return the number of services
+   */
+  public int size() {
+    lock.readLock().lock();
+    try {
+      return scheduleOf.size();
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Returns the number of distinct schedules the services share.
+   *
+   * @return the number of schedules
+   */
+  public int scheduleCount() {
+    lock.readLock().lock();
+    try {
+      return ordinals.size();
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Keeps the items whose service is open at an instant, in their order. Services without
+   * valid hours are never open.
+   *
+   * @param items   the candidates
+   * @param idOf    the service id of an item
+   * @param instant the instant the services must be open at
+   * @param <T>     the type of the items
+   * @return the items of open services
+   */
+  public <T> List<T> retainOpen(List<T> items, ToLongFunction<T> idOf, Instant instant) {
+    List<T> open = new ArrayList<>();
+    lock.readLock().lock();
+    try {
+      // 0 until a schedule is first met, then 1 for open and 2 for closed
+      byte[] states = new byte[next];
+      for (T item : items) {
+        Integer ordinal = scheduleOf.get(idOf.applyAsLong(item));
+        if (ordinal == null) {
+          continue;
+        }
+        if (states[ordinal] == 0) {
+          Schedule schedule = schedules[ordinal];
+          LocalDateTime local = LocalDateTime.ofInstant(instant, schedule.key.zone());
+          states[ordinal] = schedule.hours.isOpenAt(local) ? (byte) 1 : (byte) 2;
+        }
+        if (states[ordinal] == 1) {
+          open.add(item);
+        }
+      }
+    } finally {
+      lock.readLock().unlock();
+    }
+    return open;
+  }
+
+  private void put(long id, String text, String state) {
+    if (text == null) {
+      return;
+    }
+    ScheduleKey key = new ScheduleKey(text, zoneOf(state));
+    Integer ordinal = ordinals.get(key);
+    if (ordinal == null) {
+      OperatingHours hours;
+      try {
+        hours = OperatingHours.parse(text);
+      } catch (IllegalArgumentException e) {
+        // Rows written before validation may hold other text; they are never open
+        return;
+      }
+      if (!free.isEmpty()) {
+        ordinal = free.pop();
+      } else {
+        if (next == schedules.length) {
+          schedules = Arrays.copyOf(schedules, next * 2);
+        }
+        ordinal = next++;
+      }
+      schedules[ordinal] = new Schedule(key, hours);
+      ordinals.put(key, ordinal);
+    }
+    schedules[ordinal].services++;
+    scheduleOf.put(id, ordinal);
+  }
+
+  private void remove(long id) {
+    Integer ordinal = scheduleOf.remove(id);
+    if (ordinal == null) {
+      return;
+    }
+    Schedule schedule = schedules[ordinal];
+    if (--schedule.services == 0) {
+      ordinals.remove(schedule.key);
+      schedules[ordinal] = null;
+      free.push(ordinal);
+    }
+  }
+}
@@ -0,0 +1,297 @@
+package com.ase.bytealchemists.service;
+
+import com.ase.bytealchemists.model.ServiceEntity;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+/**
+ * Reads the records of a bulk service import one at a time, so that a catalog of any size
+ * is never held in memory as a whole.
+ *
+ * <p>
+ * A record that cannot be turned into a service, e.g. because a number is malformed, is
+ * returned with an error instead of failing the import. Only a broken document, such as
+ * truncated JSON or an unknown CSV column, stops the reading: unknown columns are reported
+ * before the first record is read, truncation as the error of the last record.
+ * Ids and versions in the input are ignored, every record becomes a new service.
+ * </p>
+ *
+ * @author Byte Alchemists
+ * @version 1.0
+ */
+final class ServiceImportReader implements Closeable {
+
+  // CSV columns by their header name, lower case and without '_' or '-'
+  private static final Map<String, BiConsumer<ServiceEntity, String>> COLUMNS =
+      new HashMap<>();
+
+  static {
+    COLUMNS.put("id", (service, value) -> { });
+    COLUMNS.put("version", (service, value) -> { });
+    COLUMNS.put("name", ServiceEntity::setName);
+    COLUMNS.put("category", ServiceEntity::setCategory);
+    COLUMNS.put("latitude", (service, value) -> service.setLatitude(number("latitude", value)));
+    COLUMNS.put("longitude",
+        (service, value) -> service.setLongitude(number("longitude", value)));
+    COLUMNS.put("address", ServiceEntity::setAddress);
+    COLUMNS.put("city", ServiceEntity::setCity);
+    COLUMNS.put("state", ServiceEntity::setState);
+    COLUMNS.put("zipcode", ServiceEntity::setZipcode);
+    COLUMNS.put("contactnumber", ServiceEntity::setContactNumber);
+    COLUMNS.put("operationhour", ServiceEntity::setOperationHour);
+    COLUMNS.put("availability",
+        (service, value) -> service.setAvailability(bool("availability", value)));
+  }
+
+  /**
+   * One record of the import: a service, or the reason it could not be read.
+   */
+  static final class Record {
+    final long row;
+    final ServiceEntity service;
+    String error;
+
+    Record(long row, ServiceEntity service, String error) {
+      this.row = row;
+      this.service = service;
+      this.error = error;
+    }
+  }
+
+  private final ObjectMapper objectMapper;
+  private final JsonParser json;
+  private final BufferedReader csv;
+  private final List<BiConsumer<ServiceEntity, String>> csvColumns = new ArrayList<>();
+  private long row;
+  private boolean done;
+
+  /**
+   * Starts reading an import, checking the JSON array start or the CSV header.
+   *
+   * @param input        the request body, closed with this reader
+   * @param format       the format of the body
+   * @param objectMapper maps JSON records to services
+   * @throws IOException if the body cannot be read
+   * @throws IllegalArgumentException if the body is not an array or the header is invalid
+   */
+  ServiceImportReader(InputStream input, ImportFormat format, ObjectMapper objectMapper)
+      throws IOException {
+    this.objectMapper = objectMapper;
+    if (format == ImportFormat.JSON) {
+      json = objectMapper.getFactory().createParser(input);
+      csv = null;
+      JsonToken start;
+      try {
+        start = json.nextToken();
+      } catch (JsonProcessingException e) {
+        start = null;
+      }
+      if (start != JsonToken.START_ARRAY) {
+        json.close();
+        throw new IllegalArgumentException("Expected a JSON array of services");
+      }
+    } else {
+      json = null;
+      csv = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+      List<String> header = readCsvLine();
+      if (header == null) {
+        done = true;
+        return;
+      }
+      for (String name : header) {
+        String key = name.replace("\uFEFF", "").replace("_", "").replace("-", "").trim()
+            .toLowerCase(Locale.ROOT);
+        BiConsumer<ServiceEntity, String> column = COLUMNS.get(key);
+        if (column == null) {
+          csv.close();
+          throw new IllegalArgumentException("Unknown column: " + name.trim());
+        }
+        csvColumns.add(column);
+      }
+    }
+  }
+
+  /**
+   * Reads the next record.
+   *
+   * @return the record, or null at the end of the input
+   * @throws IOException if the body cannot be read
+   */
+  Record next() throws IOException {
+    if (done) {
+      return null;
+    }
+    return json != null ? nextJson() : nextCsv();
+  }
+
+  @Override
+  public void close() throws IOException {
+    if (json != null) {
+      json.close();
+    } else {
+      csv.close();
+    }
+  }
+
+  private Record nextJson() throws IOException {
+    long number = row + 1;
+    JsonNode node;
+    try {
+      JsonToken token = json.nextToken();
+      if (token == JsonToken.END_ARRAY) {
+        done = true;
+        return null;
+      }
+      if (token == null) {
+        done = true;
+        return new Record(number, null, "Unexpected end of input");
+      }
+      node = json.readValueAsTree();
+    } catch (JsonProcessingException e) {
+      // The rest of the document cannot be located reliably
+      done = true;
+      return new Record(number, null, "Malformed JSON: " + e.getOriginalMessage());
+    }
+    row = number;
+    if (node == null || !node.isObject()) {
+      return new Record(row, null, "Expected a service object");
+    }
+    try {
+      return newService(objectMapper.treeToValue(node, ServiceEntity.class));
+    } catch (JsonProcessingException e) {
+      return new Record(row, null, "Invalid value: " + e.getOriginalMessage());
+    }
+  }
+
+  private Record nextCsv() throws IOException {
+    List<String> fields;
+    do {
+      try {
+        fields = readCsvLine();
+      } catch (IllegalArgumentException e) {
+        done = true;
+        return new Record(row + 1, null, e.getMessage());
+      }
+      if (fields == null) {
+        done = true;
+        return null;
+      }
+    } while (fields.size() == 1 && fields.get(0).isBlank());
+    row++;
+    if (fields.size() != csvColumns.size()) {
+      return new Record(row, null,
+          "Expected " + csvColumns.size() + " fields but found " + fields.size());
+    }
+    ServiceEntity service = new ServiceEntity();
+    try {
+      for (int i = 0; i < fields.size(); i++) {
+        String value = fields.get(i).trim();
+        csvColumns.get(i).accept(service, value.isEmpty() ? null : value);
+      }
+    } catch (IllegalArgumentException e) {
+      return new Record(row, null, e.getMessage());
+    }
+    return newService(service);
+  }
+
+  private Record newService(ServiceEntity service) {
+    service.setId(null);
+    service.setVersion(null);
+    return new Record(row, service, null);
+  }
+
+  /**
+   * Reads one CSV line as defined by RFC 4180: fields may be quoted, a quote inside a quoted
+   * field is doubled, and quoted fields may span several lines.
+   */
+  private List<String> readCsvLine() throws IOException {
+    int c = csv.read();
+    if (c < 0) {
+      return null;
+    }
+    List<String> fields = new ArrayList<>();
+    StringBuilder field = new StringBuilder();
+    boolean quoted = false;
+    while (true) {
+      if (quoted) {
+        if (c < 0) {
+          throw new IllegalArgumentException("Unterminated quoted field");
+        }
+        if (c == '"') {
+          csv.mark(1);
+          if (csv.read() == '"') {
+            field.append('"');
+          } else {
+            csv.reset();
+            quoted = false;
+          }
+        } else {
+          field.append((char) c);
+        }
+      } else if (c < 0 || c == '\n') {
+        break;
+      } else if (c == '\r') {
+        csv.mark(1);
+        if (csv.read() != '\n') {
+          csv.reset();
+        }
+        break;
+      } else if (c == ',') {
+        fields.add(field.toString());
+        field.setLength(0);
+      } else if (c == '"' && field.length() == 0) {
+        quoted = true;
+      } else {
+        field.append((char) c);
+      }
+      c = csv.read();
+    }
+    fields.add(field.toString());
+    return fields;
+  }
+
+  private static Double number(String column, String value) {
+    if (value == null) {
+      return null;
+    }
+    double number;
+    try {
+      number = Double.parseDouble(value);
+    } catch (NumberFormatException e) {
+      number = Double.NaN;
+    }
+    if (!Double.isFinite(number)) {
+      throw new IllegalArgumentException("Invalid " + column + ": " + value);
+    }
+    return number;
+  }
+
+  private static Boolean bool(String column, String value) {
+    if (value == null) {
+      return null;
+    }
+    switch (value.toLowerCase(Locale.ROOT)) {
+      case "true":
+        return true;
+      case "false":
+        return false;
+      default:
+        throw new IllegalArgumentException("Invalid " + column + ": " + value);
+    }
+  }
+}
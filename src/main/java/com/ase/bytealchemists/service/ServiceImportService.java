@@ -0,0 +1,183 @@
+package com.ase.bytealchemists.service;
+
+import com.ase.bytealchemists.model.ImportError;
+import com.ase.bytealchemists.model.ImportResult;
+import com.ase.bytealchemists.model.ServiceEntity;
+import com.ase.bytealchemists.repository.CategoryRepository;
+import com.ase.bytealchemists.repository.ServiceRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+
+/**
+ * Imports service catalogs in bulk.
+ *
+ * <p>
+ * The body is read record by record and handled in batches of
+ * {@code service.import.batch-size}. Each batch is validated in parallel with the same
+ * constraints as {@code POST /services}, its categories are checked with one query, and
+ * its valid records are inserted with one JDBC batch. A record that fails is reported with
+ * its row and skipped; the rest of its batch is still imported. If the database rejects a
+ * batch, its records are retried one by one to find the offending rows.
+ * </p>
+ *
+ * @author Byte Alchemists
+ * @version 1.0
+ */
+@Service
+public class ServiceImportService {
+
+  @Autowired
+  private ServiceRepository serviceRepository;
+
+  @Autowired
+  private CategoryRepository categoryRepository;
+
+  @Autowired
+  private ServiceSpatialIndex spatialIndex;
+
+  @Autowired
+  private Validator validator;
+
+  @Autowired
+  private ObjectMapper objectMapper;
+
+  @Autowired
+  private ApplicationEventPublisher eventPublisher;
+
+  @Value("${geo.query-mode:INDEX}")
+  private GeoQueryMode queryMode = GeoQueryMode.INDEX;
+
+  @Value("${service.import.batch-size:500}")
+  private int batchSize = 500;
+
+  @Value("${service.import.max-errors:1000}")
+  private int maxErrors = 1000;
+
+  /**
+   * Imports every valid record of a catalog as a new service.
+   *
+   * @param input  the catalog, a JSON array of services or CSV with a header row
+   * @param format the format of the catalog
+   * @return how many records were received, imported and rejected, with the first errors
+   * @throws IOException if the catalog cannot be read
+   * @throws IllegalArgumentException if the catalog is not a JSON array or the CSV header
+   *         names an unknown column; nothing is imported then
+   */
+  public ImportResult importServices(InputStream input, ImportFormat format)
+      throws IOException {
+    ImportResult result = new ImportResult();
+    try (ServiceImportReader reader = new ServiceImportReader(input, format, objectMapper)) {
+      List<ServiceImportReader.Record> batch = new ArrayList<>(batchSize);
+      ServiceImportReader.Record record;
+      while ((record = reader.next()) != null) {
+        batch.add(record);
+        if (batch.size() == batchSize) {
+          importBatch(batch, result);
+          batch.clear();
+        }
+      }
+      importBatch(batch, result);
+    }
+    return result;
+  }
+
+  private void importBatch(List<ServiceImportReader.Record> batch, ImportResult result) {
+    if (batch.isEmpty()) {
+      return;
+    }
+    result.setReceived(result.getReceived() + batch.size());
+
+    // Validator instances are thread-safe
+    batch.parallelStream()
+        .filter(record -> record.error == null)
+        .forEach(record -> record.error = validate(record.service));
+
+    // MySQL compares category names ignoring case, as categoryExists does
+    Set<String> names = new TreeSet<>(String.CASE_INSENSITIVE_ORDER);
+    for (ServiceImportReader.Record record : batch) {
+      if (record.error == null) {
+        names.add(record.service.getCategory());
+      }
+    }
+    Set<String> existing = new TreeSet<>(String.CASE_INSENSITIVE_ORDER);
+    if (!names.isEmpty()) {
+      existing.addAll(categoryRepository.findExistingCategoryNames(names));
+    }
+
+    List<ServiceImportReader.Record> valid = new ArrayList<>();
+    for (ServiceImportReader.Record record : batch) {
+      if (record.error == null && !existing.contains(record.service.getCategory())) {
+        record.error = "Category does not exist";
+      }
+      if (record.error == null) {
+        valid.add(record);
+      } else {
+        fail(result, record);
+      }
+    }
+
+    try {
+      insert(valid);
+    } catch (DataAccessException e) {
+      for (ServiceImportReader.Record record : valid) {
+        try {
+          insert(List.of(record));
+        } catch (DataAccessException rowFailure) {
+          record.error = rowFailure.getMostSpecificCause().getMessage();
+          fail(result, record);
+          continue;
+        }
+        result.setImported(result.getImported() + 1);
+      }
+      return;
+    }
+    result.setImported(result.getImported() + valid.size());
+  }
+
+  private void insert(List<ServiceImportReader.Record> records) {
+    List<ServiceEntity> services = new ArrayList<>(records.size());
+    for (ServiceImportReader.Record record : records) {
+      services.add(record.service);
+    }
+    serviceRepository.insertAll(services);
+
+    // Keep the in-memory indexes and caches in step, as registerService does
+    for (ServiceEntity service : services) {
+      if (queryMode == GeoQueryMode.INDEX) {
+        spatialIndex.put(service);
+      }
+      eventPublisher.publishEvent(new ServiceChangedEvent(service.getId(), service));
+    }
+  }
+
+  private String validate(ServiceEntity service) {
+    Set<ConstraintViolation<ServiceEntity>> violations = validator.validate(service);
+    if (violations.isEmpty()) {
+      return null;
+    }
+    return violations.stream()
+        .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+        .sorted()
+        .collect(Collectors.joining("; "));
+  }
+
+  private void fail(ImportResult result, ServiceImportReader.Record record) {
+    result.setFailed(result.getFailed() + 1);
+    if (result.getErrors().size() < maxErrors) {
+      result.getErrors().add(new ImportError(record.row, record.error));
+    }
+  }
+}
@@ -0,0 +1,168 @@
+package com.ase.bytealchemists.service;
+
+import com.ase.bytealchemists.model.ServiceEntity;
+import com.fasterxml.jackson.databind.JsonNode;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * A validated partial update of a service, in JSON merge patch form: the fields present in
+ * the body are changed, {@code null} clears a field, absent fields are left alone.
+ *
+ * <p>
+ * Each value is checked against the constraints of its {@link ServiceEntity} field on its
+ * own, so a patch can be applied with one UPDATE of the changed columns without loading
+ * the service first. Column names come from a fixed list, never from the client, so they
+ * can be concatenated into SQL. Instances are immutable.
+ * </p>
+ *
+ * @author Byte Alchemists
+ * @version 1.0
+ */
+public final class ServicePatch {
+
+  private static final Map<String, Column> COLUMNS = new LinkedHashMap<>();
+
+  static {
+    COLUMNS.put("name", new Column("name", String.class));
+    COLUMNS.put("category", new Column("category", String.class));
+    COLUMNS.put("latitude", new Column("latitude", Double.class));
+    COLUMNS.put("longitude", new Column("longitude", Double.class));
+    COLUMNS.put("address", new Column("address", String.class));
+    COLUMNS.put("city", new Column("city", String.class));
+    COLUMNS.put("state", new Column("state", String.class));
+    COLUMNS.put("zipcode", new Column("zipcode", String.class));
+    COLUMNS.put("contactNumber", new Column("contact_number", String.class));
+    COLUMNS.put("operationHour", new Column("operation_hour", String.class));
+    COLUMNS.put("availability", new Column("availability", Boolean.class));
+  }
+
+  private final Map<String, Object> values;
+  private final Long version;
+
+  private ServicePatch(Map<String, Object> values, Long version) {
+    this.values = Collections.unmodifiableMap(values);
+    this.version = version;
+  }
+
+  /**
+   * Parses and validates a patch body.
+   *
+   * @param body      the JSON object of fields to change, optionally with the
+   *                  {@code version} the patch is based on
+   * @param validator checks each value against the constraints of its field
+   * @return the patch
+   * @throws IllegalArgumentException if the body is not an object, names an unknown or
+   *         read-only field, has a value of the wrong type or breaks a constraint
+   */
+  public static ServicePatch parse(JsonNode body, Validator validator) {
+    if (body == null || !body.isObject()) {
+      throw new IllegalArgumentException("Patch must be a JSON object");
+    }
+    Map<String, Object> values = new LinkedHashMap<>();
+    Long version = null;
+    Iterator<Map.Entry<String, JsonNode>> fields = body.fields();
+    while (fields.hasNext()) {
+      Map.Entry<String, JsonNode> field = fields.next();
+      String name = field.getKey();
+      JsonNode node = field.getValue();
+      if ("version".equals(name)) {
+        if (!node.isIntegralNumber() || !node.canConvertToLong()) {
+          throw new IllegalArgumentException("version must be an integer");
+        }
+        version = node.asLong();
+        continue;
+      }
+      Column column = COLUMNS.get(name);
+      if (column == null) {
+        throw new IllegalArgumentException(
+            "id".equals(name) ? "Field cannot be changed: id" : "Unknown field: " + name);
+      }
+      Object value = column.convert(name, node);
+      Set<ConstraintViolation<ServiceEntity>> violations =
+          validator.validateValue(ServiceEntity.class, name, value);
+      if (!violations.isEmpty()) {
+        throw new IllegalArgumentException(violations.stream()
+            .map(violation -> name + ": " + violation.getMessage())
+            .sorted()
+            .collect(Collectors.joining("; ")));
+      }
+      values.put(name, value);
+    }
+    if (values.isEmpty()) {
+      throw new IllegalArgumentException("At least one field is required");
+    }
+    return new ServicePatch(values, version);
+  }
+
+  /**
+   * Returns the new values by column name, in the order the entity declares them.
+   *
+   * @return the changed columns
+   */
+  public Map<String, Object> getColumns() {
+    Map<String, Object> columns = new LinkedHashMap<>();
+    for (Map.Entry<String, Column> column : COLUMNS.entrySet()) {
+      if (values.containsKey(column.getKey())) {
+        columns.put(column.getValue().name, values.get(column.getKey()));
+      }
+    }
+    return columns;
+  }
+
+  /**
+   * Tells whether the patch changes a field.
+   *
+   * @param name the JSON name of the field
+   * @return true if the field is present in the patch
+   */
+  public boolean changes(String name) {
+    return values.containsKey(name);
+  }
+
+  /**
+   * Returns the new value of a field.
+   *
+   * @param name the JSON name of the field
+   * @return the value, or null if the field is cleared or not changed
+   */
+  public Object get(String name) {
+    return values.get(name);
+  }
+
+  /**
+   * Returns the version given in the body, which the patch is based on.
+   *
+   * @return the version, or null if the body has none
+   */
+  public Long getVersion() {
+    return version;
+  }
+
+  private record Column(String name, Class<?> type) {
+
+    private Object convert(String field, JsonNode node) {
+      if (node.isNull()) {
+        return null;
+      }
+      if (type == String.class && node.isTextual()) {
+        return node.asText();
+      }
+      if (type == Double.class && node.isNumber()) {
+        return node.asDouble();
+      }
+      if (type == Boolean.class && node.isBoolean()) {
+        return node.asBoolean();
+      }
+      String expected = type == String.class ? "a string"
+          : type == Double.class ? "a number" : "a boolean";
+      throw new IllegalArgumentException(field + " must be " + expected);
+    }
+  }
+}
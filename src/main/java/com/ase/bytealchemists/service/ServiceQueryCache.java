@@ -0,0 +1,290 @@
+package com.ase.bytealchemists.service;
+
+import com.ase.bytealchemists.model.QueryCacheStats;
+import com.ase.bytealchemists.model.ServiceEntity;
+import com.ase.bytealchemists.util.GeoUtils;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * LRU cache of radius query results, shared by all origins that fall in the same grid cell.
+ *
+ * <p>
+ * Origins are snapped to square cells of {@code geo.cache.cell-size-deg} degrees. On a miss
+ * the cache loads every service within the requested radius of any point of the cell, i.e.
+ * within {@code radius + reach} of the cell centre where {@code reach} is the distance to
+ * the farthest corner. Each request is then answered by refining that superset to the exact
+ * radius around its own origin, so neighbouring requests share one database round trip.
+ * Radii are rounded up to a multiple of {@code geo.cache.radius-step-km} for the key and the
+ * superset, so that close radii share an entry too.
+ * </p>
+ *
+ * <p>
+ * An entry only keeps the ids and coordinates of its services, sorted by id. A hit refines
+ * them to the ids within the radius and loads those services by primary key, so every
+ * request gets services of its own and the cache stays small. At most
+ * {@code geo.cache.max-entries} entries holding at most {@code geo.cache.max-services}
+ * services in total are kept, evicting the least recently used. When a service changes only
+ * the entries it can affect are dropped: those whose superset contained it before the
+ * change and those whose superset circle and filters cover it afterwards. A size of zero
+ * disables caching.
+ * </p>
+ *
+ * @author Byte Alchemists
+ * @version 1.0
+ */
+@Component
+public class ServiceQueryCache {
+
+  /**
+   * Loads the services within a radius of a point for the filters of the cache key.
+   */
+  @FunctionalInterface
+  public interface Loader {
+    List<ServiceEntity> load(double latitude, double longitude, double radiusKm);
+  }
+
+  /**
+   * Loads services by id, for the ids a cached entry refines to.
+   */
+  @FunctionalInterface
+  public interface IdLoader {
+    List<ServiceEntity> load(List<Long> ids);
+  }
+
+  private final double cellSizeDeg;
+  private final int lonCells;
+  private final double radiusStepKm;
+  private final int maxEntries;
+  private final long maxServices;
+  private final Map<Key, Entry> entries;
+  private long services;
+  private long hits;
+  private long misses;
+  private long evictions;
+  private long invalidations;
+  // Bumped on every change so that a load racing with a write is not cached
+  private long generation;
+
+  /**
+   * Creates an empty cache.
+   *
+   * @param cellSizeDeg  the edge length of a grid cell in degrees
+   * @param radiusStepKm the radii are rounded up to a multiple of this many kilometers
+   * @param maxEntries   the maximum number of cached cells, 0 to disable caching
+   * @param maxServices  the maximum number of services held by all cached cells together
+   */
+  public ServiceQueryCache(@Value("${geo.cache.cell-size-deg:0.01}") double cellSizeDeg,
+      @Value("${geo.cache.radius-step-km:1.0}") double radiusStepKm,
+      @Value("${geo.cache.max-entries:10000}") int maxEntries,
+      @Value("${geo.cache.max-services:500000}") long maxServices) {
+    if (cellSizeDeg <= 0.0 || cellSizeDeg > 90.0) {
+      throw new IllegalArgumentException("Cell size must be in (0, 90] degrees");
+    }
+    if (radiusStepKm <= 0.0) {
+      throw new IllegalArgumentException("Radius step must be positive");
+    }
+    this.cellSizeDeg = cellSizeDeg;
+    this.lonCells = (int) Math.ceil(360.0 / cellSizeDeg);
+    this.radiusStepKm = radiusStepKm;
+    this.maxEntries = Math.max(0, maxEntries);
+    this.maxServices = Math.max(0, maxServices);
+    this.entries = new LinkedHashMap<>(16, 0.75f, true);
+  }
+
+  /**
+   * Returns the services strictly within {@code radiusKm} of the origin that match the
+   * filters, from the cached superset of the origin's cell or by loading it on a miss.
+   *
+   * @param latitude     latitude of the origin in degrees
+   * @param longitude    longitude of the origin in degrees
+   * @param radiusKm     search radius in kilometers
+   * @param category     the category to filter by, or null for any
+   * @param availability the availability to filter by, or null for any
+   * @param loader       runs the uncached radius query with the same filters
+   * @param idLoader     loads the services of a cached entry by id
+   * @return the matching services, in no particular order
+   */
+  public List<ServiceEntity> get(double latitude, double longitude, double radiusKm,
+      String category, Boolean availability, Loader loader, IdLoader idLoader) {
+    if (maxEntries == 0) {
+      return loader.load(latitude, longitude, radiusKm);
+    }
+    long row = Math.min((long) Math.floor((latitude + 90.0) / cellSizeDeg),
+        (long) Math.ceil(180.0 / cellSizeDeg) - 1);
+    long col = Math.floorMod((long) Math.floor((longitude + 180.0) / cellSizeDeg), lonCells);
+    double bucketRadiusKm = Math.max(1, Math.ceil(radiusKm / radiusStepKm)) * radiusStepKm;
+    Key key = new Key(row, col, bucketRadiusKm,
+        category == null ? null : category.toLowerCase(Locale.ROOT), availability);
+
+    Entry entry;
+    long loadGeneration;
+    synchronized (this) {
+      entry = entries.get(key);
+      loadGeneration = generation;
+      if (entry != null) {
+        hits++;
+      } else {
+        misses++;
+      }
+    }
+
+    if (entry != null) {
+      List<Long> ids = new ArrayList<>();
+      for (int i = 0; i < entry.ids.length; i++) {
+        if (GeoUtils.distanceKm(latitude, longitude, entry.latitudes[i],
+            entry.longitudes[i]) < radiusKm) {
+          ids.add(entry.ids[i]);
+        }
+      }
+      return ids.isEmpty() ? new ArrayList<>() : idLoader.load(ids);
+    }
+
+    // On a miss the loaded services are refined directly; only their ids are kept
+    List<ServiceEntity> loaded = load(row, col, bucketRadiusKm, loader);
+    entry = new Entry(centerOf(row, col), reachOf(row, col) + bucketRadiusKm + 1e-6, loaded);
+    synchronized (this) {
+      if (generation == loadGeneration && entry.ids.length <= maxServices) {
+        Entry replaced = entries.put(key, entry);
+        services += entry.ids.length - (replaced == null ? 0 : replaced.ids.length);
+        evict();
+      }
+    }
+    List<ServiceEntity> result = new ArrayList<>();
+    for (ServiceEntity service : loaded) {
+      if (service.getLatitude() != null && service.getLongitude() != null
+          && GeoUtils.distanceKm(latitude, longitude, service.getLatitude(),
+              service.getLongitude()) < radiusKm) {
+        result.add(service);
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Drops the cached cells that a created, updated or deleted service can affect.
+   *
+   * @param event the change
+   */
+  @EventListener
+  public synchronized void onServiceChanged(ServiceChangedEvent event) {
+    generation++;
+    ServiceEntity service = event.getService();
+    boolean located = service != null && service.getLatitude() != null
+        && service.getLongitude() != null;
+    Iterator<Map.Entry<Key, Entry>> iterator = entries.entrySet().iterator();
+    while (iterator.hasNext()) {
+      Map.Entry<Key, Entry> cached = iterator.next();
+      Entry entry = cached.getValue();
+      if (Arrays.binarySearch(entry.ids, event.getServiceId()) >= 0
+          || located && cached.getKey().matches(service) && GeoUtils.distanceKm(
+              entry.centerLat, entry.centerLon, service.getLatitude(), service.getLongitude())
+              < entry.radiusKm) {
+        iterator.remove();
+        services -= entry.ids.length;
+        invalidations++;
+      }
+    }
+  }
+
+  /**
+   * Returns the hit, miss, eviction and invalidation counters.
+   *
+   * @return a snapshot of the counters
+   */
+  public synchronized QueryCacheStats stats() {
+    long lookups = hits + misses;
+    return new QueryCacheStats(hits, misses, lookups == 0 ? 0.0 : (double) hits / lookups,
+        entries.size(), maxEntries, evictions, invalidations, services, maxServices);
+  }
+
+  private void evict() {
+    Iterator<Entry> eldest = entries.values().iterator();
+    while (eldest.hasNext() && (entries.size() > maxEntries || services > maxServices)) {
+      services -= eldest.next().ids.length;
+      eldest.remove();
+      evictions++;
+    }
+  }
+
+  private List<ServiceEntity> load(long row, long col, double radiusKm, Loader loader) {
+    double[] center = centerOf(row, col);
+    // A little slack so that rounding never drops a service at the edge of the circle
+    return loader.load(center[0], center[1], radiusKm + reachOf(row, col) + 1e-6);
+  }
+
+  private double[] centerOf(long row, long col) {
+    double south = row * cellSizeDeg - 90.0;
+    double north = Math.min(south + cellSizeDeg, 90.0);
+    double west = col * cellSizeDeg - 180.0;
+    double centerLon = west + cellSizeDeg / 2;
+    return new double[] {(south + north) / 2, centerLon > 180.0 ? centerLon - 360.0
+        : centerLon};
+  }
+
+  // The distance from the centre of a cell to its farthest corner
+  private double reachOf(long row, long col) {
+    double south = row * cellSizeDeg - 90.0;
+    double north = Math.min(south + cellSizeDeg, 90.0);
+    double west = col * cellSizeDeg - 180.0;
+    double east = west + cellSizeDeg;
+    double centerLat = (south + north) / 2;
+    double centerLon = (west + east) / 2;
+    return Math.max(
+        Math.max(GeoUtils.distanceKm(centerLat, centerLon, south, west),
+            GeoUtils.distanceKm(centerLat, centerLon, south, east)),
+        Math.max(GeoUtils.distanceKm(centerLat, centerLon, north, west),
+            GeoUtils.distanceKm(centerLat, centerLon, north, east)));
+  }
+
+  private record Key(long row, long col, double radiusKm, String category,
+      Boolean availability) {
+
+    private boolean matches(ServiceEntity service) {
+      return (category == null || category.equalsIgnoreCase(service.getCategory()))
+          && (availability == null || availability.equals(service.getAvailability()));
+    }
+  }
+
+  /**
+   * The superset of a cell as parallel arrays sorted by id, without the services themselves.
+   */
+  private static final class Entry {
+    private final double centerLat;
+    private final double centerLon;
+    private final double radiusKm;
+    private final long[] ids;
+    private final double[] latitudes;
+    private final double[] longitudes;
+
+    private Entry(double[] center, double radiusKm, List<ServiceEntity> services) {
+      this.centerLat = center[0];
+      this.centerLon = center[1];
+      this.radiusKm = radiusKm;
+      List<ServiceEntity> located = new ArrayList<>();
+      for (ServiceEntity service : services) {
+        if (service.getId() != null && service.getLatitude() != null
+            && service.getLongitude() != null) {
+          located.add(service);
+        }
+      }
+      located.sort((first, second) -> Long.compare(first.getId(), second.getId()));
+      this.ids = new long[located.size()];
+      this.latitudes = new double[located.size()];
+      this.longitudes = new double[located.size()];
+      for (int i = 0; i < located.size(); i++) {
+        ids[i] = located.get(i).getId();
+        latitudes[i] = located.get(i).getLatitude();
+        longitudes[i] = located.get(i).getLongitude();
+      }
+    }
+  }
+}
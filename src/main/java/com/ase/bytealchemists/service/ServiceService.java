@@ -1,11 +1,49 @@
 package com.ase.bytealchemists.service;
 
+import com.ase.bytealchemists.model.BatchQueryRequest;
+import com.ase.bytealchemists.model.BatchQueryResult;
+import com.ase.bytealchemists.model.BulkDeleteRequest;
+import com.ase.bytealchemists.model.BulkDeleteResult;
+import com.ase.bytealchemists.model.CursorPage;
+import com.ase.bytealchemists.model.NearbyService;
+import com.ase.bytealchemists.model.QueryCacheStats;
+import com.ase.bytealchemists.model.RouteQueryRequest;
+import com.ase.bytealchemists.model.ServiceAlongRoute;
+import com.ase.bytealchemists.model.ServiceCluster;
 import com.ase.bytealchemists.model.ServiceEntity;
+import com.ase.bytealchemists.model.ServiceFields;
+import com.ase.bytealchemists.model.ServiceLocation;
+import com.ase.bytealchemists.model.ServiceSearchHit;
+import com.ase.bytealchemists.model.ServiceSort;
+import com.ase.bytealchemists.model.ServiceText;
+import com.ase.bytealchemists.repository.CategoryRepository;
 import com.ase.bytealchemists.repository.ServiceRepository;
+import com.ase.bytealchemists.util.GeoUtils;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import java.io.IOException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 /**
  * Service class for managing operations related to services in the Homeless
@@ -19,45 +57,776 @@ public class ServiceService {
   @Autowired
   private ServiceRepository serviceRepository;
 
+  @Autowired
+  private ServiceSpatialIndex spatialIndex;
+
+  @Autowired
+  private ServiceQueryCache queryCache;
+
+  @Autowired
+  private ServiceClusterIndex clusterIndex;
+
+  @Autowired
+  private ServiceTileCache tileCache;
+
+  @Autowired
+  private ZipcodeCentroids zipcodeCentroids;
+
+  @Autowired
+  private ServiceVersions serviceVersions;
+
+  @Autowired
+  private ServiceTextIndex textIndex;
+
+  @Autowired
+  private ServiceAutocomplete autocomplete;
+
+  @Autowired
+  private ServiceHoursIndex hoursIndex;
+
+  @Autowired
+  private ServiceAvailabilityBuffer availabilityBuffer;
+
+  @Autowired
+  private CategoryRepository categoryRepository;
+
+  @Autowired
+  private ApplicationEventPublisher eventPublisher;
+
+  @PersistenceContext
+  private EntityManager entityManager;
+
+  @Value("${geo.query-mode:INDEX}")
+  private GeoQueryMode queryMode = GeoQueryMode.INDEX;
+
+  @Value("${geo.nearest.max-k:100}")
+  private int maxNearest = 100;
+
+  @Value("${geo.query.default-radius-km:10}")
+  private double defaultRadius = 10.0;
+
+  @Value("${geo.query.max-radius-km:50}")
+  private double maxRadius = 50.0;
+
+  @Value("${geo.query.max-box-queries:16}")
+  private int maxBoxQueries = 16;
+
+  @Value("${geo.route.default-width-km:1}")
+  private double defaultRouteWidth = 1.0;
+
+  @Value("${geo.query.page-size:50}")
+  private int defaultPageSize = 50;
+
+  @Value("${geo.query.max-page-size:200}")
+  private int maxPageSize = 200;
+
+  @Value("${service.delete.chunk-size:500}")
+  private int deleteChunkSize = 500;
+
+  /**
+   * Backfills the unit vectors and versions of services stored without one, then loads
+   * every service location into the marker cluster index and, when the index mode is
+   * active, the spatial index, and the text
+   * of every service into the full-text index and, with the categories, the autocomplete
+   * index, and the hours of every service into the opening hours index.
+   */
+  @PostConstruct
+  public void initializeGeoData() {
+    serviceRepository.backfillUnitVectors();
+    serviceRepository.backfillVersions();
+    List<ServiceLocation> locations = serviceRepository.findAllLocations();
+    if (queryMode == GeoQueryMode.INDEX) {
+      spatialIndex.rebuild(locations);
+    }
+    clusterIndex.rebuild(locations);
+    List<ServiceText> texts = serviceRepository.findAllTexts();
+    textIndex.rebuild(texts);
+    autocomplete.rebuild(texts, categoryRepository.findAllCategoryNames());
+    hoursIndex.rebuild(serviceRepository.findAllHours());
+  }
+
   /**
    * Queries services based on latitude, longitude, category, and availability
-   * within a fixed radius.
+   * within the default radius.
+   *
+   * @param latitude     the latitude to filter services by location
+   * @param longitude    the longitude to filter services by location
+   * @param category     the category of services to filter (optional)
+   * @param availability the availability status to filter services (optional)
+   * @return a list of {@link ServiceEntity} that match the given filters
+   * @see #queryServices(Double, Double, Double, String, Boolean)
+   */
+  public List<ServiceEntity> queryServices(Double latitude, Double longitude,
+      String category, Boolean availability) {
+    return queryServices(latitude, longitude, null, category, availability);
+  }
+
+  /**
+   * Queries services based on latitude, longitude, radius, category, and availability.
    *
    * <p>
-   * This method uses a fixed radius of 10 km to find services within a certain
-   * location
-   * and applies additional filters such as service category and availability. It
-   * calls the
-   * repository layer to retrieve the results.
+   * The radius defaults to {@code geo.query.default-radius-km} (10 km) and is capped at
+   * {@code geo.query.max-radius-km}. When coordinates are given the results are
+   * ordered by distance, closest first. Results are served through the
+   * {@link ServiceQueryCache}, which shares one query among origins in the same grid cell.
+   * In {@link GeoQueryMode#INDEX} mode the radius search is answered by the
+   * in-memory spatial index and only the matching rows are loaded by id;
+   * in {@link GeoQueryMode#BOUNDING_BOX} mode the database first narrows the rows
+   * with an indexed latitude/longitude range; in {@link GeoQueryMode#SPATIAL} mode it
+   * uses the MySQL SPATIAL INDEX on the {@code location} column; otherwise it calls
+   * the repository layer to run the query in the database.
    * </p>
    *
    * @param latitude     the latitude to filter services by location
    * @param longitude    the longitude to filter services by location
+   * @param radius       the search radius in kilometers (optional)
    * @param category     the category of services to filter (optional)
    * @param availability the availability status to filter services (optional)
    * @return a list of {@link ServiceEntity} that match the given filters
    */
-  public List<ServiceEntity> queryServices(Double latitude, Double longitude,
+  public List<ServiceEntity> queryServices(Double latitude, Double longitude, Double radius,
       String category, Boolean availability) {
-    double fixedRadius = 10.0;
-    return serviceRepository.findByFilters(latitude, longitude,
-        fixedRadius, category, availability);
+    double effectiveRadius = resolveRadius(radius);
+    if (latitude == null || longitude == null) {
+      return findWithinRadius(latitude, longitude, effectiveRadius, category, availability);
+    }
+    List<ServiceEntity> services = queryCache.get(latitude, longitude, effectiveRadius,
+        category, availability,
+        (lat, lon, cellRadius) -> findWithinRadius(lat, lon, cellRadius, category, availability),
+        this::findAllById);
+    List<ServiceEntity> ordered = new ArrayList<>(services);
+    ordered.sort(Comparator.comparingDouble((ServiceEntity service) -> GeoUtils.distanceKm(
+            latitude, longitude, service.getLatitude(), service.getLongitude()))
+        .thenComparing(ServiceEntity::getId));
+    return ordered;
   }
 
+  /**
+   * Queries services like {@link #queryServices(Double, Double, Double, String, Boolean)},
+   * additionally filtered by zipcode, city and state.
+   *
+   * <p>
+   * Without coordinates a known zipcode is resolved to its centroid through
+   * {@link ZipcodeCentroids}, and the services within the radius of the centroid are
+   * returned, closest first, as if its coordinates had been given. A zipcode that is not in
+   * the table is matched exactly instead. Without coordinates or a known zipcode the city,
+   * state and zipcode filters run in the database on their indexes; with coordinates they
+   * refine the radius search. City and state are compared ignoring case.
+   * </p>
+   *
+   * @param latitude     the latitude to filter services by location (optional)
+   * @param longitude    the longitude to filter services by location (optional)
+   * @param radius       the search radius in kilometers (optional)
+   * @param category     the category of services to filter (optional)
+   * @param availability the availability status to filter services (optional)
+   * @param zipcode      the 5-digit zipcode to search around (optional)
+   * @param city         the city to filter services (optional)
+   * @param state        the state to filter services (optional)
+   * @return a list of {@link ServiceEntity} that match the given filters
+   */
+  public List<ServiceEntity> queryServices(Double latitude, Double longitude, Double radius,
+      String category, Boolean availability, String zipcode, String city, String state) {
+    if (zipcode != null && ZipcodeCentroids.isValid(zipcode)) {
+      // Drop a ZIP+4 suffix, services only store the 5-digit zipcode
+      zipcode = zipcode.trim().substring(0, 5);
+    }
+    if ((latitude == null || longitude == null) && zipcode != null) {
+      double[] centroid = zipcodeCentroids.centroid(zipcode);
+      if (centroid != null) {
+        // The radius around the centroid replaces the exact zipcode match
+        latitude = centroid[0];
+        longitude = centroid[1];
+        zipcode = null;
+      }
+    }
+    if (zipcode == null && city == null && state == null) {
+      return queryServices(latitude, longitude, radius, category, availability);
+    }
+    if (latitude == null || longitude == null) {
+      return findByPlace(zipcode, city, state, category, availability);
+    }
+
+    List<ServiceEntity> services = new ArrayList<>();
+    for (ServiceEntity service : queryServices(latitude, longitude, radius, category,
+        availability)) {
+      if ((zipcode == null || zipcode.equals(service.getZipcode()))
+          && (city == null || city.equalsIgnoreCase(service.getCity()))
+          && (state == null || state.equalsIgnoreCase(service.getState()))) {
+        services.add(service);
+      }
+    }
+    return services;
+  }
+
+  /**
+   * Queries services like
+   * {@link #queryServices(Double, Double, Double, String, Boolean, String, String, String)},
+   * keeping only the services open at an instant. Whether a service is open is answered by
+   * the {@link ServiceHoursIndex}, in the local time of the service.
+   *
+   * @param latitude     the latitude to filter services by location (optional)
+   * @param longitude    the longitude to filter services by location (optional)
+   * @param radius       the search radius in kilometers (optional)
+   * @param category     the category of services to filter (optional)
+   * @param availability the availability status to filter services (optional)
+   * @param zipcode      the 5-digit zipcode to search around (optional)
+   * @param city         the city to filter services (optional)
+   * @param state        the state to filter services (optional)
+   * @param openAt       the instant the services must be open at (optional)
+   * @return a list of {@link ServiceEntity} that match the given filters
+   */
+  public List<ServiceEntity> queryServices(Double latitude, Double longitude, Double radius,
+      String category, Boolean availability, String zipcode, String city, String state,
+      Instant openAt) {
+    List<ServiceEntity> services = queryServices(latitude, longitude, radius, category,
+        availability, zipcode, city, state);
+    return openAt == null ? services
+        : hoursIndex.retainOpen(services, ServiceEntity::getId, openAt);
+  }
+
+  /**
+   * Returns one page of services within a radius, ordered by distance and then id,
+   * with the distance attached to each service.
+   *
+   * <p>
+   * Pagination is keyed on {@code (distance, id)}: the cursor of a page encodes the
+   * key of its last service and the next page starts strictly after it, so a page is
+   * stable even while other pages are being read and earlier pages are never rebuilt.
+   * </p>
+   *
+   * @param latitude     the latitude of the search origin
+   * @param longitude    the longitude of the search origin
+   * @param radius       the search radius in kilometers (optional)
+   * @param category     the category of services to filter (optional)
+   * @param availability the availability status to filter services (optional)
+   * @param cursor       the {@code next} cursor of the previous page, or null for the first
+   * @param limit        the page size (optional), capped at {@code geo.query.max-page-size}
+   * @return the page of services and the cursor of the following page
+   * @throws IllegalArgumentException if the cursor is malformed
+   */
+  public CursorPage<NearbyService> queryServicesPage(double latitude, double longitude,
+      Double radius, String category, Boolean availability, String cursor, Integer limit) {
+    double effectiveRadius = resolveRadius(radius);
+    int pageSize = limit == null ? defaultPageSize : Math.max(1, Math.min(limit, maxPageSize));
+    double afterDistance = -1.0;
+    long afterId = 0L;
+    if (cursor != null) {
+      String[] key = PageCursor.decode(cursor, 2);
+      try {
+        afterDistance = Double.parseDouble(key[0]);
+        afterId = Long.parseLong(key[1]);
+      } catch (NumberFormatException e) {
+        throw new IllegalArgumentException("Invalid cursor", e);
+      }
+    }
+
+    // Fetch one extra row to learn whether another page follows
+    List<NearbyService> items = new ArrayList<>();
+    if (queryMode == GeoQueryMode.INDEX) {
+      List<ServiceSpatialIndex.Hit> hits = spatialIndex.withinRadiusAfter(latitude, longitude,
+          effectiveRadius, category, availability, afterDistance, afterId, pageSize + 1);
+      List<ServiceSpatialIndex.Hit> pageHits = hits.subList(0, Math.min(pageSize, hits.size()));
+      Map<Long, ServiceEntity> servicesById = loadByIds(pageHits);
+      for (ServiceSpatialIndex.Hit hit : pageHits) {
+        ServiceEntity service = servicesById.get(hit.getId());
+        if (service != null) {
+          items.add(new NearbyService(service, hit.getDistanceKm()));
+        }
+      }
+      String next = null;
+      if (hits.size() > pageSize) {
+        ServiceSpatialIndex.Hit last = pageHits.get(pageHits.size() - 1);
+        next = PageCursor.encode(Double.toString(last.getDistanceKm()),
+            Long.toString(last.getId()));
+      }
+      return new CursorPage<>(items, next);
+    }
+
+    GeoUtils.BoundingBox box = GeoUtils.boundingBox(latitude, longitude, effectiveRadius);
+    boolean allLongitudes = box.isFullLongitude() || box.crossesAntimeridian();
+    List<Object[]> rows = serviceRepository.findNearbyPage(latitude, longitude, effectiveRadius,
+        box.getMinLat(), box.getMaxLat(),
+        allLongitudes ? -180.0 : box.getMinLon(), allLongitudes ? 180.0 : box.getMaxLon(),
+        category, availability, afterDistance, afterId, PageRequest.of(0, pageSize + 1));
+    for (Object[] row : rows.subList(0, Math.min(pageSize, rows.size()))) {
+      items.add(new NearbyService((ServiceEntity) row[0], ((Number) row[1]).doubleValue()));
+    }
+    String next = null;
+    if (rows.size() > pageSize) {
+      NearbyService last = items.get(items.size() - 1);
+      next = PageCursor.encode(Double.toString(last.getDistanceKm()),
+          Long.toString(last.getService().getId()));
+    }
+    if (!availabilityBuffer.isEmpty()) {
+      NearbyService last = next == null ? null : items.get(items.size() - 1);
+      items = withBufferedAvailability(items, latitude, longitude, effectiveRadius, category,
+          availability, afterDistance, afterId, last);
+    }
+    return new CursorPage<>(items, next);
+  }
+
+  /**
+   * Applies the buffered availability changes to a page of a radius search that filtered
+   * on availability in the database. Buffered services that now match are added if their
+   * distance and id fall between the cursor of the page and its last service, so that
+   * every service still lands on exactly one page.
+   */
+  private List<NearbyService> withBufferedAvailability(List<NearbyService> items,
+      double latitude, double longitude, double radius, String category,
+      Boolean availability, double afterDistance, long afterId, NearbyService last) {
+    List<NearbyService> current = new ArrayList<>(items.size());
+    Set<Long> found = new HashSet<>();
+    for (NearbyService item : items) {
+      found.add(item.getService().getId());
+      ServiceEntity buffered = availabilityBuffer.get(item.getService().getId());
+      ServiceEntity latest = buffered == null ? item.getService() : buffered;
+      if (availability == null || availability.equals(latest.getAvailability())) {
+        current.add(buffered == null ? item : new NearbyService(buffered,
+            item.getDistanceKm()));
+      }
+    }
+    if (availability == null) {
+      return current;
+    }
+    boolean added = false;
+    Predicate<ServiceEntity> filter = radiusFilter(latitude, longitude, radius, category);
+    for (ServiceEntity buffered : availabilityBuffer.getAll()) {
+      if (found.contains(buffered.getId()) || !availability.equals(buffered.getAvailability())
+          || !filter.test(buffered)) {
+        continue;
+      }
+      double distance = GeoUtils.distanceKm(latitude, longitude, buffered.getLatitude(),
+          buffered.getLongitude());
+      if (comparePageKeys(distance, buffered.getId(), afterDistance, afterId) > 0
+          && (last == null || comparePageKeys(distance, buffered.getId(),
+              last.getDistanceKm(), last.getService().getId()) <= 0)) {
+        current.add(new NearbyService(buffered, distance));
+        added = true;
+      }
+    }
+    if (added) {
+      current.sort((first, second) -> comparePageKeys(first.getDistanceKm(),
+          first.getService().getId(), second.getDistanceKm(), second.getService().getId()));
+    }
+    return current;
+  }
+
+  // Orders radius search results like MySQL does: by distance, then by id
+  private static int comparePageKeys(double distance, long id, double otherDistance,
+      long otherId) {
+    int byDistance = Double.compare(distance, otherDistance);
+    return byDistance != 0 ? byDistance : Long.compare(id, otherId);
+  }
+
+  /**
+   * Finds the {@code k} services closest to the given point, ordered by distance.
+   *
+   * <p>
+   * In {@link GeoQueryMode#INDEX} mode this is a best-first search over the spatial
+   * index. The database-backed modes start with a small radius and double it until
+   * at least {@code k} services are inside, so the search only grows as far as needed.
+   * </p>
+   *
+   * @param latitude     the latitude of the search origin
+   * @param longitude    the longitude of the search origin
+   * @param k            the number of services to return, capped at
+   *                     {@code geo.nearest.max-k}
+   * @param category     the category of services to filter (optional)
+   * @param availability the availability status to filter services (optional)
+   * @return up to {@code k} services with their distance, closest first
+   */
+  public List<NearbyService> findNearestServices(double latitude, double longitude, int k,
+      String category, Boolean availability) {
+    int limit = Math.min(k, maxNearest);
+    if (limit <= 0) {
+      return new ArrayList<>();
+    }
+
+    if (queryMode == GeoQueryMode.INDEX) {
+      List<ServiceSpatialIndex.Hit> hits =
+          spatialIndex.nearest(latitude, longitude, limit, category, availability);
+      Map<Long, ServiceEntity> servicesById = loadByIds(hits);
+      List<NearbyService> nearest = new ArrayList<>();
+      for (ServiceSpatialIndex.Hit hit : hits) {
+        ServiceEntity service = servicesById.get(hit.getId());
+        if (service != null) {
+          nearest.add(new NearbyService(service, hit.getDistanceKm()));
+        }
+      }
+      return nearest;
+    }
+
+    double halfCircumferenceKm = Math.PI * GeoUtils.EARTH_RADIUS_KM;
+    double radius = 1.0;
+    List<ServiceEntity> candidates;
+    while (true) {
+      candidates = findWithinRadius(latitude, longitude, radius, category, availability);
+      if (candidates.size() >= limit || radius >= halfCircumferenceKm) {
+        break;
+      }
+      radius = Math.min(radius * 2, halfCircumferenceKm);
+    }
+    List<NearbyService> nearest = new ArrayList<>();
+    for (ServiceEntity service : candidates) {
+      nearest.add(new NearbyService(service, GeoUtils.distanceKm(latitude, longitude,
+          service.getLatitude(), service.getLongitude())));
+    }
+    nearest.sort(Comparator.comparing(NearbyService::getDistanceKm)
+        .thenComparing(nearby -> nearby.getService().getId()));
+    return nearest.size() > limit ? new ArrayList<>(nearest.subList(0, limit)) : nearest;
+  }
+
+  /**
+   * Searches the name, address, city and category of the services for the words of a
+   * query, answered from the in-memory {@link ServiceTextIndex} and ranked with BM25.
+   * Services matching more of the words, or rarer ones, rank higher.
+   *
+   * @param query        the words to search for
+   * @param latitude     the latitude of the search origin (optional)
+   * @param longitude    the longitude of the search origin (optional)
+   * @param radius       the search radius in kilometers around the origin (optional,
+   *                     default {@code geo.query.default-radius-km})
+   * @param category     the category of services to filter (optional)
+   * @param availability the availability status to filter services (optional)
+   * @param limit        the maximum number of services to return (optional, default
+   *                     {@code geo.query.page-size}, capped at
+   *                     {@code geo.query.max-page-size})
+   * @return the matching services with their scores, best first
+   * @throws IllegalArgumentException if the query has no words, only one coordinate is
+   *         given or the limit is not positive
+   */
+  public List<ServiceSearchHit> searchServices(String query, Double latitude,
+      Double longitude, Double radius, String category, Boolean availability,
+      Integer limit) {
+    if (ServiceTextIndex.tokenize(query).isEmpty()) {
+      throw new IllegalArgumentException("Query must contain at least one word");
+    }
+    if ((latitude == null) != (longitude == null)) {
+      throw new IllegalArgumentException("Latitude and longitude must be given together");
+    }
+    if (limit != null && limit < 1) {
+      throw new IllegalArgumentException("Limit must be at least 1");
+    }
+    int size = limit == null ? defaultPageSize : Math.min(limit, maxPageSize);
+
+    List<ServiceTextIndex.Hit> hits = textIndex.search(query, category, availability,
+        latitude, longitude, resolveRadius(radius), size);
+    List<Long> ids = new ArrayList<>();
+    for (ServiceTextIndex.Hit hit : hits) {
+      ids.add(hit.getId());
+    }
+    Map<Long, ServiceEntity> servicesById = new HashMap<>();
+    if (!ids.isEmpty()) {
+      for (ServiceEntity service : findAllById(ids)) {
+        servicesById.put(service.getId(), service);
+      }
+    }
+    List<ServiceSearchHit> results = new ArrayList<>();
+    for (ServiceTextIndex.Hit hit : hits) {
+      ServiceEntity service = servicesById.get(hit.getId());
+      // A service deleted since the index was searched is skipped
+      if (service != null) {
+        results.add(new ServiceSearchHit(service, hit.getScore()));
+      }
+    }
+    return results;
+  }
+
+  /**
+   * Loads the services referenced by index hits with a single primary key lookup.
+   */
+  private Map<Long, ServiceEntity> loadByIds(List<ServiceSpatialIndex.Hit> hits) {
+    Map<Long, ServiceEntity> servicesById = new HashMap<>();
+    if (hits.isEmpty()) {
+      return servicesById;
+    }
+    List<Long> ids = new ArrayList<>();
+    for (ServiceSpatialIndex.Hit hit : hits) {
+      ids.add(hit.getId());
+    }
+    for (ServiceEntity service : findAllById(ids)) {
+      servicesById.put(service.getId(), service);
+    }
+    return servicesById;
+  }
+
+  /**
+   * Writes services streamed in id order, with their buffered availability changes
+   * applied: rows that no longer match the availability filter are skipped, and buffered
+   * services that now match it and pass the other filters are merged in by id.
+   */
+  private void writeAndDetach(Stream<ServiceEntity> services, Boolean availability,
+      Predicate<ServiceEntity> filter, ServiceStreamWriter writer) throws IOException {
+    List<ServiceEntity> additions = new ArrayList<>();
+    if (availability != null && !availabilityBuffer.isEmpty()) {
+      for (ServiceEntity buffered : availabilityBuffer.getAll()) {
+        if (availability.equals(buffered.getAvailability()) && filter.test(buffered)) {
+          additions.add(buffered);
+        }
+      }
+      additions.sort(Comparator.comparing(ServiceEntity::getId));
+    }
+    int nextAddition = 0;
+    Iterator<ServiceEntity> iterator = services.iterator();
+    while (iterator.hasNext()) {
+      ServiceEntity service = iterator.next();
+      // Buffered services before this row were not matched by the database
+      while (nextAddition < additions.size()
+          && additions.get(nextAddition).getId() <= service.getId()) {
+        ServiceEntity addition = additions.get(nextAddition++);
+        if (addition.getId() < service.getId()) {
+          writer.write(addition);
+        }
+      }
+      ServiceEntity buffered = availabilityBuffer.isEmpty() ? null
+          : availabilityBuffer.get(service.getId());
+      ServiceEntity latest = buffered == null ? service : buffered;
+      if (availability == null || availability.equals(latest.getAvailability())) {
+        writer.write(latest);
+      }
+      // Written rows are not needed again; keep the persistence context from growing
+      entityManager.detach(service);
+    }
+    while (nextAddition < additions.size()) {
+      writer.write(additions.get(nextAddition++));
+    }
+  }
+
+  private Map<String, Object> withBufferedAvailability(Long id, Map<String, Object> row) {
+    ServiceEntity buffered = availabilityBuffer.get(id);
+    if (buffered != null) {
+      row.computeIfPresent("availability", (name, value) -> buffered.getAvailability());
+      row.computeIfPresent("version", (name, value) -> buffered.getVersion());
+    }
+    return row;
+  }
+
+  private double resolveRadius(Double radius) {
+    return radius == null ? defaultRadius : Math.min(radius, maxRadius);
+  }
+
+  /**
+   * Runs a radius search with the configured {@link GeoQueryMode}.
+   * Without coordinates only the category and availability filters apply.
+   */
+  private List<ServiceEntity> findWithinRadius(Double latitude, Double longitude,
+      double radius, String category, Boolean availability) {
+    if (queryMode == GeoQueryMode.INDEX && latitude != null && longitude != null) {
+      List<Long> ids = new ArrayList<>();
+      for (ServiceSpatialIndex.Hit hit : spatialIndex.withinRadius(
+          latitude, longitude, radius, category, availability)) {
+        ids.add(hit.getId());
+      }
+      if (ids.isEmpty()) {
+        return new ArrayList<>();
+      }
+      return findAllById(ids);
+    }
+    List<ServiceEntity> services;
+    if (queryMode == GeoQueryMode.BOUNDING_BOX && latitude != null && longitude != null) {
+      GeoUtils.BoundingBox box = GeoUtils.boundingBox(latitude, longitude, radius);
+      // A box that wraps the antimeridian cannot be expressed as one BETWEEN range,
+      // so only the latitude bound is used there
+      boolean allLongitudes = box.isFullLongitude() || box.crossesAntimeridian();
+      services = serviceRepository.findByFiltersWithinBounds(latitude, longitude, radius,
+          box.getMinLat(), box.getMaxLat(),
+          allLongitudes ? -180.0 : box.getMinLon(), allLongitudes ? 180.0 : box.getMaxLon(),
+          category, availability);
+    } else if (queryMode == GeoQueryMode.SPATIAL && latitude != null && longitude != null) {
+      GeoUtils.BoundingBox box = GeoUtils.boundingBox(latitude, longitude, radius);
+      if (!box.isFullLongitude() && !box.crossesAntimeridian()) {
+        services = serviceRepository.findWithinSpatialBox(latitude, longitude, radius,
+            box.toWkt(), category, availability);
+      } else {
+        // Boxes that wrap are not valid polygons; the latitude range still narrows the scan
+        services = serviceRepository.findByFiltersWithinBounds(latitude, longitude, radius,
+            box.getMinLat(), box.getMaxLat(), -180.0, 180.0, category, availability);
+      }
+    } else {
+      services = serviceRepository.findByFilters(latitude, longitude,
+          radius, category, availability);
+    }
+    return withBufferedAvailability(services, availability,
+        radiusFilter(latitude, longitude, radius, category));
+  }
+
+  /**
+   * Mirrors the category and radius filters of a radius search, for buffered services.
+   */
+  private static Predicate<ServiceEntity> radiusFilter(Double latitude, Double longitude,
+      double radius, String category) {
+    return service -> inCategory(service, category) && (latitude == null || longitude == null
+        || service.getLatitude() != null && service.getLongitude() != null
+        && GeoUtils.distanceKm(latitude, longitude, service.getLatitude(),
+            service.getLongitude()) < radius);
+  }
+
+  private List<ServiceEntity> findByPlace(String zipcode, String city, String state,
+      String category, Boolean availability) {
+    return withBufferedAvailability(
+        serviceRepository.findByPlace(zipcode, city, state, category, availability),
+        availability, service -> inCategory(service, category)
+            && (zipcode == null || zipcode.equals(service.getZipcode()))
+            && (city == null || city.equalsIgnoreCase(service.getCity()))
+            && (state == null || state.equalsIgnoreCase(service.getState())));
+  }
+
+  private List<ServiceEntity> findWithinBounds(double minLat, double maxLat, double minLon,
+      double maxLon, String category, Boolean availability) {
+    return withBufferedAvailability(
+        serviceRepository.findWithinBounds(minLat, maxLat, minLon, maxLon, category,
+            availability),
+        availability, service -> inCategory(service, category)
+            && service.getLatitude() != null && service.getLongitude() != null
+            && service.getLatitude() >= minLat && service.getLatitude() <= maxLat
+            && service.getLongitude() >= minLon && service.getLongitude() <= maxLon);
+  }
+
+  /**
+   * Loads services by id, with their buffered availability changes applied.
+   */
+  private List<ServiceEntity> findAllById(Iterable<Long> ids) {
+    return withBufferedAvailability(serviceRepository.findAllById(ids));
+  }
+
+  /**
+   * Replaces the services whose availability change is not written yet by the service as
+   * held in the {@link ServiceAvailabilityBuffer}.
+   */
+  private List<ServiceEntity> withBufferedAvailability(List<ServiceEntity> services) {
+    if (availabilityBuffer.isEmpty()) {
+      return services;
+    }
+    List<ServiceEntity> current = new ArrayList<>(services.size());
+    for (ServiceEntity service : services) {
+      ServiceEntity buffered = availabilityBuffer.get(service.getId());
+      current.add(buffered == null ? service : buffered);
+    }
+    return current;
+  }
+
+  /**
+   * Applies the buffered availability changes to the result of a query that filtered on
+   * availability in the database: services that no longer match are dropped, and buffered
+   * services that now match and pass the other filters of the query are added, after
+   * which the result is in id order.
+   */
+  private List<ServiceEntity> withBufferedAvailability(List<ServiceEntity> services,
+      Boolean availability, Predicate<ServiceEntity> filter) {
+    if (availabilityBuffer.isEmpty()) {
+      return services;
+    }
+    List<ServiceEntity> current = new ArrayList<>(services.size());
+    Set<Long> found = new HashSet<>();
+    for (ServiceEntity service : services) {
+      found.add(service.getId());
+      ServiceEntity buffered = availabilityBuffer.get(service.getId());
+      ServiceEntity latest = buffered == null ? service : buffered;
+      if (availability == null || availability.equals(latest.getAvailability())) {
+        current.add(latest);
+      }
+    }
+    if (availability == null) {
+      return current;
+    }
+    boolean added = false;
+    for (ServiceEntity buffered : availabilityBuffer.getAll()) {
+      if (!found.contains(buffered.getId())
+          && availability.equals(buffered.getAvailability()) && filter.test(buffered)) {
+        current.add(buffered);
+        added = true;
+      }
+    }
+    if (added) {
+      current.sort(Comparator.comparing(ServiceEntity::getId));
+    }
+    return current;
+  }
+
+  private static boolean inCategory(ServiceEntity service, String category) {
+    return category == null || category.equalsIgnoreCase(service.getCategory());
+  }
+
+
   /**
    * Deletes a service by its ID.
+   * One {@code DELETE} statement both deletes the service and tells whether it existed.
    *
    * @param id the ID of the service to delete
    * @return true if the service was successfully deleted, false if the service
    *         was not found
    */
   public boolean deleteServiceById(Long id) {
-    if (serviceRepository.existsById(id)) {
-      serviceRepository.deleteById(id);
-      return true;
-    } else {
+    if (serviceRepository.deleteRowById(id) == 0) {
       return false;
     }
+    removeDeleted(List.of(id));
+    return true;
+  }
+
+  /**
+   * Deletes many services, either by id or by filter, in chunks of
+   * {@code service.delete.chunk-size}. Each chunk is deleted with one statement in its own
+   * short transaction, so row locks are released between chunks instead of being held
+   * until every service is gone. A failure stops the delete; earlier chunks stay deleted.
+   *
+   * @param request the ids to delete, or the category, availability, city, state and
+   *                zipcode the deleted services must all match
+   * @return the number of services deleted and of chunks used
+   * @throws IllegalArgumentException if the request has both ids and a filter, or neither
+   */
+  public BulkDeleteResult deleteServices(BulkDeleteRequest request) {
+    boolean hasFilter = request.getCategory() != null || request.getAvailability() != null
+        || request.getCity() != null || request.getState() != null
+        || request.getZipcode() != null;
+    boolean hasIds = request.getIds() != null && !request.getIds().isEmpty();
+    if (hasIds == hasFilter) {
+      throw new IllegalArgumentException("Give either ids or at least one filter");
+    }
+
+    BulkDeleteResult result = new BulkDeleteResult();
+    if (hasIds) {
+      if (request.getIds().contains(null)) {
+        throw new IllegalArgumentException("Ids must not be null");
+      }
+      List<Long> ids = new ArrayList<>(new LinkedHashSet<>(request.getIds()));
+      for (int from = 0; from < ids.size(); from += deleteChunkSize) {
+        deleteChunk(ids.subList(from, Math.min(ids.size(), from + deleteChunkSize)), result);
+      }
+      return result;
+    }
+
+    // Walk the matching ids in key order, so every chunk is a short primary key range
+    PageRequest chunk = PageRequest.of(0, deleteChunkSize);
+    long afterId = 0;
+    List<Long> ids;
+    do {
+      ids = serviceRepository.findIdsByPlace(request.getZipcode(), request.getCity(),
+          request.getState(), request.getCategory(), request.getAvailability(), afterId, chunk);
+      if (!ids.isEmpty()) {
+        deleteChunk(ids, result);
+        afterId = ids.get(ids.size() - 1);
+      }
+    } while (ids.size() == deleteChunkSize);
+    return result;
+  }
+
+  private void deleteChunk(List<Long> ids, BulkDeleteResult result) {
+    int deleted = serviceRepository.deleteRowsByIdIn(ids);
+    result.setDeleted(result.getDeleted() + deleted);
+    result.setChunks(result.getChunks() + 1);
+    // Ids deleted concurrently by someone else are gone too, so forgetting them is harmless
+    removeDeleted(ids);
+  }
+
+  private void removeDeleted(List<Long> ids) {
+    for (Long id : ids) {
+      availabilityBuffer.discard(id);
+      if (queryMode == GeoQueryMode.INDEX) {
+        spatialIndex.remove(id);
+      }
+      eventPublisher.publishEvent(new ServiceChangedEvent(id, null));
+    }
   }
 
   /**
@@ -69,11 +838,35 @@ public class ServiceService {
    * @param service the service data containing the fields to be updated
    * @return the updated {@link ServiceEntity} if the service exists, otherwise
    *         {@code null}
+   * @throws OptimisticLockingFailureException if another update was saved since the
+   *         service was read
    */
   public ServiceEntity updateService(Long id, ServiceEntity service) {
+    return updateService(id, service, null);
+  }
+
+  /**
+   * Updates a service only if it is still at the version the client last saw, e.g. the one
+   * in an {@code If-Match} header.
+   *
+   * @param id              the ID of the service to update
+   * @param service         the service data containing the fields to be updated
+   * @param expectedVersion the version the update is based on, or null for any
+   * @return the updated {@link ServiceEntity} if the service exists, otherwise
+   *         {@code null}
+   * @throws OptimisticLockingFailureException if the service is at another version
+   */
+  public ServiceEntity updateService(Long id, ServiceEntity service, Long expectedVersion) {
+    // Write a buffered availability change first, so the row read below is current
+    availabilityBuffer.flush(id);
     Optional<ServiceEntity> optionalService = serviceRepository.findById(id);
     if (optionalService.isPresent()) {
       ServiceEntity existingService = optionalService.get();
+      if (expectedVersion != null && !expectedVersion.equals(existingService.getVersion())) {
+        throw new OptimisticLockingFailureException(
+            "Service " + id + " is at version " + existingService.getVersion() + ", not "
+                + expectedVersion);
+      }
 
       if (service.getName() != null) {
         existingService.setName(service.getName());
@@ -109,13 +902,71 @@ public class ServiceService {
         existingService.setAvailability(service.getAvailability());
       }
 
-      // Save the updated entity
-      return serviceRepository.save(existingService);
+      // Save the updated entity and keep the spatial index in sync. The save checks the
+      // version again, so a write that lands between the read and here is not overwritten.
+      ServiceEntity savedService = serviceRepository.save(existingService);
+      if (queryMode == GeoQueryMode.INDEX) {
+        spatialIndex.put(savedService);
+      }
+      eventPublisher.publishEvent(new ServiceChangedEvent(id, savedService));
+      return savedService;
     } else {
       return null;
     }
   }
 
+  /**
+   * Applies a partial update with one conditional UPDATE of the changed columns, instead of
+   * reading the service and writing every column back.
+   *
+   * <p>
+   * The service is read back afterwards only to keep the in-memory indexes, caches and
+   * versions in step; the write itself never depends on a previous read.
+   * </p>
+   *
+   * @param id              the ID of the service to update
+   * @param patch           the fields to change
+   * @param expectedVersion the version the patch is based on
+   * @return the updated {@link ServiceEntity}, with its new version, or {@code null} if the
+   *         service does not exist
+   * @throws OptimisticLockingFailureException if the service is at another version
+   */
+  public ServiceEntity patchService(Long id, ServicePatch patch, long expectedVersion) {
+    availabilityBuffer.flush(id);
+    if (serviceRepository.patch(id, expectedVersion, patch.getColumns()) == 0) {
+      if (!serviceRepository.existsById(id)) {
+        return null;
+      }
+      throw new OptimisticLockingFailureException(
+          "Service " + id + " is no longer at version " + expectedVersion);
+    }
+    Optional<ServiceEntity> patched = serviceRepository.findById(id);
+    if (patched.isEmpty()) {
+      // Deleted right after the update; the delete has updated the indexes already
+      return null;
+    }
+    ServiceEntity savedService = patched.get();
+    if (queryMode == GeoQueryMode.INDEX) {
+      spatialIndex.put(savedService);
+    }
+    eventPublisher.publishEvent(new ServiceChangedEvent(id, savedService));
+    return savedService;
+  }
+
+  /**
+   * Sets the availability of a service without waiting for the database. The change is
+   * applied by the {@link ServiceAvailabilityBuffer}: queries, caches and ETags see it at
+   * once, and it is written in the background together with other changes.
+   *
+   * @param id           the ID of the service
+   * @param availability the new availability
+   * @return the service as it now is, with its new version, or {@code null} if the service
+   *         does not exist
+   */
+  public ServiceEntity setAvailability(Long id, boolean availability) {
+    return availabilityBuffer.setAvailability(id, availability);
+  }
+
   /**
    * Registers a new service entity in the database.
    * This method saves the provided service entity to the database
@@ -128,7 +979,308 @@ public class ServiceService {
    *         populated.
    */
   public ServiceEntity registerService(ServiceEntity serviceEntity) {
-    return serviceRepository.save(serviceEntity);
+    ServiceEntity savedService = serviceRepository.save(serviceEntity);
+    if (queryMode == GeoQueryMode.INDEX) {
+      spatialIndex.put(savedService);
+    }
+    eventPublisher.publishEvent(new ServiceChangedEvent(savedService.getId(), savedService));
+    return savedService;
+  }
+
+  /**
+   * Runs the same radius query around several origins at once.
+   *
+   * <p>
+   * In {@link GeoQueryMode#INDEX} mode every origin is answered by the spatial index and
+   * the union of the matches is loaded with a single primary key lookup. Otherwise one
+   * query per group of overlapping search circles loads the services inside the group's
+   * bounding rectangle, and each origin is checked against those candidates in memory with
+   * a dot product of unit vectors. Services near several origins are returned once.
+   * </p>
+   *
+   * @param origins      the search origins, each with a latitude and longitude
+   * @param radius       the search radius in kilometers (optional)
+   * @param category     the category of services to filter (optional)
+   * @param availability the availability status to filter services (optional)
+   * @return the distinct services, ordered by id, and the matches of each origin in order
+   */
+  public BatchQueryResult queryServicesBatch(List<BatchQueryRequest.Origin> origins,
+      Double radius, String category, Boolean availability) {
+    double effectiveRadius = resolveRadius(radius);
+    List<List<BatchQueryResult.Match>> matches = new ArrayList<>();
+    Map<Long, ServiceEntity> servicesById = new HashMap<>();
+
+    if (queryMode == GeoQueryMode.INDEX) {
+      Set<Long> ids = new HashSet<>();
+      for (BatchQueryRequest.Origin origin : origins) {
+        List<BatchQueryResult.Match> originMatches = new ArrayList<>();
+        for (ServiceSpatialIndex.Hit hit : spatialIndex.withinRadius(origin.getLatitude(),
+            origin.getLongitude(), effectiveRadius, category, availability)) {
+          originMatches.add(new BatchQueryResult.Match(hit.getId(), hit.getDistanceKm()));
+          ids.add(hit.getId());
+        }
+        matches.add(originMatches);
+      }
+      if (!ids.isEmpty()) {
+        for (ServiceEntity service : findAllById(ids)) {
+          servicesById.put(service.getId(), service);
+        }
+      }
+    } else {
+      List<ServiceEntity> candidates = findBatchCandidates(origins, effectiveRadius,
+          category, availability);
+      List<double[]> unitVectors = new ArrayList<>(candidates.size());
+      for (ServiceEntity candidate : candidates) {
+        unitVectors.add(candidate.getLatitude() == null || candidate.getLongitude() == null
+            ? null : GeoUtils.unitVector(candidate.getLatitude(), candidate.getLongitude()));
+      }
+      double minDot = GeoUtils.minDotProduct(effectiveRadius);
+      for (BatchQueryRequest.Origin origin : origins) {
+        double[] center = GeoUtils.unitVector(origin.getLatitude(), origin.getLongitude());
+        List<BatchQueryResult.Match> originMatches = new ArrayList<>();
+        for (int i = 0; i < candidates.size(); i++) {
+          double[] unit = unitVectors.get(i);
+          if (unit != null
+              && unit[0] * center[0] + unit[1] * center[1] + unit[2] * center[2] > minDot) {
+            ServiceEntity service = candidates.get(i);
+            originMatches.add(new BatchQueryResult.Match(service.getId(),
+                GeoUtils.distanceKm(center, unit)));
+            servicesById.put(service.getId(), service);
+          }
+        }
+        matches.add(originMatches);
+      }
+    }
+
+    List<BatchQueryResult.OriginResult> results = new ArrayList<>();
+    for (int i = 0; i < origins.size(); i++) {
+      List<BatchQueryResult.Match> originMatches = matches.get(i);
+      // Services deleted since the index lookup have no row any more
+      originMatches.removeIf(match -> !servicesById.containsKey(match.getId()));
+      originMatches.sort(Comparator.comparingDouble(BatchQueryResult.Match::getDistanceKm)
+          .thenComparing(BatchQueryResult.Match::getId));
+      results.add(new BatchQueryResult.OriginResult(origins.get(i).getLatitude(),
+          origins.get(i).getLongitude(), originMatches));
+    }
+    List<ServiceEntity> services = new ArrayList<>(servicesById.values());
+    services.sort(Comparator.comparing(ServiceEntity::getId));
+    return new BatchQueryResult(services, results);
+  }
+
+  /**
+   * Loads the services inside the bounding boxes of every origin.
+   */
+  private List<ServiceEntity> findBatchCandidates(List<BatchQueryRequest.Origin> origins,
+      double radius, String category, Boolean availability) {
+    List<GeoUtils.BoundingBox> boxes = new ArrayList<>();
+    for (BatchQueryRequest.Origin origin : origins) {
+      boxes.add(GeoUtils.boundingBox(origin.getLatitude(), origin.getLongitude(), radius));
+    }
+    return findWithinBoxes(boxes, category, availability);
+  }
+
+  /**
+   * Loads the services inside the boxes with one range query per rectangle of
+   * {@link BoundingBoxCover}, so distant boxes do not load everything between them.
+   */
+  private List<ServiceEntity> findWithinBoxes(List<GeoUtils.BoundingBox> boxes,
+      String category, Boolean availability) {
+    Map<Long, ServiceEntity> servicesById = new LinkedHashMap<>();
+    for (double[] rectangle : BoundingBoxCover.cover(boxes, maxBoxQueries)) {
+      for (ServiceEntity service : findWithinBounds(rectangle[0], rectangle[1], rectangle[2],
+          rectangle[3], category, availability)) {
+        servicesById.putIfAbsent(service.getId(), service);
+      }
+    }
+    return new ArrayList<>(servicesById.values());
+  }
+
+  /**
+   * Finds the services within {@code width} kilometers of a route, ordered by how far along
+   * the route they are.
+   *
+   * <p>
+   * The corridor around the route is covered by circles along each segment. In
+   * {@link GeoQueryMode#INDEX} mode each circle is looked up in the spatial index; otherwise
+   * one query per group of overlapping circles loads the services in the group's bounding
+   * rectangle, so a long or diagonal route does not load its whole bounding box. The exact
+   * point-to-segment great-circle distance is then computed for those candidates only.
+   * </p>
+   *
+   * @param route        the route points in travel order
+   * @param width        the corridor width in kilometers on either side of the route, or
+   *                     null for {@code geo.route.default-width-km}; capped like a radius
+   * @param category     the category of services to filter (optional)
+   * @param availability the availability status to filter services (optional)
+   * @return the services in the corridor with their distance from and along the route
+   */
+  public List<ServiceAlongRoute> queryServicesAlongRoute(List<RouteQueryRequest.Point> route,
+      Double width, String category, Boolean availability) {
+    List<double[]> points = new ArrayList<>(route.size());
+    for (RouteQueryRequest.Point point : route) {
+      points.add(new double[] {point.getLatitude(), point.getLongitude()});
+    }
+    RouteCorridor corridor = new RouteCorridor(points,
+        width == null ? defaultRouteWidth : Math.min(width, maxRadius));
+
+    List<ServiceEntity> candidates = new ArrayList<>();
+    if (queryMode == GeoQueryMode.INDEX) {
+      Set<Long> ids = new HashSet<>();
+      for (RouteCorridor.Circle circle : corridor.getSearchCircles()) {
+        for (ServiceSpatialIndex.Hit hit : spatialIndex.withinRadius(circle.latitude(),
+            circle.longitude(), circle.radiusKm(), category, availability)) {
+          ids.add(hit.getId());
+        }
+      }
+      if (!ids.isEmpty()) {
+        candidates.addAll(findAllById(ids));
+      }
+    } else {
+      List<GeoUtils.BoundingBox> boxes = new ArrayList<>();
+      for (RouteCorridor.Circle circle : corridor.getSearchCircles()) {
+        boxes.add(GeoUtils.boundingBox(circle.latitude(), circle.longitude(),
+            circle.radiusKm()));
+      }
+      candidates.addAll(findWithinBoxes(boxes, category, availability));
+    }
+
+    List<ServiceAlongRoute> services = new ArrayList<>();
+    for (ServiceEntity service : candidates) {
+      if (service.getLatitude() == null || service.getLongitude() == null) {
+        continue;
+      }
+      RouteCorridor.Position position =
+          corridor.locate(service.getLatitude(), service.getLongitude());
+      if (position != null) {
+        services.add(new ServiceAlongRoute(service, position.distanceKm(),
+            position.alongRouteKm()));
+      }
+    }
+    services.sort(Comparator.comparingDouble(ServiceAlongRoute::getAlongRouteKm)
+        .thenComparingDouble(ServiceAlongRoute::getDistanceKm)
+        .thenComparing(match -> match.getService().getId()));
+    return services;
+  }
+
+  /**
+   * Finds the services inside an area, such as a borough or a catchment area.
+   *
+   * <p>
+   * In {@link GeoQueryMode#INDEX} mode the spatial index visits only the cells under the
+   * area's bounding box; otherwise the database returns the services inside the bounding
+   * box through the {@code (latitude, longitude)} index. The exact point-in-polygon test
+   * then runs on those candidates only.
+   * </p>
+   *
+   * @param area         the compiled area
+   * @param category     the category of services to filter (optional)
+   * @param availability the availability status to filter services (optional)
+   * @return the services inside the area, ordered by id
+   */
+  public List<ServiceEntity> findServicesInArea(GeoPolygon area, String category,
+      Boolean availability) {
+    List<ServiceEntity> services = new ArrayList<>();
+    if (queryMode == GeoQueryMode.INDEX) {
+      List<Long> ids = spatialIndex.withinArea(area, category, availability);
+      if (!ids.isEmpty()) {
+        services.addAll(findAllById(ids));
+      }
+    } else {
+      for (ServiceEntity service : findWithinBounds(area.getMinLat(),
+          area.getMaxLat(), area.getMinLon(), area.getMaxLon(), category, availability)) {
+        if (area.contains(service.getLatitude(), service.getLongitude())) {
+          services.add(service);
+        }
+      }
+    }
+    services.sort(Comparator.comparing(ServiceEntity::getId));
+    return services;
+  }
+
+  /**
+   * Returns the map markers for a viewport at a zoom level: clusters of nearby services with
+   * their counts per category, or single services. The clusters are precomputed for every
+   * zoom level and kept up to date as services change.
+   *
+   * @param minLat the southern edge of the viewport
+   * @param minLon the western edge of the viewport
+   * @param maxLat the northern edge of the viewport
+   * @param maxLon the eastern edge of the viewport
+   * @param zoom   the map zoom level
+   * @return the markers in the viewport
+   */
+  public List<ServiceCluster> findClusters(double minLat, double minLon, double maxLat,
+      double maxLon, int zoom) {
+    return clusterIndex.clusters(minLat, minLon, maxLat, maxLon, zoom);
+  }
+
+  /**
+   * Returns a map tile of the services, from the tile cache or by loading the services
+   * inside it through the {@code (latitude, longitude)} index, or drawn from the marker
+   * clusters when it holds too many services to list.
+   *
+   * @param z            the zoom level
+   * @param x            the tile column
+   * @param y            the tile row, counted from the north
+   * @param category     the category of services to filter (optional)
+   * @param availability the availability status to filter services (optional)
+   * @return the tile with its ETag
+   */
+  public ServiceTileCache.Tile getTile(int z, int x, int y, String category,
+      Boolean availability) {
+    return tileCache.get(z, x, y, category, availability,
+        (minLat, maxLat, minLon, maxLon) -> findWithinBounds(
+            minLat, maxLat, minLon, maxLon, category, availability),
+        (tileZ, tileX, tileY) -> clusterIndex.tileClusters(tileZ, tileX, tileY, category,
+            availability));
+  }
+
+  /**
+   * Returns the hit and miss counters of the query result cache.
+   *
+   * @return a snapshot of the cache counters
+   */
+  public QueryCacheStats getQueryCacheStats() {
+    return queryCache.stats();
+  }
+
+  /**
+   * Writes every service to a stream writer in id order, reading the rows from the database
+   * as they are written so that memory use does not grow with the number of services.
+   *
+   * @param writer the writer to send the services to
+   * @throws IOException if the writer fails
+   */
+  @Transactional(readOnly = true)
+  public void streamAllServices(ServiceStreamWriter writer) throws IOException {
+    try (Stream<ServiceEntity> services = serviceRepository.streamAll()) {
+      writeAndDetach(services, null, service -> true, writer);
+    }
+  }
+
+  /**
+   * Writes the services matching the filters of
+   * {@link #queryServices(Double, Double, Double, String, Boolean)} to a stream writer in
+   * id order, reading the rows from the database as they are written. The radius filter
+   * always runs in MySQL so that no result has to be collected in memory.
+   *
+   * @param latitude     the latitude of the search origin (optional)
+   * @param longitude    the longitude of the search origin (optional)
+   * @param radius       the search radius in kilometers, or null for the default
+   * @param category     the category of services to filter (optional)
+   * @param availability the availability status to filter services (optional)
+   * @param writer       the writer to send the services to
+   * @throws IOException if the writer fails
+   */
+  @Transactional(readOnly = true)
+  public void streamServices(Double latitude, Double longitude, Double radius,
+      String category, Boolean availability, ServiceStreamWriter writer) throws IOException {
+    double effectiveRadius = resolveRadius(radius);
+    try (Stream<ServiceEntity> services = serviceRepository.streamByFilters(
+        latitude, longitude, effectiveRadius, category, availability)) {
+      writeAndDetach(services, availability,
+          radiusFilter(latitude, longitude, effectiveRadius, category), writer);
+    }
   }
 
   /**
@@ -137,7 +1289,167 @@ public class ServiceService {
    * @return a list of all {@link ServiceEntity}
    */
   public List<ServiceEntity> getAllServices() {
-    return serviceRepository.findAll();
+    return withBufferedAvailability(serviceRepository.findAll());
+  }
+
+  /**
+   * Returns one page of all services, in the given sort order.
+   *
+   * <p>
+   * Pagination is keyed on the sorted field and the id: the cursor of a page encodes the
+   * key of its last service and the next page starts strictly after it, so MySQL seeks to
+   * the page through an index instead of skipping the earlier rows, and a page is stable
+   * while services are added or removed elsewhere in the listing.
+   * </p>
+   *
+   * @param sort   the sort order
+   * @param cursor the {@code next} cursor of the previous page, or null for the first
+   * @param limit  the page size (optional), capped at {@code geo.query.max-page-size}
+   * @return the page of services and the cursor of the following page
+   * @throws IllegalArgumentException if the cursor is malformed or from another sort order
+   */
+  public CursorPage<ServiceEntity> getServicesPage(ServiceSort sort, String cursor,
+      Integer limit) {
+    int pageSize = limit == null ? defaultPageSize : Math.max(1, Math.min(limit, maxPageSize));
+    ListKey key = decodeListCursor(sort, cursor);
+
+    // Fetch one extra row to learn whether another page follows
+    PageRequest page = PageRequest.of(0, pageSize + 1);
+    List<ServiceEntity> rows = switch (sort) {
+      case ID -> serviceRepository.findPageById(key.afterId(), page);
+      case NAME -> serviceRepository.findPageByName(key.after(), key.afterId(), page);
+      case CITY -> serviceRepository.findPageByCity(key.after(), key.afterId(), page);
+      case CATEGORY -> serviceRepository.findPageByCategory(key.after(), key.afterId(), page);
+    };
+    List<ServiceEntity> items = new ArrayList<>(rows.subList(0, Math.min(pageSize,
+        rows.size())));
+    String next = null;
+    if (rows.size() > pageSize) {
+      ServiceEntity last = items.get(items.size() - 1);
+      next = PageCursor.encode(sort.name(), sort.keyOf(last), Long.toString(last.getId()));
+    }
+    // None of the sort orders is by availability, so the overlay keeps the order
+    return new CursorPage<>(withBufferedAvailability(items), next);
+  }
+
+  /**
+   * Returns one page of all services like {@link #getServicesPage(ServiceSort, String,
+   * Integer)}, with only the requested fields. Only those columns, plus the id and the
+   * sort key needed for the cursor, are read from the database.
+   *
+   * @param sort   the sort order
+   * @param cursor the {@code next} cursor of the previous page, or null for the first
+   * @param limit  the page size (optional), capped at {@code geo.query.max-page-size}
+   * @param fields the fields to return
+   * @return the page of field values and the cursor of the following page
+   * @throws IllegalArgumentException if the cursor is malformed or from another sort order
+   */
+  public CursorPage<Map<String, Object>> getServicesPage(ServiceSort sort, String cursor,
+      Integer limit, ServiceFields fields) {
+    int pageSize = limit == null ? defaultPageSize : Math.max(1, Math.min(limit, maxPageSize));
+    ListKey key = decodeListCursor(sort, cursor);
+
+    List<Map<String, Object>> rows = serviceRepository.findFieldsPage(sort, key.after(),
+        key.afterId(), pageSize + 1, fields.with("id", sort.getProperty()));
+    List<Map<String, Object>> items = new ArrayList<>(rows.subList(0, Math.min(pageSize,
+        rows.size())));
+    String next = null;
+    if (rows.size() > pageSize) {
+      Map<String, Object> last = items.get(items.size() - 1);
+      Object value = sort == ServiceSort.ID ? null : last.get(sort.getProperty());
+      next = PageCursor.encode(sort.name(), value == null ? "" : value.toString(),
+          last.get("id").toString());
+    }
+    for (Map<String, Object> item : items) {
+      fields.retain(withBufferedAvailability(((Number) item.get("id")).longValue(), item));
+    }
+    return new CursorPage<>(items, next);
+  }
+
+  /**
+   * Queries services like {@link #queryServices(Double, Double, Double, String, Boolean,
+   * String, String, String)}, returning only the requested fields.
+   *
+   * <p>
+   * In {@link GeoQueryMode#INDEX} mode a radius search around coordinates takes the
+   * matching ids and their order from the in-memory spatial index and reads only the
+   * requested columns of those rows, without building entities. Other searches run as
+   * usual and the fields are copied from the resulting services.
+   * </p>
+   *
+   * @param latitude     the latitude to filter services by location (optional)
+   * @param longitude    the longitude to filter services by location (optional)
+   * @param radius       the search radius in kilometers (optional)
+   * @param category     the category of services to filter (optional)
+   * @param availability the availability status to filter services (optional)
+   * @param zipcode      the 5-digit zipcode to search around (optional)
+   * @param city         the city to filter services (optional)
+   * @param state        the state to filter services (optional)
+   * @param fields       the fields to return
+   * @return the field values of the matching services, closest first
+   */
+  public List<Map<String, Object>> queryServices(Double latitude, Double longitude,
+      Double radius, String category, Boolean availability, String zipcode, String city,
+      String state, ServiceFields fields) {
+    return queryServices(latitude, longitude, radius, category, availability, zipcode, city,
+        state, null, fields);
+  }
+
+  /**
+   * Queries services like
+   * {@link #queryServices(Double, Double, Double, String, Boolean, String, String, String,
+   * Instant)}, returning only the requested fields like
+   * {@link #queryServices(Double, Double, Double, String, Boolean, String, String, String,
+   * ServiceFields)}. Closed services are dropped before their rows are read.
+   *
+   * @param latitude     the latitude to filter services by location (optional)
+   * @param longitude    the longitude to filter services by location (optional)
+   * @param radius       the search radius in kilometers (optional)
+   * @param category     the category of services to filter (optional)
+   * @param availability the availability status to filter services (optional)
+   * @param zipcode      the 5-digit zipcode to search around (optional)
+   * @param city         the city to filter services (optional)
+   * @param state        the state to filter services (optional)
+   * @param openAt       the instant the services must be open at (optional)
+   * @param fields       the fields to return
+   * @return the field values of the matching services, closest first
+   */
+  public List<Map<String, Object>> queryServices(Double latitude, Double longitude,
+      Double radius, String category, Boolean availability, String zipcode, String city,
+      String state, Instant openAt, ServiceFields fields) {
+    List<Map<String, Object>> items = new ArrayList<>();
+    if (queryMode != GeoQueryMode.INDEX || latitude == null || longitude == null
+        || zipcode != null || city != null || state != null) {
+      for (ServiceEntity service : queryServices(latitude, longitude, radius, category,
+          availability, zipcode, city, state, openAt)) {
+        items.add(fields.project(service));
+      }
+      return items;
+    }
+
+    List<ServiceSpatialIndex.Hit> hits = new ArrayList<>(spatialIndex.withinRadius(
+        latitude, longitude, resolveRadius(radius), category, availability));
+    if (openAt != null) {
+      hits = hoursIndex.retainOpen(hits, ServiceSpatialIndex.Hit::getId, openAt);
+    }
+    hits.sort(Comparator.comparingDouble(ServiceSpatialIndex.Hit::getDistanceKm)
+        .thenComparingLong(ServiceSpatialIndex.Hit::getId));
+    List<Long> ids = new ArrayList<>();
+    for (ServiceSpatialIndex.Hit hit : hits) {
+      ids.add(hit.getId());
+    }
+    Map<Object, Map<String, Object>> rowsById = new HashMap<>();
+    for (Map<String, Object> row : serviceRepository.findFieldsByIds(ids,
+        fields.with("id"))) {
+      rowsById.put(row.get("id"), row);
+    }
+    for (Long id : ids) {
+      Map<String, Object> row = rowsById.get(id);
+      if (row != null) {
+        items.add(fields.retain(withBufferedAvailability(id, row)));
+      }
+    }
+    return items;
   }
 
   /**
@@ -148,7 +1460,76 @@ public class ServiceService {
    *         found
    */
   public Optional<ServiceEntity> getServiceById(Long id) {
-    return serviceRepository.findById(id);
+    ServiceEntity buffered = availabilityBuffer.get(id);
+    return buffered != null ? Optional.of(buffered) : serviceRepository.findById(id);
+  }
+
+  /**
+   * Retrieves the requested fields of a service, reading only those columns.
+   *
+   * @param id     the id of the service to retrieve
+   * @param fields the fields to return
+   * @return an Optional containing the field values if found, or empty if not found
+   */
+  public Optional<Map<String, Object>> getServiceById(Long id, ServiceFields fields) {
+    ServiceEntity buffered = availabilityBuffer.get(id);
+    if (buffered != null) {
+      return Optional.of(fields.project(buffered));
+    }
+    List<Map<String, Object>> rows = serviceRepository.findFieldsByIds(List.of(id), fields);
+    return rows.isEmpty() ? Optional.empty() : Optional.of(rows.get(0));
+  }
+
+  /**
+   * Returns the strong ETag of a service, or of some of its fields, from its buffered
+   * availability change or else from the version column of its row alone.
+   *
+   * @param id     the id of the service
+   * @param fields the fields being returned, or null for all of them
+   * @return the quoted ETag, or null if the service does not exist
+   */
+  public String getServiceEtag(Long id, ServiceFields fields) {
+    ServiceEntity buffered = availabilityBuffer.get(id);
+    String etag = buffered != null
+        ? serviceVersions.bufferedEtag(id, buffered.getVersion())
+        : serviceRepository.findVersionById(id)
+            .map(version -> ServiceVersions.serviceEtag(id, version)).orElse(null);
+    if (etag == null || fields == null) {
+      return etag;
+    }
+    return etag.substring(0, etag.length() - 1) + "-"
+        + ServiceVersions.digest(String.join(",", fields.getNames())) + "\"";
+  }
+
+  /**
+   * Returns the strong ETag of a list of services, which changes whenever any service does.
+   *
+   * @param query identifies the list, e.g. the path and its canonical query parameters
+   * @return the quoted ETag
+   */
+  public String getDatasetEtag(String query) {
+    return serviceVersions.datasetEtag(query);
+  }
+
+  private ListKey decodeListCursor(ServiceSort sort, String cursor) {
+    if (cursor == null) {
+      return new ListKey("", 0L);
+    }
+    String[] key = PageCursor.decode(cursor, 3);
+    if (!sort.name().equals(key[0])) {
+      throw new IllegalArgumentException("Cursor belongs to another sort order");
+    }
+    try {
+      return new ListKey(key[1], Long.parseLong(key[2]));
+    } catch (NumberFormatException e) {
+      throw new IllegalArgumentException("Invalid cursor", e);
+    }
+  }
+
+  /**
+   * The sort key and id of the last service of a listing page.
+   */
+  private record ListKey(String after, long afterId) {
   }
 
 }
@@ -0,0 +1,471 @@
+package com.ase.bytealchemists.service;
+
+import com.ase.bytealchemists.model.ServiceEntity;
+import com.ase.bytealchemists.model.ServiceLocation;
+import com.ase.bytealchemists.util.GeoUtils;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * In-memory grid index over service coordinates.
+ *
+ * <p>
+ * The globe is divided into square latitude/longitude cells of
+ * {@code geo.index.cell-size-deg} degrees. A radius query only visits the cells
+ * overlapping the bounding box of the search circle and runs the exact great-circle
+ * check on the services stored there, instead of evaluating every row of the
+ * {@code service} table. Only id, coordinates, category and availability are kept,
+ * so matching rows are then loaded by primary key. Each entry also keeps its unit
+ * vector, so the check is a dot product against a threshold computed once per query.
+ * </p>
+ *
+ * @author Byte Alchemists
+ * @version 1.0
+ */
+@Component
+public class ServiceSpatialIndex {
+
+  private static final Comparator<Hit> HIT_ORDER =
+      Comparator.comparingDouble(Hit::getDistanceKm).thenComparingLong(Hit::getId);
+
+  private final double cellSizeDeg;
+  private final int latCells;
+  private final int lonCells;
+  private final ReadWriteLock lock = new ReentrantReadWriteLock();
+  private Map<Long, List<Entry>> cells = new HashMap<>();
+  private Map<Long, Entry> entries = new HashMap<>();
+
+  /**
+   * Creates an empty index.
+   *
+   * @param cellSizeDeg the edge length of a grid cell in degrees
+   */
+  public ServiceSpatialIndex(@Value("${geo.index.cell-size-deg:0.05}") double cellSizeDeg) {
+    if (cellSizeDeg <= 0.0 || cellSizeDeg > 90.0) {
+      throw new IllegalArgumentException("Cell size must be in (0, 90] degrees");
+    }
+    this.cellSizeDeg = cellSizeDeg;
+    this.latCells = (int) Math.ceil(180.0 / cellSizeDeg);
+    this.lonCells = (int) Math.ceil(360.0 / cellSizeDeg);
+  }
+
+  /**
+   * Replaces the whole content of the index.
+   *
+   * @param locations the services to index
+   */
+  public void rebuild(Collection<? extends ServiceLocation> locations) {
+    Map<Long, List<Entry>> newCells = new HashMap<>();
+    Map<Long, Entry> newEntries = new HashMap<>();
+    for (ServiceLocation location : locations) {
+      if (location.getId() == null || location.getLatitude() == null
+          || location.getLongitude() == null) {
+        continue;
+      }
+      Entry entry = new Entry(location.getId(), location.getLatitude(),
+          location.getLongitude(), location.getCategory(), location.getAvailability());
+      newEntries.put(entry.id, entry);
+      newCells.computeIfAbsent(cellKey(entry.latitude, entry.longitude),
+          key -> new ArrayList<>()).add(entry);
+    }
+
+    lock.writeLock().lock();
+    try {
+      cells = newCells;
+      entries = newEntries;
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Inserts or refreshes a single service.
+   * Services without coordinates are removed, since they can never match a radius query.
+   *
+   * @param service the service as persisted
+   */
+  public void put(ServiceEntity service) {
+    if (service == null || service.getId() == null) {
+      return;
+    }
+    if (service.getLatitude() == null || service.getLongitude() == null) {
+      remove(service.getId());
+      return;
+    }
+    Entry entry = new Entry(service.getId(), service.getLatitude(), service.getLongitude(),
+        service.getCategory(), service.getAvailability());
+
+    lock.writeLock().lock();
+    try {
+      removeLocked(entry.id);
+      entries.put(entry.id, entry);
+      cells.computeIfAbsent(cellKey(entry.latitude, entry.longitude),
+          key -> new ArrayList<>()).add(entry);
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Removes a service from the index. Unknown ids are ignored.
+   *
+   * @param id the id of the service to remove
+   */
+  public void remove(Long id) {
+    if (id == null) {
+      return;
+    }
+    lock.writeLock().lock();
+    try {
+      removeLocked(id);
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Returns the number of indexed services.
+   *
+   * @return the number of services with coordinates currently indexed
+   */
+  public int size() {
+    lock.readLock().lock();
+    try {
+      return entries.size();
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Finds the services strictly closer than {@code radiusKm} to the given point.
+   *
+   * @param latitude     latitude of the origin in degrees
+   * @param longitude    longitude of the origin in degrees
+   * @param radiusKm     search radius in kilometers
+   * @param category     the category to filter by, or null for any
+   * @param availability the availability to filter by, or null for any
+   * @return the matching services with their distance, in no particular order
+   */
+  public List<Hit> withinRadius(double latitude, double longitude, double radiusKm,
+      String category, Boolean availability) {
+    GeoUtils.BoundingBox box = GeoUtils.boundingBox(latitude, longitude, radiusKm);
+    int rowStart = rowOf(box.getMinLat());
+    int rowEnd = rowOf(box.getMaxLat());
+    int colStart = 0;
+    int cols = lonCells;
+    if (!box.isFullLongitude()) {
+      // One extra column on each side absorbs rounding at the antimeridian seam
+      colStart = (int) Math.floor((box.getMinLon() + 180.0) / cellSizeDeg) - 1;
+      int colEnd = (int) Math.floor((box.getMaxLon() + 180.0) / cellSizeDeg) + 1;
+      cols = Math.min(colEnd - colStart + 1, lonCells);
+    }
+
+    double[] origin = GeoUtils.unitVector(latitude, longitude);
+    double minDot = GeoUtils.minDotProduct(radiusKm);
+    List<Hit> hits = new ArrayList<>();
+    lock.readLock().lock();
+    try {
+      long cellsToVisit = (long) (rowEnd - rowStart + 1) * cols;
+      if (cellsToVisit > cells.size()) {
+        // Large radius over a sparse grid: cheaper to walk the populated cells
+        for (List<Entry> cell : cells.values()) {
+          collect(cell, origin, minDot, category, availability, hits);
+        }
+        return hits;
+      }
+      for (int row = rowStart; row <= rowEnd; row++) {
+        for (int i = 0; i < cols; i++) {
+          int col = Math.floorMod(colStart + i, lonCells);
+          List<Entry> cell = cells.get((long) row * lonCells + col);
+          if (cell != null) {
+            collect(cell, origin, minDot, category, availability, hits);
+          }
+        }
+      }
+      return hits;
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Finds the services inside an area. Only the cells overlapping the bounding box of the
+   * area are visited, and the point-in-polygon test only runs on entries inside the box.
+   *
+   * @param area         the compiled area
+   * @param category     the category to filter by, or null for any
+   * @param availability the availability to filter by, or null for any
+   * @return the ids of the matching services, in no particular order
+   */
+  public List<Long> withinArea(GeoPolygon area, String category, Boolean availability) {
+    int rowStart = rowOf(area.getMinLat());
+    int rowEnd = rowOf(area.getMaxLat());
+    int colStart = colOf(area.getMinLon());
+    int colEnd = Math.min((int) Math.floor((area.getMaxLon() + 180.0) / cellSizeDeg),
+        lonCells - 1);
+
+    List<Long> ids = new ArrayList<>();
+    lock.readLock().lock();
+    try {
+      long cellsToVisit = (long) (rowEnd - rowStart + 1) * (colEnd - colStart + 1);
+      if (cellsToVisit > cells.size()) {
+        for (List<Entry> cell : cells.values()) {
+          collectInArea(cell, area, category, availability, ids);
+        }
+        return ids;
+      }
+      for (int row = rowStart; row <= rowEnd; row++) {
+        for (int col = colStart; col <= colEnd; col++) {
+          List<Entry> cell = cells.get((long) row * lonCells + col);
+          if (cell != null) {
+            collectInArea(cell, area, category, availability, ids);
+          }
+        }
+      }
+      return ids;
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Returns one page of a radius query ordered by distance and then id.
+   * Only hits strictly after the {@code (afterDistance, afterId)} key are considered and
+   * at most {@code limit} of them are kept while scanning, so earlier pages are skipped
+   * without being sorted or materialised again.
+   *
+   * @param latitude      latitude of the origin in degrees
+   * @param longitude     longitude of the origin in degrees
+   * @param radiusKm      search radius in kilometers
+   * @param category      the category to filter by, or null for any
+   * @param availability  the availability to filter by, or null for any
+   * @param afterDistance distance of the last hit of the previous page, negative for none
+   * @param afterId       id of the last hit of the previous page
+   * @param limit         the maximum number of hits to return
+   * @return up to {@code limit} hits after the given key, closest first
+   */
+  public List<Hit> withinRadiusAfter(double latitude, double longitude, double radiusKm,
+      String category, Boolean availability, double afterDistance, long afterId, int limit) {
+    if (limit <= 0) {
+      return new ArrayList<>();
+    }
+    Hit after = new Hit(afterId, afterDistance);
+    PriorityQueue<Hit> best = new PriorityQueue<>(limit, HIT_ORDER.reversed());
+    for (Hit hit : withinRadius(latitude, longitude, radiusKm, category, availability)) {
+      if (HIT_ORDER.compare(hit, after) > 0) {
+        offer(best, hit, limit);
+      }
+    }
+    List<Hit> page = new ArrayList<>(best);
+    page.sort(HIT_ORDER);
+    return page;
+  }
+
+  /**
+   * Finds the {@code k} services closest to the given point.
+   *
+   * <p>
+   * Cells are visited in rings of growing size around the cell containing the origin,
+   * keeping the best {@code k} candidates in a bounded heap. The search stops as soon
+   * as nothing outside the rings visited so far can be closer than the current
+   * {@code k}-th candidate, so only the neighbourhood needed to collect {@code k}
+   * results is examined.
+   * </p>
+   *
+   * @param latitude     latitude of the origin in degrees
+   * @param longitude    longitude of the origin in degrees
+   * @param k            the maximum number of services to return
+   * @param category     the category to filter by, or null for any
+   * @param availability the availability to filter by, or null for any
+   * @return up to {@code k} services ordered by distance, then id
+   */
+  public List<Hit> nearest(double latitude, double longitude, int k, String category,
+      Boolean availability) {
+    if (k <= 0) {
+      return new ArrayList<>();
+    }
+    PriorityQueue<Hit> best = new PriorityQueue<>(k, HIT_ORDER.reversed());
+    double[] origin = GeoUtils.unitVector(latitude, longitude);
+    int originRow = rowOf(latitude);
+    int originCol = colOf(longitude);
+
+    lock.readLock().lock();
+    try {
+      for (int ring = 0; ; ring++) {
+        if (ring > 0 && best.size() == k
+            && minDistanceOutside(ring - 1, latitude) >= best.peek().getDistanceKm()) {
+          break;
+        }
+        long ringCells = ring == 0 ? 1 : 8L * ring;
+        if (ringCells > cells.size() || 2 * ring + 1 > lonCells || ring > latCells) {
+          // Rings have become larger than the populated grid: finish with one pass over it
+          best.clear();
+          for (List<Entry> cell : cells.values()) {
+            offerAll(cell, origin, k, category, availability, best);
+          }
+          break;
+        }
+        for (int row = originRow - ring; row <= originRow + ring; row++) {
+          if (row < 0 || row >= latCells) {
+            continue;
+          }
+          boolean edgeRow = row == originRow - ring || row == originRow + ring;
+          int step = edgeRow ? 1 : 2 * ring;
+          for (int col = originCol - ring; col <= originCol + ring; col += step) {
+            List<Entry> cell = cells.get((long) row * lonCells + Math.floorMod(col, lonCells));
+            if (cell != null) {
+              offerAll(cell, origin, k, category, availability, best);
+            }
+          }
+        }
+      }
+    } finally {
+      lock.readLock().unlock();
+    }
+
+    List<Hit> result = new ArrayList<>(best);
+    result.sort(HIT_ORDER);
+    return result;
+  }
+
+  /**
+   * Lower bound on the distance from the origin to any point whose cell lies more
+   * than {@code ring} cells away from the origin cell in either direction.
+   */
+  private double minDistanceOutside(int ring, double latitude) {
+    double span = Math.toRadians(ring * cellSizeDeg);
+    double latBound = GeoUtils.EARTH_RADIUS_KM * span;
+    // Distance from the origin to the meridian span radians away, i.e. the cross-track
+    // distance to that great circle; every point past it is at least this far
+    double lonBound = GeoUtils.EARTH_RADIUS_KM * Math.asin(
+        Math.cos(Math.toRadians(latitude)) * Math.sin(Math.min(span, Math.PI / 2)));
+    return Math.min(latBound, lonBound);
+  }
+
+  private void offerAll(List<Entry> cell, double[] origin, int k,
+      String category, Boolean availability, PriorityQueue<Hit> best) {
+    for (Entry entry : cell) {
+      if (!entry.matches(category, availability)) {
+        continue;
+      }
+      offer(best, new Hit(entry.id, GeoUtils.distanceKm(origin, entry.unitVector)), k);
+    }
+  }
+
+  /**
+   * Adds a hit to a max-heap holding the best {@code k} hits seen so far.
+   */
+  private static void offer(PriorityQueue<Hit> best, Hit hit, int k) {
+    if (best.size() < k) {
+      best.add(hit);
+    } else if (HIT_ORDER.compare(hit, best.peek()) < 0) {
+      best.poll();
+      best.add(hit);
+    }
+  }
+
+  private void collect(List<Entry> cell, double[] origin, double minDot,
+      String category, Boolean availability, List<Hit> hits) {
+    for (Entry entry : cell) {
+      double[] unit = entry.unitVector;
+      if (unit[0] * origin[0] + unit[1] * origin[1] + unit[2] * origin[2] > minDot
+          && entry.matches(category, availability)) {
+        hits.add(new Hit(entry.id, GeoUtils.distanceKm(origin, unit)));
+      }
+    }
+  }
+
+  private void collectInArea(List<Entry> cell, GeoPolygon area, String category,
+      Boolean availability, List<Long> ids) {
+    for (Entry entry : cell) {
+      if (area.contains(entry.latitude, entry.longitude)
+          && entry.matches(category, availability)) {
+        ids.add(entry.id);
+      }
+    }
+  }
+
+  private void removeLocked(Long id) {
+    Entry previous = entries.remove(id);
+    if (previous == null) {
+      return;
+    }
+    long key = cellKey(previous.latitude, previous.longitude);
+    List<Entry> cell = cells.get(key);
+    if (cell != null) {
+      cell.removeIf(entry -> entry.id == previous.id);
+      if (cell.isEmpty()) {
+        cells.remove(key);
+      }
+    }
+  }
+
+  private long cellKey(double latitude, double longitude) {
+    return (long) rowOf(latitude) * lonCells + colOf(longitude);
+  }
+
+  private int rowOf(double latitude) {
+    int row = (int) Math.floor((latitude + 90.0) / cellSizeDeg);
+    return Math.min(Math.max(row, 0), latCells - 1);
+  }
+
+  private int colOf(double longitude) {
+    return Math.floorMod((int) Math.floor((longitude + 180.0) / cellSizeDeg), lonCells);
+  }
+
+  /**
+   * A service matched by a radius query together with its distance from the origin.
+   */
+  public static final class Hit {
+    private final long id;
+    private final double distanceKm;
+
+    public Hit(long id, double distanceKm) {
+      this.id = id;
+      this.distanceKm = distanceKm;
+    }
+
+    public long getId() {
+      return id;
+    }
+
+    public double getDistanceKm() {
+      return distanceKm;
+    }
+  }
+
+  private static final class Entry {
+    private final long id;
+    private final double latitude;
+    private final double longitude;
+    private final double[] unitVector;
+    private final String category;
+    private final Boolean availability;
+
+    private Entry(long id, double latitude, double longitude, String category,
+        Boolean availability) {
+      this.id = id;
+      this.latitude = latitude;
+      this.longitude = longitude;
+      this.unitVector = GeoUtils.unitVector(latitude, longitude);
+      this.category = category;
+      this.availability = availability;
+    }
+
+    private boolean matches(String category, Boolean availability) {
+      // MySQL compares categories with a case-insensitive collation, mirror that here
+      return (category == null || category.equalsIgnoreCase(this.category))
+          && (availability == null || availability.equals(this.availability));
+    }
+  }
+}
@@ -0,0 +1,128 @@
+package com.ase.bytealchemists.service;
+
+import com.ase.bytealchemists.model.ServiceEntity;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Writes services to an output stream one at a time, as NDJSON or as a GeoJSON
+ * FeatureCollection, so that a listing never has to be held in memory as a whole.
+ *
+ * <p>
+ * The output is flushed after the first service and then every {@value #FLUSH_INTERVAL}
+ * services, so clients start receiving data right away. {@link #close()} completes the
+ * document but leaves the underlying stream open.
+ * </p>
+ *
+ * @author Byte Alchemists
+ * @version 1.0
+ */
+public final class ServiceStreamWriter implements Closeable {
+
+  private static final int FLUSH_INTERVAL = 256;
+
+  private final ObjectMapper objectMapper;
+  private final ObjectWriter serviceWriter;
+  private final StreamFormat format;
+  private final JsonGenerator generator;
+  private long count;
+
+  /**
+   * Starts a document on the given stream.
+   *
+   * @param out          the stream to write to
+   * @param format       the output format
+   * @param objectMapper the mapper used to serialize each service
+   * @throws IOException if the stream cannot be written
+   */
+  public ServiceStreamWriter(OutputStream out, StreamFormat format, ObjectMapper objectMapper)
+      throws IOException {
+    this.objectMapper = objectMapper;
+    // Flushing is done here in batches rather than after every service
+    this.serviceWriter = objectMapper.writerFor(ServiceEntity.class)
+        .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+    this.format = format;
+    this.generator = objectMapper.getFactory().createGenerator(out)
+        .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+    // Lines are terminated explicitly instead of separating root values with a space
+    generator.setRootValueSeparator(null);
+    if (format == StreamFormat.GEOJSON) {
+      generator.writeStartObject();
+      generator.writeStringField("type", "FeatureCollection");
+      generator.writeArrayFieldStart("features");
+    }
+  }
+
+  /**
+   * Writes one service.
+   *
+   * @param service the service
+   * @throws IOException if the stream cannot be written
+   */
+  public void write(ServiceEntity service) throws IOException {
+    if (format == StreamFormat.NDJSON) {
+      serviceWriter.writeValue(generator, service);
+      generator.writeRaw('\n');
+    } else {
+      writeFeature(service);
+    }
+    if (++count % FLUSH_INTERVAL == 1) {
+      generator.flush();
+    }
+  }
+
+  /**
+   * Returns the number of services written so far.
+   *
+   * @return the number of services
+   */
+  public long getCount() {
+    return count;
+  }
+
+  /**
+   * Completes the document and flushes it.
+   *
+   * @throws IOException if the stream cannot be written
+   */
+  @Override
+  public void close() throws IOException {
+    if (format == StreamFormat.GEOJSON) {
+      generator.writeEndArray();
+      generator.writeEndObject();
+    }
+    generator.close();
+  }
+
+  private void writeFeature(ServiceEntity service) throws IOException {
+    ObjectNode properties = objectMapper.valueToTree(service);
+    properties.remove("id");
+    properties.remove("latitude");
+    properties.remove("longitude");
+
+    generator.writeStartObject();
+    generator.writeStringField("type", "Feature");
+    generator.writeObjectField("id", service.getId());
+    generator.writeFieldName("geometry");
+    if (service.getLatitude() == null || service.getLongitude() == null) {
+      generator.writeNull();
+    } else {
+      generator.writeStartObject();
+      generator.writeStringField("type", "Point");
+      generator.writeArrayFieldStart("coordinates");
+      generator.writeNumber(service.getLongitude());
+      generator.writeNumber(service.getLatitude());
+      generator.writeEndArray();
+      generator.writeEndObject();
+    }
+    generator.writeFieldName("properties");
+    objectMapper.writeTree(generator, properties);
+    generator.writeEndObject();
+  }
+}
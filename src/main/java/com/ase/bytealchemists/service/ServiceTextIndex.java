@@ -0,0 +1,505 @@
+package com.ase.bytealchemists.service;
+
+import com.ase.bytealchemists.model.ServiceEntity;
+import com.ase.bytealchemists.model.ServiceText;
+import com.ase.bytealchemists.util.GeoUtils;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * In-memory inverted index over the name, address, city and category of every service,
+ * ranking text searches with BM25.
+ *
+ * <p>
+ * Text is split into lowercase words of letters and digits, and a plural {@code s} is
+ * dropped, so "Shelters" finds "shelter". Each service is one document in which words of
+ * the name count twice. Every word maps to a posting list of the documents containing
+ * it and how often; a query adds up the BM25 weight of its words over their posting lists
+ * only, so its cost depends on how common the words are rather than on the number of
+ * services. Services matching more of the words rank higher.
+ * </p>
+ *
+ * <p>
+ * Documents are numbered densely and the number of a deleted service is reused, so
+ * scores are accumulated in a plain array. Creating, updating or deleting a service only
+ * touches the posting lists of its own words, and each document knows where it sits in
+ * them, so dropping it from a list takes constant time however common the word is.
+ * </p>
+ *
+ * <p>
+ * A query word that no service contains is taken as a typo: it is replaced with the
+ * indexed words within one or two edits of it, found through a {@link FuzzyWordIndex},
+ * whose matches count for less the further they are from what was typed. So "shleter in
+ * brnox" still finds the Bronx shelters.
+ * </p>
+ *
+ * @author Byte Alchemists
+ * @version 1.0
+ */
+@Component
+public class ServiceTextIndex {
+
+  private static final double K1 = 1.2;
+  private static final double B = 0.75;
+  private static final int NAME_WEIGHT = 2;
+  // How many indexed words one misspelled query word may stand for, closest first
+  private static final int MAX_CORRECTIONS = 5;
+
+  private final ReadWriteLock lock = new ReentrantReadWriteLock();
+  // Score accumulators are reused across searches to avoid allocating one per document;
+  // only as many are kept as searches can run at once, not one per request thread
+  private final BlockingQueue<Scratch> scratches =
+      new ArrayBlockingQueue<>(Runtime.getRuntime().availableProcessors());
+  private Index index = new Index();
+
+  /**
+   * Replaces the whole content of the index.
+   *
+   * @param services the services to index
+   */
+  public void rebuild(Collection<? extends ServiceText> services) {
+    Index newIndex = new Index();
+    for (ServiceText service : services) {
+      if (service.getId() != null) {
+        newIndex.put(service.getId(), new Document(service.getName(), service.getAddress(),
+            service.getCity(), service.getCategory(), service.getLatitude(),
+            service.getLongitude(), service.getAvailability()));
+      }
+    }
+
+    lock.writeLock().lock();
+    try {
+      index = newIndex;
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Re-indexes a created or updated service, or drops a deleted one.
+   *
+   * @param event the change
+   */
+  @EventListener
+  public void onServiceChanged(ServiceChangedEvent event) {
+    ServiceEntity service = event.getService();
+    Document document = service == null ? null : new Document(service.getName(),
+        service.getAddress(), service.getCity(), service.getCategory(), service.getLatitude(),
+        service.getLongitude(), service.getAvailability());
+
+    lock.writeLock().lock();
+    try {
+      index.remove(event.getServiceId());
+      if (document != null) {
+        index.put(event.getServiceId(), document);
+      }
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Returns the number of indexed services.
+   *
+   * @return the number of services
+   */
+  public int size() {
+    lock.readLock().lock();
+    try {
+      return index.ordinals.size();
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Finds the services best matching a text query, best first.
+   *
+   * @param query        the words to search for; misspelled ones are corrected
+   * @param category     the category of services to keep (optional)
+   * @param availability the availability of services to keep (optional)
+   * @param latitude     the latitude of the search origin (optional)
+   * @param longitude    the longitude of the search origin (optional)
+   * @param radiusKm     the radius around the origin in kilometers; ignored without one
+   * @param limit        the maximum number of services to return
+   * @return the matching services with their BM25 scores, highest first and then by id
+   */
+  public List<Hit> search(String query, String category, Boolean availability,
+      Double latitude, Double longitude, double radiusKm, int limit) {
+    Set<String> words = new LinkedHashSet<>(tokenize(query));
+    if (words.isEmpty() || limit < 1) {
+      return new ArrayList<>();
+    }
+    double[] origin = latitude == null || longitude == null ? null
+        : GeoUtils.unitVector(latitude, longitude);
+    double minDot = GeoUtils.minDotProduct(radiusKm);
+
+    lock.readLock().lock();
+    try {
+      Index current = index;
+      int count = current.ordinals.size();
+      if (count == 0) {
+        return new ArrayList<>();
+      }
+      double averageLength = (double) current.totalLength / count;
+      List<Term> terms = terms(current, words);
+      long candidates = 0;
+      for (Term term : terms) {
+        candidates += term.postings.size;
+      }
+      Scratch scratch = scratches.poll();
+      if (scratch == null) {
+        scratch = new Scratch();
+      }
+      float[] scores = scratch.scores(current.next);
+      int[] touched = scratch.touched((int) Math.min(candidates, count));
+      int touchedCount = 0;
+      for (Term term : terms) {
+        Postings postings = term.postings;
+        double idf = term.weight
+            * Math.log(1 + (count - postings.size + 0.5) / (postings.size + 0.5));
+        for (int i = 0; i < postings.size; i++) {
+          int doc = postings.docs[i];
+          int tf = postings.freqs[i];
+          double norm = K1 * (1 - B + B * current.lengths[doc] / averageLength);
+          if (scores[doc] == 0) {
+            touched[touchedCount++] = doc;
+          }
+          scores[doc] += (float) (idf * tf * (K1 + 1) / (tf + norm));
+        }
+      }
+
+      // Keep the best matches in a min-heap, so the worst kept match is dropped first
+      Comparator<Hit> ranking = Comparator.comparingDouble(Hit::getScore)
+          .thenComparing(Comparator.comparingLong(Hit::getId).reversed());
+      PriorityQueue<Hit> best = new PriorityQueue<>(limit + 1, ranking);
+      for (int i = 0; i < touchedCount; i++) {
+        int doc = touched[i];
+        float score = scores[doc];
+        // Clear as we go, so the scratch array is all zeros for the next search
+        scores[doc] = 0;
+        if (best.size() == limit && score < best.peek().getScore()) {
+          continue;
+        }
+        if (!current.documents[doc].matches(category, availability, origin, minDot)) {
+          continue;
+        }
+        best.add(new Hit(current.ids[doc], score));
+        if (best.size() > limit) {
+          best.poll();
+        }
+      }
+      // Only handed back once every score it holds is cleared
+      scratches.offer(scratch);
+      List<Hit> hits = new ArrayList<>(best);
+      hits.sort(ranking.reversed());
+      return hits;
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Looks up the posting lists of the query words, replacing each word that is not indexed
+   * with the closest indexed words, weighted down by their distance.
+   */
+  private static List<Term> terms(Index current, Set<String> words) {
+    List<Term> terms = new ArrayList<>();
+    for (String word : words) {
+      Postings postings = current.postings.get(word);
+      if (postings != null) {
+        terms.add(new Term(postings, 1));
+        continue;
+      }
+      List<FuzzyWordIndex.Match> matches = current.vocabulary.lookup(word);
+      // Among equally close words, prefer the ones more services contain
+      matches.sort(Comparator.comparingInt(FuzzyWordIndex.Match::getDistance)
+          .thenComparing(match -> -current.postings.get(match.getWord()).size));
+      for (FuzzyWordIndex.Match match : matches.subList(0,
+          Math.min(MAX_CORRECTIONS, matches.size()))) {
+        terms.add(new Term(current.postings.get(match.getWord()),
+            1.0 / (1 + match.getDistance())));
+      }
+    }
+    return terms;
+  }
+
+  /**
+   * Splits text into the words the index is keyed by: lowercase runs of letters and
+   * digits, without a trailing plural {@code s}.
+   *
+   * @param text the text, may be null
+   * @return the words in order, with repeats
+   */
+  static List<String> tokenize(String text) {
+    List<String> words = new ArrayList<>();
+    if (text == null) {
+      return words;
+    }
+    String lower = text.toLowerCase(Locale.ROOT);
+    int start = -1;
+    for (int i = 0; i <= lower.length(); i++) {
+      boolean wordChar = i < lower.length() && Character.isLetterOrDigit(lower.charAt(i));
+      if (wordChar && start < 0) {
+        start = i;
+      } else if (!wordChar && start >= 0) {
+        words.add(stem(lower.substring(start, i)));
+        start = -1;
+      }
+    }
+    return words;
+  }
+
+  private static String stem(String word) {
+    if (word.length() > 3 && word.endsWith("s") && !word.endsWith("ss")) {
+      return word.substring(0, word.length() - 1);
+    }
+    return word;
+  }
+
+  /**
+   * A service matched by a text search together with its BM25 score.
+   */
+  public static final class Hit {
+    private final long id;
+    private final double score;
+
+    public Hit(long id, double score) {
+      this.id = id;
+      this.score = score;
+    }
+
+    public long getId() {
+      return id;
+    }
+
+    public double getScore() {
+      return score;
+    }
+  }
+
+  /**
+   * The posting list of one searched word and how much its matches count.
+   */
+  private record Term(Postings postings, double weight) {
+  }
+
+  /**
+   * Score accumulators of one search, kept all zeros between searches. Arrays much larger
+   * than needed, e.g. after the index shrank, are replaced rather than kept.
+   */
+  private static final class Scratch {
+    private float[] scores = new float[0];
+    private int[] touched = new int[0];
+
+    private float[] scores(int documents) {
+      if (scores.length < documents || scores.length > 2 * documents + 1024) {
+        scores = new float[documents];
+      }
+      return scores;
+    }
+
+    private int[] touched(int candidates) {
+      if (touched.length < candidates || touched.length > 2 * candidates + 1024) {
+        touched = new int[candidates];
+      }
+      return touched;
+    }
+  }
+
+  /**
+   * The indexed words of one service and the fields its matches are filtered on.
+   */
+  private static final class Document {
+    // Parallel arrays rather than a map, to keep a million documents small
+    private final String[] words;
+    private final short[] frequencies;
+    // Where the document sits in the posting list of each of its words
+    private final int[] slots;
+    private final int length;
+    private final String category;
+    private final Boolean availability;
+    private final double[] unitVector;
+
+    private Document(String name, String address, String city, String category,
+        Double latitude, Double longitude, Boolean availability) {
+      Map<String, Integer> counts = new LinkedHashMap<>();
+      for (String word : tokenize(name)) {
+        counts.merge(word, NAME_WEIGHT, Integer::sum);
+      }
+      for (String text : new String[] {address, city, category}) {
+        for (String word : tokenize(text)) {
+          counts.merge(word, 1, Integer::sum);
+        }
+      }
+      this.words = new String[counts.size()];
+      this.frequencies = new short[counts.size()];
+      this.slots = new int[counts.size()];
+      int i = 0;
+      int total = 0;
+      for (Map.Entry<String, Integer> count : counts.entrySet()) {
+        words[i] = count.getKey();
+        frequencies[i] = (short) Math.min(count.getValue(), Short.MAX_VALUE);
+        total += count.getValue();
+        i++;
+      }
+      this.length = total;
+      this.category = category;
+      this.availability = availability;
+      this.unitVector = latitude == null || longitude == null ? null
+          : GeoUtils.unitVector(latitude, longitude);
+    }
+
+    // Words are shared between documents, so they compare by identity
+    private int indexOf(String word) {
+      for (int i = 0; i < words.length; i++) {
+        if (words[i] == word) {
+          return i;
+        }
+      }
+      throw new IllegalStateException("Word " + word + " is not in the document");
+    }
+
+    private boolean matches(String category, Boolean availability, double[] origin,
+        double minDot) {
+      // MySQL compares categories with a case-insensitive collation, mirror that here
+      if (category != null && !category.equalsIgnoreCase(this.category)) {
+        return false;
+      }
+      if (availability != null && !availability.equals(this.availability)) {
+        return false;
+      }
+      if (origin == null) {
+        return true;
+      }
+      return unitVector != null && unitVector[0] * origin[0] + unitVector[1] * origin[1]
+          + unitVector[2] * origin[2] > minDot;
+    }
+  }
+
+  /**
+   * The documents containing one word, in no particular order, with how often they
+   * contain it.
+   */
+  private static final class Postings {
+    private final String word;
+    private int[] docs = new int[4];
+    private short[] freqs = new short[4];
+    private int size;
+
+    private Postings(String word) {
+      this.word = word;
+    }
+
+    private int add(int doc, short frequency) {
+      if (size == docs.length) {
+        docs = Arrays.copyOf(docs, size * 2);
+        freqs = Arrays.copyOf(freqs, size * 2);
+      }
+      docs[size] = doc;
+      freqs[size] = frequency;
+      return size++;
+    }
+
+    /**
+     * Removes the entry at a slot by moving the last entry into it.
+     *
+     * @return the document of the moved entry, or -1 if the slot was the last one
+     */
+    private int remove(int slot) {
+      size--;
+      if (slot == size) {
+        return -1;
+      }
+      docs[slot] = docs[size];
+      freqs[slot] = freqs[size];
+      return docs[slot];
+    }
+  }
+
+  /**
+   * The posting lists and per-document arrays, indexed by document number.
+   */
+  private static final class Index {
+    private final Map<String, Postings> postings = new HashMap<>();
+    private final FuzzyWordIndex vocabulary = new FuzzyWordIndex();
+    private final Map<Long, Integer> ordinals = new HashMap<>();
+    private final ArrayDeque<Integer> free = new ArrayDeque<>();
+    private long[] ids = new long[16];
+    private int[] lengths = new int[16];
+    private Document[] documents = new Document[16];
+    private int next;
+    private long totalLength;
+
+    private void put(long id, Document document) {
+      int doc;
+      if (!free.isEmpty()) {
+        doc = free.pop();
+      } else {
+        if (next == ids.length) {
+          ids = Arrays.copyOf(ids, next * 2);
+          lengths = Arrays.copyOf(lengths, next * 2);
+          documents = Arrays.copyOf(documents, next * 2);
+        }
+        doc = next++;
+      }
+      ordinals.put(id, doc);
+      ids[doc] = id;
+      lengths[doc] = document.length;
+      documents[doc] = document;
+      totalLength += document.length;
+      for (int i = 0; i < document.words.length; i++) {
+        Postings list = postings.get(document.words[i]);
+        if (list == null) {
+          list = new Postings(document.words[i]);
+          postings.put(list.word, list);
+          vocabulary.add(list.word);
+        }
+        document.slots[i] = list.add(doc, document.frequencies[i]);
+        // Share one copy of each word between all the documents containing it
+        document.words[i] = list.word;
+      }
+    }
+
+    private void remove(Long id) {
+      Integer doc = ordinals.remove(id);
+      if (doc == null) {
+        return;
+      }
+      Document document = documents[doc];
+      for (int i = 0; i < document.words.length; i++) {
+        String word = document.words[i];
+        Postings list = postings.get(word);
+        int slot = document.slots[i];
+        int moved = list.remove(slot);
+        if (moved >= 0) {
+          documents[moved].slots[documents[moved].indexOf(word)] = slot;
+        }
+        if (list.size == 0) {
+          postings.remove(word);
+          vocabulary.remove(word);
+        }
+      }
+      totalLength -= document.length;
+      documents[doc] = null;
+      free.push(doc);
+    }
+  }
+}
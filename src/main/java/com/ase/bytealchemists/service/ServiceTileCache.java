@@ -0,0 +1,423 @@
+package com.ase.bytealchemists.service;
+
+import com.ase.bytealchemists.model.ServiceCluster;
+import com.ase.bytealchemists.model.ServiceEntity;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.stream.Stream;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Two-level cache of rendered service tiles, see {@link ServiceTiles}.
+ *
+ * <p>
+ * The most recently used {@code geo.tiles.memory-entries} tiles are kept in memory and up to
+ * {@code geo.tiles.disk-entries} tiles are written to {@code geo.tiles.disk-dir}, both
+ * evicting the least recently used. Every tile carries a strong ETag, the SHA-256 of its
+ * content, so that an unchanged tile is revalidated without being sent again.
+ * </p>
+ *
+ * <p>
+ * When a service changes only the tiles it can affect are dropped: those that listed it
+ * before the change and those that cover its new position with matching filters. The disk
+ * directory is cleared at startup, since the services may have changed while the
+ * application was down.
+ * </p>
+ *
+ * <p>
+ * A tile holding more than {@code geo.tiles.max-features} matching services is drawn from
+ * the cells of the {@link ServiceClusterIndex} instead, as one aggregate per cell, without
+ * loading a single service. Such overview tiles are cheap to draw and would be dropped by
+ * almost every change, so they are drawn on every request rather than cached.
+ * </p>
+ *
+ * <p>
+ * Only the maps are guarded by the lock of the cache: tiles are rendered, read, written and
+ * deleted outside it, and concurrent misses of one tile share a single render.
+ * </p>
+ *
+ * @author Byte Alchemists
+ * @version 1.0
+ */
+@Component
+public class ServiceTileCache {
+
+  /**
+   * Loads the services inside a latitude/longitude rectangle for the filters of the tile.
+   */
+  @FunctionalInterface
+  public interface Loader {
+    List<ServiceEntity> load(double minLat, double maxLat, double minLon, double maxLon);
+  }
+
+  /**
+   * Returns the clusters of the services inside a tile for the filters of the tile, or null
+   * when the zoom level of the tile is not clustered.
+   */
+  @FunctionalInterface
+  public interface Clusterer {
+    List<ServiceCluster> clusters(int z, int x, int y);
+  }
+
+  private final int memoryEntries;
+  private final int diskEntries;
+  private final int maxFeatures;
+  private final Path directory;
+  private final Map<Key, Tile> memory;
+  private final Map<Key, DiskTile> disk;
+  private final Map<Key, CompletableFuture<Tile>> loading = new HashMap<>();
+  // Files of tiles dropped from the disk map, deleted once the lock is released
+  private final List<Path> evicted = new ArrayList<>();
+  // Bumped on every change so that a tile rendered across a write is not cached
+  private long generation;
+
+  /**
+   * Creates an empty cache.
+   *
+   * @param memoryEntries the maximum number of tiles kept in memory, 0 for none
+   * @param diskEntries   the maximum number of tiles kept on disk, 0 for none
+   * @param maxFeatures   the most services listed in a tile before it is drawn as clusters
+   * @param directory     the directory for the tiles kept on disk
+   */
+  public ServiceTileCache(@Value("${geo.tiles.memory-entries:1000}") int memoryEntries,
+      @Value("${geo.tiles.disk-entries:20000}") int diskEntries,
+      @Value("${geo.tiles.max-features:2000}") int maxFeatures,
+      @Value("${geo.tiles.disk-dir:${java.io.tmpdir}/service-tiles}") String directory) {
+    this.memoryEntries = Math.max(0, memoryEntries);
+    this.diskEntries = Math.max(0, diskEntries);
+    this.maxFeatures = Math.max(0, maxFeatures);
+    this.directory = Paths.get(directory);
+    this.memory = new LinkedHashMap<>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<Key, Tile> eldest) {
+        return size() > ServiceTileCache.this.memoryEntries;
+      }
+    };
+    this.disk = new LinkedHashMap<>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<Key, DiskTile> eldest) {
+        if (size() > ServiceTileCache.this.diskEntries) {
+          evicted.add(eldest.getValue().path);
+          return true;
+        }
+        return false;
+      }
+    };
+    if (this.diskEntries > 0) {
+      clearDirectory();
+    }
+  }
+
+  /**
+   * Returns a tile from memory, from disk, or by rendering it on a miss. A tile with more
+   * than {@code geo.tiles.max-features} matching services is drawn from its clusters.
+   *
+   * @param z            the zoom level
+   * @param x            the tile column
+   * @param y            the tile row
+   * @param category     the category to filter by, or null for any
+   * @param availability the availability to filter by, or null for any
+   * @param loader       loads the services inside the tile with the same filters
+   * @param clusterer    returns the clusters inside the tile with the same filters
+   * @return the tile
+   */
+  public Tile get(int z, int x, int y, String category, Boolean availability,
+      Loader loader, Clusterer clusterer) {
+    Key key = new Key(z, x, y,
+        category == null ? null : category.toLowerCase(Locale.ROOT), availability);
+    Tile tile;
+    synchronized (this) {
+      tile = memory.get(key);
+    }
+    if (tile != null) {
+      return tile;
+    }
+    List<ServiceCluster> clusters = clusterer.clusters(z, x, y);
+    if (clusters != null && count(clusters) > maxFeatures) {
+      byte[] content = ServiceTiles.encodeClusters(z, x, y, clusters);
+      return new Tile(content, etag(content), Set.of());
+    }
+
+    DiskTile diskTile;
+    long loadGeneration;
+    CompletableFuture<Tile> pending;
+    CompletableFuture<Tile> future = null;
+    synchronized (this) {
+      tile = memory.get(key);
+      diskTile = tile == null ? disk.get(key) : null;
+      loadGeneration = generation;
+      pending = tile == null ? loading.get(key) : null;
+      if (tile == null && pending == null) {
+        future = new CompletableFuture<>();
+        loading.put(key, future);
+      }
+    }
+    if (tile != null) {
+      return tile;
+    }
+    if (pending != null) {
+      return join(pending);
+    }
+
+    try {
+      boolean rendered = false;
+      if (diskTile != null) {
+        tile = read(diskTile);
+      }
+      if (tile == null) {
+        tile = render(z, x, y, loader);
+        rendered = true;
+      }
+      Path path = rendered && diskEntries > 0 ? write(key, tile, loadGeneration) : null;
+      List<Path> garbage;
+      synchronized (this) {
+        if (loading.get(key) == future) {
+          loading.remove(key);
+        }
+        if (generation == loadGeneration) {
+          memory.put(key, tile);
+          if (path != null) {
+            disk.put(key, new DiskTile(tile.getEtag(), tile.ids, path));
+          }
+        } else if (path != null) {
+          evicted.add(path);
+        }
+        garbage = drainEvicted();
+      }
+      garbage.forEach(ServiceTileCache::deleteQuietly);
+      future.complete(tile);
+      return tile;
+    } catch (RuntimeException | Error e) {
+      synchronized (this) {
+        if (loading.get(key) == future) {
+          loading.remove(key);
+        }
+      }
+      future.completeExceptionally(e);
+      throw e;
+    }
+  }
+
+  /**
+   * Drops the cached tiles that a created, updated or deleted service can affect.
+   *
+   * @param event the change
+   */
+  @EventListener
+  public void onServiceChanged(ServiceChangedEvent event) {
+    ServiceEntity service = event.getService();
+    List<Path> garbage;
+    synchronized (this) {
+      generation++;
+      // Renders already running may predate the change; later misses start their own
+      loading.clear();
+      Iterator<Map.Entry<Key, Tile>> tiles = memory.entrySet().iterator();
+      while (tiles.hasNext()) {
+        Map.Entry<Key, Tile> cached = tiles.next();
+        if (affects(cached.getKey(), cached.getValue().ids, event.getServiceId(), service)) {
+          tiles.remove();
+        }
+      }
+      Iterator<Map.Entry<Key, DiskTile>> diskTiles = disk.entrySet().iterator();
+      while (diskTiles.hasNext()) {
+        Map.Entry<Key, DiskTile> cached = diskTiles.next();
+        if (affects(cached.getKey(), cached.getValue().ids, event.getServiceId(), service)) {
+          evicted.add(cached.getValue().path);
+          diskTiles.remove();
+        }
+      }
+      garbage = drainEvicted();
+    }
+    garbage.forEach(ServiceTileCache::deleteQuietly);
+  }
+
+  /**
+   * Returns the number of tiles in memory.
+   *
+   * @return the number of tiles in memory
+   */
+  public synchronized int memorySize() {
+    return memory.size();
+  }
+
+  /**
+   * Returns the number of tiles on disk.
+   *
+   * @return the number of tiles on disk
+   */
+  public synchronized int diskSize() {
+    return disk.size();
+  }
+
+  private static boolean affects(Key key, Set<Long> ids, Long serviceId,
+      ServiceEntity service) {
+    if (ids.contains(serviceId)) {
+      return true;
+    }
+    if (service == null || service.getLatitude() == null || service.getLongitude() == null
+        || !key.matches(service)) {
+      return false;
+    }
+    int[] tile = ServiceTiles.tileOf(service.getLatitude(), service.getLongitude(), key.z);
+    return tile[0] == key.x && tile[1] == key.y;
+  }
+
+  private static Tile render(int z, int x, int y, Loader loader) {
+    double[] bounds = ServiceTiles.bounds(z, x, y);
+    List<ServiceEntity> services = new ArrayList<>();
+    Set<Long> ids = new HashSet<>();
+    for (ServiceEntity service : loader.load(bounds[0], bounds[1], bounds[2], bounds[3])) {
+      if (service.getLatitude() == null || service.getLongitude() == null) {
+        continue;
+      }
+      int[] tile = ServiceTiles.tileOf(service.getLatitude(), service.getLongitude(), z);
+      if (tile[0] == x && tile[1] == y) {
+        services.add(service);
+        ids.add(service.getId());
+      }
+    }
+    services.sort(Comparator.comparing(ServiceEntity::getId));
+    byte[] content = ServiceTiles.encode(z, x, y, services);
+    return new Tile(content, etag(content), ids);
+  }
+
+  private static long count(List<ServiceCluster> clusters) {
+    long count = 0;
+    for (ServiceCluster cluster : clusters) {
+      count += cluster.getCount();
+    }
+    return count;
+  }
+
+  private static String etag(byte[] content) {
+    try {
+      byte[] digest = MessageDigest.getInstance("SHA-256").digest(content);
+      return HexFormat.of().formatHex(digest, 0, 16);
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("SHA-256 is not available", e);
+    }
+  }
+
+  private List<Path> drainEvicted() {
+    List<Path> paths = new ArrayList<>(evicted);
+    evicted.clear();
+    return paths;
+  }
+
+  private static Tile join(CompletableFuture<Tile> pending) {
+    try {
+      return pending.join();
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof RuntimeException cause) {
+        throw cause;
+      }
+      throw e;
+    }
+  }
+
+  // Each render gets a file of its own, so a stale one never deletes a newer one's file
+  private Path write(Key key, Tile tile, long loadGeneration) {
+    String category = key.category == null ? "all"
+        : HexFormat.of().formatHex(key.category.getBytes(StandardCharsets.UTF_8));
+    String availability = key.availability == null ? "all" : key.availability.toString();
+    Path path = directory.resolve(key.z + "/" + key.x + "/" + key.y + "-" + category + "-"
+        + availability + "-" + loadGeneration + ".json");
+    try {
+      Files.createDirectories(path.getParent());
+      Files.write(path, tile.getContent());
+      return path;
+    } catch (IOException e) {
+      // The tile is still served from memory
+      return null;
+    }
+  }
+
+  private static Tile read(DiskTile diskTile) {
+    try {
+      return new Tile(Files.readAllBytes(diskTile.path), diskTile.etag, diskTile.ids);
+    } catch (IOException e) {
+      return null;
+    }
+  }
+
+  private void clearDirectory() {
+    if (!Files.isDirectory(directory)) {
+      return;
+    }
+    try (Stream<Path> paths = Files.walk(directory)) {
+      paths.sorted(Comparator.reverseOrder())
+          .filter(path -> !path.equals(directory))
+          .forEach(ServiceTileCache::deleteQuietly);
+    } catch (IOException e) {
+      throw new UncheckedIOException("Cannot clear the tile directory " + directory, e);
+    }
+  }
+
+  private static void deleteQuietly(Path path) {
+    try {
+      Files.deleteIfExists(path);
+    } catch (IOException e) {
+      // Left behind; it is cleared at the next startup
+    }
+  }
+
+  /**
+   * A rendered tile with its strong ETag.
+   */
+  public static final class Tile {
+    private final byte[] content;
+    private final String etag;
+    private final Set<Long> ids;
+
+    Tile(byte[] content, String etag, Set<Long> ids) {
+      this.content = content;
+      this.etag = etag;
+      this.ids = ids;
+    }
+
+    public byte[] getContent() {
+      return content;
+    }
+
+    /**
+     * Returns the strong ETag of the tile, without quotes.
+     *
+     * @return the ETag
+     */
+    public String getEtag() {
+      return etag;
+    }
+  }
+
+  private record DiskTile(String etag, Set<Long> ids, Path path) {
+  }
+
+  private record Key(int z, int x, int y, String category, Boolean availability) {
+
+    private boolean matches(ServiceEntity service) {
+      return (category == null || category.equalsIgnoreCase(service.getCategory()))
+          && (availability == null || availability.equals(service.getAvailability()));
+    }
+  }
+}
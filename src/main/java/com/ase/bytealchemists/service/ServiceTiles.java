@@ -0,0 +1,222 @@
+package com.ase.bytealchemists.service;
+
+import com.ase.bytealchemists.model.ServiceCluster;
+import com.ase.bytealchemists.model.ServiceEntity;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Web Mercator tile arithmetic and the compact JSON encoding of service tiles.
+ *
+ * <p>
+ * A tile lists the services whose position falls inside it as rows of
+ * {@code [id, x, y, category, availability, name]}, where {@code x} and {@code y} are integer
+ * positions within the tile on a {@value #EXTENT} by {@value #EXTENT} grid, like the
+ * coordinates of a Mapbox Vector Tile. Tiles are half-open, so a service on a tile edge
+ * belongs to exactly one tile.
+ * </p>
+ *
+ * <p>
+ * A tile too dense to list its services is {@code "clustered"} and lists rows of
+ * {@code [x, y, count, categories]} instead, one per cluster of nearby services, where
+ * {@code categories} maps each category to its number of services.
+ * </p>
+ *
+ * @author Byte Alchemists
+ * @version 1.0
+ */
+public final class ServiceTiles {
+
+  /**
+   * The highest supported zoom level.
+   */
+  public static final int MAX_ZOOM = 22;
+
+  /**
+   * The number of integer positions along the edge of a tile.
+   */
+  public static final int EXTENT = 4096;
+
+  private static final double MAX_MERCATOR_LAT = 85.05112878;
+  private static final JsonFactory JSON = new JsonFactory();
+
+  private ServiceTiles() {
+  }
+
+  /**
+   * Returns the latitude/longitude rectangle covered by a tile.
+   *
+   * @param z the zoom level
+   * @param x the tile column
+   * @param y the tile row, counted from the north
+   * @return {@code {minLat, maxLat, minLon, maxLon}}
+   */
+  public static double[] bounds(int z, int x, int y) {
+    double size = 1L << z;
+    // The outermost rows also hold the services beyond the latitude limit of the projection
+    return new double[] {y + 1 == size ? -90.0 : latitude((y + 1) / size),
+        y == 0 ? 90.0 : latitude(y / size),
+        x / size * 360.0 - 180.0, (x + 1) / size * 360.0 - 180.0};
+  }
+
+  /**
+   * Returns the tile containing a point at a zoom level.
+   *
+   * @param latitude  latitude in degrees
+   * @param longitude longitude in degrees
+   * @param z         the zoom level
+   * @return {@code {x, y}}
+   */
+  public static int[] tileOf(double latitude, double longitude, int z) {
+    long size = 1L << z;
+    return new int[] {(int) position(mercatorX(longitude), size),
+        (int) position(mercatorY(latitude), size)};
+  }
+
+  /**
+   * Encodes the services that fall inside a tile. Services outside the tile or without
+   * coordinates are skipped.
+   *
+   * @param z        the zoom level
+   * @param x        the tile column
+   * @param y        the tile row
+   * @param services the candidate services, e.g. those inside {@link #bounds(int, int, int)}
+   * @return the UTF-8 JSON tile
+   */
+  public static byte[] encode(int z, int x, int y, List<ServiceEntity> services) {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    try (JsonGenerator generator = JSON.createGenerator(out)) {
+      generator.writeStartObject();
+      generator.writeNumberField("z", z);
+      generator.writeNumberField("x", x);
+      generator.writeNumberField("y", y);
+      generator.writeNumberField("extent", EXTENT);
+      generator.writeArrayFieldStart("fields");
+      for (String field : new String[] {"id", "x", "y", "category", "availability", "name"}) {
+        generator.writeString(field);
+      }
+      generator.writeEndArray();
+      generator.writeArrayFieldStart("features");
+      long size = 1L << z;
+      for (ServiceEntity service : services) {
+        if (service.getLatitude() == null || service.getLongitude() == null) {
+          continue;
+        }
+        double tileX = position(mercatorX(service.getLongitude()), size) - x;
+        double tileY = position(mercatorY(service.getLatitude()), size) - y;
+        if (tileX < 0.0 || tileX >= 1.0 || tileY < 0.0 || tileY >= 1.0) {
+          continue;
+        }
+        generator.writeStartArray();
+        generator.writeNumber(service.getId());
+        generator.writeNumber((int) (tileX * EXTENT));
+        generator.writeNumber((int) (tileY * EXTENT));
+        generator.writeString(service.getCategory());
+        if (service.getAvailability() == null) {
+          generator.writeNull();
+        } else {
+          generator.writeBoolean(service.getAvailability());
+        }
+        generator.writeString(service.getName());
+        generator.writeEndArray();
+      }
+      generator.writeEndArray();
+      generator.writeEndObject();
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    return out.toByteArray();
+  }
+
+  /**
+   * Encodes the clusters inside a tile, ordered by position.
+   *
+   * @param z        the zoom level
+   * @param x        the tile column
+   * @param y        the tile row
+   * @param clusters the clusters, e.g. from {@link ServiceClusterIndex#tileClusters}
+   * @return the UTF-8 JSON tile
+   */
+  public static byte[] encodeClusters(int z, int x, int y, List<ServiceCluster> clusters) {
+    long size = 1L << z;
+    List<int[]> rows = new ArrayList<>(clusters.size());
+    for (int i = 0; i < clusters.size(); i++) {
+      ServiceCluster cluster = clusters.get(i);
+      double tileX = position(mercatorX(cluster.getLongitude()), size) - x;
+      double tileY = position(mercatorY(cluster.getLatitude()), size) - y;
+      rows.add(new int[] {clamp(tileX), clamp(tileY), i});
+    }
+    rows.sort(Comparator.<int[]>comparingInt(row -> row[1]).thenComparingInt(row -> row[0])
+        .thenComparingInt(row -> -clusters.get(row[2]).getCount()));
+
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    try (JsonGenerator generator = JSON.createGenerator(out)) {
+      generator.writeStartObject();
+      generator.writeNumberField("z", z);
+      generator.writeNumberField("x", x);
+      generator.writeNumberField("y", y);
+      generator.writeNumberField("extent", EXTENT);
+      generator.writeBooleanField("clustered", true);
+      generator.writeArrayFieldStart("fields");
+      for (String field : new String[] {"x", "y", "count", "categories"}) {
+        generator.writeString(field);
+      }
+      generator.writeEndArray();
+      generator.writeArrayFieldStart("features");
+      for (int[] row : rows) {
+        ServiceCluster cluster = clusters.get(row[2]);
+        generator.writeStartArray();
+        generator.writeNumber(row[0]);
+        generator.writeNumber(row[1]);
+        generator.writeNumber(cluster.getCount());
+        generator.writeStartObject();
+        for (Map.Entry<String, Integer> category : new TreeMap<>(cluster.getCategories())
+            .entrySet()) {
+          generator.writeNumberField(category.getKey(), category.getValue());
+        }
+        generator.writeEndObject();
+        generator.writeEndArray();
+      }
+      generator.writeEndArray();
+      generator.writeEndObject();
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    return out.toByteArray();
+  }
+
+  // The grid position of a point inside the tile
+  private static int clamp(double tilePosition) {
+    return (int) Math.min(Math.max(tilePosition * EXTENT, 0), EXTENT - 1);
+  }
+
+  /**
+   * Scales a projected coordinate to tiles, keeping the east and south edges of the world
+   * inside the last tile.
+   */
+  private static double position(double projected, long size) {
+    return Math.min(Math.max(projected * size, 0.0), Math.nextDown((double) size));
+  }
+
+  private static double mercatorX(double longitude) {
+    return (longitude + 180.0) / 360.0;
+  }
+
+  private static double mercatorY(double latitude) {
+    double clamped = Math.max(-MAX_MERCATOR_LAT, Math.min(MAX_MERCATOR_LAT, latitude));
+    double sin = Math.sin(Math.toRadians(clamped));
+    return 0.5 - Math.log((1 + sin) / (1 - sin)) / (4 * Math.PI);
+  }
+
+  private static double latitude(double y) {
+    return Math.toDegrees(Math.atan(Math.sinh(Math.PI * (1 - 2 * y))));
+  }
+}
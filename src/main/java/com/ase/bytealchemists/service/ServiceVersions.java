@@ -0,0 +1,117 @@
+package com.ase.bytealchemists.service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.concurrent.atomic.AtomicLong;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Strong ETags of the services and of lists of services, used to answer conditional
+ * requests.
+ *
+ * <p>
+ * The ETag of a single service is {@code "<id>-<version>"}, where the version is the
+ * optimistic lock column of its row, so it is checked with a primary key lookup of that
+ * column alone and holds across restarts and between instances. A service with an
+ * availability change buffered by this instance, see {@link ServiceAvailabilityBuffer},
+ * is tagged {@code "<id>-<version>-<epoch>"} instead, with the startup time of this
+ * instance: its version is not stored yet, and the row may reach the same version number
+ * with other content through another instance.
+ * </p>
+ *
+ * <p>
+ * Lists are tagged with a dataset version: a counter bumped on every change published by
+ * this instance, prefixed with its startup time so that a tag handed out before a restart
+ * or by another instance never matches. Changes made through other instances or outside
+ * the application do not move it, so list ETags assume a single instance writes the
+ * services.
+ * </p>
+ *
+ * @author Byte Alchemists
+ * @version 1.0
+ */
+@Component
+public class ServiceVersions {
+
+  private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+  private final AtomicLong datasetVersion = new AtomicLong();
+
+  /**
+   * Moves the dataset version forward after a service was created, updated or deleted.
+   *
+   * @param event the change
+   */
+  @EventListener
+  public void onServiceChanged(ServiceChangedEvent event) {
+    datasetVersion.incrementAndGet();
+  }
+
+  /**
+   * Returns the strong ETag of a service as stored.
+   *
+   * @param id      the service id
+   * @param version the version stored in its row
+   * @return the quoted ETag
+   */
+  public static String serviceEtag(Long id, long version) {
+    return "\"" + id + "-" + version + "\"";
+  }
+
+  /**
+   * Returns the strong ETag of a service with a change buffered by this instance.
+   *
+   * @param id      the service id
+   * @param version the version of the buffered service
+   * @return the quoted ETag
+   */
+  public String bufferedEtag(Long id, long version) {
+    return "\"" + id + "-" + version + "-" + epoch + "\"";
+  }
+
+  /**
+   * Returns the strong ETag of a list of services.
+   *
+   * @param query identifies the list, e.g. the path and its canonical query parameters
+   * @return the quoted ETag
+   */
+  public String datasetEtag(String query) {
+    return "\"" + epoch + "." + datasetVersion.get() + "-" + digest(query) + "\"";
+  }
+
+  /**
+   * Reads the version out of an ETag made by {@link #serviceEtag(Long, long)} or
+   * {@link #bufferedEtag(Long, long)}, possibly with a suffix for a sparse fieldset.
+   *
+   * @param id   the service the ETag must belong to
+   * @param etag the quoted ETag, as sent in {@code If-Match}
+   * @return the version, or null if the ETag is weak, malformed or for another service
+   */
+  public static Long parseServiceEtag(Long id, String etag) {
+    String value = etag.trim();
+    if (value.length() < 2 || value.charAt(0) != '"' || value.charAt(value.length() - 1) != '"') {
+      return null;
+    }
+    String[] parts = value.substring(1, value.length() - 1).split("-");
+    if (parts.length < 2 || !parts[0].equals(String.valueOf(id))) {
+      return null;
+    }
+    try {
+      return Long.valueOf(parts[1]);
+    } catch (NumberFormatException e) {
+      return null;
+    }
+  }
+
+  static String digest(String value) {
+    try {
+      byte[] digest = MessageDigest.getInstance("SHA-256")
+          .digest(value.getBytes(StandardCharsets.UTF_8));
+      return HexFormat.of().formatHex(digest, 0, 8);
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("SHA-256 is not available", e);
+    }
+  }
+}
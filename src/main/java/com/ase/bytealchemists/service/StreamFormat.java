@@ -0,0 +1,46 @@
+package com.ase.bytealchemists.service;
+
+import java.util.Locale;
+
+/**
+ * Output formats of the streaming service listings.
+ *
+ * @author Byte Alchemists
+ * @version 1.0
+ */
+public enum StreamFormat {
+  /**
+   * One JSON service object per line.
+   */
+  NDJSON("application/x-ndjson"),
+
+  /**
+   * A GeoJSON FeatureCollection with one Point feature per service.
+   */
+  GEOJSON("application/geo+json");
+
+  private final String mediaType;
+
+  StreamFormat(String mediaType) {
+    this.mediaType = mediaType;
+  }
+
+  public String getMediaType() {
+    return mediaType;
+  }
+
+  /**
+   * Looks up a format by its request parameter value, ignoring case.
+   *
+   * @param value the parameter value, such as {@code ndjson} or {@code geojson}
+   * @return the format, or null if there is no such format
+   */
+  public static StreamFormat fromParameter(String value) {
+    for (StreamFormat format : values()) {
+      if (format.name().equals(value.toUpperCase(Locale.ROOT))) {
+        return format;
+      }
+    }
+    return null;
+  }
+}
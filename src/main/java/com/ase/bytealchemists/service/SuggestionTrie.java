@@ -0,0 +1,537 @@
+package com.ase.bytealchemists.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Radix trie of weighted suggestions that answers "the best completions of a prefix"
+ * without visiting every completion.
+ *
+ * <p>
+ * Keys are the lowercase suggestion texts, and chains of nodes with a single child are
+ * merged into one edge, so the trie has at most two nodes per suggestion. A node whose
+ * subtree holds more than {@code topSize} suggestions caches its best {@code topSize} of
+ * them; smaller subtrees are simply walked. A lookup therefore follows the prefix and
+ * reads one cached list, and a change only recomputes the lists on the path of its key.
+ * </p>
+ *
+ * <p>
+ * Not thread-safe; callers synchronize.
+ * </p>
+ *
+ * @author Byte Alchemists
+ * @version 1.0
+ */
+final class SuggestionTrie {
+
+  /**
+   * Best first: highest weight, then alphabetical.
+   */
+  static final Comparator<Entry> RANKING = Comparator.comparingLong((Entry entry) -> -entry.weight)
+      .thenComparing(entry -> entry.text, String.CASE_INSENSITIVE_ORDER);
+
+  private static final Node[] NO_CHILDREN = new Node[0];
+  private static final char[] NO_LABEL = new char[0];
+
+  // Rough object sizes with compressed references, for memory reports
+  private static final int OBJECT_HEADER = 12;
+  private static final int ARRAY_HEADER = 16;
+  private static final int REFERENCE = 4;
+
+  private final int topSize;
+  private final Node root = new Node(NO_LABEL);
+
+  /**
+   * Creates an empty trie.
+   *
+   * @param topSize how many completions a lookup can return at most
+   */
+  SuggestionTrie(int topSize) {
+    if (topSize < 1) {
+      throw new IllegalArgumentException("Top size must be at least 1");
+    }
+    this.topSize = topSize;
+  }
+
+  /**
+   * A suggestion and its weight.
+   */
+  static final class Entry {
+    private final String text;
+    private long weight;
+
+    private Entry(String text, long weight) {
+      this.text = text;
+      this.weight = weight;
+    }
+
+    String getText() {
+      return text;
+    }
+
+    long getWeight() {
+      return weight;
+    }
+  }
+
+  private static final class Node {
+    private char[] label;
+    private Node[] children = NO_CHILDREN;
+    private Entry entry;
+    // The best topSize entries of the subtree, or null when it has at most topSize
+    private Entry[] top;
+    private int size;
+
+    private Node(char[] label) {
+      this.label = label;
+    }
+  }
+
+  /**
+   * Normalizes a text to the key it is stored and looked up by.
+   *
+   * @param text the text
+   * @return the lowercase text
+   */
+  static String key(String text) {
+    return text.toLowerCase(Locale.ROOT);
+  }
+
+  /**
+   * Returns the stored suggestion for a text, compared ignoring case.
+   *
+   * @param text the text
+   * @return the suggestion, or null if the trie has none for the text
+   */
+  Entry get(String text) {
+    Node node = find(key(text), true);
+    return node == null ? null : node.entry;
+  }
+
+  /**
+   * Builds a trie from many suggestions at once, computing each cached list once instead of
+   * after every insertion.
+   *
+   * @param topSize how many completions a lookup can return at most
+   * @param weights the weight of each suggestion
+   * @return the trie
+   */
+  static SuggestionTrie build(int topSize, Map<String, Long> weights) {
+    SuggestionTrie trie = new SuggestionTrie(topSize);
+    for (Map.Entry<String, Long> weight : weights.entrySet()) {
+      trie.insert(weight.getKey(), weight.getValue());
+    }
+    trie.finish(trie.root);
+    return trie;
+  }
+
+  /**
+   * Stores a suggestion with a weight, or changes the weight of the stored one. A
+   * suggestion keeps the casing it was first stored with.
+   *
+   * @param text   the suggestion
+   * @param weight its weight; higher ranks first
+   * @return the stored suggestion
+   */
+  Entry put(String text, long weight) {
+    List<Node> path = insert(text, weight);
+    Entry entry = path.get(path.size() - 1).entry;
+    update(path, entry);
+    return entry;
+  }
+
+  /**
+   * Stores a suggestion without updating the cached lists.
+   *
+   * @return the nodes from the root to the node of the suggestion
+   */
+  private List<Node> insert(String text, long weight) {
+    String key = key(text);
+    List<Node> path = new ArrayList<>();
+    Node node = root;
+    int i = 0;
+    path.add(node);
+    while (i < key.length()) {
+      int index = childIndex(node, key.charAt(i));
+      if (index < 0) {
+        Node leaf = new Node(key.substring(i).toCharArray());
+        insertChild(node, -index - 1, leaf);
+        node = leaf;
+        path.add(node);
+        break;
+      }
+      Node child = node.children[index];
+      int common = 0;
+      while (common < child.label.length && i + common < key.length()
+          && child.label[common] == key.charAt(i + common)) {
+        common++;
+      }
+      if (common < child.label.length) {
+        // The key leaves the edge part way: split it, the upper half covers the same subtree
+        Node upper = new Node(Arrays.copyOf(child.label, common));
+        child.label = Arrays.copyOfRange(child.label, common, child.label.length);
+        upper.children = new Node[] {child};
+        upper.size = child.size;
+        upper.top = child.top;
+        node.children[index] = upper;
+        child = upper;
+      }
+      node = child;
+      i += common;
+      path.add(node);
+    }
+    if (node.entry == null) {
+      node.entry = new Entry(text, weight);
+    } else {
+      node.entry.weight = weight;
+    }
+    return path;
+  }
+
+  /**
+   * Removes the suggestion for a text, compared ignoring case.
+   *
+   * @param text the text
+   * @return true if a suggestion was removed
+   */
+  boolean remove(String text) {
+    String key = key(text);
+    List<Node> path = new ArrayList<>();
+    Node node = root;
+    int i = 0;
+    path.add(node);
+    while (i < key.length()) {
+      int index = childIndex(node, key.charAt(i));
+      if (index < 0) {
+        return false;
+      }
+      node = node.children[index];
+      if (!startsWith(key, i, node.label)) {
+        return false;
+      }
+      i += node.label.length;
+      path.add(node);
+    }
+    if (node.entry == null) {
+      return false;
+    }
+    Entry removed = node.entry;
+    node.entry = null;
+
+    // Prune the emptied leaf and merge nodes left with a single child into it
+    for (int depth = path.size() - 1; depth > 0; depth--) {
+      Node current = path.get(depth);
+      Node parent = path.get(depth - 1);
+      if (current.entry == null && current.children.length == 0) {
+        removeChild(parent, current);
+      } else if (current.entry == null && current.children.length == 1) {
+        Node only = current.children[0];
+        char[] label = Arrays.copyOf(current.label, current.label.length + only.label.length);
+        System.arraycopy(only.label, 0, label, current.label.length, only.label.length);
+        only.label = label;
+        parent.children[childIndex(parent, label[0])] = only;
+        path.set(depth, only);
+      }
+    }
+    update(path, removed);
+    return true;
+  }
+
+  /**
+   * Returns the best suggestions starting with a prefix, compared ignoring case.
+   *
+   * @param prefix the prefix; empty for the best suggestions overall
+   * @param limit  the maximum number of suggestions, at most the top size
+   * @return the suggestions, best first
+   */
+  List<Entry> complete(String prefix, int limit) {
+    Node node = find(key(prefix), false);
+    List<Entry> entries = new ArrayList<>();
+    if (node == null || limit < 1) {
+      return entries;
+    }
+    addBest(node, limit, entries);
+    entries.sort(RANKING);
+    return entries;
+  }
+
+  /**
+   * Returns the best suggestions starting with something within a few edits of a prefix,
+   * for prefixes that were mistyped. An edit inserts, deletes or replaces one letter.
+   *
+   * @param prefix   the prefix
+   * @param maxEdits the most edits between the prefix and the start of a suggestion
+   * @param limit    the maximum number of suggestions, at most the top size
+   * @return the suggestions, best first
+   */
+  List<Entry> completeFuzzy(String prefix, int maxEdits, int limit) {
+    String key = key(prefix);
+    List<Entry> entries = new ArrayList<>();
+    if (limit < 1) {
+      return entries;
+    }
+    // Row j holds the edits between the first j letters of the key and the path walked so far
+    int[] row = new int[key.length() + 1];
+    for (int j = 0; j <= key.length(); j++) {
+      row[j] = j;
+    }
+    if (row[key.length()] <= maxEdits) {
+      addBest(root, limit, entries);
+    } else {
+      for (Node child : root.children) {
+        completeFuzzy(child, key, row, maxEdits, limit, entries);
+      }
+    }
+    entries.sort(RANKING);
+    return entries.size() > limit ? new ArrayList<>(entries.subList(0, limit)) : entries;
+  }
+
+  /**
+   * Walks the edge into a node one letter at a time, like a Levenshtein automaton; takes the
+   * best of the subtree once the whole key matches and gives up once no prefix of it can.
+   */
+  private static void completeFuzzy(Node node, String key, int[] previous, int maxEdits,
+      int limit, List<Entry> entries) {
+    int[] row = previous;
+    for (char letter : node.label) {
+      int[] next = new int[row.length];
+      next[0] = row[0] + 1;
+      int rowMin = next[0];
+      for (int j = 1; j < row.length; j++) {
+        int cost = key.charAt(j - 1) == letter ? 0 : 1;
+        next[j] = Math.min(Math.min(row[j] + 1, next[j - 1] + 1), row[j - 1] + cost);
+        rowMin = Math.min(rowMin, next[j]);
+      }
+      row = next;
+      if (row[row.length - 1] <= maxEdits) {
+        addBest(node, limit, entries);
+        return;
+      }
+      if (rowMin > maxEdits) {
+        return;
+      }
+    }
+    for (Node child : node.children) {
+      completeFuzzy(child, key, row, maxEdits, limit, entries);
+    }
+  }
+
+  /**
+   * Adds the best suggestions of a subtree, unsorted when the subtree has no cached list.
+   */
+  private static void addBest(Node node, int limit, List<Entry> entries) {
+    if (node.top != null) {
+      entries.addAll(Arrays.asList(node.top).subList(0, Math.min(limit, node.top.length)));
+      return;
+    }
+    List<Entry> subtree = new ArrayList<>();
+    collect(node, subtree);
+    subtree.sort(RANKING);
+    entries.addAll(subtree.subList(0, Math.min(limit, subtree.size())));
+  }
+
+  /**
+   * Returns the number of suggestions.
+   *
+   * @return the number of suggestions
+   */
+  int size() {
+    return root.size;
+  }
+
+  /**
+   * Counts the nodes and estimates the heap bytes of the trie, its suggestions included,
+   * assuming a 64-bit JVM with compressed references.
+   *
+   * @return {@code {nodes, bytes}}
+   */
+  long[] footprint() {
+    long nodes = 0;
+    long bytes = 0;
+    List<Node> pending = new ArrayList<>();
+    pending.add(root);
+    while (!pending.isEmpty()) {
+      Node node = pending.remove(pending.size() - 1);
+      nodes++;
+      bytes += align(OBJECT_HEADER + 4 * REFERENCE + 4);
+      bytes += align(ARRAY_HEADER + 2L * node.label.length);
+      if (node.children.length > 0) {
+        bytes += align(ARRAY_HEADER + (long) REFERENCE * node.children.length);
+      }
+      if (node.top != null) {
+        bytes += align(ARRAY_HEADER + (long) REFERENCE * node.top.length);
+      }
+      if (node.entry != null) {
+        bytes += align(OBJECT_HEADER + REFERENCE + 8);
+        // The text, as a Latin-1 string
+        bytes += align(OBJECT_HEADER + REFERENCE + 8)
+            + align(ARRAY_HEADER + node.entry.text.length());
+      }
+      pending.addAll(Arrays.asList(node.children));
+    }
+    return new long[] {nodes, bytes};
+  }
+
+  private static long align(long bytes) {
+    return (bytes + 7) & ~7L;
+  }
+
+  /**
+   * Follows a key from the root.
+   *
+   * @param exact true to require a node ending exactly at the key, false to accept the node
+   *              whose edge the key ends in
+   */
+  private Node find(String key, boolean exact) {
+    Node node = root;
+    int i = 0;
+    while (i < key.length()) {
+      int index = childIndex(node, key.charAt(i));
+      if (index < 0) {
+        return null;
+      }
+      node = node.children[index];
+      int length = Math.min(node.label.length, key.length() - i);
+      for (int j = 0; j < length; j++) {
+        if (node.label[j] != key.charAt(i + j)) {
+          return null;
+        }
+      }
+      if (length < node.label.length && exact) {
+        return null;
+      }
+      i += length;
+    }
+    return node;
+  }
+
+  private static boolean startsWith(String key, int offset, char[] label) {
+    if (key.length() - offset < label.length) {
+      return false;
+    }
+    for (int j = 0; j < label.length; j++) {
+      if (key.charAt(offset + j) != label[j]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Binary searches the children of a node by the first character of their edge.
+   *
+   * @return the index of the child, or {@code -(insertion point) - 1}
+   */
+  private static int childIndex(Node node, char first) {
+    int low = 0;
+    int high = node.children.length - 1;
+    while (low <= high) {
+      int mid = (low + high) >>> 1;
+      char label = node.children[mid].label[0];
+      if (label < first) {
+        low = mid + 1;
+      } else if (label > first) {
+        high = mid - 1;
+      } else {
+        return mid;
+      }
+    }
+    return -low - 1;
+  }
+
+  private static void insertChild(Node node, int index, Node child) {
+    Node[] children = new Node[node.children.length + 1];
+    System.arraycopy(node.children, 0, children, 0, index);
+    children[index] = child;
+    System.arraycopy(node.children, index, children, index + 1, node.children.length - index);
+    node.children = children;
+  }
+
+  private static void removeChild(Node node, Node child) {
+    int index = childIndex(node, child.label[0]);
+    if (node.children.length == 1) {
+      node.children = NO_CHILDREN;
+      return;
+    }
+    Node[] children = new Node[node.children.length - 1];
+    System.arraycopy(node.children, 0, children, 0, index);
+    System.arraycopy(node.children, index + 1, children, index, children.length - index);
+    node.children = children;
+  }
+
+  /**
+   * Recomputes the sizes and cached lists of the nodes on a path, deepest first, after the
+   * weight of an entry changed or the entry was added or removed.
+   */
+  private void update(List<Node> path, Entry changed) {
+    for (int depth = path.size() - 1; depth >= 0; depth--) {
+      Node node = path.get(depth);
+      int size = node.entry == null ? 0 : 1;
+      for (Node child : node.children) {
+        size += child.size;
+      }
+      node.size = size;
+      if (size <= topSize) {
+        node.top = null;
+      } else if (node.top == null || node.top.length < topSize
+          || contains(node.top, changed) || RANKING.compare(changed, node.top[topSize - 1]) < 0) {
+        // Lists that neither held the entry nor would take it in stay as they are
+        node.top = best(node);
+      }
+    }
+  }
+
+  /**
+   * Computes the sizes and cached lists of a whole subtree.
+   */
+  private void finish(Node node) {
+    int size = node.entry == null ? 0 : 1;
+    for (Node child : node.children) {
+      finish(child);
+      size += child.size;
+    }
+    node.size = size;
+    node.top = size <= topSize ? null : best(node);
+  }
+
+  /**
+   * Picks the best entries of a subtree, which are among the best of each child subtree.
+   */
+  private Entry[] best(Node node) {
+    List<Entry> candidates = new ArrayList<>();
+    if (node.entry != null) {
+      candidates.add(node.entry);
+    }
+    for (Node child : node.children) {
+      if (child.top != null) {
+        candidates.addAll(Arrays.asList(child.top));
+      } else {
+        collect(child, candidates);
+      }
+    }
+    candidates.sort(RANKING);
+    return candidates.subList(0, topSize).toArray(new Entry[0]);
+  }
+
+  private static boolean contains(Entry[] entries, Entry entry) {
+    for (Entry candidate : entries) {
+      if (candidate == entry) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static void collect(Node node, List<Entry> entries) {
+    if (node.entry != null) {
+      entries.add(node.entry);
+    }
+    for (Node child : node.children) {
+      collect(child, entries);
+    }
+  }
+}
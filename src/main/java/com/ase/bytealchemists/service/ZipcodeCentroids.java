@@ -0,0 +1,211 @@
+package com.ase.bytealchemists.service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Locale;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Component;
+
+/**
+ * Table of zipcode centroids, so a search by zipcode can reuse the radius search without a
+ * geocoding service.
+ *
+ * <p>
+ * The table is read once at startup from {@code geo.zipcode.centroids}, a comma or tab
+ * separated file whose header names the zipcode ({@code zipcode} or {@code GEOID}),
+ * latitude ({@code latitude} or {@code INTPTLAT}) and longitude ({@code longitude} or
+ * {@code INTPTLONG}) columns, so the Census ZCTA gazetteer file can be used as it is.
+ * Zipcodes are kept as a sorted {@code int} array with parallel {@code float} coordinates
+ * and looked up by binary search: twelve bytes per zipcode instead of a boxed map entry,
+ * about 400 KB for all 33,000 US zipcodes. Instances are immutable and can be shared
+ * between threads.
+ * </p>
+ *
+ * @author Byte Alchemists
+ * @version 1.0
+ */
+@Component
+public class ZipcodeCentroids {
+
+  private final int[] zipcodes;
+  private final float[] latitudes;
+  private final float[] longitudes;
+  private final int size;
+
+  /**
+   * Loads the table, or creates an empty one if the file does not exist.
+   *
+   * @param resource the centroid file
+   * @throws IOException if the file cannot be read
+   * @throws IllegalArgumentException if the file is malformed
+   */
+  public ZipcodeCentroids(
+      @Value("${geo.zipcode.centroids:classpath:zipcodes.csv}") Resource resource)
+      throws IOException {
+    this(resource.exists()
+        ? new InputStreamReader(resource.getInputStream(), StandardCharsets.UTF_8)
+        : Reader.nullReader());
+  }
+
+  /**
+   * Loads the table from a reader, which is closed afterwards.
+   *
+   * @param reader the contents of the centroid file
+   * @throws IOException if the reader fails
+   * @throws IllegalArgumentException if the contents are malformed
+   */
+  public ZipcodeCentroids(Reader reader) throws IOException {
+    int size = 0;
+    long[] rows = new long[1024];
+    float[] lats = new float[1024];
+    float[] lons = new float[1024];
+    try (BufferedReader lines = new BufferedReader(reader)) {
+      String header = lines.readLine();
+      if (header != null) {
+        String separator = header.indexOf('\t') >= 0 ? "\t" : ",";
+        int[] columns = columns(header.split(separator));
+        String line;
+        int number = 1;
+        while ((line = lines.readLine()) != null) {
+          number++;
+          if (line.isBlank()) {
+            continue;
+          }
+          String[] fields = line.split(separator);
+          if (size == rows.length) {
+            rows = Arrays.copyOf(rows, size * 2);
+            lats = Arrays.copyOf(lats, size * 2);
+            lons = Arrays.copyOf(lons, size * 2);
+          }
+          int zipcode = parse(field(fields, columns[0]));
+          float latitude;
+          float longitude;
+          try {
+            latitude = Float.parseFloat(field(fields, columns[1]));
+            longitude = Float.parseFloat(field(fields, columns[2]));
+          } catch (NumberFormatException e) {
+            latitude = Float.NaN;
+            longitude = Float.NaN;
+          }
+          if (zipcode < 0 || !(latitude >= -90 && latitude <= 90)
+              || !(longitude >= -180 && longitude <= 180)) {
+            throw new IllegalArgumentException("Malformed zipcode centroid on line " + number);
+          }
+          // The zipcode in the high bits and the row in the low bits sorts rows by zipcode
+          rows[size] = (long) zipcode << 32 | size;
+          lats[size] = latitude;
+          lons[size] = longitude;
+          size++;
+        }
+      }
+    }
+
+    Arrays.sort(rows, 0, size);
+    zipcodes = new int[size];
+    latitudes = new float[size];
+    longitudes = new float[size];
+    int count = 0;
+    for (int i = 0; i < size; i++) {
+      int zipcode = (int) (rows[i] >>> 32);
+      int row = (int) rows[i];
+      // A later line for the same zipcode replaces an earlier one
+      if (count > 0 && zipcodes[count - 1] == zipcode) {
+        count--;
+      }
+      zipcodes[count] = zipcode;
+      latitudes[count] = lats[row];
+      longitudes[count] = lons[row];
+      count++;
+    }
+    this.size = count;
+  }
+
+  /**
+   * Looks up the centroid of a zipcode.
+   *
+   * @param zipcode a 5-digit zipcode, optionally followed by a ZIP+4 suffix
+   * @return {@code {latitude, longitude}}, or null if the zipcode is unknown or malformed
+   */
+  public double[] centroid(String zipcode) {
+    int key = parse(zipcode);
+    if (key < 0) {
+      return null;
+    }
+    int index = Arrays.binarySearch(zipcodes, 0, size, key);
+    return index < 0 ? null : new double[] {latitudes[index], longitudes[index]};
+  }
+
+  /**
+   * Returns the number of zipcodes in the table.
+   *
+   * @return the number of zipcodes
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Tells whether a string is a 5-digit zipcode, optionally followed by a ZIP+4 suffix.
+   *
+   * @param zipcode the string to check
+   * @return true if it is a valid zipcode
+   */
+  public static boolean isValid(String zipcode) {
+    return parse(zipcode) >= 0;
+  }
+
+  private static int parse(String zipcode) {
+    if (zipcode == null) {
+      return -1;
+    }
+    String value = zipcode.trim();
+    if (value.length() == 10 && value.charAt(5) == '-') {
+      for (int i = 6; i < 10; i++) {
+        if (!Character.isDigit(value.charAt(i))) {
+          return -1;
+        }
+      }
+      value = value.substring(0, 5);
+    }
+    if (value.length() != 5) {
+      return -1;
+    }
+    int key = 0;
+    for (int i = 0; i < 5; i++) {
+      char c = value.charAt(i);
+      if (c < '0' || c > '9') {
+        return -1;
+      }
+      key = key * 10 + (c - '0');
+    }
+    return key;
+  }
+
+  private static int[] columns(String[] header) {
+    int[] columns = {-1, -1, -1};
+    for (int i = 0; i < header.length; i++) {
+      switch (header[i].trim().toLowerCase(Locale.ROOT)) {
+        case "zipcode", "zip", "geoid" -> columns[0] = i;
+        case "latitude", "lat", "intptlat" -> columns[1] = i;
+        case "longitude", "lon", "intptlong" -> columns[2] = i;
+        default -> {
+          // Other columns of the gazetteer file are ignored
+        }
+      }
+    }
+    if (columns[0] < 0 || columns[1] < 0 || columns[2] < 0) {
+      throw new IllegalArgumentException(
+          "Zipcode centroid header needs zipcode, latitude and longitude columns");
+    }
+    return columns;
+  }
+
+  private static String field(String[] fields, int column) {
+    return column < fields.length ? fields[column].trim() : "";
+  }
+}
@@ -0,0 +1,187 @@
+package com.ase.bytealchemists.util;
+
+import java.math.BigDecimal;
+
+/**
+ * Great-circle helpers shared by the geo query paths.
+ * All distances are in kilometers on a sphere of radius {@link #EARTH_RADIUS_KM},
+ * the same model used by the JPQL query in the service repository.
+ *
+ * @author Byte Alchemists
+ * @version 1.0
+ */
+public final class GeoUtils {
+
+  /**
+   * Mean earth radius in kilometers.
+   */
+  public static final double EARTH_RADIUS_KM = 6371.0;
+
+  private GeoUtils() {
+  }
+
+  /**
+   * Computes the great-circle distance between two points using the haversine formula.
+   *
+   * @param lat1 latitude of the first point in degrees
+   * @param lon1 longitude of the first point in degrees
+   * @param lat2 latitude of the second point in degrees
+   * @param lon2 longitude of the second point in degrees
+   * @return the distance in kilometers
+   */
+  public static double distanceKm(double lat1, double lon1, double lat2, double lon2) {
+    double phi1 = Math.toRadians(lat1);
+    double phi2 = Math.toRadians(lat2);
+    double sinDeltaPhi = Math.sin((phi2 - phi1) / 2);
+    double sinDeltaLambda = Math.sin(Math.toRadians(lon2 - lon1) / 2);
+    double a = sinDeltaPhi * sinDeltaPhi
+        + Math.cos(phi1) * Math.cos(phi2) * sinDeltaLambda * sinDeltaLambda;
+    return 2 * EARTH_RADIUS_KM * Math.asin(Math.min(1.0, Math.sqrt(a)));
+  }
+
+  /**
+   * Converts a point to the unit vector from the centre of the sphere through it.
+   * The dot product of two such vectors is the cosine of the angle between the points,
+   * so a radius check needs no trigonometry once both vectors are known.
+   *
+   * @param latitude  latitude in degrees
+   * @param longitude longitude in degrees
+   * @return the {@code {x, y, z}} components
+   */
+  public static double[] unitVector(double latitude, double longitude) {
+    double phi = Math.toRadians(latitude);
+    double lambda = Math.toRadians(longitude);
+    double cosPhi = Math.cos(phi);
+    return new double[] {cosPhi * Math.cos(lambda), cosPhi * Math.sin(lambda), Math.sin(phi)};
+  }
+
+  /**
+   * Returns the threshold such that a point lies strictly within {@code radiusKm} of the
+   * origin exactly when the dot product of their unit vectors is greater than it.
+   *
+   * @param radiusKm search radius in kilometers
+   * @return {@code cos(radiusKm / EARTH_RADIUS_KM)}, or a value outside {@code [-1, 1]}
+   *         when the radius matches nothing or the whole globe
+   */
+  public static double minDotProduct(double radiusKm) {
+    if (radiusKm <= 0.0) {
+      return 2.0;
+    }
+    if (radiusKm > Math.PI * EARTH_RADIUS_KM) {
+      return -2.0;
+    }
+    return Math.cos(radiusKm / EARTH_RADIUS_KM);
+  }
+
+  /**
+   * Computes the great-circle distance between two unit vectors from their chord length,
+   * which unlike {@code acos} of the dot product stays accurate for nearby points.
+   *
+   * @param a the first unit vector
+   * @param b the second unit vector
+   * @return the distance in kilometers
+   */
+  public static double distanceKm(double[] a, double[] b) {
+    double dx = a[0] - b[0];
+    double dy = a[1] - b[1];
+    double dz = a[2] - b[2];
+    double chord = Math.sqrt(dx * dx + dy * dy + dz * dz);
+    return 2 * EARTH_RADIUS_KM * Math.asin(Math.min(1.0, chord / 2));
+  }
+
+  /**
+   * Computes the smallest latitude/longitude rectangle that contains every point
+   * within {@code radiusKm} of the given origin.
+   *
+   * <p>
+   * The longitude bounds are not normalised: a box that crosses the antimeridian
+   * has {@code minLon < -180} or {@code maxLon > 180}. When the circle reaches a
+   * pole every longitude qualifies and {@link BoundingBox#isFullLongitude()} is set.
+   * </p>
+   *
+   * @param latitude  latitude of the origin in degrees
+   * @param longitude longitude of the origin in degrees
+   * @param radiusKm  search radius in kilometers
+   * @return the bounding box of the search circle
+   */
+  public static BoundingBox boundingBox(double latitude, double longitude, double radiusKm) {
+    double angular = Math.max(0.0, radiusKm) / EARTH_RADIUS_KM;
+    double deltaLat = Math.toDegrees(angular);
+    double minLat = latitude - deltaLat;
+    double maxLat = latitude + deltaLat;
+    if (minLat <= -90.0 || maxLat >= 90.0 || angular >= Math.PI / 2) {
+      return new BoundingBox(Math.max(minLat, -90.0), Math.min(maxLat, 90.0), -180.0, 180.0, true);
+    }
+    double ratio = Math.sin(angular) / Math.cos(Math.toRadians(latitude));
+    if (ratio >= 1.0) {
+      return new BoundingBox(minLat, maxLat, -180.0, 180.0, true);
+    }
+    double deltaLon = Math.toDegrees(Math.asin(ratio));
+    return new BoundingBox(minLat, maxLat, longitude - deltaLon, longitude + deltaLon, false);
+  }
+
+  /**
+   * Latitude/longitude rectangle returned by {@link #boundingBox(double, double, double)}.
+   */
+  public static final class BoundingBox {
+    private final double minLat;
+    private final double maxLat;
+    private final double minLon;
+    private final double maxLon;
+    private final boolean fullLongitude;
+
+    BoundingBox(double minLat, double maxLat, double minLon, double maxLon,
+        boolean fullLongitude) {
+      this.minLat = minLat;
+      this.maxLat = maxLat;
+      this.minLon = minLon;
+      this.maxLon = maxLon;
+      this.fullLongitude = fullLongitude;
+    }
+
+    public double getMinLat() {
+      return minLat;
+    }
+
+    public double getMaxLat() {
+      return maxLat;
+    }
+
+    public double getMinLon() {
+      return minLon;
+    }
+
+    public double getMaxLon() {
+      return maxLon;
+    }
+
+    public boolean isFullLongitude() {
+      return fullLongitude;
+    }
+
+    /**
+     * Tells whether the longitude range wraps across the antimeridian.
+     *
+     * @return true if {@code minLon < -180} or {@code maxLon > 180}
+     */
+    public boolean crossesAntimeridian() {
+      return !fullLongitude && (minLon < -180.0 || maxLon > 180.0);
+    }
+
+    /**
+     * Formats the box as a WKT polygon in longitude-latitude axis order, for use with
+     * {@code ST_GeomFromText(wkt, 4326, 'axis-order=long-lat')}.
+     * Only meaningful for boxes that neither wrap nor span every longitude.
+     *
+     * @return the closed polygon ring of the box
+     */
+    public String toWkt() {
+      String west = BigDecimal.valueOf(minLon).toPlainString();
+      String east = BigDecimal.valueOf(maxLon).toPlainString();
+      String south = BigDecimal.valueOf(minLat).toPlainString();
+      String north = BigDecimal.valueOf(maxLat).toPlainString();
+      return "POLYGON((" + west + " " + south + ", " + east + " " + south + ", "
+          + east + " " + north + ", " + west + " " + north + ", " + west + " " + south + "))";
+    }
+  }
+}
@@ -0,0 +1,93 @@
+package com.ase.bytealchemists.service;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.ase.bytealchemists.config.TestSecurityConfig;
+import com.ase.bytealchemists.controller.AreaController;
+import com.ase.bytealchemists.model.ServiceEntity;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.util.List;
+import java.util.Optional;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+/**
+ * This class contains the unit tests for the AreaController class.
+ */
+@Import(TestSecurityConfig.class)
+
+@WebMvcTest(AreaController.class)
+public class AreaControllerTest {
+
+  private static final String SQUARE = "{\"type\":\"Polygon\",\"coordinates\":"
+      + "[[[-74.1,40.6],[-73.9,40.6],[-73.9,40.8],[-74.1,40.8],[-74.1,40.6]]]}";
+
+  @Autowired
+  private MockMvc mockMvc;
+
+  @MockBean
+  private AreaService areaService;
+
+  @MockBean
+  private ServiceService serviceService;
+
+  @Test
+  public void testSaveArea_NewArea_ShouldReturn201() throws Exception {
+    when(areaService.saveArea(eq("Manhattan"), any(JsonNode.class))).thenReturn(true);
+
+    mockMvc.perform(put("/services/areas/Manhattan")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content(SQUARE))
+        .andExpect(status().isCreated());
+  }
+
+  @Test
+  public void testSaveArea_InvalidGeoJson_ShouldReturn400() throws Exception {
+    when(areaService.saveArea(eq("Nowhere"), any(JsonNode.class)))
+        .thenThrow(new IllegalArgumentException("GeoJSON contains no polygon"));
+
+    mockMvc.perform(put("/services/areas/Nowhere")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content("{\"type\":\"Point\",\"coordinates\":[0,0]}"))
+        .andExpect(status().isBadRequest());
+  }
+
+  @Test
+  public void testQueryServicesInArea_ShouldReturnServices() throws Exception {
+    GeoPolygon area = GeoPolygon.fromGeoJson(new ObjectMapper().readTree(SQUARE));
+    ServiceEntity service = new ServiceEntity(1L, "Shelter A", "shelters", 40.7128, -74.0060,
+        "123 Main St", "New York", "NY", "10001", "1234567890", "9 AM - 5 PM", true);
+    when(areaService.getArea("Manhattan")).thenReturn(Optional.of(area));
+    when(serviceService.findServicesInArea(eq(area), eq("shelters"), isNull()))
+        .thenReturn(List.of(service));
+
+    mockMvc.perform(get("/services/areas/Manhattan/services").param("category", "shelters"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$[0].id").value(1));
+  }
+
+  @Test
+  public void testUnknownArea_ShouldReturn404() throws Exception {
+    when(areaService.getArea("Atlantis")).thenReturn(Optional.empty());
+    when(areaService.deleteArea("Atlantis")).thenReturn(false);
+
+    mockMvc.perform(get("/services/areas/Atlantis/services"))
+        .andExpect(status().isNotFound());
+    mockMvc.perform(delete("/services/areas/Atlantis"))
+        .andExpect(status().isNotFound());
+  }
+}
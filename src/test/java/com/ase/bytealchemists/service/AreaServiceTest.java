@@ -0,0 +1,121 @@
+package com.ase.bytealchemists.service;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.ase.bytealchemists.config.TestSecurityConfig;
+import com.ase.bytealchemists.model.AreaEntity;
+import com.ase.bytealchemists.repository.AreaRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.util.Optional;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * This class contains the unit tests for the AreaService class.
+ */
+@Import(TestSecurityConfig.class)
+public class AreaServiceTest {
+
+  private static final String SQUARE = "{\"type\":\"Polygon\",\"coordinates\":"
+      + "[[[-74.1,40.6],[-73.9,40.6],[-73.9,40.8],[-74.1,40.8],[-74.1,40.6]]]}";
+
+  @Mock
+  private AreaRepository areaRepository;
+
+  @InjectMocks
+  private AreaService areaService;
+
+  private final ObjectMapper objectMapper = new ObjectMapper();
+
+  @BeforeEach
+  public void setUp() {
+    MockitoAnnotations.openMocks(this);
+  }
+
+  @Test
+  public void testSaveArea_NewArea_ShouldPersistAndCacheCompiledArea() throws Exception {
+    when(areaRepository.findByName("Manhattan")).thenReturn(Optional.empty());
+
+    assertTrue(areaService.saveArea("Manhattan", objectMapper.readTree(SQUARE)));
+    Optional<GeoPolygon> area = areaService.getArea("Manhattan");
+
+    assertTrue(area.isPresent());
+    assertTrue(area.get().contains(40.7, -74.0));
+    verify(areaRepository, times(1)).save(any(AreaEntity.class));
+    // The compiled area is served from memory rather than reloaded
+    verify(areaRepository, times(1)).findByName("Manhattan");
+  }
+
+  @Test
+  public void testGetArea_ShouldCompileStoredAreaOnlyOnce() {
+    when(areaRepository.findByName("Manhattan"))
+        .thenReturn(Optional.of(new AreaEntity(1L, "Manhattan", SQUARE)));
+
+    GeoPolygon first = areaService.getArea("Manhattan").orElseThrow();
+    GeoPolygon second = areaService.getArea("Manhattan").orElseThrow();
+
+    assertSame(first, second, "The compiled area should be cached");
+    verify(areaRepository, times(1)).findByName("Manhattan");
+  }
+
+  @Test
+  public void testSaveArea_InvalidGeoJson_ShouldThrowWithoutSaving() throws Exception {
+    assertThrows(IllegalArgumentException.class, () -> areaService.saveArea("Nowhere",
+        objectMapper.readTree("{\"type\":\"Point\",\"coordinates\":[0,0]}")));
+    verify(areaRepository, never()).save(any(AreaEntity.class));
+  }
+
+  @Test
+  public void testDeleteArea_ShouldEvictCompiledArea() {
+    AreaEntity stored = new AreaEntity(1L, "Manhattan", SQUARE);
+    when(areaRepository.findByName("Manhattan")).thenReturn(Optional.of(stored));
+    areaService.getArea("Manhattan");
+
+    assertTrue(areaService.deleteArea("Manhattan"));
+    when(areaRepository.findByName("Manhattan")).thenReturn(Optional.empty());
+
+    assertFalse(areaService.getArea("Manhattan").isPresent(),
+        "A deleted area should not be served from the cache");
+    assertFalse(areaService.deleteArea("Manhattan"));
+    verify(areaRepository, times(1)).delete(stored);
+  }
+
+  @Test
+  public void testDeleteArea_ShouldEvictCompiledAreaOnlyOnceCommitted() {
+    AreaEntity stored = new AreaEntity(1L, "Manhattan", SQUARE);
+    when(areaRepository.findByName("Manhattan")).thenReturn(Optional.of(stored));
+    GeoPolygon cached = areaService.getArea("Manhattan").orElseThrow();
+
+    TransactionSynchronizationManager.initSynchronization();
+    try {
+      assertTrue(areaService.deleteArea("Manhattan"));
+      when(areaRepository.findByName("Manhattan")).thenReturn(Optional.empty());
+      assertSame(cached, areaService.getArea("Manhattan").orElseThrow(),
+          "The area should stay cached until the delete commits");
+
+      for (TransactionSynchronization synchronization
+          : TransactionSynchronizationManager.getSynchronizations()) {
+        synchronization.afterCommit();
+      }
+    } finally {
+      TransactionSynchronizationManager.clearSynchronization();
+    }
+
+    assertFalse(areaService.getArea("Manhattan").isPresent(),
+        "The committed delete should evict the compiled area");
+  }
+}
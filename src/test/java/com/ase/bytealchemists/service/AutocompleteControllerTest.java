@@ -0,0 +1,80 @@
+package com.ase.bytealchemists.service;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.ase.bytealchemists.config.TestSecurityConfig;
+import com.ase.bytealchemists.controller.AutocompleteController;
+import com.ase.bytealchemists.model.AutocompleteStats;
+import com.ase.bytealchemists.model.AutocompleteSuggestion;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.web.servlet.MockMvc;
+
+/**
+ * This class contains the unit tests for the AutocompleteController class.
+ */
+@Import(TestSecurityConfig.class)
+
+@WebMvcTest(AutocompleteController.class)
+public class AutocompleteControllerTest {
+
+  @Autowired
+  private MockMvc mockMvc;
+
+  @MockBean
+  private ServiceAutocomplete autocomplete;
+
+  @Test
+  public void testAutocomplete_ShouldReturnSuggestions() throws Exception {
+    when(autocomplete.complete("bro", ServiceAutocomplete.Type.CITY, 5)).thenReturn(List.of(
+        new AutocompleteSuggestion("Bronx", "city", 12),
+        new AutocompleteSuggestion("Brooklyn", "city", 7)));
+
+    mockMvc.perform(get("/autocomplete").param("prefix", " bro").param("type", "City")
+            .param("limit", "5"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.length()").value(2))
+        .andExpect(jsonPath("$[0].text").value("Bronx"))
+        .andExpect(jsonPath("$[0].type").value("city"))
+        .andExpect(jsonPath("$[0].popularity").value(12));
+  }
+
+  @Test
+  public void testAutocomplete_InvalidParameters_ShouldReturn400() throws Exception {
+    mockMvc.perform(get("/autocomplete").param("prefix", "  "))
+        .andExpect(status().isBadRequest())
+        .andExpect(content().string("Prefix must not be blank."));
+    mockMvc.perform(get("/autocomplete").param("prefix", "bro").param("limit", "0"))
+        .andExpect(status().isBadRequest())
+        .andExpect(content().string("Limit must be at least 1."));
+    mockMvc.perform(get("/autocomplete").param("prefix", "bro").param("type", "street"))
+        .andExpect(status().isBadRequest())
+        .andExpect(content().string("Type must be name, city or category"));
+
+    verify(autocomplete, never()).complete(anyString(), any(), anyInt());
+  }
+
+  @Test
+  public void testGetStats_ShouldReturnFootprint() throws Exception {
+    when(autocomplete.stats()).thenReturn(new AutocompleteStats(3, 2, 1, 9, 4096));
+
+    mockMvc.perform(get("/autocomplete/stats"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.names").value(3))
+        .andExpect(jsonPath("$.nodes").value(9))
+        .andExpect(jsonPath("$.estimatedBytes").value(4096));
+  }
+}
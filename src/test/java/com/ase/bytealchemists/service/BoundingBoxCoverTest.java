@@ -0,0 +1,148 @@
+package com.ase.bytealchemists.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.ase.bytealchemists.util.GeoUtils;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+/**
+ * This class contains the unit tests for the BoundingBoxCover class.
+ */
+public class BoundingBoxCoverTest {
+
+  private static boolean contains(double[] rectangle, double latitude, double longitude) {
+    return latitude >= rectangle[0] && latitude <= rectangle[1]
+        && longitude >= rectangle[2] && longitude <= rectangle[3];
+  }
+
+  private static boolean covers(List<double[]> rectangles, GeoUtils.BoundingBox box) {
+    for (double[] rectangle : rectangles) {
+      if (contains(rectangle, box.getMinLat(), box.getMinLon())
+          && contains(rectangle, box.getMaxLat(), box.getMaxLon())) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Tests that overlapping boxes are loaded with one rectangle.
+   */
+  @Test
+  public void testCover_OverlappingBoxesShouldMerge() {
+    List<GeoUtils.BoundingBox> boxes = List.of(
+        GeoUtils.boundingBox(40.7130, -74.0050, 5.0),
+        GeoUtils.boundingBox(40.7500, -73.9900, 5.0));
+
+    List<double[]> rectangles = BoundingBoxCover.cover(boxes, 16);
+
+    assertEquals(1, rectangles.size(), "Overlapping boxes should share one query");
+    assertTrue(covers(rectangles, boxes.get(0)) && covers(rectangles, boxes.get(1)),
+        "The rectangle should cover both boxes");
+  }
+
+  /**
+   * Tests that distant boxes are not merged into a rectangle spanning the gap between them.
+   */
+  @Test
+  public void testCover_DistantBoxesShouldStaySeparate() {
+    List<GeoUtils.BoundingBox> boxes = List.of(
+        GeoUtils.boundingBox(40.7128, -74.0060, 10.0),
+        GeoUtils.boundingBox(34.0522, -118.2437, 10.0));
+
+    List<double[]> rectangles = BoundingBoxCover.cover(boxes, 16);
+
+    assertEquals(2, rectangles.size(), "New York and Los Angeles should be queried apart");
+    for (double[] rectangle : rectangles) {
+      assertFalse(contains(rectangle, 39.0997, -94.5786),
+          "Kansas City lies between the origins and should not be loaded");
+    }
+  }
+
+  /**
+   * Tests that the neighbouring rectangles wasting the least area are merged down to the cap.
+   */
+  @Test
+  public void testCover_ShouldMergeDownToTheCap() {
+    List<GeoUtils.BoundingBox> boxes = List.of(
+        GeoUtils.boundingBox(40.0, -120.0, 5.0),
+        GeoUtils.boundingBox(40.0, -119.0, 5.0),
+        GeoUtils.boundingBox(40.0, -80.0, 5.0),
+        GeoUtils.boundingBox(40.0, -79.0, 5.0));
+
+    List<double[]> rectangles = BoundingBoxCover.cover(boxes, 2);
+
+    assertEquals(2, rectangles.size(), "The cover should be capped");
+    assertTrue(rectangles.get(0)[3] < -100.0 && rectangles.get(1)[2] > -100.0,
+        "The close pairs should be merged, not the distant ones");
+  }
+
+  /**
+   * Tests that a diagonal route corridor is covered by a chain of small rectangles rather
+   * than the rectangle spanning the route's corners.
+   */
+  @Test
+  public void testCover_DiagonalCorridorShouldNotLoadItsCorners() {
+    RouteCorridor corridor = new RouteCorridor(List.of(
+        new double[] {40.70, -74.05}, new double[] {40.90, -73.80}), 1.0);
+    List<GeoUtils.BoundingBox> boxes = new ArrayList<>();
+    for (RouteCorridor.Circle circle : corridor.getSearchCircles()) {
+      boxes.add(GeoUtils.boundingBox(circle.latitude(), circle.longitude(), circle.radiusKm()));
+    }
+
+    List<double[]> rectangles = BoundingBoxCover.cover(boxes, 16);
+
+    assertTrue(rectangles.size() > 1, "The corridor should be split into several queries");
+    for (double[] rectangle : rectangles) {
+      assertFalse(contains(rectangle, 40.88, -74.03),
+          "The corner far off the route should not be loaded");
+      assertFalse(contains(rectangle, 40.72, -73.82),
+          "The corner far off the route should not be loaded");
+    }
+    for (GeoUtils.BoundingBox box : boxes) {
+      assertTrue(covers(rectangles, box), "Every search circle should be covered");
+    }
+  }
+
+  /**
+   * Tests that a box wrapping the antimeridian covers every longitude.
+   */
+  @Test
+  public void testCover_WrappingBoxShouldCoverEveryLongitude() {
+    List<double[]> rectangles = BoundingBoxCover.cover(
+        List.of(GeoUtils.boundingBox(-17.7, 179.99, 10.0)), 16);
+
+    assertEquals(1, rectangles.size(), "One box should give one rectangle");
+    assertEquals(-180.0, rectangles.get(0)[2], "The rectangle should start at -180");
+    assertEquals(180.0, rectangles.get(0)[3], "The rectangle should end at 180");
+  }
+
+  /**
+   * Tests against random boxes that every box lies inside some rectangle of the cover.
+   */
+  @Test
+  public void testCover_ShouldCoverEveryBox() {
+    Random random = new Random(42);
+    for (int run = 0; run < 200; run++) {
+      List<GeoUtils.BoundingBox> boxes = new ArrayList<>();
+      int count = 1 + random.nextInt(30);
+      for (int i = 0; i < count; i++) {
+        boxes.add(GeoUtils.boundingBox(30.0 + random.nextDouble() * 20.0,
+            -120.0 + random.nextDouble() * 50.0, 1.0 + random.nextDouble() * 200.0));
+      }
+      int max = 1 + random.nextInt(8);
+
+      List<double[]> rectangles = BoundingBoxCover.cover(boxes, max);
+
+      assertTrue(rectangles.size() <= max, "The cover should respect the cap");
+      for (GeoUtils.BoundingBox box : boxes) {
+        assertTrue(covers(rectangles, box), "Every box should be covered");
+      }
+    }
+  }
+}
@@ -23,6 +23,7 @@ import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.context.annotation.Import;
 
 
@@ -35,6 +36,9 @@ public class CategoryServiceTest {
   @Mock
   private CategoryRepository categoryRepository;  // Mock the CategoryRepository
 
+  @Mock
+  private ApplicationEventPublisher eventPublisher;
+
   @InjectMocks
   private CategoryService categoryService;  // Inject the mock repository into the service
 
@@ -87,6 +91,7 @@ public class CategoryServiceTest {
     assertTrue(result.isPresent());
     assertEquals(categoryName, result.get().getCategoryName());
     verify(categoryRepository, times(1)).save(any(CategoryEntity.class));
+    verify(eventPublisher, times(1)).publishEvent(any(CategoryChangedEvent.class));
   }
 
   // Test for addCategoryByName method when category cannot be added.
@@ -100,6 +105,7 @@ public class CategoryServiceTest {
 
     assertFalse(result.isPresent());
     verify(categoryRepository, never()).save(any(CategoryEntity.class));
+    verify(eventPublisher, never()).publishEvent(any(CategoryChangedEvent.class));
   }
 
   // Test for deleteCategoryByName() method when category is deleted successfully
@@ -116,6 +122,7 @@ public class CategoryServiceTest {
 
     verify(categoryRepository, times(1)).findByCategoryName(categoryName);
     verify(categoryRepository, times(1)).delete(mockCategory);
+    verify(eventPublisher, times(1)).publishEvent(any(CategoryChangedEvent.class));
   }
 
   // Test for deleteCategoryByName() method when category exists
@@ -5,7 +5,6 @@ import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
-import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -74,14 +73,13 @@ public class FeedbackServiceTest {
     FeedbackEntity feedbackEntity = new FeedbackEntity(1L, 1L, 101L, 5,
                                               "Great service!");
 
-    when(feedbackRepository.findById(1L)).thenReturn(Optional.of(feedbackEntity));
-    doNothing().when(feedbackRepository).deleteById(1L);
+    when(feedbackRepository.deleteRowById(feedbackEntity.getId())).thenReturn(1);
 
     boolean result = feedbackService.deleteFeedbackById(1);
 
-    // Assert
-    verify(feedbackRepository, times(1)).findById(1L);
-    verify(feedbackRepository, times(1)).deleteById(1L);
+    // Assert: one DELETE statement, no lookup first
+    verify(feedbackRepository, times(1)).deleteRowById(1L);
+    verify(feedbackRepository, times(0)).findById(1L);
     assertTrue(result, "The feedback should be successfully deleted");
   }
 
@@ -90,12 +88,12 @@ public class FeedbackServiceTest {
    */
   @Test
   public void testDeleteFeedbackByIdWhenFail() {
-    when(feedbackRepository.findById(1L)).thenReturn(Optional.empty());
+    when(feedbackRepository.deleteRowById(1L)).thenReturn(0);
 
     boolean result = feedbackService.deleteFeedbackById(1);
 
     // Assert
-    verify(feedbackRepository, times(1)).findById(1L);
+    verify(feedbackRepository, times(1)).deleteRowById(1L);
     verify(feedbackRepository, times(0)).deleteById(1L);
     assertFalse(result, "The method should return false when feedback does not exist");
   }
@@ -0,0 +1,114 @@
+package com.ase.bytealchemists.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Measures typo correction by {@link FuzzyWordIndex} over the vocabulary of a million
+ * services, one made up word per service as in {@link ServiceTextIndexBenchmark}, and
+ * compares it with the naive approach: computing the bounded edit distance to every word.
+ *
+ * <p>
+ * Every query is a known word with one random typo: a letter inserted, deleted, replaced or
+ * swapped with the next one. Not part of the regular test run; execute with
+ * {@code mvn test -Dtest=FuzzyWordIndexBenchmark}.
+ * </p>
+ */
+public class FuzzyWordIndexBenchmark {
+
+  private static final int WORDS = 1_000_000;
+  private static final int INDEX_QUERIES = 20_000;
+  private static final int SCAN_QUERIES = 20;
+
+  @Test
+  public void compareIndexWithScan() {
+    Random random = new Random(17);
+    Set<String> unique = new LinkedHashSet<>();
+    while (unique.size() < WORDS) {
+      unique.add(word(random, 5 + random.nextInt(4)));
+    }
+    List<String> vocabulary = new ArrayList<>(unique);
+
+    FuzzyWordIndex index = new FuzzyWordIndex();
+    long buildStart = System.nanoTime();
+    for (String word : vocabulary) {
+      index.add(word);
+    }
+    long buildNanos = System.nanoTime() - buildStart;
+
+    String[] queries = new String[INDEX_QUERIES];
+    for (int i = 0; i < INDEX_QUERIES; i++) {
+      queries[i] = typo(random, vocabulary.get(random.nextInt(WORDS)));
+    }
+
+    // Warm up before timing
+    for (int i = 0; i < 2_000; i++) {
+      index.lookup(queries[i]);
+    }
+
+    long indexMatches = 0;
+    long indexStart = System.nanoTime();
+    for (String query : queries) {
+      indexMatches += index.lookup(query).size();
+    }
+    long indexNanos = System.nanoTime() - indexStart;
+
+    long scanMatches = 0;
+    long scanStart = System.nanoTime();
+    for (int i = 0; i < SCAN_QUERIES; i++) {
+      scanMatches += scan(vocabulary, queries[i]);
+    }
+    long scanNanos = System.nanoTime() - scanStart;
+
+    System.out.printf("words=%d build=%.1f ms%n", WORDS, buildNanos / 1e6);
+    System.out.printf("index: %.1f us/lookup (%d matches over %d lookups)%n",
+        indexNanos / 1e3 / INDEX_QUERIES, indexMatches, INDEX_QUERIES);
+    System.out.printf("scan: %.1f us/lookup (%d matches over %d lookups)%n",
+        scanNanos / 1e3 / SCAN_QUERIES, scanMatches, SCAN_QUERIES);
+    for (int i = 0; i < SCAN_QUERIES; i++) {
+      assertEquals(scan(vocabulary, queries[i]), index.lookup(queries[i]).size(),
+          "The index should find what the scan finds for " + queries[i]);
+    }
+  }
+
+  private static String word(Random random, int length) {
+    char[] letters = new char[length];
+    for (int i = 0; i < length; i++) {
+      letters[i] = (char) ('a' + random.nextInt(26));
+    }
+    return new String(letters);
+  }
+
+  private static String typo(Random random, String word) {
+    int at = random.nextInt(word.length() - 1);
+    char letter = (char) ('a' + random.nextInt(26));
+    switch (random.nextInt(4)) {
+      case 0:
+        return word.substring(0, at) + letter + word.substring(at);
+      case 1:
+        return word.substring(0, at) + word.substring(at + 1);
+      case 2:
+        return word.substring(0, at) + letter + word.substring(at + 1);
+      default:
+        return word.substring(0, at) + word.charAt(at + 1) + word.charAt(at)
+            + word.substring(at + 2);
+    }
+  }
+
+  private static int scan(List<String> vocabulary, String query) {
+    int maxEdits = FuzzyWordIndex.maxEdits(query.length());
+    int matches = 0;
+    for (String word : vocabulary) {
+      if (FuzzyWordIndex.distance(query, word, maxEdits) <= maxEdits) {
+        matches++;
+      }
+    }
+    return matches;
+  }
+}
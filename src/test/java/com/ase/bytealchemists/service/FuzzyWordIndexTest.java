@@ -0,0 +1,90 @@
+package com.ase.bytealchemists.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+import org.junit.jupiter.api.Test;
+
+/**
+ * This class contains the unit tests for the FuzzyWordIndex class.
+ */
+public class FuzzyWordIndexTest {
+
+  private static List<String> words(List<FuzzyWordIndex.Match> matches) {
+    List<String> words = new ArrayList<>();
+    for (FuzzyWordIndex.Match match : matches) {
+      words.add(match.getWord() + ":" + match.getDistance());
+    }
+    return words;
+  }
+
+  @Test
+  public void testDistance_ShouldCountSwapsAsOneEditAndStopAtTheBound() {
+    assertEquals(0, FuzzyWordIndex.distance("bronx", "bronx", 2));
+    assertEquals(1, FuzzyWordIndex.distance("brnx", "bronx", 2));
+    assertEquals(1, FuzzyWordIndex.distance("shleter", "shelter", 2));
+    assertEquals(2, FuzzyWordIndex.distance("sheltre", "shelters", 2));
+    assertEquals(2, FuzzyWordIndex.distance("kitten", "sitting", 1), "Bounded at max + 1");
+    assertEquals(3, FuzzyWordIndex.distance("", "abc", 5));
+  }
+
+  @Test
+  public void testLookup_ShouldFindCloseWordsOnly() {
+    FuzzyWordIndex index = new FuzzyWordIndex();
+    for (String word : List.of("bronx", "brooklyn", "shelter", "shelters", "helper", "soup",
+        "kitchen", "abcd")) {
+      index.add(word);
+    }
+
+    assertEquals(List.of("bronx:1"), words(index.lookup("brnx")));
+    assertEquals(List.of("shelter:1"), words(index.lookup("sheltre")));
+    assertEquals(List.of("brooklyn:1"), words(index.lookup("broklyn")));
+    assertEquals(List.of("abcd:1"), words(index.lookup("acbd")),
+        "A swap in a four letter word shares no piece, but is still found");
+    assertTrue(index.lookup("sop").isEmpty(), "Three letter words are not corrected");
+
+    index.remove("bronx");
+    index.remove("bronx");
+    assertTrue(index.lookup("brnx").isEmpty());
+    assertEquals(7, index.size());
+  }
+
+  @Test
+  public void testLookup_ShouldMatchScanOverEveryWord() {
+    Random random = new Random(23);
+    FuzzyWordIndex index = new FuzzyWordIndex();
+    Set<String> vocabulary = new TreeSet<>();
+    for (int step = 0; step < 2000; step++) {
+      // Few letters, so that many words are within a typo or two of each other
+      StringBuilder word = new StringBuilder();
+      for (int i = 3 + random.nextInt(8); i > 0; i--) {
+        word.append("abcde".charAt(random.nextInt(5)));
+      }
+      String text = word.toString();
+      if (random.nextInt(4) == 0 && vocabulary.remove(text)) {
+        index.remove(text);
+      } else if (vocabulary.add(text)) {
+        index.add(text);
+      }
+
+      if (step % 10 == 0) {
+        int maxEdits = FuzzyWordIndex.maxEdits(text.length());
+        List<String> scan = new ArrayList<>();
+        for (int distance = 0; distance <= maxEdits && maxEdits > 0; distance++) {
+          for (String candidate : vocabulary) {
+            if (FuzzyWordIndex.distance(text, candidate, maxEdits) == distance) {
+              scan.add(candidate + ":" + distance);
+            }
+          }
+        }
+        assertEquals(scan, words(index.lookup(text)), "Lookup of " + text);
+      }
+    }
+    assertEquals(vocabulary.size(), index.size());
+  }
+}
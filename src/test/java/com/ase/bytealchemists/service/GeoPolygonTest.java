@@ -0,0 +1,99 @@
+package com.ase.bytealchemists.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+/**
+ * This class contains the unit tests for the GeoPolygon class.
+ */
+public class GeoPolygonTest {
+
+  private static final ObjectMapper MAPPER = new ObjectMapper();
+
+  private static final String SQUARE_WITH_HOLE = "{\"type\":\"Polygon\",\"coordinates\":["
+      + "[[-74.0,40.0],[-73.0,40.0],[-73.0,41.0],[-74.0,41.0],[-74.0,40.0]],"
+      + "[[-73.6,40.4],[-73.4,40.4],[-73.4,40.6],[-73.6,40.6],[-73.6,40.4]]]}";
+
+  private static GeoPolygon parse(String json) throws Exception {
+    return GeoPolygon.fromGeoJson(MAPPER.readTree(json));
+  }
+
+  @Test
+  public void testContains_ShouldHonourHoles() throws Exception {
+    GeoPolygon area = parse(SQUARE_WITH_HOLE);
+
+    assertTrue(area.contains(40.2, -73.8), "A point inside the outer ring should match");
+    assertFalse(area.contains(40.5, -73.5), "A point inside the hole should not match");
+    assertFalse(area.contains(41.5, -73.5), "A point outside the outer ring should not match");
+    assertEquals(40.0, area.getMinLat(), 0.0);
+    assertEquals(-73.0, area.getMaxLon(), 0.0);
+  }
+
+  @Test
+  public void testFromGeoJson_ShouldAcceptMultiPolygonAndFeatureWrappers() throws Exception {
+    GeoPolygon area = parse("{\"type\":\"FeatureCollection\",\"features\":["
+        + "{\"type\":\"Feature\",\"properties\":{},\"geometry\":{\"type\":\"MultiPolygon\","
+        + "\"coordinates\":[[[[0,0],[1,0],[1,1],[0,1],[0,0]]],"
+        + "[[[10,10],[11,10],[11,11],[10,11],[10,10]]]]}}]}");
+
+    assertTrue(area.contains(0.5, 0.5), "The first polygon should match");
+    assertTrue(area.contains(10.5, 10.5), "The second polygon should match");
+    assertFalse(area.contains(5.0, 5.0), "The gap between polygons should not match");
+  }
+
+  @Test
+  public void testContains_ShouldAgreeWithPlainRayCasting() throws Exception {
+    // A 400-vertex star, enough edges to use many latitude bands
+    Random random = new Random(5);
+    int vertices = 400;
+    double[][] ring = new double[vertices + 1][];
+    StringBuilder json = new StringBuilder("{\"type\":\"Polygon\",\"coordinates\":[[");
+    for (int i = 0; i <= vertices; i++) {
+      double angle = 2 * Math.PI * (i % vertices) / vertices;
+      double radius = i % 2 == 0 ? 1.0 : 0.3 + random.nextDouble() * 0.4;
+      ring[i] = new double[] {radius * Math.cos(angle), 40.0 + radius * Math.sin(angle)};
+      if (i == vertices) {
+        ring[i] = ring[0];
+      }
+      json.append(i == 0 ? "" : ",").append('[').append(ring[i][0]).append(',')
+          .append(ring[i][1]).append(']');
+    }
+    GeoPolygon area = parse(json.append("]]}").toString());
+
+    for (int i = 0; i < 20000; i++) {
+      double lon = -1.2 + random.nextDouble() * 2.4;
+      double lat = 38.8 + random.nextDouble() * 2.4;
+      boolean inside = false;
+      for (int j = 0, k = vertices - 1; j < vertices; k = j++) {
+        if ((ring[j][1] > lat) != (ring[k][1] > lat) && lon < ring[j][0]
+            + (lat - ring[j][1]) * (ring[k][0] - ring[j][0]) / (ring[k][1] - ring[j][1])) {
+          inside = !inside;
+        }
+      }
+      assertEquals(inside, area.contains(lat, lon),
+          "Banded edges should give the same answer as scanning every edge");
+    }
+  }
+
+  @Test
+  public void testFromGeoJson_InvalidInput_ShouldThrow() throws Exception {
+    JsonNode point = MAPPER.readTree("{\"type\":\"Point\",\"coordinates\":[0,0]}");
+    JsonNode openRing = MAPPER.readTree(
+        "{\"type\":\"Polygon\",\"coordinates\":[[[0,0],[1,0],[0,0]]]}");
+    JsonNode outOfRange = MAPPER.readTree(
+        "{\"type\":\"Polygon\",\"coordinates\":[[[0,0],[200,0],[1,1],[0,0]]]}");
+
+    assertThrows(IllegalArgumentException.class, () -> GeoPolygon.fromGeoJson(point));
+    assertThrows(IllegalArgumentException.class, () -> GeoPolygon.fromGeoJson(openRing));
+    assertThrows(IllegalArgumentException.class, () -> GeoPolygon.fromGeoJson(outOfRange));
+    assertThrows(IllegalArgumentException.class,
+        () -> GeoPolygon.fromGeoJson(MAPPER.readTree("[1,2]")));
+  }
+}
@@ -0,0 +1,166 @@
+package com.ase.bytealchemists.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.ase.bytealchemists.model.ServiceEntity;
+import com.ase.bytealchemists.util.GeoUtils;
+import java.math.BigDecimal;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+/**
+ * This class contains the unit tests for the GeoUtils class.
+ */
+public class GeoUtilsTest {
+
+  /**
+   * Reference implementation of the spherical law of cosines the repository queries
+   * evaluated per row before unit vectors were stored.
+   */
+  private static double jpqlDistanceKm(double lat1, double lon1, double lat2, double lon2) {
+    return 6371 * Math.acos(Math.min(1.0, Math.cos(Math.toRadians(lat1))
+        * Math.cos(Math.toRadians(lat2))
+        * Math.cos(Math.toRadians(lon2) - Math.toRadians(lon1))
+        + Math.sin(Math.toRadians(lat1)) * Math.sin(Math.toRadians(lat2))));
+  }
+
+  private static boolean inside(GeoUtils.BoundingBox box, double lat, double lon) {
+    if (lat < box.getMinLat() || lat > box.getMaxLat()) {
+      return false;
+    }
+    if (box.isFullLongitude() || box.crossesAntimeridian()) {
+      // The service layer widens wrapping boxes to every longitude
+      return true;
+    }
+    return lon >= box.getMinLon() && lon <= box.getMaxLon();
+  }
+
+  @Test
+  public void testDistanceKm_KnownDistance() {
+    // Times Square to the Empire State Building is roughly 1.07 km
+    double distance = GeoUtils.distanceKm(40.7580, -73.9855, 40.7484, -73.9857);
+    assertEquals(1.07, distance, 0.05, "Distance should match the known value");
+    assertEquals(0.0, GeoUtils.distanceKm(40.0, -74.0, 40.0, -74.0), 1e-9,
+        "Distance to itself should be zero");
+  }
+
+  @Test
+  public void testDistanceKm_ShouldAgreeWithJpqlFormula() {
+    Random random = new Random(1);
+    for (int i = 0; i < 10_000; i++) {
+      double lat1 = -89 + random.nextDouble() * 178;
+      double lon1 = -180 + random.nextDouble() * 360;
+      double lat2 = -89 + random.nextDouble() * 178;
+      double lon2 = -180 + random.nextDouble() * 360;
+      assertEquals(jpqlDistanceKm(lat1, lon1, lat2, lon2),
+          GeoUtils.distanceKm(lat1, lon1, lat2, lon2), 1e-3,
+          "Haversine and the spherical law of cosines should agree");
+    }
+  }
+
+  /**
+   * The bounding box prefilter must never drop a service that the full-scan query
+   * would return, otherwise BOUNDING_BOX mode would diverge from findByFilters.
+   */
+  @Test
+  public void testBoundingBox_ShouldContainEveryPointTheFullQueryMatches() {
+    Random random = new Random(3);
+    double[] radii = {0.5, 10.0, 250.0, 3000.0};
+    for (int i = 0; i < 2_000; i++) {
+      double originLat = -89.5 + random.nextDouble() * 179;
+      double originLon = -180 + random.nextDouble() * 360;
+      double radius = radii[i % radii.length];
+      GeoUtils.BoundingBox box = GeoUtils.boundingBox(originLat, originLon, radius);
+
+      for (int j = 0; j < 200; j++) {
+        // Sample candidates around the origin, plus some anywhere on the globe
+        double lat = j % 4 == 0 ? -90 + random.nextDouble() * 180
+            : Math.max(-90, Math.min(90, originLat + (random.nextDouble() - 0.5) * radius / 50));
+        double lon = j % 4 == 0 ? -180 + random.nextDouble() * 360
+            : ((originLon + (random.nextDouble() - 0.5) * radius / 20) + 540) % 360 - 180;
+        if (jpqlDistanceKm(originLat, originLon, lat, lon) < radius) {
+          assertTrue(inside(box, lat, lon), "Point within " + radius + " km of ("
+              + originLat + ", " + originLon + ") fell outside the box: " + lat + ", " + lon);
+        }
+      }
+    }
+  }
+
+  @Test
+  public void testBoundingBox_NearPole_ShouldCoverAllLongitudes() {
+    GeoUtils.BoundingBox box = GeoUtils.boundingBox(89.95, 10.0, 10.0);
+    assertTrue(box.isFullLongitude(), "A circle reaching the pole spans every longitude");
+    assertEquals(90.0, box.getMaxLat(), 1e-9, "Latitude should be clamped at the pole");
+  }
+
+  @Test
+  public void testBoundingBox_AtAntimeridian_ShouldReportWrap() {
+    GeoUtils.BoundingBox box = GeoUtils.boundingBox(0.0, 179.99, 10.0);
+    assertTrue(box.crossesAntimeridian(), "The box should wrap past 180 degrees");
+
+    GeoUtils.BoundingBox local = GeoUtils.boundingBox(40.7128, -74.0060, 10.0);
+    assertFalse(local.crossesAntimeridian(), "A box in New York should not wrap");
+    assertFalse(local.isFullLongitude(), "A box in New York should be bounded");
+  }
+
+  @Test
+  public void testBoundingBox_ToWkt_ShouldUseLongitudeLatitudeOrder() {
+    GeoUtils.BoundingBox box = GeoUtils.boundingBox(10.0, 20.0, 1.0);
+    String west = BigDecimal.valueOf(box.getMinLon()).toPlainString();
+    String south = BigDecimal.valueOf(box.getMinLat()).toPlainString();
+
+    String wkt = box.toWkt();
+
+    assertTrue(wkt.startsWith("POLYGON((" + west + " " + south + ", "),
+        "The ring should start at the south-west corner, longitude first: " + wkt);
+    assertTrue(wkt.endsWith(west + " " + south + "))"), "The ring should be closed: " + wkt);
+    assertFalse(wkt.contains("E"), "Coordinates should not use scientific notation: " + wkt);
+  }
+
+  @Test
+  public void testMinDotProduct_ShouldAgreeWithDistance() {
+    Random random = new Random(5);
+    double[] radii = {0.1, 10.0, 500.0, 15000.0};
+    for (int i = 0; i < 10_000; i++) {
+      double lat1 = -90 + random.nextDouble() * 180;
+      double lon1 = -180 + random.nextDouble() * 360;
+      double lat2 = lat1 + (random.nextDouble() - 0.5) * (i % 2 == 0 ? 0.2 : 100);
+      double lon2 = lon1 + (random.nextDouble() - 0.5) * (i % 2 == 0 ? 0.2 : 100);
+      double[] a = GeoUtils.unitVector(lat1, lon1);
+      double[] b = GeoUtils.unitVector(lat2, lon2);
+      double distance = GeoUtils.distanceKm(lat1, lon1, lat2, lon2);
+      assertEquals(distance, GeoUtils.distanceKm(a, b), 1e-6,
+          "The chord distance should match the haversine distance");
+
+      double dot = a[0] * b[0] + a[1] * b[1] + a[2] * b[2];
+      double radius = radii[i % radii.length];
+      if (Math.abs(distance - radius) > 1e-6) {
+        assertEquals(distance < radius, dot > GeoUtils.minDotProduct(radius),
+            "The dot product threshold should select the same points as the radius");
+      }
+    }
+    assertFalse(1.0 > GeoUtils.minDotProduct(0.0), "A zero radius should match nothing");
+    assertTrue(-1.0 > GeoUtils.minDotProduct(30000.0),
+        "A radius beyond the antipode should match everything");
+  }
+
+  @Test
+  public void testServiceEntityUnitVector_ShouldMatchGeoUtils() {
+    ServiceEntity service = new ServiceEntity(1L, "Shelter A", "shelters", 40.7128, -74.0060,
+        "123 Main St", "New York", "NY", "10001", "1234567890", "9 AM - 5 PM", true);
+
+    service.updateUnitVector();
+
+    double[] expected = GeoUtils.unitVector(40.7128, -74.0060);
+    assertEquals(expected[0], service.getUnitX(), 1e-15, "x should match");
+    assertEquals(expected[1], service.getUnitY(), 1e-15, "y should match");
+    assertEquals(expected[2], service.getUnitZ(), 1e-15, "z should match");
+
+    service.setLatitude(null);
+    service.updateUnitVector();
+    assertNull(service.getUnitX(), "Services without coordinates have no unit vector");
+  }
+}
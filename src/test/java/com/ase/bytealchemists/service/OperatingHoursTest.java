@@ -0,0 +1,90 @@
+package com.ase.bytealchemists.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.ase.bytealchemists.model.OpeningInterval;
+import com.ase.bytealchemists.model.OperatingHours;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+/**
+ * This class contains the unit tests for the OperatingHours class.
+ */
+public class OperatingHoursTest {
+
+  // 2024-05-06 is a Monday
+  private static LocalDateTime at(int day, int hour, int minute) {
+    return LocalDateTime.of(2024, 5, 6 + day, hour, minute);
+  }
+
+  private static List<String> days(OperatingHours hours) {
+    List<String> days = new ArrayList<>();
+    for (OpeningInterval interval : hours.toIntervals()) {
+      days.add(interval.getDay().substring(0, 3) + " " + interval.getOpen() + "-"
+          + interval.getClose());
+    }
+    return days;
+  }
+
+  @Test
+  public void testParse_EveryDay_ShouldOpenEachDay() {
+    OperatingHours hours = OperatingHours.parse("9 AM - 5 PM");
+
+    assertEquals(7, hours.toIntervals().size());
+    assertEquals("MONDAY", hours.toIntervals().get(0).getDay());
+    assertTrue(hours.isOpenAt(at(2, 9, 0)));
+    assertTrue(hours.isOpenAt(at(6, 16, 59)));
+    assertFalse(hours.isOpenAt(at(2, 17, 0)), "Closing time is exclusive");
+    assertFalse(hours.isOpenAt(at(2, 8, 59)));
+  }
+
+  @Test
+  public void testParse_DaysMinutesAndNoonShouldBeHonoured() {
+    OperatingHours hours = OperatingHours.parse("Mon-Fri 8:30 AM - 12 PM; Sat 12 AM - 1 AM");
+
+    assertEquals(List.of("MON 08:30-12:00", "TUE 08:30-12:00", "WED 08:30-12:00",
+        "THU 08:30-12:00", "FRI 08:30-12:00", "SAT 00:00-01:00"), days(hours));
+    assertTrue(hours.isOpenAt(at(4, 8, 30)));
+    assertFalse(hours.isOpenAt(at(4, 12, 0)));
+    assertTrue(hours.isOpenAt(at(5, 0, 30)));
+    assertFalse(hours.isOpenAt(at(6, 10, 0)), "Closed on Sunday");
+  }
+
+  @Test
+  public void testParse_OvernightRangesShouldRunIntoTheNextDay() {
+    OperatingHours hours = OperatingHours.parse("Fri-Sun 10 PM - 6 AM");
+
+    assertEquals(List.of("MON 00:00-06:00", "FRI 22:00-24:00", "SAT 00:00-06:00",
+        "SAT 22:00-24:00", "SUN 00:00-06:00", "SUN 22:00-24:00"), days(hours));
+    assertTrue(hours.isOpenAt(at(5, 3, 0)), "Friday night lasts into Saturday");
+    assertTrue(hours.isOpenAt(at(0, 5, 59)), "Sunday night lasts into Monday");
+    assertFalse(hours.isOpenAt(at(0, 22, 0)));
+    assertFalse(hours.isOpenAt(at(4, 3, 0)), "Thursday night is not open");
+  }
+
+  @Test
+  public void testParse_SameOpenAndCloseShouldBeOpenAroundTheClock() {
+    OperatingHours hours = OperatingHours.parse("12 AM - 12 AM");
+
+    assertEquals(7, hours.toIntervals().size());
+    assertEquals("24:00", hours.toIntervals().get(6).getClose());
+    for (int minute = 0; minute < OperatingHours.MINUTES_PER_WEEK; minute += 7) {
+      assertTrue(hours.isOpenAt(minute));
+    }
+  }
+
+  @Test
+  public void testParse_InvalidText_ShouldThrow() {
+    assertThrows(IllegalArgumentException.class, () -> OperatingHours.parse("9-5"));
+    assertThrows(IllegalArgumentException.class, () -> OperatingHours.parse("13 AM - 5 PM"));
+    assertThrows(IllegalArgumentException.class, () -> OperatingHours.parse("9:75 AM - 5 PM"));
+    assertThrows(IllegalArgumentException.class,
+        () -> OperatingHours.parse("Monday 9 AM - 5 PM"));
+    assertThrows(IllegalArgumentException.class, () -> OperatingHours.parse(null));
+  }
+}
@@ -0,0 +1,119 @@
+package com.ase.bytealchemists.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.ase.bytealchemists.util.GeoUtils;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+/**
+ * This class contains the unit tests for the RouteCorridor class.
+ */
+public class RouteCorridorTest {
+
+  // A walk through lower Manhattan: north along Broadway, then east
+  private static final List<double[]> ROUTE = List.of(
+      new double[] {40.7075, -74.0113},
+      new double[] {40.7295, -73.9965},
+      new double[] {40.7308, -73.9730},
+      new double[] {40.7480, -73.9680});
+
+  /**
+   * Brute force: the distance to, and along-route position of, the closest of many points
+   * interpolated along each segment.
+   */
+  private static double[] bruteForce(List<double[]> route, double latitude, double longitude) {
+    double best = Double.MAX_VALUE;
+    double bestAlong = 0.0;
+    double start = 0.0;
+    for (int i = 0; i + 1 < route.size(); i++) {
+      double[] a = GeoUtils.unitVector(route.get(i)[0], route.get(i)[1]);
+      double[] b = GeoUtils.unitVector(route.get(i + 1)[0], route.get(i + 1)[1]);
+      double length = GeoUtils.distanceKm(a, b);
+      double angle = length / GeoUtils.EARTH_RADIUS_KM;
+      for (int step = 0; step <= 20000; step++) {
+        double t = step / 20000.0;
+        double wa = Math.sin((1 - t) * angle) / Math.sin(angle);
+        double wb = Math.sin(t * angle) / Math.sin(angle);
+        double[] p = {wa * a[0] + wb * b[0], wa * a[1] + wb * b[1], wa * a[2] + wb * b[2]};
+        double distance = GeoUtils.distanceKm(p, GeoUtils.unitVector(latitude, longitude));
+        if (distance < best) {
+          best = distance;
+          bestAlong = start + t * length;
+        }
+      }
+      start += length;
+    }
+    return new double[] {best, bestAlong};
+  }
+
+  @Test
+  public void testLocate_ShouldMatchBruteForceDistanceAndPosition() {
+    RouteCorridor corridor = new RouteCorridor(ROUTE, 0.5);
+    Random random = new Random(17);
+    int inside = 0;
+    for (int i = 0; i < 300; i++) {
+      double lat = 40.70 + random.nextDouble() * 0.055;
+      double lon = -74.02 + random.nextDouble() * 0.06;
+      double[] expected = bruteForce(ROUTE, lat, lon);
+      RouteCorridor.Position position = corridor.locate(lat, lon);
+      if (Math.abs(expected[0] - 0.5) < 0.001) {
+        continue; // Too close to the edge for the brute force to decide
+      }
+      if (expected[0] < 0.5) {
+        inside++;
+        assertNotNull(position, "A point within the width should be located");
+        assertEquals(expected[0], position.distanceKm(), 0.001);
+        assertEquals(expected[1], position.alongRouteKm(), 0.002);
+      } else {
+        assertNull(position, "A point beyond the width should not be located");
+      }
+    }
+    assertTrue(inside > 30, "The sample should include points inside the corridor");
+  }
+
+  @Test
+  public void testSearchCircles_ShouldCoverCorridor() {
+    RouteCorridor corridor = new RouteCorridor(ROUTE, 0.3);
+    Random random = new Random(23);
+    for (int i = 0; i < 2000; i++) {
+      double lat = 40.70 + random.nextDouble() * 0.055;
+      double lon = -74.02 + random.nextDouble() * 0.06;
+      if (corridor.locate(lat, lon) == null) {
+        continue;
+      }
+      boolean covered = false;
+      for (RouteCorridor.Circle circle : corridor.getSearchCircles()) {
+        covered |= GeoUtils.distanceKm(circle.latitude(), circle.longitude(), lat, lon)
+            < circle.radiusKm();
+      }
+      assertTrue(covered, "Every point of the corridor should lie in a search circle");
+    }
+  }
+
+  @Test
+  public void testLocate_BeforeStart_ShouldMeasureFromFirstPoint() {
+    List<double[]> route = new ArrayList<>();
+    route.add(new double[] {0.0, 0.0});
+    route.add(new double[] {0.0, 1.0});
+    RouteCorridor corridor = new RouteCorridor(route, 20.0);
+
+    RouteCorridor.Position position = corridor.locate(0.0, -0.1);
+
+    assertEquals(0.0, position.alongRouteKm(), 1e-9);
+    assertEquals(GeoUtils.distanceKm(0.0, 0.0, 0.0, -0.1), position.distanceKm(), 1e-6);
+    assertEquals(GeoUtils.distanceKm(0.0, 0.0, 0.0, 1.0), corridor.getLengthKm(), 1e-6);
+  }
+
+  @Test
+  public void testConstructor_InvalidInput_ShouldThrow() {
+    assertThrows(IllegalArgumentException.class, () -> new RouteCorridor(List.of(), 1.0));
+    assertThrows(IllegalArgumentException.class, () -> new RouteCorridor(ROUTE, 0.0));
+  }
+}
@@ -0,0 +1,178 @@
+package com.ase.bytealchemists.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.ase.bytealchemists.model.AutocompleteStats;
+import com.ase.bytealchemists.model.AutocompleteSuggestion;
+import com.ase.bytealchemists.model.ServiceEntity;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+/**
+ * This class contains the unit tests for the ServiceAutocomplete and SuggestionTrie classes.
+ */
+public class ServiceAutocompleteTest {
+
+  private static ServiceEntity service(long id, String name, String city, String category) {
+    return new ServiceEntity(id, name, category, 40.7128, -74.0060, "123 Main St", city, "NY",
+        "10001", "1234567890", "9 AM - 5 PM", true);
+  }
+
+  private static List<String> texts(List<AutocompleteSuggestion> suggestions) {
+    List<String> texts = new ArrayList<>();
+    for (AutocompleteSuggestion suggestion : suggestions) {
+      texts.add(suggestion.getText() + ":" + suggestion.getType() + ":"
+          + suggestion.getPopularity());
+    }
+    return texts;
+  }
+
+  private static ServiceAutocomplete autocomplete() {
+    ServiceAutocomplete autocomplete = new ServiceAutocomplete(3);
+    autocomplete.rebuild(List.of(
+        ServiceTextIndexTest.text(service(1, "Salvation Army", "Brooklyn", "shelters")),
+        ServiceTextIndexTest.text(service(2, "Salvation Army", "Bronx", "shelters")),
+        ServiceTextIndexTest.text(service(3, "Bronx Pantry", "Bronx", "food_banks")),
+        ServiceTextIndexTest.text(service(4, "Brooklyn Clinic", "Brooklyn", "clinics")),
+        ServiceTextIndexTest.text(service(5, "Brooklyn Kitchen", "Brooklyn", "food_banks"))),
+        List.of("shelters", "food_banks", "clinics", "showers"));
+    return autocomplete;
+  }
+
+  @Test
+  public void testComplete_ShouldRankByPopularityAcrossTypes() {
+    ServiceAutocomplete autocomplete = autocomplete();
+
+    assertEquals(List.of("Brooklyn:city:3", "Bronx:city:2", "Bronx Pantry:name:1"),
+        texts(autocomplete.complete("bro", null, 10)), "The limit is capped at 3");
+    assertEquals(List.of("Brooklyn Clinic:name:1", "Brooklyn Kitchen:name:1"),
+        texts(autocomplete.complete("BROOKLYN ", ServiceAutocomplete.Type.NAME, 10)));
+    assertEquals(List.of("shelters:category:2", "showers:category:0"),
+        texts(autocomplete.complete("sh", ServiceAutocomplete.Type.CATEGORY, 10)),
+        "Categories without services are still suggested");
+    assertTrue(autocomplete.complete("queens", null, 10).isEmpty());
+    assertEquals(ServiceAutocomplete.Type.CITY, ServiceAutocomplete.Type.fromParameter("City"));
+    assertThrows(IllegalArgumentException.class,
+        () -> ServiceAutocomplete.Type.fromParameter("street"));
+  }
+
+  @Test
+  public void testComplete_ShouldCorrectMistypedPrefixes() {
+    ServiceAutocomplete autocomplete = autocomplete();
+
+    assertEquals(List.of("Bronx:city:2", "Bronx Pantry:name:1"),
+        texts(autocomplete.complete("brnx", null, 10)));
+    assertEquals(List.of("shelters:category:2"),
+        texts(autocomplete.complete("sheltrs", null, 10)));
+    assertEquals(List.of("Salvation Army:name:2"),
+        texts(autocomplete.complete("Salvaton Amy", ServiceAutocomplete.Type.NAME, 10)),
+        "Longer prefixes allow two edits");
+    assertTrue(autocomplete.complete("brx", null, 10).isEmpty(),
+        "Short prefixes are not corrected");
+  }
+
+  @Test
+  public void testEvents_ShouldMoveCountsIncrementally() {
+    ServiceAutocomplete autocomplete = autocomplete();
+
+    autocomplete.onServiceChanged(new ServiceChangedEvent(3L,
+        service(3, "Bronx Pantry", "Queens", "food_banks")));
+    autocomplete.onServiceChanged(new ServiceChangedEvent(4L, null));
+    autocomplete.onCategoryChanged(new CategoryChangedEvent("showers", true));
+    autocomplete.onCategoryChanged(new CategoryChangedEvent("Clinics", false));
+
+    assertEquals(List.of("Brooklyn:city:2", "Bronx:city:1", "Bronx Pantry:name:1"),
+        texts(autocomplete.complete("bro", null, 3)));
+    assertEquals(List.of("Queens:city:1"), texts(autocomplete.complete("q", null, 3)));
+    assertEquals(List.of("shelters:category:2"),
+        texts(autocomplete.complete("sh", ServiceAutocomplete.Type.CATEGORY, 3)));
+    assertEquals(List.of("clinics:category:0"),
+        texts(autocomplete.complete("clin", null, 3)), "The clinic name should be gone");
+
+    AutocompleteStats stats = autocomplete.stats();
+    assertEquals(3, stats.getNames());
+    assertEquals(3, stats.getCities());
+    assertEquals(3, stats.getCategories());
+    assertTrue(stats.getEstimatedBytes() > 0);
+  }
+
+  /**
+   * The fewest edits turning a prefix into the start of a text.
+   */
+  private static int prefixDistance(String prefix, String text) {
+    int[] row = new int[prefix.length() + 1];
+    for (int j = 0; j <= prefix.length(); j++) {
+      row[j] = j;
+    }
+    int best = row[prefix.length()];
+    for (int i = 1; i <= text.length(); i++) {
+      int[] next = new int[row.length];
+      next[0] = i;
+      for (int j = 1; j <= prefix.length(); j++) {
+        int cost = prefix.charAt(j - 1) == text.charAt(i - 1) ? 0 : 1;
+        next[j] = Math.min(Math.min(row[j] + 1, next[j - 1] + 1), row[j - 1] + cost);
+      }
+      row = next;
+      best = Math.min(best, row[prefix.length()]);
+    }
+    return best;
+  }
+
+  @Test
+  public void testTrie_ShouldMatchBruteForceUnderRandomChanges() {
+    Random random = new Random(5);
+    SuggestionTrie trie = new SuggestionTrie(4);
+    Map<String, Long> expected = new HashMap<>();
+    String[] syllables = {"ba", "b", "an", "ban", "na", "a", "nab"};
+    for (int step = 0; step < 3000; step++) {
+      StringBuilder text = new StringBuilder();
+      for (int i = random.nextInt(4); i >= 0; i--) {
+        text.append(syllables[random.nextInt(syllables.length)]);
+      }
+      String key = text.toString();
+      if (random.nextInt(3) == 0) {
+        assertEquals(expected.remove(key) != null, trie.remove(key), key);
+      } else {
+        long weight = random.nextInt(20);
+        expected.put(key, weight);
+        trie.put(key, weight);
+      }
+
+      String prefix = key.substring(0, random.nextInt(key.length() + 1));
+      List<String> brute = new ArrayList<>();
+      expected.entrySet().stream()
+          .filter(entry -> entry.getKey().startsWith(prefix))
+          .sorted(Map.Entry.<String, Long>comparingByValue().reversed()
+              .thenComparing(Map.Entry.comparingByKey()))
+          .limit(4)
+          .forEach(entry -> brute.add(entry.getKey() + "=" + entry.getValue()));
+      List<String> actual = new ArrayList<>();
+      for (SuggestionTrie.Entry entry : trie.complete(prefix, 4)) {
+        actual.add(entry.getText() + "=" + entry.getWeight());
+      }
+      assertEquals(brute, actual, "Prefix " + prefix + " after step " + step);
+      assertEquals(expected.size(), trie.size());
+
+      List<String> bruteFuzzy = new ArrayList<>();
+      expected.entrySet().stream()
+          .filter(entry -> prefixDistance(key, entry.getKey()) <= 1)
+          .sorted(Map.Entry.<String, Long>comparingByValue().reversed()
+              .thenComparing(Map.Entry.comparingByKey()))
+          .limit(4)
+          .forEach(entry -> bruteFuzzy.add(entry.getKey() + "=" + entry.getValue()));
+      List<String> actualFuzzy = new ArrayList<>();
+      for (SuggestionTrie.Entry entry : trie.completeFuzzy(key, 1, 4)) {
+        actualFuzzy.add(entry.getText() + "=" + entry.getWeight());
+      }
+      assertEquals(bruteFuzzy, actualFuzzy, "Fuzzy prefix " + key + " after step " + step);
+    }
+    assertNull(trie.get("zzz"));
+  }
+}
@@ -0,0 +1,233 @@
+package com.ase.bytealchemists.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.ase.bytealchemists.model.ServiceEntity;
+import com.ase.bytealchemists.repository.ServiceRepository;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.mockito.invocation.InvocationOnMock;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+/**
+ * This class contains the unit tests for the ServiceAvailabilityBuffer class.
+ */
+public class ServiceAvailabilityBufferTest {
+
+  @Mock
+  private ServiceRepository serviceRepository;
+
+  @Mock
+  private ServiceSpatialIndex spatialIndex;
+
+  @Mock
+  private ApplicationEventPublisher eventPublisher;
+
+  // Not started: the tests flush by hand
+  @InjectMocks
+  private ServiceAvailabilityBuffer buffer = new ServiceAvailabilityBuffer(1000, 2);
+
+  private final List<List<ServiceEntity>> writes = new ArrayList<>();
+  private final List<long[]> storedVersions = new ArrayList<>();
+
+  @BeforeEach
+  public void setUp() {
+    MockitoAnnotations.openMocks(this);
+    // Stands in for the JDBC batch: every row is at its expected version
+    when(serviceRepository.updateAvailability(anyList(), any(long[].class)))
+        .thenAnswer(this::writeAll);
+  }
+
+  private int[] writeAll(InvocationOnMock invocation) {
+    List<ServiceEntity> services = invocation.getArgument(0);
+    writes.add(new ArrayList<>(services));
+    storedVersions.add(invocation.getArgument(1));
+    int[] counts = new int[services.size()];
+    Arrays.fill(counts, 1);
+    return counts;
+  }
+
+  private ServiceEntity stored(long id, boolean availability, long version) {
+    ServiceEntity service = new ServiceEntity(id, "Shelter " + id, "Shelter", 40.7128,
+        -74.0060, "123 Main St", "New York", "NY", "10001", "1234567890", "9 AM - 5 PM",
+        availability);
+    service.setVersion(version);
+    when(serviceRepository.findById(id)).thenReturn(Optional.of(service));
+    return service;
+  }
+
+  @Test
+  public void testSetAvailability_ShouldApplyAtOnceAndReadTheRowOnlyOnce() {
+    ServiceEntity row = stored(1L, true, 3L);
+
+    ServiceEntity first = buffer.setAvailability(1L, false);
+    ServiceEntity second = buffer.setAvailability(1L, true);
+
+    assertFalse(first.getAvailability());
+    assertEquals(4L, first.getVersion());
+    assertTrue(second.getAvailability());
+    assertEquals(5L, second.getVersion(), "Every change is a new version");
+    assertTrue(row.getAvailability(), "The row read from the database is not modified");
+    assertSame(second, buffer.get(1L));
+    assertEquals(1, buffer.size());
+    verify(serviceRepository, times(1)).findById(1L);
+    verify(spatialIndex, times(1)).put(first);
+    verify(spatialIndex, times(1)).put(second);
+    ArgumentCaptor<ServiceChangedEvent> events =
+        ArgumentCaptor.forClass(ServiceChangedEvent.class);
+    verify(eventPublisher, times(2)).publishEvent(events.capture());
+    assertSame(second, events.getAllValues().get(1).getService());
+    verify(serviceRepository, never()).updateAvailability(anyList(), any(long[].class));
+  }
+
+  @Test
+  public void testSetAvailability_SameValueOrUnknownService_ShouldChangeNothing() {
+    stored(1L, true, 3L);
+    when(serviceRepository.findById(2L)).thenReturn(Optional.empty());
+
+    assertEquals(3L, buffer.setAvailability(1L, true).getVersion());
+    assertNull(buffer.setAvailability(2L, false));
+
+    assertTrue(buffer.isEmpty());
+    verify(eventPublisher, never()).publishEvent(any(ServiceChangedEvent.class));
+  }
+
+  @Test
+  public void testFlush_ShouldWriteOneRowPerServiceInBatches() {
+    stored(1L, true, 3L);
+    stored(2L, true, 0L);
+    stored(3L, false, 7L);
+    buffer.setAvailability(1L, false);
+    buffer.setAvailability(1L, true);
+    buffer.setAvailability(1L, false);
+    buffer.setAvailability(2L, false);
+    buffer.setAvailability(3L, true);
+
+    assertEquals(3, buffer.flush());
+
+    assertEquals(2, writes.size(), "Batches hold at most two rows");
+    List<ServiceEntity> written = new ArrayList<>(writes.get(0));
+    written.addAll(writes.get(1));
+    assertEquals(3, written.size());
+    for (int i = 0; i < written.size(); i++) {
+      ServiceEntity service = written.get(i);
+      long expected = storedVersions.get(i / 2)[i % 2];
+      if (service.getId() == 1L) {
+        assertFalse(service.getAvailability());
+        assertEquals(6L, service.getVersion());
+        assertEquals(3L, expected, "The row is only written if still at its read version");
+      }
+    }
+    assertTrue(buffer.isEmpty());
+    assertEquals(0, buffer.flush());
+  }
+
+  @Test
+  public void testFlush_RowChangedElsewhere_ShouldPublishTheStoredRow() {
+    stored(1L, true, 3L);
+    buffer.setAvailability(1L, false);
+    doReturn(new int[] {0}).when(serviceRepository)
+        .updateAvailability(anyList(), any(long[].class));
+    ServiceEntity changed = stored(1L, true, 9L);
+
+    assertEquals(0, buffer.flush());
+
+    assertTrue(buffer.isEmpty());
+    verify(spatialIndex, times(1)).put(changed);
+    ArgumentCaptor<ServiceChangedEvent> events =
+        ArgumentCaptor.forClass(ServiceChangedEvent.class);
+    verify(eventPublisher, times(2)).publishEvent(events.capture());
+    assertSame(changed, events.getAllValues().get(1).getService());
+  }
+
+  @Test
+  public void testFlush_Failure_ShouldKeepTheChangesBuffered() {
+    stored(1L, true, 3L);
+    buffer.setAvailability(1L, false);
+    doThrow(new QueryTimeoutException("Lock wait timeout exceeded")).when(serviceRepository)
+        .updateAvailability(anyList(), any(long[].class));
+
+    assertThrows(QueryTimeoutException.class, () -> buffer.flush());
+
+    assertEquals(1, buffer.size());
+    assertFalse(buffer.get(1L).getAvailability());
+  }
+
+  @Test
+  public void testBackgroundFlush_Failure_ShouldBeRetriedByTheNextRun()
+      throws InterruptedException {
+    ServiceAvailabilityBuffer scheduled = new ServiceAvailabilityBuffer(10, 500);
+    ReflectionTestUtils.setField(scheduled, "serviceRepository", serviceRepository);
+    ReflectionTestUtils.setField(scheduled, "spatialIndex", spatialIndex);
+    ReflectionTestUtils.setField(scheduled, "eventPublisher", eventPublisher);
+    doThrow(new IllegalStateException("Connection reset")).doAnswer(this::writeAll)
+        .when(serviceRepository).updateAvailability(anyList(), any(long[].class));
+    stored(1L, true, 3L);
+
+    scheduled.setAvailability(1L, false);
+    scheduled.start();
+    for (int i = 0; i < 500 && !scheduled.isEmpty(); i++) {
+      Thread.sleep(10);
+    }
+    scheduled.stop();
+
+    assertTrue(scheduled.isEmpty(), "A failed run should not stop the later ones");
+    assertEquals(1, writes.size());
+    assertFalse(writes.get(0).get(0).getAvailability());
+    verify(serviceRepository, times(2)).updateAvailability(anyList(), any(long[].class));
+  }
+
+  @Test
+  public void testFlushOne_ShouldOnlyWriteThatService() throws InterruptedException {
+    stored(1L, true, 3L);
+    stored(2L, true, 3L);
+    buffer.setAvailability(1L, false);
+    buffer.setAvailability(2L, false);
+
+    buffer.flush(2L);
+    buffer.discard(1L);
+
+    assertEquals(1, writes.size());
+    assertEquals(2L, writes.get(0).get(0).getId());
+    assertTrue(buffer.isEmpty());
+    buffer.stop();
+    assertEquals(1, writes.size(), "Nothing is left to write on shutdown");
+  }
+
+  @Test
+  public void testSetAvailability_WithoutInterval_ShouldWriteAtOnce() {
+    ServiceAvailabilityBuffer writeThrough = new ServiceAvailabilityBuffer(0, 500);
+    ReflectionTestUtils.setField(writeThrough, "serviceRepository", serviceRepository);
+    ReflectionTestUtils.setField(writeThrough, "spatialIndex", spatialIndex);
+    ReflectionTestUtils.setField(writeThrough, "eventPublisher", eventPublisher);
+    stored(1L, true, 3L);
+
+    writeThrough.setAvailability(1L, false);
+
+    assertEquals(1, writes.size());
+    assertTrue(writeThrough.isEmpty());
+  }
+}
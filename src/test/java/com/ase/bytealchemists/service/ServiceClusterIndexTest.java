@@ -0,0 +1,207 @@
+package com.ase.bytealchemists.service;
+
+import static com.ase.bytealchemists.service.ServiceSpatialIndexTest.service;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.ase.bytealchemists.model.ServiceCluster;
+import com.ase.bytealchemists.model.ServiceEntity;
+import com.ase.bytealchemists.model.ServiceLocation;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+/**
+ * This class contains the unit tests for the ServiceClusterIndex class.
+ */
+public class ServiceClusterIndexTest {
+
+  private static final String[] CATEGORIES = {"shelters", "food_banks", "clinics"};
+
+  private static ServiceLocation location(ServiceEntity service) {
+    return new ServiceLocation() {
+      @Override
+      public Long getId() {
+        return service.getId();
+      }
+
+      @Override
+      public Double getLatitude() {
+        return service.getLatitude();
+      }
+
+      @Override
+      public Double getLongitude() {
+        return service.getLongitude();
+      }
+
+      @Override
+      public String getCategory() {
+        return service.getCategory();
+      }
+
+      @Override
+      public Boolean getAvailability() {
+        return service.getAvailability();
+      }
+    };
+  }
+
+  private static List<String> describe(List<ServiceCluster> clusters) {
+    List<String> lines = new ArrayList<>();
+    for (ServiceCluster cluster : clusters) {
+      lines.add(String.format("%.9f %.9f %d %s %s %s", cluster.getLatitude(),
+          cluster.getLongitude(), cluster.getCount(), cluster.getCategories(),
+          cluster.getServiceId(), cluster.getExpansionZoom()));
+    }
+    lines.sort(null);
+    return lines;
+  }
+
+  @Test
+  public void testClusters_ShouldCountEveryServiceOnceAtEachZoom() {
+    ServiceClusterIndex index = new ServiceClusterIndex(16, 64);
+    Random random = new Random(7);
+    List<ServiceLocation> locations = new ArrayList<>();
+    Map<String, Integer> perCategory = new HashMap<>();
+    for (long id = 1; id <= 2000; id++) {
+      String category = CATEGORIES[(int) (id % 3)];
+      locations.add(location(service(id, 40.6 + random.nextDouble() * 0.3,
+          -74.1 + random.nextDouble() * 0.3, category)));
+      perCategory.merge(category, 1, Integer::sum);
+    }
+    index.rebuild(locations);
+
+    for (int zoom = 0; zoom <= 17; zoom++) {
+      int total = 0;
+      Map<String, Integer> categories = new HashMap<>();
+      List<ServiceCluster> clusters = index.clusters(40.0, -75.0, 41.5, -73.0, zoom);
+      for (ServiceCluster cluster : clusters) {
+        total += cluster.getCount();
+        cluster.getCategories().forEach((name, count) -> categories.merge(name, count,
+            Integer::sum));
+      }
+      assertEquals(2000, total, "Zoom " + zoom + " should account for every service");
+      assertEquals(perCategory, categories, "Category counts should add up at zoom " + zoom);
+      if (zoom > 16) {
+        assertEquals(2000, clusters.size(), "Above the max zoom services are not clustered");
+      }
+    }
+    assertEquals(1, index.clusters(40.0, -75.0, 41.5, -73.0, 4).size(),
+        "The whole sample should be one cluster at a low zoom");
+  }
+
+  @Test
+  public void testOnServiceChanged_ShouldMatchRebuild() {
+    ServiceClusterIndex incremental = new ServiceClusterIndex(14, 64);
+    Random random = new Random(13);
+    Map<Long, ServiceEntity> current = new HashMap<>();
+    for (int step = 0; step < 3000; step++) {
+      long id = 1 + random.nextInt(500);
+      if (random.nextInt(4) == 0) {
+        current.remove(id);
+        incremental.onServiceChanged(new ServiceChangedEvent(id, null));
+      } else {
+        ServiceEntity service = service(id, 40.6 + random.nextDouble() * 0.3,
+            -74.1 + random.nextDouble() * 0.3, CATEGORIES[random.nextInt(3)]);
+        current.put(id, service);
+        incremental.onServiceChanged(new ServiceChangedEvent(id, service));
+      }
+    }
+    ServiceClusterIndex rebuilt = new ServiceClusterIndex(14, 64);
+    List<ServiceLocation> locations = new ArrayList<>();
+    for (ServiceEntity service : current.values()) {
+      locations.add(location(service));
+    }
+    rebuilt.rebuild(locations);
+
+    for (int zoom = 0; zoom <= 15; zoom++) {
+      assertEquals(describe(rebuilt.clusters(40.0, -75.0, 41.5, -73.0, zoom)),
+          describe(incremental.clusters(40.0, -75.0, 41.5, -73.0, zoom)),
+          "Incremental updates should give the same clusters at zoom " + zoom);
+    }
+  }
+
+  @Test
+  public void testExpansionZoom_ShouldBeFirstZoomWhereClusterSplits() {
+    ServiceClusterIndex index = new ServiceClusterIndex(16, 64);
+    index.onServiceChanged(new ServiceChangedEvent(1L, service(1L, 40.7128, -74.0060,
+        "shelters")));
+    index.onServiceChanged(new ServiceChangedEvent(2L, service(2L, 40.7150, -74.0020,
+        "food_banks")));
+
+    ServiceCluster cluster = index.clusters(40.0, -75.0, 41.0, -73.0, 5).get(0);
+
+    assertEquals(2, (int) cluster.getCount());
+    assertNull(cluster.getServiceId());
+    assertEquals(Map.of("food_banks", 1, "shelters", 1), cluster.getCategories());
+    int split = cluster.getExpansionZoom();
+    assertEquals(1, index.clusters(40.0, -75.0, 41.0, -73.0, split - 1).size());
+    List<ServiceCluster> markers = index.clusters(40.0, -75.0, 41.0, -73.0, split);
+    assertEquals(2, markers.size(), "The cluster should split at its expansion zoom");
+    assertTrue(markers.get(0).getServiceId() != null, "Split markers are single services");
+  }
+
+  @Test
+  public void testClusters_ShouldHandleViewportAcrossAntimeridian() {
+    ServiceClusterIndex index = new ServiceClusterIndex(16, 64);
+    index.onServiceChanged(new ServiceChangedEvent(1L, service(1L, -17.7, 178.4, "clinics")));
+    index.onServiceChanged(new ServiceChangedEvent(2L, service(2L, -14.3, -170.7, "clinics")));
+    index.onServiceChanged(new ServiceChangedEvent(3L, service(3L, 0.0, 0.0, "clinics")));
+
+    assertEquals(2, index.clusters(-20.0, 170.0, -10.0, -165.0, 10).size(),
+        "Both sides of the antimeridian should be included");
+  }
+
+  @Test
+  public void testTileClusters_ShouldCountTheFilteredServicesOfEachTile() {
+    ServiceClusterIndex index = new ServiceClusterIndex(12, 64);
+    Random random = new Random(17);
+    List<ServiceEntity> services = new ArrayList<>();
+    for (long id = 1; id <= 1000; id++) {
+      ServiceEntity service = service(id, 40.6 + random.nextDouble() * 0.3,
+          -74.1 + random.nextDouble() * 0.3, CATEGORIES[random.nextInt(3)],
+          random.nextBoolean());
+      services.add(service);
+      index.onServiceChanged(new ServiceChangedEvent(id, service));
+    }
+
+    for (int zoom = 0; zoom <= 12; zoom += 3) {
+      int[] tile = ServiceTiles.tileOf(40.75, -73.95, zoom);
+      for (String category : new String[] {null, "Shelters"}) {
+        for (Boolean availability : new Boolean[] {null, true, false}) {
+          int expected = 0;
+          for (ServiceEntity service : services) {
+            int[] of = ServiceTiles.tileOf(service.getLatitude(), service.getLongitude(), zoom);
+            if (of[0] == tile[0] && of[1] == tile[1]
+                && (category == null || category.equalsIgnoreCase(service.getCategory()))
+                && (availability == null || availability.equals(service.getAvailability()))) {
+              expected++;
+            }
+          }
+          int total = 0;
+          for (ServiceCluster cluster : index.tileClusters(zoom, tile[0], tile[1], category,
+              availability)) {
+            total += cluster.getCount();
+            assertEquals((int) cluster.getCount(),
+                cluster.getCategories().values().stream().mapToInt(Integer::intValue).sum(),
+                "Category counts should add up to the filtered count");
+          }
+          assertEquals(expected, total, "Zoom " + zoom + ", " + category + ", " + availability);
+        }
+      }
+    }
+    assertNull(index.tileClusters(13, 0, 0, null, null), "Deeper tiles are not clustered");
+  }
+
+  @Test
+  public void testConstructor_InvalidSettings_ShouldThrow() {
+    assertThrows(IllegalArgumentException.class, () -> new ServiceClusterIndex(-1, 64));
+    assertThrows(IllegalArgumentException.class, () -> new ServiceClusterIndex(16, 0));
+  }
+}
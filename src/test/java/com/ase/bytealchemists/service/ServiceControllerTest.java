@@ -1,32 +1,58 @@
 package com.ase.bytealchemists.service;
 
+import static org.hamcrest.Matchers.containsString;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 import com.ase.bytealchemists.config.TestSecurityConfig;
 import com.ase.bytealchemists.controller.ServiceController;
+import com.ase.bytealchemists.model.BatchQueryResult;
+import com.ase.bytealchemists.model.BulkDeleteRequest;
+import com.ase.bytealchemists.model.BulkDeleteResult;
+import com.ase.bytealchemists.model.CursorPage;
+import com.ase.bytealchemists.model.ImportError;
+import com.ase.bytealchemists.model.ImportResult;
+import com.ase.bytealchemists.model.NearbyService;
+import com.ase.bytealchemists.model.QueryCacheStats;
+import com.ase.bytealchemists.model.ServiceAlongRoute;
+import com.ase.bytealchemists.model.ServiceCluster;
 import com.ase.bytealchemists.model.ServiceEntity;
+import com.ase.bytealchemists.model.ServiceFields;
+import com.ase.bytealchemists.model.ServiceSearchHit;
+import com.ase.bytealchemists.model.ServiceSort;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import java.time.Instant;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.Import;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.RequestBuilder;
 
 
@@ -46,6 +72,9 @@ public class ServiceControllerTest {
   @MockBean
   private CategoryService categoryService;
 
+  @MockBean
+  private ServiceImportService serviceImportService;
+
   private final ObjectMapper objectMapper = new ObjectMapper();
 
   // Test for registerService() method when success
@@ -141,7 +170,8 @@ public class ServiceControllerTest {
     List<ServiceEntity> services = Arrays.asList(service1, service2);
 
     // Mock the service layer call
-    when(serviceService.queryServices(40.748817, -73.985428, "shelters", true))
+    when(serviceService.queryServices(40.748817, -73.985428, null, "shelters", true, null,
+        null, null))
         .thenReturn(services);
 
     // Act & Assert: Perform the GET request and verify the response
@@ -161,7 +191,7 @@ public class ServiceControllerTest {
   @Test
   void testQueryServices_NoFilters_ShouldReturnEmptyList() throws Exception {
     // Arrange: mock the service to return an empty list
-    when(serviceService.queryServices(null, null, null, null))
+    when(serviceService.queryServices(null, null, null, null, null, null, null, null))
         .thenReturn(Arrays.asList());
 
     // Act & Assert: Perform the GET request with no filters and verify the response
@@ -174,7 +204,8 @@ public class ServiceControllerTest {
   @Test
   void testQueryServices_InvalidCategory_ShouldReturnEmptyList() throws Exception {
     // Arrange: mock the service to return an empty list for an invalid category
-    when(serviceService.queryServices(40.748817, -73.985428, "invalid-category", true))
+    when(serviceService.queryServices(40.748817, -73.985428, null, "invalid-category",
+        true, null, null, null))
         .thenReturn(Arrays.asList());
 
     // Act & Assert: Perform the GET request and verify the response
@@ -188,6 +219,347 @@ public class ServiceControllerTest {
         .andExpect(jsonPath("$.length()").value(0));
   }
 
+  @Test
+  void testQueryServices_WithRadius_ShouldPassRadius() throws Exception {
+    when(serviceService.queryServices(40.748817, -73.985428, 2.5, null, null, null, null,
+        null))
+        .thenReturn(Arrays.asList());
+
+    mockMvc.perform(get("/services/query")
+            .param("latitude", "40.748817")
+            .param("longitude", "-73.985428")
+            .param("radius", "2.5"))
+        .andExpect(status().isOk());
+
+    verify(serviceService, times(1)).queryServices(40.748817, -73.985428, 2.5, null, null,
+        null, null, null);
+  }
+
+  @Test
+  void testQueryServices_NonPositiveRadius_ShouldReturn400() throws Exception {
+    mockMvc.perform(get("/services/query")
+            .param("latitude", "40.748817")
+            .param("longitude", "-73.985428")
+            .param("radius", "0"))
+        .andExpect(status().isBadRequest());
+  }
+
+  @Test
+  void testQueryServices_WithZipcodeAndCity_ShouldPassPlaceFilters() throws Exception {
+    ServiceEntity service = new ServiceEntity(
+        1L, "Shelter A", "shelters", 40.8116, -73.9531,
+        "123 Main St", "New York", "NY", "10027",
+        "123-456-7890", "9 AM - 5 PM", true);
+    when(serviceService.queryServices(null, null, null, null, null, "10027", "New York",
+        null)).thenReturn(Arrays.asList(service));
+
+    mockMvc.perform(get("/services/query")
+            .param("zipcode", "10027")
+            .param("city", "New York"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$[0].zipcode").value("10027"));
+  }
+
+  @Test
+  void testQueryServices_MalformedZipcode_ShouldReturn400() throws Exception {
+    mockMvc.perform(get("/services/query")
+            .param("zipcode", "1002"))
+        .andExpect(status().isBadRequest());
+  }
+
+  @Test
+  void testQueryServices_WithOpenAt_ShouldPassInstant() throws Exception {
+    ServiceEntity service = new ServiceEntity(
+        1L, "Shelter A", "shelters", 40.748817, -73.985428,
+        "123 Main St", "New York", "NY", "10001",
+        "123-456-7890", "Mon-Fri 8 PM - 8 AM", true);
+    when(serviceService.queryServices(40.748817, -73.985428, null, null, null, null, null,
+        null, Instant.parse("2024-05-01T22:30:00Z"))).thenReturn(List.of(service));
+
+    mockMvc.perform(get("/services/query")
+            .param("latitude", "40.748817")
+            .param("longitude", "-73.985428")
+            .param("openAt", "2024-05-01T18:30:00-04:00"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$[0].openingHours[0].day").value("MONDAY"))
+        .andExpect(jsonPath("$[0].openingHours[0].open").value("20:00"))
+        .andExpect(jsonPath("$[0].openingHours[0].close").value("24:00"))
+        .andExpect(jsonPath("$[0].openingHours[1].day").value("TUESDAY"));
+  }
+
+  @Test
+  void testQueryServices_WithOpenNow_ShouldBypassDatasetEtag() throws Exception {
+    when(serviceService.getDatasetEtag(any())).thenReturn("\"k2.7-0123\"");
+    when(serviceService.queryServices(isNull(), isNull(), isNull(), isNull(), isNull(),
+        isNull(), isNull(), isNull(), any(Instant.class))).thenReturn(List.of());
+
+    mockMvc.perform(get("/services/query").param("openNow", "true")
+            .header("If-None-Match", "\"k2.7-0123\""))
+        .andExpect(status().isOk());
+
+    verify(serviceService, times(1)).queryServices(isNull(), isNull(), isNull(), isNull(),
+        isNull(), isNull(), isNull(), isNull(), any(Instant.class));
+  }
+
+  @Test
+  void testQueryServices_InvalidOpenFilter_ShouldReturn400() throws Exception {
+    mockMvc.perform(get("/services/query").param("openAt", "2024-05-01T18:30:00"))
+        .andExpect(status().isBadRequest())
+        .andExpect(content().string(containsString("with an offset")));
+    mockMvc.perform(get("/services/query")
+            .param("openAt", "2024-05-01T18:30:00Z")
+            .param("openNow", "true"))
+        .andExpect(status().isBadRequest())
+        .andExpect(content().string("Give either openAt or openNow, not both."));
+  }
+
+  @Test
+  void testQueryServicesPage_ShouldReturnItemsAndNextCursor() throws Exception {
+    ServiceEntity service = new ServiceEntity(
+        1L, "Shelter A", "shelters", 40.748817, -73.985428,
+        "123 Main St", "New York", "NY", "10001",
+        "123-456-7890", "9 AM - 5 PM", true);
+    when(serviceService.queryServicesPage(40.75, -73.98, null, null, null, "abc", 1))
+        .thenReturn(new CursorPage<>(List.of(new NearbyService(service, 0.47)), "def"));
+
+    mockMvc.perform(get("/services/query/page")
+            .param("latitude", "40.75")
+            .param("longitude", "-73.98")
+            .param("cursor", "abc")
+            .param("limit", "1"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.items[0].name").value("Shelter A"))
+        .andExpect(jsonPath("$.items[0].distanceKm").value(0.47))
+        .andExpect(jsonPath("$.next").value("def"));
+  }
+
+  @Test
+  void testQueryServicesPage_InvalidCursor_ShouldReturn400() throws Exception {
+    when(serviceService.queryServicesPage(40.75, -73.98, null, null, null, "bad", null))
+        .thenThrow(new IllegalArgumentException("Invalid cursor"));
+
+    mockMvc.perform(get("/services/query/page")
+            .param("latitude", "40.75")
+            .param("longitude", "-73.98")
+            .param("cursor", "bad"))
+        .andExpect(status().isBadRequest())
+        .andExpect(content().string("Invalid cursor"));
+
+    mockMvc.perform(get("/services/query/page")
+            .param("latitude", "40.75")
+            .param("longitude", "-73.98")
+            .param("limit", "0"))
+        .andExpect(status().isBadRequest());
+  }
+
+  @Test
+  void testGetQueryCacheStats_ShouldReturnCounters() throws Exception {
+    when(serviceService.getQueryCacheStats())
+        .thenReturn(new QueryCacheStats(3, 1, 0.75, 1, 10000, 0, 0, 12, 500000));
+
+    mockMvc.perform(get("/services/query/cache-stats"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.hits").value(3))
+        .andExpect(jsonPath("$.misses").value(1))
+        .andExpect(jsonPath("$.hitRate").value(0.75));
+  }
+
+  @Test
+  void testQueryServicesBatch_ShouldReturnGroupedResults() throws Exception {
+    ServiceEntity service = new ServiceEntity(
+        1L, "Shelter A", "shelters", 40.748817, -73.985428,
+        "123 Main St", "New York", "NY", "10001",
+        "123-456-7890", "9 AM - 5 PM", true);
+    when(serviceService.queryServicesBatch(any(), eq(2.0), eq("shelters"), isNull()))
+        .thenReturn(new BatchQueryResult(List.of(service), List.of(
+            new BatchQueryResult.OriginResult(40.75, -73.98,
+                List.of(new BatchQueryResult.Match(1L, 0.47))),
+            new BatchQueryResult.OriginResult(40.76, -73.97,
+                List.of(new BatchQueryResult.Match(1L, 1.6))))));
+
+    mockMvc.perform(post("/services/query/batch")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content("{\"origins\": [{\"latitude\": 40.75, \"longitude\": -73.98}, "
+                + "{\"latitude\": 40.76, \"longitude\": -73.97}], "
+                + "\"radius\": 2.0, \"category\": \"shelters\"}"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.services.length()").value(1))
+        .andExpect(jsonPath("$.results[1].matches[0].id").value(1))
+        .andExpect(jsonPath("$.results[1].matches[0].distanceKm").value(1.6));
+  }
+
+  @Test
+  void testQueryServicesBatch_InvalidInput_ShouldReturn400() throws Exception {
+    mockMvc.perform(post("/services/query/batch")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content("{\"origins\": []}"))
+        .andExpect(status().isBadRequest());
+
+    mockMvc.perform(post("/services/query/batch")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content("{\"origins\": [{\"latitude\": 95, \"longitude\": -73.98}]}"))
+        .andExpect(status().isBadRequest())
+        .andExpect(content().string("Invalid coordinates."));
+  }
+
+  @Test
+  void testQueryServicesAlongRoute_ShouldReturnServicesWithRoutePosition() throws Exception {
+    ServiceEntity service = new ServiceEntity(
+        1L, "Shelter A", "shelters", 40.748817, -73.985428,
+        "123 Main St", "New York", "NY", "10001",
+        "123-456-7890", "9 AM - 5 PM", true);
+    when(serviceService.queryServicesAlongRoute(any(), eq(0.5), isNull(), eq(true)))
+        .thenReturn(List.of(new ServiceAlongRoute(service, 0.2, 1.3)));
+
+    mockMvc.perform(post("/services/query/route")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content("{\"route\": [{\"latitude\": 40.74, \"longitude\": -73.99}, "
+                + "{\"latitude\": 40.76, \"longitude\": -73.98}], "
+                + "\"width\": 0.5, \"availability\": true}"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$[0].id").value(1))
+        .andExpect(jsonPath("$[0].distanceKm").value(0.2))
+        .andExpect(jsonPath("$[0].alongRouteKm").value(1.3));
+  }
+
+  @Test
+  void testQueryServicesAlongRoute_InvalidInput_ShouldReturn400() throws Exception {
+    mockMvc.perform(post("/services/query/route")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content("{\"route\": [{\"latitude\": 40.74, \"longitude\": -73.99}]}"))
+        .andExpect(status().isBadRequest());
+
+    mockMvc.perform(post("/services/query/route")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content("{\"route\": [{\"latitude\": 40.74, \"longitude\": -73.99}, "
+                + "{\"latitude\": 40.76, \"longitude\": -73.98}], \"width\": -1}"))
+        .andExpect(status().isBadRequest())
+        .andExpect(content().string("Width must be positive."));
+  }
+
+  @Test
+  void testQueryServicesInArea_ShouldReturnServicesInside() throws Exception {
+    ServiceEntity service = new ServiceEntity(
+        1L, "Shelter A", "shelters", 40.748817, -73.985428,
+        "123 Main St", "New York", "NY", "10001",
+        "123-456-7890", "9 AM - 5 PM", true);
+    when(serviceService.findServicesInArea(any(GeoPolygon.class), eq("shelters"), isNull()))
+        .thenReturn(List.of(service));
+
+    mockMvc.perform(post("/services/query/area")
+            .param("category", "shelters")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content("{\"type\": \"Polygon\", \"coordinates\": [[[-74.0, 40.7], "
+                + "[-73.9, 40.7], [-73.9, 40.8], [-74.0, 40.8], [-74.0, 40.7]]]}"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$[0].id").value(1));
+  }
+
+  @Test
+  void testQueryServicesInArea_InvalidGeoJson_ShouldReturn400() throws Exception {
+    mockMvc.perform(post("/services/query/area")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content("{\"type\": \"Point\", \"coordinates\": [-74.0, 40.7]}"))
+        .andExpect(status().isBadRequest());
+  }
+
+  @Test
+  void testStreamQueryServices_ShouldStreamNdjson() throws Exception {
+    ServiceEntity service = new ServiceEntity(
+        1L, "Shelter A", "shelters", 40.748817, -73.985428,
+        "123 Main St", "New York", "NY", "10001",
+        "123-456-7890", "9 AM - 5 PM", true);
+    doAnswer(invocation -> {
+      ServiceStreamWriter writer = invocation.getArgument(5);
+      writer.write(service);
+      return null;
+    }).when(serviceService).streamServices(eq(40.75), eq(-73.98), isNull(), eq("shelters"),
+        isNull(), any(ServiceStreamWriter.class));
+
+    MvcResult result = mockMvc.perform(get("/services/query/stream")
+            .param("latitude", "40.75")
+            .param("longitude", "-73.98")
+            .param("category", "shelters"))
+        .andExpect(request().asyncStarted())
+        .andReturn();
+
+    mockMvc.perform(asyncDispatch(result))
+        .andExpect(status().isOk())
+        .andExpect(content().contentType("application/x-ndjson"))
+        .andExpect(content().string(containsString("\"name\":\"Shelter A\"")));
+  }
+
+  @Test
+  void testStreamAllServices_InvalidFormat_ShouldReturn400() throws Exception {
+    mockMvc.perform(get("/services/stream").param("format", "csv"))
+        .andExpect(status().isBadRequest())
+        .andExpect(content().string("Format must be ndjson or geojson."));
+  }
+
+  @Test
+  void testFindClusters_ShouldReturnClustersWithCategoryCounts() throws Exception {
+    when(serviceService.findClusters(40.6, -74.1, 40.9, -73.8, 11))
+        .thenReturn(List.of(new ServiceCluster(40.75, -73.98, 12,
+            Map.of("food_banks", 5, "shelters", 7), null, 13)));
+
+    mockMvc.perform(get("/services/clusters")
+            .param("minLat", "40.6")
+            .param("minLon", "-74.1")
+            .param("maxLat", "40.9")
+            .param("maxLon", "-73.8")
+            .param("zoom", "11"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$[0].count").value(12))
+        .andExpect(jsonPath("$[0].categories.shelters").value(7))
+        .andExpect(jsonPath("$[0].expansionZoom").value(13));
+  }
+
+  @Test
+  void testFindClusters_InvalidViewport_ShouldReturn400() throws Exception {
+    mockMvc.perform(get("/services/clusters")
+            .param("minLat", "41.0")
+            .param("minLon", "-74.1")
+            .param("maxLat", "40.9")
+            .param("maxLon", "-73.8")
+            .param("zoom", "11"))
+        .andExpect(status().isBadRequest())
+        .andExpect(content().string("Invalid bounding box."));
+  }
+
+  @Test
+  void testFindNearestServices_ShouldReturnServicesWithDistance() throws Exception {
+    ServiceEntity service = new ServiceEntity(
+        1L, "Shelter A", "shelters", 40.748817, -73.985428,
+        "123 Main St", "New York", "NY", "10001",
+        "123-456-7890", "9 AM - 5 PM", true);
+    when(serviceService.findNearestServices(40.75, -73.98, 5, "shelters", true))
+        .thenReturn(List.of(new NearbyService(service, 0.47)));
+
+    mockMvc.perform(get("/services/nearest")
+            .param("lat", "40.75")
+            .param("lon", "-73.98")
+            .param("category", "shelters")
+            .param("availability", "true"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$[0].id").value(1))
+        .andExpect(jsonPath("$[0].name").value("Shelter A"))
+        .andExpect(jsonPath("$[0].distanceKm").value(0.47));
+  }
+
+  @Test
+  void testFindNearestServices_InvalidInput_ShouldReturn400() throws Exception {
+    mockMvc.perform(get("/services/nearest")
+            .param("lat", "95")
+            .param("lon", "-73.98"))
+        .andExpect(status().isBadRequest());
+
+    mockMvc.perform(get("/services/nearest")
+            .param("lat", "40.75")
+            .param("lon", "-73.98")
+            .param("k", "0"))
+        .andExpect(status().isBadRequest());
+  }
+
   /**
    * Tests the PUT /services/{id} endpoint with a full update.
    * Expects a 200 OK status and the updated service entity.
@@ -342,6 +714,7 @@ public class ServiceControllerTest {
 
     when(serviceService.getAllServices()).thenReturn(services);
     mockMvc.perform(get("/services")
+            .param("unpaged", "true")
             .contentType(MediaType.APPLICATION_JSON))
         .andExpect(status().isOk())
         .andExpect(jsonPath("$.length()").value(2))
@@ -354,11 +727,85 @@ public class ServiceControllerTest {
     when(serviceService.getAllServices()).thenReturn(Arrays.asList());
 
     mockMvc.perform(get("/services")
+            .param("unpaged", "true")
             .contentType(MediaType.APPLICATION_JSON))
         .andExpect(status().isOk())
         .andExpect(jsonPath("$.length()").value(0));
   }
 
+  @Test
+  void testGetAllServices_ShouldReturnFirstPageByDefault() throws Exception {
+    ServiceEntity service = new ServiceEntity(
+        1L, "Shelter A", "shelters", 40.748817, -73.985428,
+        "123 Main St", "New York", "NY", "10001",
+        "123-456-7890", "9 AM - 5 PM", true);
+    when(serviceService.getServicesPage(ServiceSort.NAME, null, 1))
+        .thenReturn(new CursorPage<>(Arrays.asList(service), "next-cursor"));
+
+    mockMvc.perform(get("/services")
+            .param("sort", "name")
+            .param("limit", "1"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.items[0].name").value("Shelter A"))
+        .andExpect(jsonPath("$.next").value("next-cursor"));
+    verify(serviceService, never()).getAllServices();
+  }
+
+  @Test
+  void testGetAllServices_InvalidSortOrCursor_ShouldReturn400() throws Exception {
+    when(serviceService.getServicesPage(ServiceSort.ID, "bogus", null))
+        .thenThrow(new IllegalArgumentException("Invalid cursor"));
+
+    mockMvc.perform(get("/services").param("sort", "zipcode"))
+        .andExpect(status().isBadRequest());
+    mockMvc.perform(get("/services").param("limit", "0"))
+        .andExpect(status().isBadRequest());
+    mockMvc.perform(get("/services").param("cursor", "bogus"))
+        .andExpect(status().isBadRequest())
+        .andExpect(content().string("Invalid cursor"));
+  }
+
+  @Test
+  void testGetServiceById_WithFields_ShouldReturnOnlyThoseFields() throws Exception {
+    when(serviceService.getServiceById(eq(1L), any(ServiceFields.class)))
+        .thenReturn(Optional.of(Map.of("id", 1L, "name", "Shelter A")));
+    when(serviceService.getServiceById(eq(2L), any(ServiceFields.class)))
+        .thenReturn(Optional.empty());
+
+    mockMvc.perform(get("/services/1").param("fields", "id,name"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.name").value("Shelter A"))
+        .andExpect(jsonPath("$.address").doesNotExist());
+    mockMvc.perform(get("/services/2").param("fields", "id,name"))
+        .andExpect(status().isNotFound());
+  }
+
+  @Test
+  void testFields_UnknownField_ShouldReturn400() throws Exception {
+    mockMvc.perform(get("/services/1").param("fields", "id,password"))
+        .andExpect(status().isBadRequest())
+        .andExpect(content().string("Unknown field: password"));
+    mockMvc.perform(get("/services").param("fields", "unitX"))
+        .andExpect(status().isBadRequest());
+    mockMvc.perform(get("/services/query").param("fields", ""))
+        .andExpect(status().isBadRequest());
+  }
+
+  @Test
+  void testQueryServices_WithFields_ShouldReturnProjectedRows() throws Exception {
+    when(serviceService.queryServices(eq(40.748817), eq(-73.985428), isNull(), isNull(),
+        isNull(), isNull(), isNull(), isNull(), any(ServiceFields.class)))
+        .thenReturn(List.of(Map.of("id", 1L, "latitude", 40.748817)));
+
+    mockMvc.perform(get("/services/query")
+            .param("latitude", "40.748817")
+            .param("longitude", "-73.985428")
+            .param("fields", "id,latitude"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$[0].id").value(1))
+        .andExpect(jsonPath("$[0].name").doesNotExist());
+  }
+
   @Test
   void testGetServiceById_ValidId_ShouldReturnService() throws Exception {
     Long serviceId = 1L;
@@ -387,5 +834,202 @@ public class ServiceControllerTest {
         .andExpect(status().isNotFound());
   }
 
+  @Test
+  void testGetServiceById_MatchingEtag_ShouldReturn304WithoutReading() throws Exception {
+    when(serviceService.getServiceEtag(eq(1L), isNull())).thenReturn("\"1-3\"");
+    when(serviceService.getServiceById(1L)).thenReturn(Optional.of(new ServiceEntity(
+        1L, "Shelter A", "shelters", 40.748817, -73.985428, "123 Main St", "New York", "NY",
+        "10001", "123-456-7890", "9 AM - 5 PM", true)));
+
+    mockMvc.perform(get("/services/{id}", 1L))
+        .andExpect(status().isOk())
+        .andExpect(header().string("ETag", "\"1-3\""));
+    mockMvc.perform(get("/services/{id}", 1L).header("If-None-Match", "\"1-3\""))
+        .andExpect(status().isNotModified());
+
+    verify(serviceService, times(1)).getServiceById(1L);
+  }
 
+  @Test
+  void testGetAllServices_MatchingDatasetEtag_ShouldReturn304() throws Exception {
+    when(serviceService.getDatasetEtag(any())).thenReturn("\"k2.7-0123\"");
+
+    mockMvc.perform(get("/services").header("If-None-Match", "\"k2.7-0123\""))
+        .andExpect(status().isNotModified());
+    mockMvc.perform(get("/services/query").param("latitude", "40.7").param("longitude", "-74")
+            .header("If-None-Match", "\"k2.7-0123\""))
+        .andExpect(status().isNotModified());
+
+    verify(serviceService, never()).getServicesPage(any(ServiceSort.class), any(), any());
+  }
+
+  @Test
+  void testUpdateService_StaleIfMatch_ShouldReturn412() throws Exception {
+    when(serviceService.updateService(eq(1L), any(ServiceEntity.class), eq(2L)))
+        .thenThrow(new OptimisticLockingFailureException("Service 1 is at version 3"));
+
+    mockMvc.perform(put("/services/{id}", 1L)
+            .header("If-Match", "\"1-2\"")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content("{ \"name\": \"Renamed\" }"))
+        .andExpect(status().isPreconditionFailed());
+    // An ETag of another service never matches
+    mockMvc.perform(put("/services/{id}", 1L)
+            .header("If-Match", "\"7-3\"")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content("{ \"name\": \"Renamed\" }"))
+        .andExpect(status().isPreconditionFailed());
+
+    verify(serviceService, never()).updateService(eq(1L), any(ServiceEntity.class), eq(3L));
+  }
+
+  @Test
+  void testImportServices_Csv_ShouldReturnRowErrors() throws Exception {
+    ImportResult result = new ImportResult(2, 1, 1,
+        List.of(new ImportError(2, "Category does not exist")));
+    when(serviceImportService.importServices(any(), eq(ImportFormat.CSV))).thenReturn(result);
+
+    mockMvc.perform(post("/services/import")
+            .contentType("text/csv; charset=UTF-8")
+            .content("name,category\nShelter A,shelters\nPantry B,food_banks\n"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.imported").value(1))
+        .andExpect(jsonPath("$.failed").value(1))
+        .andExpect(jsonPath("$.errors[0].row").value(2))
+        .andExpect(jsonPath("$.errors[0].message").value("Category does not exist"));
+  }
+
+  @Test
+  void testImportServices_BadCatalog_ShouldReturn400Or415() throws Exception {
+    when(serviceImportService.importServices(any(), eq(ImportFormat.JSON)))
+        .thenThrow(new IllegalArgumentException("Expected a JSON array of services"));
+
+    mockMvc.perform(post("/services/import")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content("{\"name\": \"Shelter A\"}"))
+        .andExpect(status().isBadRequest())
+        .andExpect(content().string("Expected a JSON array of services"));
+    mockMvc.perform(post("/services/import")
+            .contentType(MediaType.APPLICATION_XML)
+            .content("<services/>"))
+        .andExpect(status().isUnsupportedMediaType());
+  }
+
+  @Test
+  void testSearchServices_ShouldReturnScoredServicesOr400() throws Exception {
+    ServiceEntity service = new ServiceEntity(1L, "Bronx Shelter", "shelters", 40.8448,
+        -73.8648, "1 Grand Concourse", "Bronx", "NY", "10451", "123-456-7890", "9 AM - 5 PM",
+        true);
+    when(serviceService.searchServices("bronx shelter", null, null, null, null, true, null))
+        .thenReturn(List.of(new ServiceSearchHit(service, 3.25)));
+    when(serviceService.searchServices(eq("!!"), any(), any(), any(), any(), any(), any()))
+        .thenThrow(new IllegalArgumentException("Query must contain at least one word"));
+
+    mockMvc.perform(get("/services/search")
+            .param("q", "bronx shelter")
+            .param("availability", "true"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$[0].id").value(1))
+        .andExpect(jsonPath("$[0].name").value("Bronx Shelter"))
+        .andExpect(jsonPath("$[0].score").value(3.25));
+    mockMvc.perform(get("/services/search").param("q", "!!"))
+        .andExpect(status().isBadRequest())
+        .andExpect(content().string("Query must contain at least one word"));
+    mockMvc.perform(get("/services/search").param("q", "shelter").param("radius", "0"))
+        .andExpect(status().isBadRequest());
+  }
+
+  @Test
+  void testDeleteServices_ShouldReturnCountOr400() throws Exception {
+    when(serviceService.deleteServices(any(BulkDeleteRequest.class)))
+        .thenReturn(new BulkDeleteResult(3, 2))
+        .thenThrow(new IllegalArgumentException("Give either ids or at least one filter"));
+
+    mockMvc.perform(post("/services/delete")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content("{\"category\": \"shelters\", \"city\": \"New York\"}"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.deleted").value(3))
+        .andExpect(jsonPath("$.chunks").value(2));
+    mockMvc.perform(post("/services/delete")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content("{}"))
+        .andExpect(status().isBadRequest())
+        .andExpect(content().string("Give either ids or at least one filter"));
+  }
+
+  @Test
+  void testPatchService_WithIfMatch_ShouldReturnNewVersion() throws Exception {
+    ServiceEntity patched = new ServiceEntity(1L, "Shelter A", "shelters", 40.7128, -74.0060,
+        "123 Main St", "New York", "NY", "10001", "123-456-7890", "9 AM - 5 PM", false);
+    patched.setVersion(4L);
+    when(serviceService.patchService(eq(1L), any(ServicePatch.class), eq(3L)))
+        .thenReturn(patched);
+    when(serviceService.getServiceEtag(eq(1L), isNull())).thenReturn("\"1-4\"");
+
+    mockMvc.perform(patch("/services/{id}", 1L)
+            .header("If-Match", "\"1-3\"")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content("{\"availability\": false}"))
+        .andExpect(status().isOk())
+        .andExpect(header().string("ETag", "\"1-4\""))
+        .andExpect(jsonPath("$.version").value(4))
+        .andExpect(jsonPath("$.availability").value(false));
+  }
+
+  @Test
+  void testPatchService_VersionConflicts_ShouldReturn409Or428() throws Exception {
+    when(serviceService.patchService(eq(1L), any(ServicePatch.class), eq(2L)))
+        .thenThrow(new OptimisticLockingFailureException("Service 1 is no longer at 2"));
+
+    mockMvc.perform(patch("/services/{id}", 1L)
+            .contentType(MediaType.APPLICATION_JSON)
+            .content("{\"name\": \"Renamed\", \"version\": 2}"))
+        .andExpect(status().isConflict());
+    mockMvc.perform(patch("/services/{id}", 1L)
+            .contentType(MediaType.APPLICATION_JSON)
+            .content("{\"name\": \"Renamed\"}"))
+        .andExpect(status().isPreconditionRequired());
+    mockMvc.perform(patch("/services/{id}", 1L)
+            .contentType(MediaType.APPLICATION_JSON)
+            .content("{\"zipcode\": \"1000\", \"version\": 2}"))
+        .andExpect(status().isBadRequest());
+
+    verify(serviceService, times(1)).patchService(any(), any(), anyLong());
+  }
+
+  @Test
+  void testSetAvailability_ShouldReturnServiceWithNewEtag() throws Exception {
+    ServiceEntity service = new ServiceEntity(1L, "Shelter A", "shelters", 40.7128, -74.0060,
+        "123 Main St", "New York", "NY", "10001", "123-456-7890", "9 AM - 5 PM", false);
+    service.setVersion(5L);
+    when(serviceService.setAvailability(1L, false)).thenReturn(service);
+    when(serviceService.getServiceEtag(eq(1L), isNull())).thenReturn("\"1-5\"");
+
+    mockMvc.perform(put("/services/{id}/availability", 1L)
+            .contentType(MediaType.APPLICATION_JSON)
+            .content("{\"availability\": false}"))
+        .andExpect(status().isOk())
+        .andExpect(header().string("ETag", "\"1-5\""))
+        .andExpect(jsonPath("$.version").value(5))
+        .andExpect(jsonPath("$.availability").value(false));
+  }
+
+  @Test
+  void testSetAvailability_MissingValueOrUnknownService_ShouldReturn400Or404()
+      throws Exception {
+    when(serviceService.setAvailability(9L, true)).thenReturn(null);
+
+    mockMvc.perform(put("/services/{id}/availability", 1L)
+            .contentType(MediaType.APPLICATION_JSON)
+            .content("{}"))
+        .andExpect(status().isBadRequest())
+        .andExpect(content().string("Availability must be true or false."));
+    mockMvc.perform(put("/services/{id}/availability", 9L)
+            .contentType(MediaType.APPLICATION_JSON)
+            .content("{\"availability\": true}"))
+        .andExpect(status().isNotFound());
+
+    verify(serviceService, times(1)).setAvailability(anyLong(), eq(true));
+  }
 }
@@ -0,0 +1,119 @@
+package com.ase.bytealchemists.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.ase.bytealchemists.model.ServiceEntity;
+import com.ase.bytealchemists.model.ServiceFields;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Compares the response of a page of services serialized as full entities with the same
+ * page restricted to the map view fieldset
+ * {@code id,name,category,latitude,longitude,availability}: the bytes sent and the bytes
+ * allocated to build and serialize each page.
+ *
+ * <p>
+ * Rows are built in memory, so the figures cover object construction and JSON only; the
+ * database additionally reads and transfers fewer columns and skips entity snapshots for the
+ * fieldset. Not part of the regular test run; execute with
+ * {@code mvn test -Dtest=ServiceFieldsBenchmark}.
+ * </p>
+ */
+public class ServiceFieldsBenchmark {
+
+  private static final int PAGE_SIZE = 200;
+  private static final int PAGES = 2_000;
+
+  private final ObjectMapper objectMapper = new ObjectMapper();
+
+  @Test
+  public void compareFieldsetWithFullEntity() throws Exception {
+    Random random = new Random(7);
+    Object[][] rows = new Object[PAGE_SIZE][];
+    for (int i = 0; i < PAGE_SIZE; i++) {
+      rows[i] = new Object[] {i + 1L, "Community Shelter " + i, "shelters",
+          40.5 + random.nextDouble() * 0.4, -74.2 + random.nextDouble() * 0.5,
+          (100 + i) + " West 125th Street", "New York", "NY", "10027", "2125550100",
+          "9 AM - 5 PM", random.nextBoolean()};
+    }
+    ServiceFields mapView =
+        ServiceFields.parse("id,name,category,latitude,longitude,availability");
+
+    // Warm up both paths before measuring them
+    for (int i = 0; i < 200; i++) {
+      fullPage(rows);
+      fieldsPage(rows, mapView);
+    }
+
+    long fullBytes = 0;
+    long fullAllocated = allocatedBytes();
+    long fullStart = System.nanoTime();
+    for (int i = 0; i < PAGES; i++) {
+      fullBytes += fullPage(rows);
+    }
+    long fullNanos = System.nanoTime() - fullStart;
+    fullAllocated = allocatedBytes() - fullAllocated;
+
+    long fieldsBytes = 0;
+    long fieldsAllocated = allocatedBytes();
+    long fieldsStart = System.nanoTime();
+    for (int i = 0; i < PAGES; i++) {
+      fieldsBytes += fieldsPage(rows, mapView);
+    }
+    long fieldsNanos = System.nanoTime() - fieldsStart;
+    fieldsAllocated = allocatedBytes() - fieldsAllocated;
+
+    System.out.printf("Page of %d services, %d pages%n", PAGE_SIZE, PAGES);
+    System.out.printf("Full entity: %,d bytes/page, %,d bytes allocated/page, %.3f ms/page%n",
+        fullBytes / PAGES, fullAllocated / PAGES, fullNanos / 1e6 / PAGES);
+    System.out.printf("Map fieldset: %,d bytes/page, %,d bytes allocated/page, %.3f ms/page%n",
+        fieldsBytes / PAGES, fieldsAllocated / PAGES, fieldsNanos / 1e6 / PAGES);
+    assertEquals(PAGE_SIZE, objectMapper.readTree(
+        objectMapper.writeValueAsBytes(fields(rows, mapView))).size());
+  }
+
+  private long fullPage(Object[][] rows) throws Exception {
+    List<ServiceEntity> services = new ArrayList<>(rows.length);
+    for (Object[] row : rows) {
+      ServiceEntity service = new ServiceEntity((Long) row[0], (String) row[1],
+          (String) row[2], (Double) row[3], (Double) row[4], (String) row[5],
+          (String) row[6], (String) row[7], (String) row[8], (String) row[9],
+          (String) row[10], (Boolean) row[11]);
+      service.updateUnitVector();
+      services.add(service);
+    }
+    return objectMapper.writeValueAsBytes(services).length;
+  }
+
+  private long fieldsPage(Object[][] rows, ServiceFields fields) throws Exception {
+    return objectMapper.writeValueAsBytes(fields(rows, fields)).length;
+  }
+
+  private static List<Map<String, Object>> fields(Object[][] rows, ServiceFields fields) {
+    // The same shape as the tuples read by ServiceProjectionRepositoryImpl
+    List<Map<String, Object>> items = new ArrayList<>(rows.length);
+    for (Object[] row : rows) {
+      Map<String, Object> item = new LinkedHashMap<>();
+      item.put("id", row[0]);
+      item.put("name", row[1]);
+      item.put("category", row[2]);
+      item.put("latitude", row[3]);
+      item.put("longitude", row[4]);
+      item.put("availability", row[11]);
+      items.add(fields.retain(item));
+    }
+    return items;
+  }
+
+  private static long allocatedBytes() {
+    return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean())
+        .getThreadAllocatedBytes(Thread.currentThread().getId());
+  }
+}
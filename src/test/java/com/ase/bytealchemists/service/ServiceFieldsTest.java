@@ -0,0 +1,97 @@
+package com.ase.bytealchemists.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.ase.bytealchemists.model.OpeningInterval;
+import com.ase.bytealchemists.model.ServiceEntity;
+import com.ase.bytealchemists.model.ServiceFields;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+/**
+ * This class contains the unit tests for the ServiceFields class.
+ */
+public class ServiceFieldsTest {
+
+  private static ServiceEntity service() {
+    return new ServiceEntity(1L, "Shelter A", "shelters", 40.7128, -74.0060,
+        "123 Main St", "New York", "NY", "10001", "1234567890", "9 AM - 5 PM", true);
+  }
+
+  @Test
+  public void testParse_ShouldKeepEntityOrder() {
+    ServiceFields fields = ServiceFields.parse("longitude, name,latitude,,id,name");
+
+    assertEquals(List.of("id", "name", "latitude", "longitude"), fields.getNames(),
+        "Fields should be deduplicated and follow the entity order");
+    assertNull(ServiceFields.parse(null), "No parameter should mean every field");
+  }
+
+  @Test
+  public void testParse_InvalidFields_ShouldThrow() {
+    assertThrows(IllegalArgumentException.class, () -> ServiceFields.parse("id,unitX"),
+        "Internal columns should not be selectable");
+    assertThrows(IllegalArgumentException.class, () -> ServiceFields.parse("id,s.name"));
+    assertThrows(IllegalArgumentException.class, () -> ServiceFields.parse(" , "));
+  }
+
+  @Test
+  public void testProject_ShouldCopyOnlyRequestedFields() {
+    ServiceFields fields = ServiceFields.parse("availability,name,contactNumber");
+
+    Map<String, Object> values = fields.project(service());
+
+    assertEquals(List.of("name", "contactNumber", "availability"),
+        new ArrayList<>(values.keySet()));
+    assertEquals("Shelter A", values.get("name"));
+    assertEquals(true, values.get("availability"));
+  }
+
+  @Test
+  public void testWithAndRetain_ShouldAddAndRemovePagingKeys() {
+    ServiceFields fields = ServiceFields.parse("name");
+    ServiceFields withKeys = fields.with("id", "city");
+
+    Map<String, Object> values = withKeys.project(service());
+
+    assertEquals(List.of("id", "name", "city"), withKeys.getNames());
+    assertEquals(List.of("name"), new ArrayList<>(fields.retain(values).keySet()),
+        "Keys added for paging should be removed again");
+  }
+
+  @Test
+  public void testOpeningHours_ShouldBeDerivedFromOperationHourColumn() {
+    ServiceFields fields = ServiceFields.parse("openingHours,name");
+    Map<String, Object> columns = new LinkedHashMap<>();
+    columns.put("name", "Shelter A");
+    columns.put("operationHour", "Mon 9 AM - 5 PM");
+
+    Map<String, Object> values = fields.fromColumns(columns);
+
+    assertEquals(List.of("name", "operationHour"), fields.getColumns(),
+        "The stored hours should be read in place of the derived field");
+    assertEquals(List.of("name", "openingHours"), new ArrayList<>(values.keySet()));
+    assertEquals(List.of(new OpeningInterval("MONDAY", "09:00", "17:00")),
+        values.get("openingHours"));
+    assertEquals(fields.project(service()).keySet(), values.keySet(),
+        "Projected and read fields should match");
+  }
+
+  @Test
+  public void testGetOpeningHours_ShouldParseOnceUntilTheHoursChange() {
+    ServiceEntity service = service();
+
+    List<OpeningInterval> first = service.getOpeningHours();
+
+    assertSame(first, service.getOpeningHours(), "Unchanged hours should not be parsed again");
+    service.setOperationHour("Sat 10 AM - 2 PM");
+    assertEquals(List.of(new OpeningInterval("SATURDAY", "10:00", "14:00")),
+        service.getOpeningHours(), "Changed hours should be parsed again");
+  }
+}
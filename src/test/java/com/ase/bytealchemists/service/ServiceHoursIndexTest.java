@@ -0,0 +1,81 @@
+package com.ase.bytealchemists.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.ase.bytealchemists.model.ServiceEntity;
+import com.ase.bytealchemists.model.ServiceHours;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * This class contains the unit tests for the ServiceHoursIndex class.
+ */
+public class ServiceHoursIndexTest {
+
+  // Monday 6 PM in New York, 3 PM in Los Angeles
+  private static final Instant MONDAY_EVENING = Instant.parse("2024-05-06T22:00:00Z");
+
+  private ServiceHoursIndex index;
+
+  private record Hours(Long getId, String getOperationHour, String getState)
+      implements ServiceHours {
+  }
+
+  @BeforeEach
+  public void setUp() {
+    index = new ServiceHoursIndex("America/New_York");
+    index.rebuild(List.of(
+        new Hours(1L, "9 AM - 5 PM", "NY"),
+        new Hours(2L, "9 AM - 5 PM", "CA"),
+        new Hours(3L, "9 AM - 5 PM", "ca"),
+        new Hours(4L, "Mon 5 PM - 2 AM", "NJ"),
+        new Hours(5L, "Open whenever", "NY"),
+        new Hours(6L, null, "NY")));
+  }
+
+  private List<Long> open(Instant instant, Long... ids) {
+    return index.retainOpen(List.of(ids), Long::longValue, instant);
+  }
+
+  @Test
+  public void testRetainOpen_ShouldUseTheLocalTimeOfEachService() {
+    assertEquals(List.of(2L, 3L, 4L), open(MONDAY_EVENING, 1L, 2L, 3L, 4L));
+    assertEquals(List.of(4L), open(Instant.parse("2024-05-07T05:30:00Z"), 1L, 2L, 4L),
+        "Monday night runs past midnight");
+  }
+
+  @Test
+  public void testRetainOpen_InvalidMissingOrUnknownHours_ShouldNeverBeOpen() {
+    assertTrue(open(MONDAY_EVENING, 5L, 6L, 99L).isEmpty());
+    assertEquals(4, index.size());
+  }
+
+  @Test
+  public void testRebuild_ShouldShareSchedulesPerTextAndZone() {
+    assertEquals(3, index.scheduleCount());
+    assertEquals(ZoneId.of("America/Phoenix"), index.zoneOf("AZ"));
+    assertEquals(ZoneId.of("America/New_York"), index.zoneOf(null));
+  }
+
+  @Test
+  public void testOnServiceChanged_ShouldFollowUpdatesAndDeletes() {
+    ServiceEntity service = new ServiceEntity();
+    service.setId(1L);
+    service.setOperationHour("12 PM - 9 PM");
+    service.setState("NY");
+    index.onServiceChanged(new ServiceChangedEvent(1L, service));
+    index.onServiceChanged(new ServiceChangedEvent(4L, null));
+
+    assertEquals(List.of(1L, 2L), open(MONDAY_EVENING, 1L, 2L, 4L));
+    assertEquals(3, index.size());
+    assertEquals(2, index.scheduleCount(), "Unused schedules are dropped");
+
+    index.onServiceChanged(new ServiceChangedEvent(7L, service));
+    assertEquals(List.of(7L), open(MONDAY_EVENING, 7L));
+    assertEquals(2, index.scheduleCount(), "A new service reuses the schedule of its hours");
+  }
+}
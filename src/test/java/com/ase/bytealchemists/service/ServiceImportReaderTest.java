@@ -0,0 +1,101 @@
+package com.ase.bytealchemists.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+/**
+ * This class contains the unit tests for the ServiceImportReader class.
+ */
+public class ServiceImportReaderTest {
+
+  private final ObjectMapper objectMapper = new ObjectMapper();
+
+  private List<ServiceImportReader.Record> read(String body, ImportFormat format)
+      throws IOException {
+    List<ServiceImportReader.Record> records = new ArrayList<>();
+    try (ServiceImportReader reader = new ServiceImportReader(
+        new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)), format,
+        objectMapper)) {
+      ServiceImportReader.Record record;
+      while ((record = reader.next()) != null) {
+        records.add(record);
+      }
+    }
+    return records;
+  }
+
+  @Test
+  public void testJson_ShouldReportBadRecordsAndKeepGoing() throws IOException {
+    List<ServiceImportReader.Record> records = read("[{\"id\": 7, \"name\": \"Shelter A\", "
+        + "\"category\": \"shelters\", \"latitude\": 40.7, \"availability\": true},"
+        + " 42, {\"name\": \"Shelter B\", \"latitude\": \"north\"},"
+        + " {\"name\": \"Shelter C\"}]", ImportFormat.JSON);
+
+    assertEquals(4, records.size(), "Every element should be a record");
+    assertEquals("Shelter A", records.get(0).service.getName());
+    assertNull(records.get(0).service.getId(), "Ids in the input should be ignored");
+    assertEquals(Double.valueOf(40.7), records.get(0).service.getLatitude());
+    assertEquals("Expected a service object", records.get(1).error);
+    assertTrue(records.get(2).error.startsWith("Invalid value"), records.get(2).error);
+    assertEquals(4L, records.get(3).row, "Rows should count array elements");
+    assertNull(records.get(3).error, "A bad element should not affect the next one");
+  }
+
+  @Test
+  public void testJson_TruncatedDocument_ShouldEndWithAnError() throws IOException {
+    List<ServiceImportReader.Record> records = read("[{\"name\": \"Shelter A\"}, {\"name\": ",
+        ImportFormat.JSON);
+
+    assertEquals(2, records.size());
+    assertNull(records.get(0).error);
+    assertEquals(2L, records.get(1).row);
+    assertTrue(records.get(1).error != null, "The truncated record should be reported");
+    assertThrows(IllegalArgumentException.class,
+        () -> read("{\"name\": \"Shelter A\"}", ImportFormat.JSON),
+        "A single object is not a catalog");
+  }
+
+  @Test
+  public void testCsv_ShouldParseQuotedFieldsAndSnakeCaseHeaders() throws IOException {
+    List<ServiceImportReader.Record> records = read("name,category,latitude,longitude,"
+        + "address,contact_number,Operation-Hour,availability\r\n"
+        + "\"Shelter, A\",shelters,40.7,-74.0,\"1 \"\"Main\"\" St\nFloor 2\",,9 AM - 5 PM,TRUE\r\n"
+        + "\n"
+        + "Shelter B,shelters,north,-74.0,2 Main St,,,false\n"
+        + "Shelter C,shelters\n", ImportFormat.CSV);
+
+    assertEquals(3, records.size(), "Blank lines should be skipped");
+    assertEquals("Shelter, A", records.get(0).service.getName());
+    assertEquals("1 \"Main\" St\nFloor 2", records.get(0).service.getAddress(),
+        "Quoted fields may contain quotes and line breaks");
+    assertNull(records.get(0).service.getContactNumber(), "Empty fields should be null");
+    assertEquals("9 AM - 5 PM", records.get(0).service.getOperationHour());
+    assertEquals(Boolean.TRUE, records.get(0).service.getAvailability());
+    assertEquals("Invalid latitude: north", records.get(1).error);
+    assertEquals(3L, records.get(2).row);
+    assertEquals("Expected 8 fields but found 2", records.get(2).error);
+  }
+
+  @Test
+  public void testCsv_BrokenDocument_ShouldBeRejectedOrEnded() throws IOException {
+    assertThrows(IllegalArgumentException.class,
+        () -> read("name,colour\nShelter A,red\n", ImportFormat.CSV),
+        "An unknown column should reject the whole catalog");
+
+    List<ServiceImportReader.Record> records =
+        read("name,category\nShelter A,shelters\n\"Shelter B,shelters\n", ImportFormat.CSV);
+    assertEquals(2, records.size());
+    assertEquals("Unterminated quoted field", records.get(1).error);
+    assertEquals(0, read("", ImportFormat.CSV).size(), "An empty body has no records");
+  }
+}
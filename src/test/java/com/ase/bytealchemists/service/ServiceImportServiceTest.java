@@ -0,0 +1,130 @@
+package com.ase.bytealchemists.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.ase.bytealchemists.model.ImportResult;
+import com.ase.bytealchemists.model.ServiceEntity;
+import com.ase.bytealchemists.repository.CategoryRepository;
+import com.ase.bytealchemists.repository.ServiceRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.Validation;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+/**
+ * This class contains the unit tests for the ServiceImportService class.
+ */
+public class ServiceImportServiceTest {
+
+  @Mock
+  private ServiceRepository serviceRepository;
+
+  @Mock
+  private CategoryRepository categoryRepository;
+
+  @Mock
+  private ServiceSpatialIndex spatialIndex;
+
+  @Mock
+  private ApplicationEventPublisher eventPublisher;
+
+  @InjectMocks
+  private ServiceImportService importService;
+
+  private final AtomicLong nextId = new AtomicLong(100);
+
+  @BeforeEach
+  public void setUp() {
+    MockitoAnnotations.openMocks(this);
+    ReflectionTestUtils.setField(importService, "validator",
+        Validation.buildDefaultValidatorFactory().getValidator());
+    ReflectionTestUtils.setField(importService, "objectMapper", new ObjectMapper());
+    ReflectionTestUtils.setField(importService, "batchSize", 2);
+    // Stands in for the JDBC batch: hands out ids
+    doAnswer(invocation -> {
+      List<ServiceEntity> services = invocation.getArgument(0);
+      for (ServiceEntity service : services) {
+        service.setId(nextId.incrementAndGet());
+        service.setVersion(0L);
+      }
+      return null;
+    }).when(serviceRepository).insertAll(anyList());
+  }
+
+  private static String service(String name, String category, String zipcode) {
+    return "{\"name\": \"" + name + "\", \"category\": \"" + category + "\", "
+        + "\"latitude\": 40.7, \"longitude\": -74.0, \"address\": \"1 Main St\", "
+        + "\"city\": \"New York\", \"state\": \"NY\", \"zipcode\": \"" + zipcode + "\"}";
+  }
+
+  private ImportResult importJson(String... services) throws IOException {
+    String body = "[" + String.join(",", services) + "]";
+    return importService.importServices(
+        new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)), ImportFormat.JSON);
+  }
+
+  @Test
+  public void testImportServices_ShouldImportValidRowsAndReportTheRest() throws IOException {
+    when(categoryRepository.findExistingCategoryNames(any())).thenReturn(List.of("Shelters"));
+
+    ImportResult result = importJson(service("Shelter A", "shelters", "10001"),
+        service("Shelter B", "shelters", "1000"), service("Pantry C", "food_banks", "10001"));
+
+    assertEquals(3, result.getReceived());
+    assertEquals(1, result.getImported());
+    assertEquals(2, result.getFailed());
+    assertEquals(2L, result.getErrors().get(0).getRow());
+    assertEquals("zipcode: Zipcode must be a 5-digit number",
+        result.getErrors().get(0).getMessage());
+    assertEquals(3L, result.getErrors().get(1).getRow());
+    assertEquals("Category does not exist", result.getErrors().get(1).getMessage());
+    // One category lookup per batch of two, not one per record
+    verify(categoryRepository, times(2)).findExistingCategoryNames(any());
+    verify(spatialIndex, times(1)).put(any(ServiceEntity.class));
+    verify(eventPublisher, times(1)).publishEvent(any(ServiceChangedEvent.class));
+  }
+
+  @Test
+  public void testImportServices_RejectedBatch_ShouldRetryRowByRow() throws IOException {
+    when(categoryRepository.findExistingCategoryNames(any())).thenReturn(List.of("shelters"));
+    doAnswer(invocation -> {
+      List<ServiceEntity> services = invocation.getArgument(0);
+      for (ServiceEntity service : services) {
+        if ("Duplicate".equals(service.getName())) {
+          throw new DataIntegrityViolationException("Duplicate entry 'Duplicate'");
+        }
+      }
+      for (ServiceEntity service : services) {
+        service.setId(nextId.incrementAndGet());
+      }
+      return null;
+    }).when(serviceRepository).insertAll(anyList());
+
+    ImportResult result = importJson(service("Shelter A", "shelters", "10001"),
+        service("Duplicate", "shelters", "10001"));
+
+    assertEquals(1, result.getImported(), "The good row of the batch should still be saved");
+    assertEquals(1, result.getFailed());
+    assertEquals(2L, result.getErrors().get(0).getRow());
+    assertEquals("Duplicate entry 'Duplicate'", result.getErrors().get(0).getMessage());
+    verify(serviceRepository, times(3)).insertAll(anyList());
+    verify(eventPublisher, times(1)).publishEvent(any(ServiceChangedEvent.class));
+  }
+}
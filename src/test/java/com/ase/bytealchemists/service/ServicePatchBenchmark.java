@@ -0,0 +1,192 @@
+package com.ase.bytealchemists.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Runs many concurrent writers against one service row of a scratch table in a real MySQL 8
+ * database, comparing the read-modify-write of {@code PUT /services/{id}} before versioning
+ * with the conditional UPDATE of {@code PATCH /services/{id}}.
+ *
+ * <p>
+ * Every writer increments a counter column. Read-modify-write reads the whole row and writes
+ * every column back, so increments made in between are lost. The conditional UPDATE writes
+ * only the changed columns {@code WHERE id = ? AND version = ?}; a writer whose version is
+ * stale gets zero affected rows, re-reads the version and retries, so no increment is lost.
+ * </p>
+ *
+ * <p>
+ * Not part of the regular test run, and skipped unless a database is given:
+ * {@code mvn test -Dtest=ServicePatchBenchmark -Dbenchmark.jdbc.url=jdbc:mysql://...
+ * -Dbenchmark.jdbc.username=... -Dbenchmark.jdbc.password=...}.
+ * The scratch table is dropped afterwards.
+ * </p>
+ */
+public class ServicePatchBenchmark {
+
+  private static final String TABLE = "service_patch_benchmark";
+  private static final int WRITERS = 32;
+  private static final int UPDATES_PER_WRITER = 100;
+
+  private static final String READ_ROW = "SELECT name, category, latitude, longitude, "
+      + "address, city, state, zipcode, contact_number, operation_hour, availability, hits "
+      + "FROM " + TABLE + " WHERE id = 1";
+
+  private static final String WRITE_ROW = "UPDATE " + TABLE + " SET name = ?, category = ?, "
+      + "latitude = ?, longitude = ?, address = ?, city = ?, state = ?, zipcode = ?, "
+      + "contact_number = ?, operation_hour = ?, availability = ?, hits = ? WHERE id = 1";
+
+  private static final String READ_VERSION = "SELECT hits, version FROM " + TABLE
+      + " WHERE id = 1";
+
+  private static final String PATCH_ROW = "UPDATE " + TABLE + " SET hits = ?, "
+      + "version = version + 1 WHERE id = 1 AND version = ?";
+
+  @Test
+  public void compareConditionalPatchWithReadModifyWrite() throws Exception {
+    String url = System.getProperty("benchmark.jdbc.url");
+    assumeTrue(url != null, "Set -Dbenchmark.jdbc.url to run against MySQL");
+
+    try (Connection connection = connect(url)) {
+      try {
+        createTable(connection);
+        long readModifyWriteNanos = run(url, this::readModifyWrite, new AtomicLong());
+        long lostUpdates = WRITERS * UPDATES_PER_WRITER - hits(connection);
+
+        createTable(connection);
+        AtomicLong conflicts = new AtomicLong();
+        long patchNanos = run(url, this::conditionalPatch, conflicts);
+        long patchedHits = hits(connection);
+
+        int updates = WRITERS * UPDATES_PER_WRITER;
+        System.out.printf("writers=%d updates=%d on one row%n", WRITERS, updates);
+        System.out.printf("read-modify-write: %.0f updates/s, %d lost updates (%.1f%%)%n",
+            updates / (readModifyWriteNanos / 1e9), lostUpdates, 100.0 * lostUpdates / updates);
+        System.out.printf("conditional patch: %.0f updates/s, 0 lost updates, "
+            + "%.2f conflicts per update%n", updates / (patchNanos / 1e9),
+            (double) conflicts.get() / updates);
+        assertEquals(updates, patchedHits, "The conditional update should lose nothing");
+      } finally {
+        try (Statement statement = connection.createStatement()) {
+          statement.execute("DROP TABLE IF EXISTS " + TABLE);
+        }
+      }
+    }
+  }
+
+  /**
+   * One update as a writer does it.
+   */
+  @FunctionalInterface
+  private interface Writer {
+    void update(Connection connection, AtomicLong conflicts) throws SQLException;
+  }
+
+  private long run(String url, Writer writer, AtomicLong conflicts) throws Exception {
+    ExecutorService executor = Executors.newFixedThreadPool(WRITERS);
+    try {
+      List<Future<?>> writers = new ArrayList<>();
+      long start = System.nanoTime();
+      for (int i = 0; i < WRITERS; i++) {
+        writers.add(executor.submit(() -> {
+          try (Connection connection = connect(url)) {
+            for (int j = 0; j < UPDATES_PER_WRITER; j++) {
+              writer.update(connection, conflicts);
+            }
+          }
+          return null;
+        }));
+      }
+      for (Future<?> future : writers) {
+        future.get();
+      }
+      return System.nanoTime() - start;
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  private void readModifyWrite(Connection connection, AtomicLong conflicts)
+      throws SQLException {
+    Object[] row = new Object[12];
+    try (PreparedStatement read = connection.prepareStatement(READ_ROW);
+        ResultSet resultSet = read.executeQuery()) {
+      resultSet.next();
+      for (int i = 0; i < row.length; i++) {
+        row[i] = resultSet.getObject(i + 1);
+      }
+    }
+    row[11] = ((Number) row[11]).longValue() + 1;
+    try (PreparedStatement write = connection.prepareStatement(WRITE_ROW)) {
+      for (int i = 0; i < row.length; i++) {
+        write.setObject(i + 1, row[i]);
+      }
+      write.executeUpdate();
+    }
+  }
+
+  private void conditionalPatch(Connection connection, AtomicLong conflicts)
+      throws SQLException {
+    while (true) {
+      long hits;
+      long version;
+      try (PreparedStatement read = connection.prepareStatement(READ_VERSION);
+          ResultSet resultSet = read.executeQuery()) {
+        resultSet.next();
+        hits = resultSet.getLong(1);
+        version = resultSet.getLong(2);
+      }
+      try (PreparedStatement patch = connection.prepareStatement(PATCH_ROW)) {
+        patch.setLong(1, hits + 1);
+        patch.setLong(2, version);
+        if (patch.executeUpdate() == 1) {
+          return;
+        }
+      }
+      conflicts.incrementAndGet();
+    }
+  }
+
+  private static Connection connect(String url) throws SQLException {
+    return DriverManager.getConnection(url,
+        System.getProperty("benchmark.jdbc.username", "root"),
+        System.getProperty("benchmark.jdbc.password", ""));
+  }
+
+  private static void createTable(Connection connection) throws SQLException {
+    try (Statement statement = connection.createStatement()) {
+      statement.execute("DROP TABLE IF EXISTS " + TABLE);
+      statement.execute("CREATE TABLE " + TABLE + " (id BIGINT PRIMARY KEY, "
+          + "name VARCHAR(255), category VARCHAR(255), latitude DOUBLE, longitude DOUBLE, "
+          + "address VARCHAR(255), city VARCHAR(255), state VARCHAR(255), "
+          + "zipcode VARCHAR(255), contact_number VARCHAR(255), "
+          + "operation_hour VARCHAR(255), availability BIT, hits BIGINT NOT NULL, "
+          + "version BIGINT NOT NULL)");
+      statement.execute("INSERT INTO " + TABLE + " VALUES (1, 'Shelter A', 'shelters', "
+          + "40.7128, -74.0060, '123 Main St', 'New York', 'NY', '10001', '123-456-7890', "
+          + "'9 AM - 5 PM', 1, 0, 0)");
+    }
+  }
+
+  private static long hits(Connection connection) throws SQLException {
+    try (Statement statement = connection.createStatement();
+        ResultSet resultSet = statement.executeQuery("SELECT hits FROM " + TABLE)) {
+      resultSet.next();
+      return resultSet.getLong(1);
+    }
+  }
+}
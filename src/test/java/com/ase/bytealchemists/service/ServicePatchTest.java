@@ -0,0 +1,63 @@
+package com.ase.bytealchemists.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+/**
+ * This class contains the unit tests for the ServicePatch class.
+ */
+public class ServicePatchTest {
+
+  private final ObjectMapper objectMapper = new ObjectMapper();
+  private final Validator validator = Validation.buildDefaultValidatorFactory().getValidator();
+
+  private ServicePatch parse(String json) throws Exception {
+    return ServicePatch.parse(objectMapper.readTree(json), validator);
+  }
+
+  @Test
+  public void testParse_ShouldMapFieldsToColumnsInEntityOrder() throws Exception {
+    ServicePatch patch = parse("{\"availability\": false, \"contactNumber\": null, "
+        + "\"latitude\": 40.75, \"version\": 3}");
+
+    assertEquals(List.of("latitude", "contact_number", "availability"),
+        new ArrayList<>(patch.getColumns().keySet()));
+    assertEquals(40.75, patch.getColumns().get("latitude"));
+    assertNull(patch.getColumns().get("contact_number"), "null should clear the column");
+    assertTrue(patch.changes("contactNumber"));
+    assertEquals(Long.valueOf(3L), patch.getVersion());
+  }
+
+  @Test
+  public void testParse_ShouldApplyTheEntityConstraints() {
+    IllegalArgumentException blank = assertThrows(IllegalArgumentException.class,
+        () -> parse("{\"name\": \" \"}"));
+    assertEquals("name: Service name cannot be blank", blank.getMessage());
+    assertThrows(IllegalArgumentException.class, () -> parse("{\"latitude\": 91}"));
+    assertThrows(IllegalArgumentException.class, () -> parse("{\"zipcode\": \"1000\"}"));
+    assertThrows(IllegalArgumentException.class, () -> parse("{\"city\": null}"),
+        "Required fields cannot be cleared");
+  }
+
+  @Test
+  public void testParse_ShouldRejectUnknownReadOnlyAndMistypedFields() {
+    assertEquals("Field cannot be changed: id", assertThrows(IllegalArgumentException.class,
+        () -> parse("{\"id\": 2}")).getMessage());
+    assertEquals("Unknown field: colour", assertThrows(IllegalArgumentException.class,
+        () -> parse("{\"colour\": \"red\"}")).getMessage());
+    assertEquals("latitude must be a number", assertThrows(IllegalArgumentException.class,
+        () -> parse("{\"latitude\": \"40.7\"}")).getMessage());
+    assertEquals("At least one field is required", assertThrows(
+        IllegalArgumentException.class, () -> parse("{\"version\": 1}")).getMessage());
+    assertThrows(IllegalArgumentException.class, () -> parse("[]"));
+  }
+}
@@ -0,0 +1,218 @@
+package com.ase.bytealchemists.service;
+
+import static com.ase.bytealchemists.service.ServiceSpatialIndexTest.service;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.ase.bytealchemists.model.QueryCacheStats;
+import com.ase.bytealchemists.model.ServiceEntity;
+import com.ase.bytealchemists.util.GeoUtils;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * This class contains the unit tests for the ServiceQueryCache class.
+ */
+public class ServiceQueryCacheTest {
+
+  private List<ServiceEntity> services;
+  private int loads;
+  private int idLoads;
+  private ServiceQueryCache.Loader loader;
+  private ServiceQueryCache.IdLoader byIds;
+
+  @BeforeEach
+  public void setUp() {
+    services = new ArrayList<>();
+    loads = 0;
+    // Stands in for the database: a linear scan with the same filters
+    loader = (lat, lon, radius) -> {
+      loads++;
+      List<ServiceEntity> result = new ArrayList<>();
+      for (ServiceEntity service : services) {
+        if (GeoUtils.distanceKm(lat, lon, service.getLatitude(), service.getLongitude())
+            < radius) {
+          result.add(service);
+        }
+      }
+      return result;
+    };
+    idLoads = 0;
+    byIds = ids -> {
+      idLoads++;
+      List<ServiceEntity> result = new ArrayList<>();
+      for (ServiceEntity service : services) {
+        if (ids.contains(service.getId())) {
+          result.add(service);
+        }
+      }
+      return result;
+    };
+  }
+
+  private static Set<Long> ids(List<ServiceEntity> services) {
+    Set<Long> ids = new TreeSet<>();
+    for (ServiceEntity service : services) {
+      ids.add(service.getId());
+    }
+    return ids;
+  }
+
+  @Test
+  public void testGet_ShouldMatchUncachedQueryForEveryOrigin() {
+    Random random = new Random(3);
+    for (long id = 1; id <= 3000; id++) {
+      services.add(service(id, 40.6 + random.nextDouble() * 0.3,
+          -74.1 + random.nextDouble() * 0.3, "shelters"));
+    }
+    ServiceQueryCache cache = new ServiceQueryCache(0.05, 1.0, 100, Long.MAX_VALUE);
+
+    for (int i = 0; i < 300; i++) {
+      double lat = 40.7 + random.nextDouble() * 0.1;
+      double lon = -74.0 + random.nextDouble() * 0.1;
+      assertEquals(ids(loader.load(lat, lon, 2.0)),
+          ids(cache.get(lat, lon, 2.0, null, null, loader, byIds)),
+          "Refining the cell superset should give the exact radius result");
+    }
+
+    QueryCacheStats stats = cache.stats();
+    assertEquals(300, stats.getHits() + stats.getMisses(), "Every lookup should be counted");
+    assertEquals(stats.getMisses() + 300, loads,
+        "Only misses should reach the loader besides the reference queries");
+  }
+
+  @Test
+  public void testGet_ShouldKeySeparatelyOnFiltersAndRadius() {
+    services.add(service(1L, 40.7128, -74.0060, "shelters"));
+    ServiceQueryCache cache = new ServiceQueryCache(0.01, 1.0, 100, Long.MAX_VALUE);
+
+    cache.get(40.7128, -74.0060, 5.0, "shelters", null, loader, byIds);
+    cache.get(40.7128, -74.0060, 5.0, "Shelters", null, loader, byIds);
+    cache.get(40.7128, -74.0060, 5.0, "food_banks", null, loader, byIds);
+    cache.get(40.7128, -74.0060, 6.0, "shelters", null, loader, byIds);
+
+    assertEquals(1, cache.stats().getHits(), "Only the case-insensitive repeat should hit");
+    assertEquals(3, loads, "Other filters and radii should load separately");
+  }
+
+  @Test
+  public void testOnServiceChanged_ShouldOnlyDropAffectedEntries() {
+    services.add(service(1L, 40.7128, -74.0060, "shelters"));   // New York
+    services.add(service(2L, 34.0522, -118.2437, "shelters"));  // Los Angeles
+    ServiceQueryCache cache = new ServiceQueryCache(0.01, 1.0, 100, Long.MAX_VALUE);
+    cache.get(40.7128, -74.0060, 5.0, null, null, loader, byIds);
+    cache.get(34.0522, -118.2437, 5.0, null, null, loader, byIds);
+    cache.get(34.0522, -118.2437, 5.0, "food_banks", null, (lat, lon, radius) -> List.of(),
+        byIds);
+
+    // A new service in New York leaves Los Angeles alone
+    ServiceEntity added = service(3L, 40.7130, -74.0062, "shelters");
+    services.add(added);
+    cache.onServiceChanged(new ServiceChangedEvent(3L, added));
+    assertEquals(2, cache.stats().getSize(), "Only the New York entry should be dropped");
+    assertEquals(Set.of(1L, 3L), ids(cache.get(40.7128, -74.0060, 5.0, null, null, loader, byIds)),
+        "The new service should be visible after invalidation");
+
+    // Moving a service out of Los Angeles drops the entries that contained it
+    ServiceEntity moved = service(2L, 51.5074, -0.1278, "shelters");
+    services.set(1, moved);
+    cache.onServiceChanged(new ServiceChangedEvent(2L, moved));
+    assertEquals(2, cache.stats().getSize(),
+        "The Los Angeles shelters entry should be dropped, the food bank entry kept");
+    assertEquals(Set.of(), ids(cache.get(34.0522, -118.2437, 5.0, null, null, loader, byIds)),
+        "The moved service should no longer be returned");
+    assertEquals(2, cache.stats().getInvalidations(), "Two entries should be invalidated");
+  }
+
+  @Test
+  public void testGet_ShouldEvictLeastRecentlyUsed() {
+    ServiceQueryCache cache = new ServiceQueryCache(0.01, 1.0, 2, Long.MAX_VALUE);
+
+    cache.get(10.0, 10.0, 1.0, null, null, loader, byIds);
+    cache.get(20.0, 20.0, 1.0, null, null, loader, byIds);
+    cache.get(10.0, 10.0, 1.0, null, null, loader, byIds);
+    cache.get(30.0, 30.0, 1.0, null, null, loader, byIds);
+    cache.get(10.0, 10.0, 1.0, null, null, loader, byIds);
+
+    QueryCacheStats stats = cache.stats();
+    assertEquals(2, stats.getSize(), "The cache should stay within its bound");
+    assertEquals(1, stats.getEvictions(), "The least recently used entry should be evicted");
+    assertEquals(2, stats.getHits(), "The recently used entry should survive");
+  }
+
+  @Test
+  public void testGet_WriteDuringLoad_ShouldNotCacheStaleResult() {
+    ServiceQueryCache cache = new ServiceQueryCache(0.01, 1.0, 100, Long.MAX_VALUE);
+    services.add(service(1L, 40.7128, -74.0060, "shelters"));
+
+    cache.get(40.7128, -74.0060, 5.0, null, null, (lat, lon, radius) -> {
+      List<ServiceEntity> result = loader.load(lat, lon, radius);
+      cache.onServiceChanged(new ServiceChangedEvent(1L, null));
+      return result;
+    }, byIds);
+
+    assertEquals(0, cache.stats().getSize(), "A result loaded across a write is not cached");
+  }
+
+  @Test
+  public void testDisabledCache_ShouldAlwaysLoad() {
+    ServiceQueryCache cache = new ServiceQueryCache(0.01, 1.0, 0, Long.MAX_VALUE);
+
+    cache.get(40.7128, -74.0060, 5.0, null, null, loader, byIds);
+    cache.get(40.7128, -74.0060, 5.0, null, null, loader, byIds);
+
+    assertEquals(2, loads, "A disabled cache should not keep results");
+    assertThrows(IllegalArgumentException.class,
+        () -> new ServiceQueryCache(0.0, 1.0, 10, Long.MAX_VALUE));
+  }
+
+  @Test
+  public void testGet_CloseRadiiShouldShareAnEntryAndLoadHitsById() {
+    services.add(service(1L, 40.7128, -74.0060, "shelters"));
+    services.add(service(2L, 40.7128, -73.9460, "shelters"));   // About 5.05 km east
+    ServiceQueryCache cache = new ServiceQueryCache(0.01, 1.0, 100, Long.MAX_VALUE);
+
+    assertEquals(Set.of(1L), ids(cache.get(40.7128, -74.0060, 5.01, null, null, loader,
+        byIds)));
+    assertEquals(Set.of(1L, 2L), ids(cache.get(40.7128, -74.0060, 5.3, null, null, loader,
+        byIds)));
+    assertEquals(Set.of(1L, 2L), ids(cache.get(40.7128, -74.0060, 6.0, null, null, loader,
+        byIds)));
+
+    assertEquals(1, loads, "Radii up to the same whole kilometer should share an entry");
+    assertEquals(2, idLoads, "Hits should load their services by id");
+    assertEquals(2, cache.stats().getServices(), "Only the ids of the superset are kept");
+  }
+
+  @Test
+  public void testGet_ShouldBoundTheServicesHeldByAllEntries() {
+    for (long id = 1; id <= 3; id++) {
+      services.add(service(id, 10.0, 10.0, "shelters"));
+      services.add(service(id + 10, 20.0, 20.0, "shelters"));
+    }
+    services.add(service(21L, 30.0, 30.0, "shelters"));
+    for (long id = 31; id <= 35; id++) {
+      services.add(service(id, 40.0, 40.0, "shelters"));
+    }
+    ServiceQueryCache cache = new ServiceQueryCache(0.01, 1.0, 100, 4);
+
+    cache.get(10.0, 10.0, 1.0, null, null, loader, byIds);
+    cache.get(20.0, 20.0, 1.0, null, null, loader, byIds);
+    cache.get(30.0, 30.0, 1.0, null, null, loader, byIds);
+    cache.get(40.0, 40.0, 1.0, null, null, loader, byIds);
+
+    QueryCacheStats stats = cache.stats();
+    assertEquals(2, stats.getSize(), "Entries should be evicted until four services remain");
+    assertEquals(4, stats.getServices());
+    assertEquals(1, stats.getEvictions());
+    assertEquals(3, cache.get(20.0, 20.0, 1.0, null, null, loader, byIds).size());
+    assertEquals(5, cache.get(40.0, 40.0, 1.0, null, null, loader, byIds).size(),
+        "An entry larger than the bound is answered but not kept");
+    assertEquals(5, loads, "Only the entry larger than the bound should be loaded again");
+  }
+}
@@ -2,30 +2,69 @@ package com.ase.bytealchemists.service;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.ArgumentMatchers.anyLong;
-import static org.mockito.Mockito.doNothing;
+import static org.mockito.ArgumentMatchers.doubleThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.atLeast;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import com.ase.bytealchemists.config.TestSecurityConfig;
+import com.ase.bytealchemists.model.BatchQueryRequest;
+import com.ase.bytealchemists.model.BatchQueryResult;
+import com.ase.bytealchemists.model.BulkDeleteRequest;
+import com.ase.bytealchemists.model.BulkDeleteResult;
+import com.ase.bytealchemists.model.CursorPage;
+import com.ase.bytealchemists.model.NearbyService;
+import com.ase.bytealchemists.model.RouteQueryRequest;
+import com.ase.bytealchemists.model.ServiceAlongRoute;
 import com.ase.bytealchemists.model.ServiceEntity;
+import com.ase.bytealchemists.model.ServiceFields;
+import com.ase.bytealchemists.model.ServiceSearchHit;
+import com.ase.bytealchemists.model.ServiceSort;
+import com.ase.bytealchemists.repository.CategoryRepository;
 import com.ase.bytealchemists.repository.ServiceRepository;
+import com.ase.bytealchemists.util.GeoUtils;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import jakarta.validation.Validation;
+import java.io.ByteArrayOutputStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.context.annotation.Import;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.util.ReflectionTestUtils;
 
 
 /**
@@ -38,6 +77,43 @@ public class ServiceServiceTest {
   @Mock
   private ServiceRepository serviceRepository;
 
+  @Mock
+  private ServiceSpatialIndex spatialIndex;
+
+  @Mock
+  private ServiceClusterIndex clusterIndex;
+
+  @Mock
+  private ServiceTileCache tileCache;
+
+  @Mock
+  private ServiceVersions serviceVersions;
+
+  @Mock
+  private ServiceTextIndex textIndex;
+
+  @Mock
+  private ServiceAutocomplete autocomplete;
+
+  @Mock
+  private ServiceHoursIndex hoursIndex;
+
+  @Mock
+  private ServiceAvailabilityBuffer availabilityBuffer;
+
+  @Mock
+  private CategoryRepository categoryRepository;
+
+  @Mock
+  private ApplicationEventPublisher eventPublisher;
+
+  @Mock
+  private EntityManager entityManager;
+
+  // Disabled cache: every query goes straight to the repository
+  @Spy
+  private ServiceQueryCache queryCache = new ServiceQueryCache(0.01, 1.0, 0, 0);
+
   @InjectMocks
   private ServiceService serviceService;
 
@@ -48,6 +124,8 @@ public class ServiceServiceTest {
 
   @Test
   public void testQueryServices_withAllFilters() {
+    ReflectionTestUtils.setField(serviceService, "queryMode", GeoQueryMode.JPQL);
+
     // Prepare mock data
     List<ServiceEntity> mockServices = new ArrayList<>();
     mockServices.add(new ServiceEntity(1L, "Shelter A", "Shelter", 40.7128, -74.0060,
@@ -67,6 +145,8 @@ public class ServiceServiceTest {
 
   @Test
   public void testQueryServices_withNoFilters() {
+    ReflectionTestUtils.setField(serviceService, "queryMode", GeoQueryMode.JPQL);
+
     // Prepare mock data
     List<ServiceEntity> mockServices = new ArrayList<>();
     mockServices.add(new ServiceEntity(2L, "Food Bank A", "Food Bank", 40.7306, -73.9352,
@@ -87,6 +167,8 @@ public class ServiceServiceTest {
 
   @Test
   public void testQueryServices_withNoResults() {
+    ReflectionTestUtils.setField(serviceService, "queryMode", GeoQueryMode.JPQL);
+
     // Prepare mock data
     List<ServiceEntity> mockServices = new ArrayList<>();
 
@@ -102,6 +184,653 @@ public class ServiceServiceTest {
     assertEquals(0, result.size(), "There should be no services returned");
   }
 
+  /**
+   * Tests that index mode answers the radius search from the spatial index
+   * and only loads the matching rows by id.
+   */
+  @Test
+  public void testQueryServices_indexMode_ShouldLoadMatchingIdsOnly() {
+    ServiceEntity shelter = new ServiceEntity(1L, "Shelter A", "Shelter", 40.7128, -74.0060,
+        "123 Main St", "New York", "NY", "10001", "1234567890", "9 AM - 5 PM", true);
+
+    when(spatialIndex.withinRadius(40.7128, -74.0060, 10.0, "Shelter", true))
+        .thenReturn(List.of(new ServiceSpatialIndex.Hit(1L, 0.0)));
+    when(serviceRepository.findAllById(List.of(1L))).thenReturn(List.of(shelter));
+
+    List<ServiceEntity> result = serviceService.queryServices(40.7128, -74.0060, "Shelter", true);
+
+    assertEquals(1, result.size(), "There should be one service returned");
+    assertEquals("Shelter A", result.get(0).getName(), "The service name should be 'Shelter A'");
+    verify(serviceRepository, times(0)).findByFilters(any(), any(), any(), any(), any());
+  }
+
+  /**
+   * Tests that index mode does not touch the database when nothing is in range.
+   */
+  @Test
+  public void testQueryServices_indexMode_NoHits_ShouldSkipDatabase() {
+    when(spatialIndex.withinRadius(40.7128, -74.0060, 10.0, null, null))
+        .thenReturn(new ArrayList<>());
+
+    List<ServiceEntity> result = serviceService.queryServices(40.7128, -74.0060, null, null);
+
+    assertTrue(result.isEmpty(), "There should be no services returned");
+    verify(serviceRepository, times(0)).findAllById(any());
+  }
+
+  /**
+   * Tests that index mode falls back to the repository when no coordinates are given.
+   */
+  @Test
+  public void testQueryServices_indexMode_WithoutCoordinates_ShouldUseRepository() {
+    List<ServiceEntity> mockServices = Arrays.asList(new ServiceEntity(2L, "Food Bank A",
+        "Food Bank", 40.7306, -73.9352, "456 Broadway", "New York", "NY", "10002",
+        "9876543210", "10 AM - 6 PM", true));
+    when(serviceRepository.findByFilters(null, null, 10.0, "Food Bank", null))
+        .thenReturn(mockServices);
+
+    List<ServiceEntity> result = serviceService.queryServices(null, null, "Food Bank", null);
+
+    assertEquals(1, result.size(), "There should be one service returned");
+    verify(spatialIndex, times(0)).withinRadius(
+        anyDouble(), anyDouble(), anyDouble(), any(), any());
+  }
+
+  /**
+   * Tests that a known zipcode without coordinates runs the radius search from its centroid.
+   */
+  @Test
+  public void testQueryServices_KnownZipcode_ShouldSearchAroundCentroid() throws Exception {
+    ReflectionTestUtils.setField(serviceService, "queryMode", GeoQueryMode.JPQL);
+    ReflectionTestUtils.setField(serviceService, "zipcodeCentroids",
+        new ZipcodeCentroids(new StringReader("zipcode,latitude,longitude\n"
+            + "10027,40.8116,-73.9531\n")));
+    ServiceEntity near = new ServiceEntity(1L, "Shelter A", "Shelter", 40.8100, -73.9500,
+        "123 Main St", "New York", "NY", "10026", "1234567890", "9 AM - 5 PM", true);
+    ServiceEntity nearer = new ServiceEntity(2L, "Shelter B", "Shelter", 40.8115, -73.9530,
+        "456 Main St", "New York", "NY", "10027", "1234567890", "9 AM - 5 PM", true);
+    when(serviceRepository.findByFilters(doubleThat(lat -> Math.abs(lat - 40.8116) < 1e-4),
+        doubleThat(lon -> Math.abs(lon + 73.9531) < 1e-4), eq(2.0), eq("Shelter"), isNull()))
+        .thenReturn(Arrays.asList(near, nearer));
+
+    List<ServiceEntity> result = serviceService.queryServices(null, null, 2.0, "Shelter", null,
+        "10027-1234", null, null);
+
+    assertEquals(2, result.size(), "Services near the centroid should be returned");
+    assertEquals(2L, result.get(0).getId(), "The closest service should come first");
+    verify(serviceRepository, times(0)).findByPlace(any(), any(), any(), any(), any());
+  }
+
+  /**
+   * Tests that an unknown zipcode and a city without coordinates use the indexed filters.
+   */
+  @Test
+  public void testQueryServices_UnknownZipcode_ShouldFilterByPlace() throws Exception {
+    ReflectionTestUtils.setField(serviceService, "zipcodeCentroids",
+        new ZipcodeCentroids(new StringReader("zipcode,latitude,longitude\n")));
+    List<ServiceEntity> mockServices = Arrays.asList(new ServiceEntity(3L, "Clinic", "Health",
+        44.4759, -73.2121, "1 Church St", "Burlington", "VT", "05401", "1234567890",
+        "9 AM - 5 PM", true));
+    when(serviceRepository.findByPlace("05401", "Burlington", null, null, true))
+        .thenReturn(mockServices);
+
+    List<ServiceEntity> result = serviceService.queryServices(null, null, null, null, true,
+        "05401", "Burlington", null);
+
+    assertEquals(mockServices, result, "The indexed place filters should be used");
+  }
+
+  /**
+   * Tests that city and state refine a radius search, ignoring case.
+   */
+  @Test
+  public void testQueryServices_WithCoordinatesAndState_ShouldRefineRadiusSearch() {
+    ReflectionTestUtils.setField(serviceService, "queryMode", GeoQueryMode.JPQL);
+    ServiceEntity newYork = new ServiceEntity(1L, "Shelter A", "Shelter", 40.7128, -74.0060,
+        "123 Main St", "New York", "NY", "10001", "1234567890", "9 AM - 5 PM", true);
+    ServiceEntity newJersey = new ServiceEntity(2L, "Shelter B", "Shelter", 40.7178, -74.0431,
+        "1 Grove St", "Jersey City", "NJ", "07302", "1234567890", "9 AM - 5 PM", true);
+    when(serviceRepository.findByFilters(40.7128, -74.0060, 10.0, null, null))
+        .thenReturn(Arrays.asList(newYork, newJersey));
+
+    List<ServiceEntity> result = serviceService.queryServices(40.7128, -74.0060, null, null,
+        null, null, null, "nj");
+
+    assertEquals(List.of(newJersey), result, "Only the service in the state should remain");
+  }
+
+  /**
+   * Tests that bounding box mode passes the box around the search circle to the
+   * repository together with the exact radius.
+   */
+  @Test
+  public void testQueryServices_boundingBoxMode_ShouldPassBoundsToRepository() {
+    ReflectionTestUtils.setField(serviceService, "queryMode", GeoQueryMode.BOUNDING_BOX);
+    GeoUtils.BoundingBox box = GeoUtils.boundingBox(40.7128, -74.0060, 10.0);
+    List<ServiceEntity> mockServices = List.of(new ServiceEntity(1L, "Shelter A", "Shelter",
+        40.7128, -74.0060, "123 Main St", "New York", "NY", "10001", "1234567890",
+        "9 AM - 5 PM", true));
+    when(serviceRepository.findByFiltersWithinBounds(40.7128, -74.0060, 10.0,
+        box.getMinLat(), box.getMaxLat(), box.getMinLon(), box.getMaxLon(), "Shelter", true))
+        .thenReturn(mockServices);
+
+    List<ServiceEntity> result = serviceService.queryServices(40.7128, -74.0060, "Shelter", true);
+
+    assertEquals(1, result.size(), "There should be one service returned");
+    assertTrue(box.getMinLat() < 40.7128 && box.getMaxLat() > 40.7128,
+        "The box should surround the origin");
+    verify(serviceRepository, times(0)).findByFilters(any(), any(), any(), any(), any());
+  }
+
+  /**
+   * Tests that bounding box mode drops the longitude range when the box wraps
+   * the antimeridian.
+   */
+  @Test
+  public void testQueryServices_boundingBoxMode_AcrossAntimeridian_ShouldUseAllLongitudes() {
+    ReflectionTestUtils.setField(serviceService, "queryMode", GeoQueryMode.BOUNDING_BOX);
+    GeoUtils.BoundingBox box = GeoUtils.boundingBox(0.0, 179.99, 10.0);
+    when(serviceRepository.findByFiltersWithinBounds(0.0, 179.99, 10.0,
+        box.getMinLat(), box.getMaxLat(), -180.0, 180.0, null, null))
+        .thenReturn(new ArrayList<>());
+
+    serviceService.queryServices(0.0, 179.99, null, null);
+
+    verify(serviceRepository, times(1)).findByFiltersWithinBounds(0.0, 179.99, 10.0,
+        box.getMinLat(), box.getMaxLat(), -180.0, 180.0, null, null);
+  }
+
+  /**
+   * Tests that spatial mode queries the POINT column through the bounding box polygon.
+   */
+  @Test
+  public void testQueryServices_spatialMode_ShouldUseSpatialIndexQuery() {
+    ReflectionTestUtils.setField(serviceService, "queryMode", GeoQueryMode.SPATIAL);
+    String box = GeoUtils.boundingBox(40.7128, -74.0060, 10.0).toWkt();
+    List<ServiceEntity> mockServices = List.of(new ServiceEntity(1L, "Shelter A", "Shelter",
+        40.7128, -74.0060, "123 Main St", "New York", "NY", "10001", "1234567890",
+        "9 AM - 5 PM", true));
+    when(serviceRepository.findWithinSpatialBox(40.7128, -74.0060, 10.0, box, "Shelter", true))
+        .thenReturn(mockServices);
+
+    List<ServiceEntity> result = serviceService.queryServices(40.7128, -74.0060, "Shelter", true);
+
+    assertEquals(1, result.size(), "There should be one service returned");
+    verify(serviceRepository, times(0)).findByFilters(any(), any(), any(), any(), any());
+  }
+
+  /**
+   * Tests that spatial mode falls back to the latitude range when the box wraps the
+   * antimeridian, since such a box is not a valid polygon.
+   */
+  @Test
+  public void testQueryServices_spatialMode_AcrossAntimeridian_ShouldUseLatitudeRange() {
+    ReflectionTestUtils.setField(serviceService, "queryMode", GeoQueryMode.SPATIAL);
+    GeoUtils.BoundingBox box = GeoUtils.boundingBox(0.0, 179.99, 10.0);
+    when(serviceRepository.findByFiltersWithinBounds(0.0, 179.99, 10.0,
+        box.getMinLat(), box.getMaxLat(), -180.0, 180.0, null, null))
+        .thenReturn(new ArrayList<>());
+
+    serviceService.queryServices(0.0, 179.99, null, null);
+
+    verify(serviceRepository, times(0)).findWithinSpatialBox(
+        any(), any(), any(), any(), any(), any());
+  }
+
+  /**
+   * Tests that startup backfills unit vectors before loading the spatial index.
+   */
+  @Test
+  public void testInitializeGeoData_ShouldBackfillUnitVectorsAndLoadIndex() {
+    when(serviceRepository.findAllLocations()).thenReturn(new ArrayList<>());
+
+    serviceService.initializeGeoData();
+
+    verify(serviceRepository, times(1)).backfillUnitVectors();
+    verify(serviceRepository, times(1)).backfillVersions();
+    verify(spatialIndex, times(1)).rebuild(any());
+    verify(clusterIndex, times(1)).rebuild(any());
+    verify(textIndex, times(1)).rebuild(any());
+    verify(autocomplete, times(1)).rebuild(any(), any());
+    verify(hoursIndex, times(1)).rebuild(any());
+  }
+
+  /**
+   * Tests that nearby origins share one cached query until a service in range changes.
+   */
+  @Test
+  public void testQueryServices_withCache_ShouldShareQueryWithinCell() {
+    ServiceQueryCache cache = new ServiceQueryCache(0.01, 1.0, 100, 10000);
+    ReflectionTestUtils.setField(serviceService, "queryCache", cache);
+    ReflectionTestUtils.setField(serviceService, "queryMode", GeoQueryMode.JPQL);
+    ServiceEntity shelter = new ServiceEntity(1L, "Shelter A", "Shelter", 40.7128, -74.0060,
+        "123 Main St", "New York", "NY", "10001", "1234567890", "9 AM - 5 PM", true);
+    when(serviceRepository.findByFilters(anyDouble(), anyDouble(), anyDouble(), any(), any()))
+        .thenReturn(List.of(shelter));
+    when(serviceRepository.findAllById(List.of(1L))).thenReturn(List.of(shelter));
+
+    serviceService.queryServices(40.7121, -74.0051, null, null);
+    List<ServiceEntity> result = serviceService.queryServices(40.7129, -74.0059, null, null);
+
+    assertEquals(1, result.size(), "The cached superset should be refined to the radius");
+    verify(serviceRepository, times(1))
+        .findByFilters(anyDouble(), anyDouble(), anyDouble(), any(), any());
+    assertEquals(1, serviceService.getQueryCacheStats().getHits(), "Second query should hit");
+    verify(serviceRepository, times(1)).findAllById(List.of(1L));
+
+    cache.onServiceChanged(new ServiceChangedEvent(1L, null));
+    serviceService.queryServices(40.7129, -74.0059, null, null);
+    verify(serviceRepository, times(2))
+        .findByFilters(anyDouble(), anyDouble(), anyDouble(), any(), any());
+  }
+
+  /**
+   * Tests that writes publish a change event for listeners such as the query cache.
+   */
+  @Test
+  public void testRegisterAndDelete_ShouldPublishServiceChangedEvents() {
+    ServiceEntity savedService = new ServiceEntity(7L, "Shelter A", "Shelter", 40.7128,
+        -74.0060, "123 Main St", "New York", "NY", "10001", "1234567890", "9 AM - 5 PM", true);
+    when(serviceRepository.save(any(ServiceEntity.class))).thenReturn(savedService);
+    when(serviceRepository.deleteRowById(7L)).thenReturn(1);
+
+    serviceService.registerService(savedService);
+    serviceService.deleteServiceById(7L);
+
+    verify(eventPublisher, times(2)).publishEvent(any(ServiceChangedEvent.class));
+  }
+
+  /**
+   * Tests that database modes load the candidates for all origins in one query and
+   * return services shared by several origins once.
+   */
+  @Test
+  public void testQueryServicesBatch_jpqlMode_ShouldQueryOnceAndDeduplicate() {
+    ReflectionTestUtils.setField(serviceService, "queryMode", GeoQueryMode.JPQL);
+    ServiceEntity shared = new ServiceEntity(1L, "Shelter A", "Shelter", 40.7128, -74.0060,
+        "123 Main St", "New York", "NY", "10001", "1234567890", "9 AM - 5 PM", true);
+    ServiceEntity uptown = new ServiceEntity(2L, "Shelter B", "Shelter", 40.7831, -73.9712,
+        "1 Uptown St", "New York", "NY", "10024", "1234567890", "9 AM - 5 PM", true);
+    when(serviceRepository.findWithinBounds(anyDouble(), anyDouble(), anyDouble(),
+        anyDouble(), any(), any()))
+        .thenReturn(List.of(shared, uptown));
+
+    BatchQueryResult result = serviceService.queryServicesBatch(List.of(
+        new BatchQueryRequest.Origin(40.7130, -74.0050),
+        new BatchQueryRequest.Origin(40.7500, -73.9900)), 5.0, null, null);
+
+    verify(serviceRepository, times(1)).findWithinBounds(anyDouble(), anyDouble(),
+        anyDouble(), anyDouble(), any(), any());
+    assertEquals(2, result.getServices().size(), "Each service should be listed once");
+    assertEquals(1, result.getResults().get(0).getMatches().size(),
+        "Only the nearby shelter is within 5 km of the first stop");
+    assertEquals(2, result.getResults().get(1).getMatches().size(),
+        "Both shelters are within 5 km of the second stop");
+    assertEquals(2L, result.getResults().get(1).getMatches().get(0).getId(),
+        "Matches should be ordered by distance, the uptown shelter is closer");
+  }
+
+  /**
+   * Tests that distant origins are loaded with one query each instead of one rectangle
+   * spanning the gap between them, and services are deduplicated across the queries.
+   */
+  @Test
+  public void testQueryServicesBatch_jpqlMode_ShouldQueryDistantOriginsSeparately() {
+    ReflectionTestUtils.setField(serviceService, "queryMode", GeoQueryMode.JPQL);
+    ServiceEntity shelter = new ServiceEntity(1L, "Shelter A", "Shelter", 40.7128, -74.0060,
+        "123 Main St", "New York", "NY", "10001", "1234567890", "9 AM - 5 PM", true);
+    when(serviceRepository.findWithinBounds(anyDouble(), anyDouble(), anyDouble(),
+        anyDouble(), any(), any()))
+        .thenReturn(List.of(shelter));
+
+    BatchQueryResult result = serviceService.queryServicesBatch(List.of(
+        new BatchQueryRequest.Origin(40.7130, -74.0050),
+        new BatchQueryRequest.Origin(34.0522, -118.2437)), 5.0, null, null);
+
+    verify(serviceRepository, times(1)).findWithinBounds(doubleThat(lat -> lat > 40.0),
+        anyDouble(), doubleThat(lon -> lon > -75.0), anyDouble(), any(), any());
+    verify(serviceRepository, times(1)).findWithinBounds(anyDouble(),
+        doubleThat(lat -> lat < 35.0), anyDouble(), doubleThat(lon -> lon < -118.0), any(),
+        any());
+    assertEquals(1, result.getServices().size(), "Each service should be listed once");
+    assertEquals(1, result.getResults().get(0).getMatches().size(),
+        "The shelter is within 5 km of New York");
+    assertEquals(0, result.getResults().get(1).getMatches().size(),
+        "The shelter is far from Los Angeles");
+  }
+
+  /**
+   * Tests that index mode loads the union of all origins' matches with one lookup.
+   */
+  @Test
+  public void testQueryServicesBatch_indexMode_ShouldLoadUnionOnce() {
+    ServiceEntity shared = new ServiceEntity(1L, "Shelter A", "Shelter", 40.7128, -74.0060,
+        "123 Main St", "New York", "NY", "10001", "1234567890", "9 AM - 5 PM", true);
+    when(spatialIndex.withinRadius(40.7130, -74.0050, 10.0, "Shelter", true))
+        .thenReturn(List.of(new ServiceSpatialIndex.Hit(1L, 0.1)));
+    when(spatialIndex.withinRadius(40.7140, -74.0070, 10.0, "Shelter", true))
+        .thenReturn(List.of(new ServiceSpatialIndex.Hit(1L, 0.2)));
+    when(serviceRepository.findAllById(any())).thenReturn(List.of(shared));
+
+    BatchQueryResult result = serviceService.queryServicesBatch(List.of(
+        new BatchQueryRequest.Origin(40.7130, -74.0050),
+        new BatchQueryRequest.Origin(40.7140, -74.0070)), null, "Shelter", true);
+
+    verify(serviceRepository, times(1)).findAllById(any());
+    assertEquals(1, result.getServices().size(), "The shared service should be listed once");
+    assertEquals(0.2, result.getResults().get(1).getMatches().get(0).getDistanceKm(), 1e-9,
+        "Each origin should keep its own distance");
+  }
+
+  /**
+   * Tests that a requested radius is capped at the configured maximum.
+   */
+  @Test
+  public void testQueryServices_RadiusAboveMaximum_ShouldBeCapped() {
+    ReflectionTestUtils.setField(serviceService, "queryMode", GeoQueryMode.JPQL);
+    when(serviceRepository.findByFilters(40.7128, -74.0060, 50.0, null, null))
+        .thenReturn(new ArrayList<>());
+
+    serviceService.queryServices(40.7128, -74.0060, 500.0, null, null);
+
+    verify(serviceRepository, times(1)).findByFilters(40.7128, -74.0060, 50.0, null, null);
+  }
+
+  /**
+   * Tests that results with coordinates are ordered closest first.
+   */
+  @Test
+  public void testQueryServices_ShouldOrderByDistance() {
+    ReflectionTestUtils.setField(serviceService, "queryMode", GeoQueryMode.JPQL);
+    ServiceEntity far = new ServiceEntity(1L, "Far", "Shelter", 40.7580, -73.9855,
+        "1 Far St", "New York", "NY", "10036", "1234567890", "9 AM - 5 PM", true);
+    ServiceEntity near = new ServiceEntity(2L, "Near", "Shelter", 40.7130, -74.0062,
+        "2 Near St", "New York", "NY", "10007", "1234567890", "9 AM - 5 PM", true);
+    when(serviceRepository.findByFilters(40.7128, -74.0060, 5.0, null, null))
+        .thenReturn(List.of(far, near));
+
+    List<ServiceEntity> result = serviceService.queryServices(40.7128, -74.0060, 5.0, null, null);
+
+    assertEquals("Near", result.get(0).getName(), "The closest service should come first");
+    assertEquals("Far", result.get(1).getName(), "The furthest service should come last");
+  }
+
+  /**
+   * Tests that index mode pages through hits after the cursor key and returns a cursor
+   * only while more hits remain.
+   */
+  @Test
+  public void testQueryServicesPage_indexMode_ShouldContinueAfterCursor() {
+    ServiceEntity first = new ServiceEntity(1L, "Shelter A", "Shelter", 40.7128, -74.0060,
+        "123 Main St", "New York", "NY", "10001", "1234567890", "9 AM - 5 PM", true);
+    ServiceEntity second = new ServiceEntity(2L, "Shelter B", "Shelter", 40.7130, -74.0062,
+        "124 Main St", "New York", "NY", "10001", "1234567890", "9 AM - 5 PM", true);
+    ServiceEntity third = new ServiceEntity(3L, "Shelter C", "Shelter", 40.7200, -74.0100,
+        "125 Main St", "New York", "NY", "10001", "1234567890", "9 AM - 5 PM", true);
+    when(spatialIndex.withinRadiusAfter(40.7128, -74.0060, 10.0, null, null, -1.0, 0L, 3))
+        .thenReturn(List.of(new ServiceSpatialIndex.Hit(1L, 0.0),
+            new ServiceSpatialIndex.Hit(2L, 0.03), new ServiceSpatialIndex.Hit(3L, 0.9)));
+    when(serviceRepository.findAllById(List.of(1L, 2L))).thenReturn(List.of(second, first));
+
+    CursorPage<NearbyService> page =
+        serviceService.queryServicesPage(40.7128, -74.0060, null, null, null, null, 2);
+
+    assertEquals(2, page.getItems().size(), "The page should hold the requested number");
+    assertEquals("Shelter A", page.getItems().get(0).getService().getName(),
+        "Services should keep the distance order of the index");
+    assertNotNull(page.getNext(), "A cursor should be returned while more services remain");
+
+    when(spatialIndex.withinRadiusAfter(40.7128, -74.0060, 10.0, null, null, 0.03, 2L, 3))
+        .thenReturn(List.of(new ServiceSpatialIndex.Hit(3L, 0.9)));
+    when(serviceRepository.findAllById(List.of(3L))).thenReturn(List.of(third));
+
+    CursorPage<NearbyService> last = serviceService.queryServicesPage(
+        40.7128, -74.0060, null, null, null, page.getNext(), 2);
+
+    assertEquals(1, last.getItems().size(), "The last page should hold the remaining service");
+    assertEquals("Shelter C", last.getItems().get(0).getService().getName(),
+        "The next page should start after the cursor");
+    assertNull(last.getNext(), "No cursor should be returned on the last page");
+  }
+
+  /**
+   * Tests that database modes push the keyset predicate and page size to the repository.
+   */
+  @Test
+  public void testQueryServicesPage_jpqlMode_ShouldUseKeysetQuery() {
+    ReflectionTestUtils.setField(serviceService, "queryMode", GeoQueryMode.JPQL);
+    ServiceEntity shelter = new ServiceEntity(4L, "Shelter D", "Shelter", 40.7200, -74.0100,
+        "126 Main St", "New York", "NY", "10001", "1234567890", "9 AM - 5 PM", true);
+    GeoUtils.BoundingBox box = GeoUtils.boundingBox(40.7128, -74.0060, 10.0);
+    List<Object[]> rows = new ArrayList<>();
+    rows.add(new Object[] {shelter, 0.9});
+    String cursor = PageCursor.encode("0.5", "3");
+    when(serviceRepository.findNearbyPage(40.7128, -74.0060, 10.0, box.getMinLat(),
+        box.getMaxLat(), box.getMinLon(), box.getMaxLon(), "Shelter", true, 0.5, 3L,
+        PageRequest.of(0, 51)))
+        .thenReturn(rows);
+
+    CursorPage<NearbyService> page = serviceService.queryServicesPage(
+        40.7128, -74.0060, null, "Shelter", true, cursor, null);
+
+    assertEquals(1, page.getItems().size(), "There should be one service returned");
+    assertEquals(0.9, page.getItems().get(0).getDistanceKm(), 1e-9,
+        "The distance should come from the query");
+    assertNull(page.getNext(), "No cursor should be returned on the last page");
+  }
+
+  /**
+   * Tests that the service listing seeks past the name and id of the previous page.
+   */
+  @Test
+  public void testGetServicesPage_SortByName_ShouldContinueAfterCursor() {
+    ServiceEntity alpha = new ServiceEntity(7L, "Alpha", "Shelter", 40.7128, -74.0060,
+        "123 Main St", "New York", "NY", "10001", "1234567890", "9 AM - 5 PM", true);
+    ServiceEntity beta = new ServiceEntity(3L, "Beta", "Shelter", 40.7130, -74.0062,
+        "124 Main St", "New York", "NY", "10001", "1234567890", "9 AM - 5 PM", true);
+    ServiceEntity gamma = new ServiceEntity(5L, "Gamma", "Shelter", 40.7200, -74.0100,
+        "125 Main St", "New York", "NY", "10001", "1234567890", "9 AM - 5 PM", true);
+    when(serviceRepository.findPageByName("", 0L, PageRequest.of(0, 3)))
+        .thenReturn(List.of(alpha, beta, gamma));
+
+    CursorPage<ServiceEntity> page = serviceService.getServicesPage(ServiceSort.NAME, null, 2);
+
+    assertEquals(List.of(alpha, beta), page.getItems(), "The page should hold two services");
+    assertNotNull(page.getNext(), "A cursor should be returned while more services remain");
+
+    when(serviceRepository.findPageByName("Beta", 3L, PageRequest.of(0, 3)))
+        .thenReturn(List.of(gamma));
+
+    CursorPage<ServiceEntity> last =
+        serviceService.getServicesPage(ServiceSort.NAME, page.getNext(), 2);
+
+    assertEquals(List.of(gamma), last.getItems(), "The next page should start after Beta");
+    assertNull(last.getNext(), "No cursor should be returned on the last page");
+    assertThrows(IllegalArgumentException.class,
+        () -> serviceService.getServicesPage(ServiceSort.CITY, page.getNext(), 2),
+        "A cursor should only be valid for its own sort order");
+  }
+
+  /**
+   * Tests that a fieldset query in index mode reads only the requested columns of the hits,
+   * closest first.
+   */
+  @Test
+  public void testQueryServices_WithFields_indexMode_ShouldReadOnlyRequestedColumns() {
+    when(spatialIndex.withinRadius(40.7128, -74.0060, 10.0, "Shelter", null))
+        .thenReturn(List.of(new ServiceSpatialIndex.Hit(8L, 2.5),
+            new ServiceSpatialIndex.Hit(4L, 0.3), new ServiceSpatialIndex.Hit(6L, 2.5)));
+    ServiceFields fields = ServiceFields.parse("name");
+    List<Map<String, Object>> rows = new ArrayList<>();
+    for (long id : new long[] {4L, 6L, 8L}) {
+      Map<String, Object> row = new LinkedHashMap<>();
+      row.put("id", id);
+      row.put("name", "Shelter " + id);
+      rows.add(row);
+    }
+    when(serviceRepository.findFieldsByIds(eq(List.of(4L, 6L, 8L)), any(ServiceFields.class)))
+        .thenReturn(rows);
+
+    List<Map<String, Object>> result = serviceService.queryServices(40.7128, -74.0060, null,
+        "Shelter", null, null, null, null, fields);
+
+    assertEquals(List.of(Map.of("name", "Shelter 4"), Map.of("name", "Shelter 6"),
+        Map.of("name", "Shelter 8")), result,
+        "Rows should follow distance and then id, without the unrequested id");
+    verify(serviceRepository, times(0)).findAllById(any());
+  }
+
+  /**
+   * Tests that an open filter in index mode drops closed services before reading their rows.
+   */
+  @Test
+  public void testQueryServices_WithFieldsAndOpenAt_ShouldReadOpenServicesOnly() {
+    ServiceHoursIndex hours = new ServiceHoursIndex("America/New_York");
+    ServiceEntity day = new ServiceEntity(4L, "Day Shelter", "Shelter", 40.7128, -74.0060,
+        "1 Main St", "New York", "NY", "10001", "1234567890", "9 AM - 5 PM", true);
+    ServiceEntity night = new ServiceEntity(6L, "Night Shelter", "Shelter", 40.7128, -74.0060,
+        "2 Main St", "New York", "NY", "10001", "1234567890", "8 PM - 8 AM", true);
+    hours.onServiceChanged(new ServiceChangedEvent(4L, day));
+    hours.onServiceChanged(new ServiceChangedEvent(6L, night));
+    ReflectionTestUtils.setField(serviceService, "hoursIndex", hours);
+    when(spatialIndex.withinRadius(40.7128, -74.0060, 10.0, null, null))
+        .thenReturn(List.of(new ServiceSpatialIndex.Hit(4L, 0.3),
+            new ServiceSpatialIndex.Hit(6L, 0.5)));
+    Map<String, Object> row = new LinkedHashMap<>();
+    row.put("id", 6L);
+    row.put("name", "Night Shelter");
+    when(serviceRepository.findFieldsByIds(eq(List.of(6L)), any(ServiceFields.class)))
+        .thenReturn(List.of(row));
+
+    // 11 PM in New York
+    List<Map<String, Object>> result = serviceService.queryServices(40.7128, -74.0060, null,
+        null, null, null, null, null, Instant.parse("2024-05-07T03:00:00Z"),
+        ServiceFields.parse("name"));
+
+    assertEquals(List.of(Map.of("name", "Night Shelter")), result,
+        "Only the service open at night should be read and returned");
+  }
+
+  /**
+   * Tests that a fieldset page selects the paging keys and removes them from the items.
+   */
+  @Test
+  public void testGetServicesPage_WithFields_ShouldEncodeCursorFromKeys() {
+    ServiceFields fields = ServiceFields.parse("latitude,longitude");
+    List<Map<String, Object>> rows = new ArrayList<>();
+    for (long id = 1; id <= 3; id++) {
+      Map<String, Object> row = new LinkedHashMap<>();
+      row.put("id", id);
+      row.put("latitude", 40.0 + id);
+      row.put("longitude", -74.0);
+      row.put("city", "City " + id);
+      rows.add(row);
+    }
+    when(serviceRepository.findFieldsPage(eq(ServiceSort.CITY), eq(""), eq(0L), eq(3),
+        any(ServiceFields.class))).thenReturn(rows);
+
+    CursorPage<Map<String, Object>> page =
+        serviceService.getServicesPage(ServiceSort.CITY, null, 2, fields);
+
+    assertEquals(2, page.getItems().size(), "The page should hold two services");
+    assertEquals(Map.of("latitude", 41.0, "longitude", -74.0), page.getItems().get(0),
+        "Only the requested fields should be returned");
+    assertEquals(PageCursor.encode("CITY", "City 2", "2"), page.getNext(),
+        "The cursor should come from the last row's city and id");
+  }
+
+  /**
+   * Tests that the service listing caps the page size and defaults to id order.
+   */
+  @Test
+  public void testGetServicesPage_ShouldCapPageSize() {
+    when(serviceRepository.findPageById(0L, PageRequest.of(0, 201))).thenReturn(List.of());
+
+    CursorPage<ServiceEntity> page = serviceService.getServicesPage(ServiceSort.ID, null,
+        100000);
+
+    assertTrue(page.getItems().isEmpty(), "There should be no services");
+    assertNull(page.getNext(), "No cursor should be returned on the last page");
+    verify(serviceRepository, times(0)).findAll();
+  }
+
+  /**
+   * Tests that a malformed cursor is rejected.
+   */
+  @Test
+  public void testQueryServicesPage_InvalidCursor_ShouldThrow() {
+    assertThrows(IllegalArgumentException.class, () -> serviceService.queryServicesPage(
+        40.7128, -74.0060, null, null, null, "not a cursor", null));
+    assertThrows(IllegalArgumentException.class, () -> serviceService.queryServicesPage(
+        40.7128, -74.0060, null, null, null, PageCursor.encode("near", "1"), null));
+  }
+
+  /**
+   * Tests that index mode returns the nearest services in index order with distances.
+   */
+  @Test
+  public void testFindNearestServices_indexMode_ShouldKeepDistanceOrder() {
+    ServiceEntity near = new ServiceEntity(1L, "Shelter A", "Shelter", 40.7128, -74.0060,
+        "123 Main St", "New York", "NY", "10001", "1234567890", "9 AM - 5 PM", true);
+    ServiceEntity far = new ServiceEntity(2L, "Shelter B", "Shelter", 40.7580, -73.9855,
+        "456 Broadway", "New York", "NY", "10002", "1234567890", "9 AM - 5 PM", true);
+    when(spatialIndex.nearest(40.7128, -74.0060, 2, "Shelter", true)).thenReturn(List.of(
+        new ServiceSpatialIndex.Hit(1L, 0.0), new ServiceSpatialIndex.Hit(2L, 5.4)));
+    when(serviceRepository.findAllById(List.of(1L, 2L))).thenReturn(List.of(far, near));
+
+    List<NearbyService> result =
+        serviceService.findNearestServices(40.7128, -74.0060, 2, "Shelter", true);
+
+    assertEquals(2, result.size(), "Two services should be returned");
+    assertEquals("Shelter A", result.get(0).getService().getName(), "Closest comes first");
+    assertEquals(5.4, result.get(1).getDistanceKm(), "Distance should come from the index");
+  }
+
+  /**
+   * Tests that the database modes grow the radius until enough services are found.
+   */
+  @Test
+  public void testFindNearestServices_jpqlMode_ShouldGrowRadiusUntilKFound() {
+    ReflectionTestUtils.setField(serviceService, "queryMode", GeoQueryMode.JPQL);
+    ServiceEntity near = new ServiceEntity(1L, "Shelter A", "Shelter", 40.7128, -74.0060,
+        "123 Main St", "New York", "NY", "10001", "1234567890", "9 AM - 5 PM", true);
+    ServiceEntity far = new ServiceEntity(2L, "Shelter B", "Shelter", 40.7580, -73.9855,
+        "456 Broadway", "New York", "NY", "10002", "1234567890", "9 AM - 5 PM", true);
+    when(serviceRepository.findByFilters(40.7128, -74.0060, 1.0, null, null))
+        .thenReturn(List.of(near));
+    when(serviceRepository.findByFilters(40.7128, -74.0060, 2.0, null, null))
+        .thenReturn(List.of(near));
+    when(serviceRepository.findByFilters(40.7128, -74.0060, 4.0, null, null))
+        .thenReturn(List.of(near));
+    when(serviceRepository.findByFilters(40.7128, -74.0060, 8.0, null, null))
+        .thenReturn(List.of(far, near));
+
+    List<NearbyService> result =
+        serviceService.findNearestServices(40.7128, -74.0060, 2, null, null);
+
+    assertEquals(2, result.size(), "Two services should be returned");
+    assertEquals(1L, result.get(0).getService().getId(), "Closest comes first");
+    assertEquals(2L, result.get(1).getService().getId(), "Farthest comes last");
+    verify(serviceRepository, times(0)).findByFilters(40.7128, -74.0060, 16.0, null, null);
+  }
+
+  /**
+   * Tests that a registered service is added to the spatial index.
+   */
+  @Test
+  public void testRegisterService_ShouldIndexSavedService() {
+    ServiceEntity newService = new ServiceEntity(null, "Shelter A", "Shelter", 40.7128,
+        -74.0060, "123 Main St", "New York", "NY", "10001", "1234567890", "9 AM - 5 PM", true);
+    ServiceEntity savedService = new ServiceEntity(5L, "Shelter A", "Shelter", 40.7128,
+        -74.0060, "123 Main St", "New York", "NY", "10001", "1234567890", "9 AM - 5 PM", true);
+    when(serviceRepository.save(newService)).thenReturn(savedService);
+
+    ServiceEntity result = serviceService.registerService(newService);
+
+    assertEquals(5L, result.getId(), "The saved service should be returned");
+    verify(spatialIndex, times(1)).put(savedService);
+  }
+
   /**
    * Tests the updateService method with a full update.
    * Expects all fields to be updated and the updated service to be returned.
@@ -141,6 +870,7 @@ public class ServiceServiceTest {
     assertFalse(result.getAvailability(), "Service availability should be updated to false");
     verify(serviceRepository, times(1)).findById(serviceId);
     verify(serviceRepository, times(1)).save(existingService);
+    verify(spatialIndex, times(1)).put(updateData);
   }
 
   /**
@@ -224,6 +954,57 @@ public class ServiceServiceTest {
     verify(serviceRepository, times(0)).save(any(ServiceEntity.class));
   }
 
+  /**
+   * Tests that an update based on a version the service has moved past is refused
+   * before anything is written.
+   */
+  @Test
+  public void testUpdateService_StaleExpectedVersion_ShouldThrowWithoutSaving() {
+    ServiceEntity existingService = new ServiceEntity(1L, "Shelter A", "shelters", 40.7128,
+        -74.0060, "123 Old St", "Old City", "NY", "10001", "123-456-7890", "9 AM - 5 PM", true);
+    existingService.setVersion(3L);
+    ServiceEntity updateData = new ServiceEntity();
+    updateData.setName("Renamed");
+    when(serviceRepository.findById(1L)).thenReturn(Optional.of(existingService));
+    when(serviceRepository.save(any(ServiceEntity.class))).thenAnswer(i -> i.getArgument(0));
+
+    assertThrows(OptimisticLockingFailureException.class,
+        () -> serviceService.updateService(1L, updateData, 2L));
+    verify(serviceRepository, times(0)).save(any(ServiceEntity.class));
+
+    ServiceEntity result = serviceService.updateService(1L, updateData, 3L);
+    assertEquals("Renamed", result.getName(), "The current version should be accepted");
+  }
+
+  /**
+   * Tests that a patch is one conditional UPDATE, and that a version mismatch is told apart
+   * from a missing service.
+   */
+  @Test
+  public void testPatchService_ShouldUpdateConditionallyAndReportConflicts() throws Exception {
+    ServicePatch patch = ServicePatch.parse(new ObjectMapper().readTree("{\"name\": \"B\"}"),
+        Validation.buildDefaultValidatorFactory().getValidator());
+    ServiceEntity patched = new ServiceEntity(1L, "B", "shelters", 40.7128, -74.0060,
+        "123 Old St", "Old City", "NY", "10001", "123-456-7890", "9 AM - 5 PM", true);
+    patched.setVersion(4L);
+    when(serviceRepository.patch(1L, 3L, Map.of("name", "B"))).thenReturn(1);
+    when(serviceRepository.findById(1L)).thenReturn(Optional.of(patched));
+
+    ServiceEntity result = serviceService.patchService(1L, patch, 3L);
+    assertEquals(Long.valueOf(4L), result.getVersion(), "The new version should be returned");
+    verify(serviceRepository, times(0)).save(any(ServiceEntity.class));
+    verify(eventPublisher, times(1)).publishEvent(any(ServiceChangedEvent.class));
+
+    when(serviceRepository.patch(eq(1L), eq(2L), any())).thenReturn(0);
+    when(serviceRepository.existsById(1L)).thenReturn(true);
+    assertThrows(OptimisticLockingFailureException.class,
+        () -> serviceService.patchService(1L, patch, 2L));
+
+    when(serviceRepository.patch(eq(9L), eq(0L), any())).thenReturn(0);
+    when(serviceRepository.existsById(9L)).thenReturn(false);
+    assertNull(serviceService.patchService(9L, patch, 0L), "A missing service is not found");
+  }
+
   /**
    * Tests the updateService method when the save operation violates data integrity.
    * Expects a DataIntegrityViolationException to be thrown.
@@ -271,16 +1052,158 @@ public class ServiceServiceTest {
     // Arrange
     Long serviceId = 1L;
 
-    when(serviceRepository.existsById(serviceId)).thenReturn(true);
-    doNothing().when(serviceRepository).deleteById(serviceId);
+    when(serviceRepository.deleteRowById(serviceId)).thenReturn(1);
 
     // Act
     boolean result = serviceService.deleteServiceById(serviceId);
 
-    // Assert
+    // Assert: one DELETE statement, no existence check first
     assertTrue(result, "The service should be successfully deleted");
-    verify(serviceRepository, times(1)).existsById(serviceId);
-    verify(serviceRepository, times(1)).deleteById(serviceId);
+    verify(serviceRepository, times(1)).deleteRowById(serviceId);
+    verify(serviceRepository, times(0)).existsById(serviceId);
+    verify(spatialIndex, times(1)).remove(serviceId);
+  }
+
+  @Test
+  public void testFindServicesInArea_IndexMode_ShouldLoadIndexHits() throws Exception {
+    ReflectionTestUtils.setField(serviceService, "queryMode", GeoQueryMode.INDEX);
+    GeoPolygon area = GeoPolygon.fromGeoJson(new ObjectMapper().readTree(
+        "{\"type\":\"Polygon\",\"coordinates\":"
+            + "[[[-74.1,40.6],[-73.9,40.6],[-73.9,40.8],[-74.1,40.8],[-74.1,40.6]]]}"));
+    ServiceEntity first = new ServiceEntity(1L, "Shelter A", "shelters", 40.7128, -74.0060,
+        "123 Main St", "New York", "NY", "10001", "1234567890", "9 AM - 5 PM", true);
+    ServiceEntity second = new ServiceEntity(2L, "Shelter B", "shelters", 40.7306, -73.9352,
+        "456 Elm St", "New York", "NY", "10002", "0987654321", "24/7", true);
+    when(spatialIndex.withinArea(area, "shelters", null)).thenReturn(List.of(2L, 1L));
+    when(serviceRepository.findAllById(List.of(2L, 1L))).thenReturn(List.of(second, first));
+
+    List<ServiceEntity> result = serviceService.findServicesInArea(area, "shelters", null);
+
+    assertEquals(List.of(first, second), result, "Services should be ordered by id");
+  }
+
+  @Test
+  public void testFindServicesInArea_JpqlMode_ShouldRefineBoundingBox() throws Exception {
+    ReflectionTestUtils.setField(serviceService, "queryMode", GeoQueryMode.JPQL);
+    // A triangle: the bounding box also covers its empty north-west half
+    GeoPolygon area = GeoPolygon.fromGeoJson(new ObjectMapper().readTree(
+        "{\"type\":\"Polygon\",\"coordinates\":"
+            + "[[[-74.1,40.6],[-73.9,40.6],[-73.9,40.8],[-74.1,40.6]]]}"));
+    ServiceEntity inside = new ServiceEntity(1L, "Shelter A", "shelters", 40.65, -73.95,
+        "123 Main St", "New York", "NY", "10001", "1234567890", "9 AM - 5 PM", true);
+    ServiceEntity outside = new ServiceEntity(2L, "Shelter B", "shelters", 40.75, -74.05,
+        "456 Elm St", "New York", "NY", "10002", "0987654321", "24/7", true);
+    when(serviceRepository.findWithinBounds(40.6, 40.8, -74.1, -73.9, null, true))
+        .thenReturn(List.of(inside, outside));
+
+    List<ServiceEntity> result = serviceService.findServicesInArea(area, null, true);
+
+    assertEquals(List.of(inside), result, "Only services inside the triangle should remain");
+  }
+
+  @Test
+  public void testQueryServicesAlongRoute_IndexMode_ShouldOrderByPositionOnRoute() {
+    ReflectionTestUtils.setField(serviceService, "queryMode", GeoQueryMode.INDEX);
+    List<RouteQueryRequest.Point> route = List.of(
+        new RouteQueryRequest.Point(40.70, -74.00), new RouteQueryRequest.Point(40.74, -74.00));
+    ServiceEntity north = new ServiceEntity(1L, "Shelter A", "shelters", 40.735, -73.995,
+        "123 Main St", "New York", "NY", "10001", "1234567890", "9 AM - 5 PM", true);
+    ServiceEntity south = new ServiceEntity(2L, "Shelter B", "shelters", 40.705, -74.005,
+        "456 Elm St", "New York", "NY", "10002", "0987654321", "24/7", true);
+    ServiceEntity far = new ServiceEntity(3L, "Shelter C", "shelters", 40.72, -73.97,
+        "789 Oak St", "New York", "NY", "10003", "1112223333", "24/7", true);
+    when(spatialIndex.withinRadius(anyDouble(), anyDouble(), anyDouble(), eq("shelters"),
+        isNull())).thenReturn(List.of(new ServiceSpatialIndex.Hit(1L, 0.5),
+            new ServiceSpatialIndex.Hit(2L, 0.5), new ServiceSpatialIndex.Hit(3L, 2.5)));
+    when(serviceRepository.findAllById(any())).thenReturn(List.of(north, south, far));
+
+    List<ServiceAlongRoute> result =
+        serviceService.queryServicesAlongRoute(route, 1.0, "shelters", null);
+
+    assertEquals(2, result.size(), "The service 2.5 km off the route should be dropped");
+    assertEquals(south, result.get(0).getService());
+    assertEquals(north, result.get(1).getService());
+    assertEquals(GeoUtils.distanceKm(40.70, -74.00, 40.735, -74.00),
+        result.get(1).getAlongRouteKm(), 0.01);
+    assertEquals(GeoUtils.distanceKm(40.735, -74.00, 40.735, -73.995),
+        result.get(1).getDistanceKm(), 0.01);
+  }
+
+  @Test
+  public void testQueryServicesAlongRoute_JpqlMode_ShouldQueryCorridorBounds() {
+    ReflectionTestUtils.setField(serviceService, "queryMode", GeoQueryMode.JPQL);
+    List<RouteQueryRequest.Point> route = List.of(
+        new RouteQueryRequest.Point(40.70, -74.00), new RouteQueryRequest.Point(40.74, -74.00));
+    ServiceEntity near = new ServiceEntity(1L, "Shelter A", "shelters", 40.72, -74.001,
+        "123 Main St", "New York", "NY", "10001", "1234567890", "9 AM - 5 PM", true);
+    when(serviceRepository.findWithinBounds(anyDouble(), anyDouble(), anyDouble(),
+        anyDouble(), isNull(), isNull())).thenReturn(List.of(near));
+
+    List<ServiceAlongRoute> result =
+        serviceService.queryServicesAlongRoute(route, null, null, null);
+
+    assertEquals(1, result.size());
+    verify(serviceRepository, times(1)).findWithinBounds(anyDouble(), anyDouble(),
+        anyDouble(), anyDouble(), isNull(), isNull());
+  }
+
+  /**
+   * Tests that a diagonal route is loaded with one query per stretch of the corridor, none
+   * of which reaches the corners of the route's bounding box.
+   */
+  @Test
+  public void testQueryServicesAlongRoute_JpqlMode_ShouldQueryEachStretchOfTheCorridor() {
+    ReflectionTestUtils.setField(serviceService, "queryMode", GeoQueryMode.JPQL);
+    List<RouteQueryRequest.Point> route = List.of(
+        new RouteQueryRequest.Point(40.70, -74.05), new RouteQueryRequest.Point(40.90, -73.80));
+    ServiceEntity near = new ServiceEntity(1L, "Shelter A", "shelters", 40.80, -73.925,
+        "123 Main St", "New York", "NY", "10001", "1234567890", "9 AM - 5 PM", true);
+    when(serviceRepository.findWithinBounds(anyDouble(), anyDouble(), anyDouble(),
+        anyDouble(), isNull(), isNull())).thenReturn(List.of(near));
+
+    List<ServiceAlongRoute> result =
+        serviceService.queryServicesAlongRoute(route, null, null, null);
+
+    assertEquals(1, result.size(), "A service loaded by several queries should be kept once");
+    verify(serviceRepository, atLeast(2)).findWithinBounds(anyDouble(), anyDouble(),
+        anyDouble(), anyDouble(), isNull(), isNull());
+    verify(serviceRepository, never()).findWithinBounds(doubleThat(lat -> lat < 40.72),
+        doubleThat(lat -> lat > 40.88), anyDouble(), anyDouble(), isNull(), isNull());
+  }
+
+  @Test
+  public void testStreamServices_ShouldWriteAndDetachEachRow() throws Exception {
+    ServiceEntity first = new ServiceEntity(1L, "Shelter A", "shelters", 40.7128, -74.0060,
+        "123 Main St", "New York", "NY", "10001", "1234567890", "9 AM - 5 PM", true);
+    ServiceEntity second = new ServiceEntity(2L, "Shelter B", "shelters", 40.7306, -73.9352,
+        "456 Elm St", "New York", "NY", "10002", "0987654321", "24/7", true);
+    when(serviceRepository.streamByFilters(40.7128, -74.0060, 10.0, "shelters", null))
+        .thenReturn(Stream.of(first, second));
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+    try (ServiceStreamWriter writer =
+        new ServiceStreamWriter(out, StreamFormat.NDJSON, new ObjectMapper())) {
+      serviceService.streamServices(40.7128, -74.0060, null, "shelters", null, writer);
+      assertEquals(2, writer.getCount(), "Both rows should be written");
+    }
+
+    assertEquals(2, out.toString(StandardCharsets.UTF_8).split("\n").length);
+    verify(entityManager, times(1)).detach(first);
+    verify(entityManager, times(1)).detach(second);
+  }
+
+  @Test
+  public void testStreamAllServices_ShouldCloseRepositoryStream() throws Exception {
+    AtomicBoolean closed = new AtomicBoolean();
+    when(serviceRepository.streamAll()).thenReturn(Stream.<ServiceEntity>empty()
+        .onClose(() -> closed.set(true)));
+
+    try (ServiceStreamWriter writer = new ServiceStreamWriter(
+        new ByteArrayOutputStream(), StreamFormat.GEOJSON, new ObjectMapper())) {
+      serviceService.streamAllServices(writer);
+    }
+
+    assertTrue(closed.get(), "The database cursor should be released");
   }
 
   /**
@@ -292,14 +1215,227 @@ public class ServiceServiceTest {
     // Arrange
     Long serviceId = 999L;
 
-    when(serviceRepository.existsById(serviceId)).thenReturn(false);
+    when(serviceRepository.deleteRowById(serviceId)).thenReturn(0);
 
     // Act
     boolean result = serviceService.deleteServiceById(serviceId);
 
     // Assert
     assertFalse(result, "Deleting a non-existing service should return false");
-    verify(serviceRepository, times(1)).existsById(serviceId);
+    verify(serviceRepository, times(1)).deleteRowById(serviceId);
     verify(serviceRepository, times(0)).deleteById(anyLong());
+    verify(spatialIndex, times(0)).remove(serviceId);
+  }
+
+  /**
+   * Tests that a bulk delete by id removes duplicates and deletes in chunks.
+   */
+  @Test
+  public void testDeleteServices_ByIds_ShouldDeleteInChunks() {
+    ReflectionTestUtils.setField(serviceService, "deleteChunkSize", 2);
+    when(serviceRepository.deleteRowsByIdIn(List.of(1L, 2L))).thenReturn(2);
+    when(serviceRepository.deleteRowsByIdIn(List.of(3L))).thenReturn(0);
+
+    BulkDeleteResult result = serviceService.deleteServices(
+        new BulkDeleteRequest(List.of(1L, 2L, 1L, 3L), null, null, null, null, null));
+
+    assertEquals(2L, result.getDeleted(), "Ids that do not exist should not be counted");
+    assertEquals(2, result.getChunks());
+    verify(spatialIndex, times(1)).remove(3L);
+    verify(eventPublisher, times(3)).publishEvent(any(ServiceChangedEvent.class));
+  }
+
+  /**
+   * Tests that a bulk delete by filter walks the matching ids chunk by chunk and rejects
+   * requests that select nothing or both ways.
+   */
+  @Test
+  public void testDeleteServices_ByFilter_ShouldWalkIdsInChunks() {
+    ReflectionTestUtils.setField(serviceService, "deleteChunkSize", 2);
+    when(serviceRepository.findIdsByPlace(isNull(), eq("New York"), isNull(), eq("shelters"),
+        isNull(), eq(0L), any())).thenReturn(List.of(4L, 9L));
+    when(serviceRepository.findIdsByPlace(isNull(), eq("New York"), isNull(), eq("shelters"),
+        isNull(), eq(9L), any())).thenReturn(List.of(12L));
+    when(serviceRepository.deleteRowsByIdIn(List.of(4L, 9L))).thenReturn(2);
+    when(serviceRepository.deleteRowsByIdIn(List.of(12L))).thenReturn(1);
+
+    BulkDeleteResult result = serviceService.deleteServices(
+        new BulkDeleteRequest(null, "shelters", null, "New York", null, null));
+
+    assertEquals(3L, result.getDeleted());
+    assertEquals(2, result.getChunks());
+    assertThrows(IllegalArgumentException.class, () -> serviceService.deleteServices(
+        new BulkDeleteRequest(List.of(), null, null, null, null, null)),
+        "A request without ids or a filter must not delete every service");
+    assertThrows(IllegalArgumentException.class, () -> serviceService.deleteServices(
+        new BulkDeleteRequest(List.of(1L), "shelters", null, null, null, null)));
+  }
+
+  /**
+   * Tests that a text search loads the matched services in rank order and skips services
+   * deleted since the index was searched.
+   */
+  @Test
+  public void testSearchServices_ShouldKeepIndexRankAndValidate() {
+    ServiceEntity first = new ServiceEntity(1L, "Bronx Shelter", "shelters", 40.8448,
+        -73.8648, "1 Grand Concourse", "Bronx", "NY", "10451", "1234567890", "9 AM - 5 PM", true);
+    ServiceEntity second = new ServiceEntity(3L, "Midtown Shelter", "shelters", 40.7549,
+        -73.9840, "3 Bronx St", "New York", "NY", "10001", "1234567890", "9 AM - 5 PM", true);
+    when(textIndex.search("bronx shelter", "shelters", null, null, null, 10.0, 5))
+        .thenReturn(List.of(new ServiceTextIndex.Hit(3L, 2.5), new ServiceTextIndex.Hit(1L, 1.5),
+            new ServiceTextIndex.Hit(9L, 0.5)));
+    when(serviceRepository.findAllById(List.of(3L, 1L, 9L))).thenReturn(List.of(first, second));
+
+    List<ServiceSearchHit> hits = serviceService.searchServices("bronx shelter", null, null,
+        null, "shelters", null, 5);
+
+    assertEquals(2, hits.size());
+    assertEquals(3L, hits.get(0).getService().getId());
+    assertEquals(2.5, hits.get(0).getScore());
+    assertEquals(1L, hits.get(1).getService().getId());
+    assertThrows(IllegalArgumentException.class, () -> serviceService.searchServices(
+        " - ", null, null, null, null, null, null));
+    assertThrows(IllegalArgumentException.class, () -> serviceService.searchServices(
+        "shelter", 40.7, null, null, null, null, null));
+  }
+
+  /**
+   * Tests that a query filtering on availability in the database sees the availability
+   * changes not written yet.
+   */
+  @Test
+  public void testQueryServices_ShouldApplyBufferedAvailability() {
+    ReflectionTestUtils.setField(serviceService, "queryMode", GeoQueryMode.JPQL);
+    ServiceEntity stored = new ServiceEntity(1L, "Shelter A", "Shelter", 40.7128, -74.0060,
+        "123 Main St", "New York", "NY", "10001", "1234567890", "9 AM - 5 PM", true);
+    ServiceEntity closed = new ServiceEntity(1L, "Shelter A", "Shelter", 40.7128, -74.0060,
+        "123 Main St", "New York", "NY", "10001", "1234567890", "9 AM - 5 PM", false);
+    ServiceEntity reopened = new ServiceEntity(2L, "Shelter B", "Shelter", 40.7306, -73.9352,
+        "456 Elm St", "New York", "NY", "10002", "0987654321", "24/7", true);
+    ServiceEntity farAway = new ServiceEntity(3L, "Shelter C", "Shelter", 34.0522, -118.2437,
+        "789 Oak St", "Los Angeles", "CA", "90001", "1112223333", "24/7", true);
+    when(serviceRepository.findByFilters(40.7128, -74.0060, 10.0, "Shelter", true))
+        .thenReturn(List.of(stored));
+    when(availabilityBuffer.isEmpty()).thenReturn(false);
+    when(availabilityBuffer.get(1L)).thenReturn(closed);
+    when(availabilityBuffer.getAll()).thenReturn(List.of(closed, reopened, farAway));
+
+    List<ServiceEntity> result = serviceService.queryServices(40.7128, -74.0060, "Shelter", true);
+
+    assertEquals(List.of(reopened), result,
+        "The closed service should be dropped and the reopened one nearby added");
+  }
+
+  /**
+   * Tests that a service is read with its buffered availability, and that an update writes
+   * the buffered change before reading the row it updates.
+   */
+  @Test
+  public void testBufferedAvailability_ShouldBeReadAndFlushedBeforeUpdates() {
+    ServiceEntity buffered = new ServiceEntity(1L, "Shelter A", "shelters", 40.7128,
+        -74.0060, "123 Main St", "New York", "NY", "10001", "1234567890", "9 AM - 5 PM", false);
+    buffered.setVersion(4L);
+    when(availabilityBuffer.get(1L)).thenReturn(buffered);
+
+    assertEquals(Optional.of(buffered), serviceService.getServiceById(1L));
+    verify(serviceRepository, times(0)).findById(1L);
+
+    ServiceEntity stored = new ServiceEntity(1L, "Shelter A", "shelters", 40.7128,
+        -74.0060, "123 Main St", "New York", "NY", "10001", "1234567890", "9 AM - 5 PM", false);
+    stored.setVersion(4L);
+    ServiceEntity updateData = new ServiceEntity();
+    updateData.setName("Renamed");
+    when(serviceRepository.findById(1L)).thenReturn(Optional.of(stored));
+    when(serviceRepository.save(any(ServiceEntity.class))).thenAnswer(i -> i.getArgument(0));
+
+    serviceService.updateService(1L, updateData, 4L);
+
+    InOrder order = inOrder(availabilityBuffer, serviceRepository);
+    order.verify(availabilityBuffer).flush(1L);
+    order.verify(serviceRepository).findById(1L);
+  }
+
+  /**
+   * Tests that the listing shows an availability change before it is written, under the
+   * new dataset ETag, and that writing it later changes neither.
+   */
+  @Test
+  public void testGetAllServices_BeforeFlush_ShouldShowBufferedAvailabilityUnderNewEtag() {
+    ServiceVersions versions = new ServiceVersions();
+    ServiceAvailabilityBuffer buffer = new ServiceAvailabilityBuffer(1000, 500);
+    ReflectionTestUtils.setField(buffer, "serviceRepository", serviceRepository);
+    ReflectionTestUtils.setField(buffer, "spatialIndex", spatialIndex);
+    ReflectionTestUtils.setField(buffer, "eventPublisher",
+        (ApplicationEventPublisher) event -> versions.onServiceChanged(
+            (ServiceChangedEvent) event));
+    ReflectionTestUtils.setField(serviceService, "availabilityBuffer", buffer);
+    ReflectionTestUtils.setField(serviceService, "serviceVersions", versions);
+    ServiceEntity row = new ServiceEntity(1L, "Shelter A", "shelters", 40.7128, -74.0060,
+        "123 Main St", "New York", "NY", "10001", "1234567890", "9 AM - 5 PM", true);
+    row.setVersion(3L);
+    when(serviceRepository.findById(1L)).thenReturn(Optional.of(row));
+    when(serviceRepository.findAll()).thenReturn(List.of(row));
+    when(serviceRepository.findPageById(eq(0L), any())).thenReturn(List.of(row));
+    when(serviceRepository.updateAvailability(anyList(), any(long[].class)))
+        .thenReturn(new int[] {1});
+    String before = serviceService.getDatasetEtag("/services");
+
+    serviceService.setAvailability(1L, false);
+
+    String after = serviceService.getDatasetEtag("/services");
+    assertNotEquals(before, after, "Clients holding the old listing should not get 304");
+    assertFalse(serviceService.getAllServices().get(0).getAvailability());
+    ServiceEntity listed = serviceService.getServicesPage(ServiceSort.ID, null, null)
+        .getItems().get(0);
+    assertFalse(listed.getAvailability());
+    assertEquals(4L, listed.getVersion());
+    assertTrue(serviceService.getServiceEtag(1L, null).startsWith("\"1-4-"),
+        "A buffered version should be tagged as such");
+
+    // Once written, the database holds what was already listed under the same ETag
+    assertEquals(1, buffer.flush());
+    row.setAvailability(false);
+    row.setVersion(4L);
+    assertEquals(after, serviceService.getDatasetEtag("/services"));
+    assertFalse(serviceService.getAllServices().get(0).getAvailability());
+    when(serviceRepository.findVersionById(1L)).thenReturn(Optional.of(4L));
+    assertEquals("\"1-4\"", serviceService.getServiceEtag(1L, null),
+        "A written service should be tagged with its stored version");
+  }
+
+  /**
+   * Tests that a filtered stream skips rows whose buffered availability no longer matches
+   * and merges in, by id, buffered services that now match.
+   */
+  @Test
+  public void testStreamServices_ShouldApplyBufferedAvailabilityInIdOrder() throws Exception {
+    ServiceEntity first = new ServiceEntity(1L, "Shelter A", "shelters", 40.7128, -74.0060,
+        "123 Main St", "New York", "NY", "10001", "1234567890", "9 AM - 5 PM", true);
+    ServiceEntity closed = new ServiceEntity(3L, "Shelter C", "shelters", 40.7306, -73.9352,
+        "456 Elm St", "New York", "NY", "10002", "0987654321", "24/7", true);
+    ServiceEntity reopened = new ServiceEntity(2L, "Shelter B", "shelters", 40.7200, -73.9900,
+        "789 Oak St", "New York", "NY", "10003", "1112223333", "24/7", true);
+    ServiceEntity elsewhere = new ServiceEntity(4L, "Shelter D", "shelters", 34.0522,
+        -118.2437, "1 Sunset Blvd", "Los Angeles", "CA", "90001", "4445556666", "24/7", true);
+    ServiceEntity closedNow = new ServiceEntity(3L, "Shelter C", "shelters", 40.7306,
+        -73.9352, "456 Elm St", "New York", "NY", "10002", "0987654321", "24/7", false);
+    when(serviceRepository.streamByFilters(40.7128, -74.0060, 10.0, "shelters", true))
+        .thenReturn(Stream.of(first, closed));
+    when(availabilityBuffer.isEmpty()).thenReturn(false);
+    when(availabilityBuffer.get(3L)).thenReturn(closedNow);
+    when(availabilityBuffer.getAll()).thenReturn(List.of(closedNow, reopened, elsewhere));
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+    try (ServiceStreamWriter writer =
+        new ServiceStreamWriter(out, StreamFormat.NDJSON, new ObjectMapper())) {
+      serviceService.streamServices(40.7128, -74.0060, null, "shelters", true, writer);
+    }
+
+    List<Long> written = new ArrayList<>();
+    for (String line : out.toString(StandardCharsets.UTF_8).split("\n")) {
+      written.add(new ObjectMapper().readTree(line).get("id").asLong());
+    }
+    assertEquals(List.of(1L, 2L), written);
+    verify(entityManager, times(1)).detach(closed);
   }
 }
@@ -0,0 +1,164 @@
+package com.ase.bytealchemists.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.ase.bytealchemists.model.ServiceLocation;
+import com.ase.bytealchemists.util.GeoUtils;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Compares radius queries answered by {@link ServiceSpatialIndex} with full scans
+ * that evaluate the great-circle check on every row, either with the spherical law of
+ * cosines or as a dot product against precomputed unit vectors, as
+ * {@code ServiceRepository.findByFilters} does.
+ *
+ * <p>
+ * The scans run in memory, so they are a lower bound for the JPQL path, which also pays
+ * for MySQL row access and network transfer. Not part of the regular test run;
+ * execute with {@code mvn test -Dtest=ServiceSpatialIndexBenchmark}.
+ * </p>
+ */
+public class ServiceSpatialIndexBenchmark {
+
+  private static final int SERVICES = 1_000_000;
+  private static final int INDEX_QUERIES = 10_000;
+  private static final int SCAN_QUERIES = 20;
+  private static final double RADIUS_KM = 10.0;
+
+  @Test
+  public void compareIndexWithFullScan() {
+    Random random = new Random(7);
+    double[] latitudes = new double[SERVICES];
+    double[] longitudes = new double[SERVICES];
+    double[][] unitVectors = new double[SERVICES][];
+    List<ServiceLocation> locations = new ArrayList<>(SERVICES);
+    for (int i = 0; i < SERVICES; i++) {
+      // Spread over the continental United States
+      latitudes[i] = 25.0 + random.nextDouble() * 24.0;
+      longitudes[i] = -125.0 + random.nextDouble() * 58.0;
+      unitVectors[i] = GeoUtils.unitVector(latitudes[i], longitudes[i]);
+      locations.add(location(i + 1L, latitudes[i], longitudes[i]));
+    }
+
+    ServiceSpatialIndex spatialIndex = new ServiceSpatialIndex(0.05);
+    long buildStart = System.nanoTime();
+    spatialIndex.rebuild(locations);
+    long buildNanos = System.nanoTime() - buildStart;
+
+    double[][] origins = new double[INDEX_QUERIES][];
+    for (int i = 0; i < INDEX_QUERIES; i++) {
+      origins[i] = new double[] {25.5 + random.nextDouble() * 23.0,
+          -124.5 + random.nextDouble() * 57.0};
+    }
+
+    // Warm up both paths before timing them
+    for (int i = 0; i < 1000; i++) {
+      spatialIndex.withinRadius(origins[i][0], origins[i][1], RADIUS_KM, null, null);
+    }
+    scan(latitudes, longitudes, origins[0][0], origins[0][1]);
+    scanDotProduct(unitVectors, origins[0][0], origins[0][1]);
+
+    long indexHits = 0;
+    long indexStart = System.nanoTime();
+    for (double[] origin : origins) {
+      indexHits += spatialIndex.withinRadius(origin[0], origin[1], RADIUS_KM, null, null).size();
+    }
+    long indexNanos = System.nanoTime() - indexStart;
+
+    long scanHits = 0;
+    long expectedHits = 0;
+    long scanStart = System.nanoTime();
+    for (int i = 0; i < SCAN_QUERIES; i++) {
+      scanHits += scan(latitudes, longitudes, origins[i][0], origins[i][1]);
+    }
+    long scanNanos = System.nanoTime() - scanStart;
+
+    long dotHits = 0;
+    long dotStart = System.nanoTime();
+    for (int i = 0; i < SCAN_QUERIES; i++) {
+      dotHits += scanDotProduct(unitVectors, origins[i][0], origins[i][1]);
+    }
+    long dotNanos = System.nanoTime() - dotStart;
+    for (int i = 0; i < SCAN_QUERIES; i++) {
+      expectedHits += spatialIndex.withinRadius(
+          origins[i][0], origins[i][1], RADIUS_KM, null, null).size();
+    }
+
+    System.out.printf("services=%d build=%.1f ms%n", SERVICES, buildNanos / 1e6);
+    System.out.printf("index: %.4f ms/query (%d hits over %d queries)%n",
+        indexNanos / 1e6 / INDEX_QUERIES, indexHits, INDEX_QUERIES);
+    System.out.printf("full scan: %.4f ms/query (%d hits over %d queries)%n",
+        scanNanos / 1e6 / SCAN_QUERIES, scanHits, SCAN_QUERIES);
+    System.out.printf("dot product scan: %.4f ms/query (%d hits over %d queries)%n",
+        dotNanos / 1e6 / SCAN_QUERIES, dotHits, SCAN_QUERIES);
+    assertEquals(scanHits, expectedHits, "Both paths should find the same services");
+    assertEquals(scanHits, dotHits, "Both scans should find the same services");
+  }
+
+  /**
+   * Mirrors the spherical law of cosines the JPQL query used before unit vectors, row by row.
+   */
+  private static int scan(double[] latitudes, double[] longitudes, double lat, double lon) {
+    int hits = 0;
+    double sinLat = Math.sin(Math.toRadians(lat));
+    double cosLat = Math.cos(Math.toRadians(lat));
+    double lonRad = Math.toRadians(lon);
+    for (int i = 0; i < latitudes.length; i++) {
+      double rowLat = Math.toRadians(latitudes[i]);
+      double distance = GeoUtils.EARTH_RADIUS_KM * Math.acos(Math.min(1.0,
+          cosLat * Math.cos(rowLat) * Math.cos(Math.toRadians(longitudes[i]) - lonRad)
+              + sinLat * Math.sin(rowLat)));
+      if (distance < RADIUS_KM) {
+        hits++;
+      }
+    }
+    return hits;
+  }
+
+  /**
+   * Mirrors the unit vector comparison used by the JPQL query, row by row.
+   */
+  private static int scanDotProduct(double[][] unitVectors, double lat, double lon) {
+    int hits = 0;
+    double[] origin = GeoUtils.unitVector(lat, lon);
+    double minDot = GeoUtils.minDotProduct(RADIUS_KM);
+    for (double[] unit : unitVectors) {
+      if (unit[0] * origin[0] + unit[1] * origin[1] + unit[2] * origin[2] > minDot) {
+        hits++;
+      }
+    }
+    return hits;
+  }
+
+  private static ServiceLocation location(Long id, double latitude, double longitude) {
+    return new ServiceLocation() {
+      @Override
+      public Long getId() {
+        return id;
+      }
+
+      @Override
+      public Double getLatitude() {
+        return latitude;
+      }
+
+      @Override
+      public Double getLongitude() {
+        return longitude;
+      }
+
+      @Override
+      public String getCategory() {
+        return "shelters";
+      }
+
+      @Override
+      public Boolean getAvailability() {
+        return true;
+      }
+    };
+  }
+}
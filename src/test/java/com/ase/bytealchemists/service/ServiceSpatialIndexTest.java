@@ -0,0 +1,261 @@
+package com.ase.bytealchemists.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.ase.bytealchemists.model.ServiceEntity;
+import com.ase.bytealchemists.util.GeoUtils;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * This class contains the unit tests for the ServiceSpatialIndex class.
+ */
+public class ServiceSpatialIndexTest {
+
+  private ServiceSpatialIndex spatialIndex;
+
+  @BeforeEach
+  public void setUp() {
+    spatialIndex = new ServiceSpatialIndex(0.05);
+  }
+
+  static ServiceEntity service(long id, double latitude, double longitude, String category) {
+    return service(id, latitude, longitude, category, true);
+  }
+
+  static ServiceEntity service(long id, double latitude, double longitude, String category,
+      boolean availability) {
+    return new ServiceEntity(id, "Service " + id, category, latitude, longitude,
+        "123 Main St", "New York", "NY", "10001", "1234567890", "9 AM - 5 PM", availability);
+  }
+
+  private static Set<Long> ids(List<ServiceSpatialIndex.Hit> hits) {
+    Set<Long> ids = new TreeSet<>();
+    for (ServiceSpatialIndex.Hit hit : hits) {
+      ids.add(hit.getId());
+    }
+    return ids;
+  }
+
+  @Test
+  public void testWithinRadius_ShouldReturnOnlyServicesInRange() {
+    spatialIndex.put(service(1L, 40.7128, -74.0060, "shelters", true));   // origin
+    spatialIndex.put(service(2L, 40.7580, -73.9855, "shelters", true));   // ~5.4 km
+    spatialIndex.put(service(3L, 40.6413, -73.7781, "shelters", true));   // ~21 km
+
+    List<ServiceSpatialIndex.Hit> hits =
+        spatialIndex.withinRadius(40.7128, -74.0060, 10.0, null, null);
+
+    assertEquals(Set.of(1L, 2L), ids(hits), "Only services within 10 km should match");
+  }
+
+  @Test
+  public void testWithinRadius_ShouldApplyCategoryAndAvailabilityFilters() {
+    spatialIndex.put(service(1L, 40.7128, -74.0060, "shelters", true));
+    spatialIndex.put(service(2L, 40.7130, -74.0062, "food_banks", true));
+    spatialIndex.put(service(3L, 40.7132, -74.0064, "shelters", false));
+
+    assertEquals(Set.of(1L),
+        ids(spatialIndex.withinRadius(40.7128, -74.0060, 10.0, "Shelters", true)),
+        "Category comparison should ignore case like the database collation");
+    assertEquals(Set.of(1L, 2L),
+        ids(spatialIndex.withinRadius(40.7128, -74.0060, 10.0, null, true)),
+        "Only available services should match");
+  }
+
+  @Test
+  public void testPut_ShouldMoveUpdatedServiceAndRemoveShouldDropIt() {
+    spatialIndex.put(service(1L, 40.7128, -74.0060, "shelters", true));
+    spatialIndex.put(service(1L, 34.0522, -118.2437, "shelters", true));
+
+    assertTrue(spatialIndex.withinRadius(40.7128, -74.0060, 10.0, null, null).isEmpty(),
+        "The old location should no longer match");
+    assertEquals(Set.of(1L),
+        ids(spatialIndex.withinRadius(34.0522, -118.2437, 10.0, null, null)),
+        "The new location should match");
+    assertEquals(1, spatialIndex.size(), "An update should not duplicate the entry");
+
+    spatialIndex.remove(1L);
+    assertEquals(0, spatialIndex.size(), "The service should be removed");
+  }
+
+  @Test
+  public void testPut_WithoutCoordinates_ShouldNotIndex() {
+    ServiceEntity noLocation = service(1L, 0.0, 0.0, "shelters", true);
+    noLocation.setLatitude(null);
+
+    spatialIndex.put(noLocation);
+
+    assertEquals(0, spatialIndex.size(), "Services without coordinates are not indexed");
+  }
+
+  @Test
+  public void testWithinRadius_ShouldMatchAcrossAntimeridian() {
+    spatialIndex.put(service(1L, 0.0, 179.99, "shelters", true));
+    spatialIndex.put(service(2L, 0.0, -179.99, "shelters", true));
+
+    assertEquals(Set.of(1L, 2L),
+        ids(spatialIndex.withinRadius(0.0, 180.0, 5.0, null, null)),
+        "Services on both sides of the antimeridian should match");
+  }
+
+  @Test
+  public void testWithinRadius_ShouldAgreeWithLinearScan() {
+    Random random = new Random(42);
+    List<ServiceEntity> services = new ArrayList<>();
+    for (long id = 1; id <= 5000; id++) {
+      ServiceEntity service = service(id, 40.5 + random.nextDouble(),
+          -74.5 + random.nextDouble(), id % 2 == 0 ? "shelters" : "food_banks", true);
+      services.add(service);
+      spatialIndex.put(service);
+    }
+
+    double radius = 7.5;
+    Set<Long> expected = new TreeSet<>();
+    for (ServiceEntity service : services) {
+      if (GeoUtils.distanceKm(40.75, -74.0, service.getLatitude(), service.getLongitude())
+          < radius) {
+        expected.add(service.getId());
+      }
+    }
+
+    assertEquals(expected, ids(spatialIndex.withinRadius(40.75, -74.0, radius, null, null)),
+        "The index should return exactly the services a full scan finds");
+  }
+
+  @Test
+  public void testNearest_ShouldMatchSortedLinearScan() {
+    Random random = new Random(11);
+    List<ServiceEntity> services = new ArrayList<>();
+    for (long id = 1; id <= 3000; id++) {
+      ServiceEntity service = service(id, 40.0 + random.nextDouble() * 2,
+          -75.0 + random.nextDouble() * 2, id % 3 == 0 ? "shelters" : "food_banks", id % 5 != 0);
+      services.add(service);
+      spatialIndex.put(service);
+    }
+
+    for (int query = 0; query < 50; query++) {
+      double lat = 39.5 + random.nextDouble() * 3;
+      double lon = -75.5 + random.nextDouble() * 3;
+      List<Long> expected = new ArrayList<>();
+      services.stream()
+          .filter(service -> "shelters".equals(service.getCategory()) && service.getAvailability())
+          .sorted((a, b) -> Double.compare(
+              GeoUtils.distanceKm(lat, lon, a.getLatitude(), a.getLongitude()),
+              GeoUtils.distanceKm(lat, lon, b.getLatitude(), b.getLongitude())))
+          .limit(7)
+          .forEach(service -> expected.add(service.getId()));
+
+      List<Long> actual = new ArrayList<>();
+      for (ServiceSpatialIndex.Hit hit : spatialIndex.nearest(lat, lon, 7, "shelters", true)) {
+        actual.add(hit.getId());
+      }
+      assertEquals(expected, actual, "Nearest services should match a sorted full scan");
+    }
+  }
+
+  @Test
+  public void testNearest_SparseIndex_ShouldReturnEverythingOrdered() {
+    spatialIndex.put(service(1L, 40.7128, -74.0060, "shelters", true));   // New York
+    spatialIndex.put(service(2L, 34.0522, -118.2437, "shelters", true));  // Los Angeles
+    spatialIndex.put(service(3L, 51.5074, -0.1278, "shelters", true));    // London
+
+    List<ServiceSpatialIndex.Hit> hits = spatialIndex.nearest(40.0, -75.0, 10, null, null);
+
+    assertEquals(3, hits.size(), "All services should be returned when k exceeds the size");
+    assertEquals(1L, hits.get(0).getId(), "New York should be closest");
+    assertEquals(2L, hits.get(1).getId(), "Los Angeles should be second");
+    assertEquals(3L, hits.get(2).getId(), "London should be furthest");
+    assertTrue(spatialIndex.nearest(40.0, -75.0, 0, null, null).isEmpty(),
+        "k of zero should return nothing");
+  }
+
+  @Test
+  public void testWithinRadiusAfter_PagesShouldMatchSortedLinearScan() {
+    Random random = new Random(7);
+    for (long id = 1; id <= 2000; id++) {
+      // Duplicate coordinates make the id tie-breaker matter
+      double lat = 40.5 + (id % 400) * 0.002;
+      double lon = -74.2 + random.nextInt(200) * 0.002;
+      spatialIndex.put(service(id, lat, lon, "shelters", true));
+    }
+
+    List<Long> expected = new ArrayList<>();
+    for (ServiceSpatialIndex.Hit hit : spatialIndex.withinRadius(40.7, -74.0, 15.0, null, null)
+        .stream().sorted((a, b) -> a.getDistanceKm() != b.getDistanceKm()
+            ? Double.compare(a.getDistanceKm(), b.getDistanceKm())
+            : Long.compare(a.getId(), b.getId()))
+        .toList()) {
+      expected.add(hit.getId());
+    }
+
+    List<Long> paged = new ArrayList<>();
+    double afterDistance = -1.0;
+    long afterId = 0L;
+    List<ServiceSpatialIndex.Hit> page;
+    do {
+      page = spatialIndex.withinRadiusAfter(40.7, -74.0, 15.0, null, null,
+          afterDistance, afterId, 37);
+      for (ServiceSpatialIndex.Hit hit : page) {
+        paged.add(hit.getId());
+        afterDistance = hit.getDistanceKm();
+        afterId = hit.getId();
+      }
+    } while (page.size() == 37);
+
+    assertTrue(expected.size() > 37, "The test should span several pages");
+    assertEquals(expected, paged, "Pages should concatenate to the fully sorted result");
+  }
+
+  @Test
+  public void testWithinArea_ShouldMatchFullScanOfPolygon() throws Exception {
+    // A triangle over lower Manhattan with a rectangular hole in it
+    GeoPolygon area = GeoPolygon.fromGeoJson(new ObjectMapper().readTree(
+        "{\"type\":\"Polygon\",\"coordinates\":["
+            + "[[-74.05,40.68],[-73.90,40.70],[-74.00,40.82],[-74.05,40.68]],"
+            + "[[-74.00,40.72],[-73.98,40.72],[-73.98,40.74],[-74.00,40.74],[-74.00,40.72]]]}"));
+    Random random = new Random(11);
+    List<ServiceEntity> services = new ArrayList<>();
+    for (long id = 1; id <= 5000; id++) {
+      ServiceEntity service = service(id, 40.6 + random.nextDouble() * 0.3,
+          -74.1 + random.nextDouble() * 0.3, id % 3 == 0 ? "food_banks" : "shelters", true);
+      services.add(service);
+      spatialIndex.put(service);
+    }
+
+    Set<Long> expected = new TreeSet<>();
+    for (ServiceEntity service : services) {
+      if ("shelters".equals(service.getCategory())
+          && area.contains(service.getLatitude(), service.getLongitude())) {
+        expected.add(service.getId());
+      }
+    }
+
+    assertTrue(expected.size() > 100, "The area should contain a fair number of services");
+    assertEquals(expected, new TreeSet<>(spatialIndex.withinArea(area, "shelters", null)),
+        "Visiting only the cells under the area should find every service inside it");
+  }
+
+  @Test
+  public void testPageCursor_ShouldRoundTripAndRejectGarbage() {
+    String cursor = PageCursor.encode("0.125", "42");
+
+    assertEquals(List.of("0.125", "42"), List.of(PageCursor.decode(cursor, 2)),
+        "A cursor should decode to the values it was built from");
+    assertThrows(IllegalArgumentException.class, () -> PageCursor.decode(cursor, 3));
+    assertThrows(IllegalArgumentException.class, () -> PageCursor.decode("%%%", 2));
+  }
+
+  @Test
+  public void testConstructor_InvalidCellSize_ShouldThrow() {
+    assertThrows(IllegalArgumentException.class, () -> new ServiceSpatialIndex(0.0));
+  }
+}
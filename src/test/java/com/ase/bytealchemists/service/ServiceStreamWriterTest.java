@@ -0,0 +1,77 @@
+package com.ase.bytealchemists.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.ase.bytealchemists.model.ServiceEntity;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import org.junit.jupiter.api.Test;
+
+/**
+ * This class contains the unit tests for the ServiceStreamWriter class.
+ */
+public class ServiceStreamWriterTest {
+
+  private final ObjectMapper objectMapper = new ObjectMapper();
+
+  private static ServiceEntity service(long id, Double latitude, Double longitude) {
+    return new ServiceEntity(id, "Service " + id, "shelters", latitude, longitude,
+        "123 Main St", "New York", "NY", "10001", "1234567890", "9 AM - 5 PM", true);
+  }
+
+  @Test
+  public void testNdjson_ShouldWriteOneServicePerLine() throws Exception {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    try (ServiceStreamWriter writer =
+        new ServiceStreamWriter(out, StreamFormat.NDJSON, objectMapper)) {
+      for (long id = 1; id <= 300; id++) {
+        writer.write(service(id, 40.7128, -74.0060));
+      }
+      assertEquals(300, writer.getCount());
+    }
+
+    String[] lines = out.toString(StandardCharsets.UTF_8).split("\n", -1);
+    assertEquals(301, lines.length, "Every service should end with a newline");
+    assertEquals("", lines[300]);
+    JsonNode last = objectMapper.readTree(lines[299]);
+    assertEquals(300, last.get("id").asLong());
+    assertTrue(lines[0].startsWith("{"), "Lines should not be indented or separated");
+  }
+
+  @Test
+  public void testGeoJson_ShouldWriteFeatureCollection() throws Exception {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    try (ServiceStreamWriter writer =
+        new ServiceStreamWriter(out, StreamFormat.GEOJSON, objectMapper)) {
+      writer.write(service(1L, 40.7128, -74.0060));
+      writer.write(service(2L, null, null));
+    }
+
+    JsonNode collection = objectMapper.readTree(out.toByteArray());
+    assertEquals("FeatureCollection", collection.get("type").asText());
+    JsonNode first = collection.get("features").get(0);
+    assertEquals(1, first.get("id").asLong());
+    assertEquals(-74.0060, first.get("geometry").get("coordinates").get(0).asDouble(), 0.0);
+    assertEquals(40.7128, first.get("geometry").get("coordinates").get(1).asDouble(), 0.0);
+    assertEquals("Service 1", first.get("properties").get("name").asText());
+    assertNull(first.get("properties").get("latitude"),
+        "Coordinates belong in the geometry, not the properties");
+    assertTrue(collection.get("features").get(1).get("geometry").isNull(),
+        "A service without coordinates has a null geometry");
+  }
+
+  @Test
+  public void testEmptyGeoJson_ShouldBeValidDocument() throws Exception {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    new ServiceStreamWriter(out, StreamFormat.GEOJSON, objectMapper).close();
+
+    assertEquals("{\"type\":\"FeatureCollection\",\"features\":[]}",
+        out.toString(StandardCharsets.UTF_8));
+    assertNull(StreamFormat.fromParameter("csv"));
+    assertEquals(StreamFormat.GEOJSON, StreamFormat.fromParameter("GeoJSON"));
+  }
+}
@@ -0,0 +1,120 @@
+package com.ase.bytealchemists.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.ase.bytealchemists.model.ServiceEntity;
+import com.ase.bytealchemists.model.ServiceText;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Measures text searches answered by {@link ServiceTextIndex} over a million services and
+ * compares them with the scan the frontend does today: download every service and check
+ * each name, address and city for the words.
+ *
+ * <p>
+ * The scan runs in memory, so it leaves out the transfer of {@code GET /services}. Not part
+ * of the regular test run; execute with {@code mvn test -Dtest=ServiceTextIndexBenchmark}.
+ * </p>
+ */
+public class ServiceTextIndexBenchmark {
+
+  private static final int SERVICES = 1_000_000;
+  private static final int INDEX_QUERIES = 2_000;
+  private static final int SCAN_QUERIES = 10;
+
+  private static final String[] KINDS = {"Shelter", "Pantry", "Clinic", "Kitchen",
+      "Drop-In Center", "Outreach", "Laundry", "Showers"};
+  private static final String[] CATEGORIES = {"shelters", "food_banks", "clinics"};
+  private static final String[] CITIES = {"New York", "Bronx", "Brooklyn", "Queens",
+      "Staten Island", "Yonkers", "Newark", "Jersey City", "Hoboken", "White Plains"};
+  private static final String[] STREETS = {"Main", "Grand", "Lenox", "Atlantic", "Broadway",
+      "Jerome", "Fulton", "Canal", "Bedford", "Union"};
+
+  @Test
+  public void compareIndexWithScan() {
+    Random random = new Random(11);
+    List<ServiceText> services = new ArrayList<>(SERVICES);
+    String[] haystacks = new String[SERVICES];
+    for (int i = 0; i < SERVICES; i++) {
+      // A made up word per service keeps the vocabulary large, like real names
+      String name = word(random) + " " + KINDS[random.nextInt(KINDS.length)];
+      String address = (1 + random.nextInt(999)) + " "
+          + STREETS[random.nextInt(STREETS.length)] + " St";
+      String city = CITIES[random.nextInt(CITIES.length)];
+      ServiceEntity service = new ServiceEntity(i + 1L, name,
+          CATEGORIES[random.nextInt(CATEGORIES.length)], 40.5 + random.nextDouble(),
+          -74.5 + random.nextDouble(), address, city, "NY", "10001", null, null, true);
+      services.add(ServiceTextIndexTest.text(service));
+      haystacks[i] = (name + " " + address + " " + city).toLowerCase(Locale.ROOT);
+    }
+
+    ServiceTextIndex index = new ServiceTextIndex();
+    long buildStart = System.nanoTime();
+    index.rebuild(services);
+    long buildNanos = System.nanoTime() - buildStart;
+
+    String[] queries = new String[INDEX_QUERIES];
+    for (int i = 0; i < INDEX_QUERIES; i++) {
+      // A rare word, a common word or both, as typed into a search box
+      String rare = services.get(random.nextInt(SERVICES)).getName().split(" ")[0];
+      String common = KINDS[random.nextInt(KINDS.length)].toLowerCase(Locale.ROOT);
+      queries[i] = i % 3 == 0 ? rare : i % 3 == 1 ? common + " bronx" : rare + " " + common;
+    }
+
+    // Warm up before timing
+    for (int i = 0; i < 200; i++) {
+      index.search(queries[i], null, null, null, null, 10, 20);
+    }
+
+    long indexHits = 0;
+    long indexStart = System.nanoTime();
+    for (String query : queries) {
+      indexHits += index.search(query, null, null, null, null, 10, 20).size();
+    }
+    long indexNanos = System.nanoTime() - indexStart;
+
+    long scanMatches = 0;
+    long scanStart = System.nanoTime();
+    for (int i = 0; i < SCAN_QUERIES; i++) {
+      scanMatches += scan(haystacks, queries[i].toLowerCase(Locale.ROOT).split(" "));
+    }
+    long scanNanos = System.nanoTime() - scanStart;
+
+    System.out.printf("services=%d build=%.1f ms%n", SERVICES, buildNanos / 1e6);
+    System.out.printf("index: %.3f ms/query (%d hits over %d queries)%n",
+        indexNanos / 1e6 / INDEX_QUERIES, indexHits, INDEX_QUERIES);
+    System.out.printf("scan: %.3f ms/query (%d matches over %d queries)%n",
+        scanNanos / 1e6 / SCAN_QUERIES, scanMatches, SCAN_QUERIES);
+    assertEquals(20, index.search(queries[1], null, null, null, null, 10, 20).size(),
+        "A common word should fill the page");
+  }
+
+  private static String word(Random random) {
+    char[] letters = new char[6];
+    for (int i = 0; i < letters.length; i++) {
+      letters[i] = (char) ('a' + random.nextInt(26));
+    }
+    letters[0] = Character.toUpperCase(letters[0]);
+    return new String(letters);
+  }
+
+  /**
+   * Mirrors client-side filtering: a service matches if it contains any of the words.
+   */
+  private static int scan(String[] haystacks, String[] words) {
+    int matches = 0;
+    for (String haystack : haystacks) {
+      for (String word : words) {
+        if (haystack.contains(word)) {
+          matches++;
+          break;
+        }
+      }
+    }
+    return matches;
+  }
+}
@@ -0,0 +1,183 @@
+package com.ase.bytealchemists.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.ase.bytealchemists.model.ServiceEntity;
+import com.ase.bytealchemists.model.ServiceText;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+import org.junit.jupiter.api.Test;
+
+/**
+ * This class contains the unit tests for the ServiceTextIndex class.
+ */
+public class ServiceTextIndexTest {
+
+  private static ServiceEntity service(long id, String name, String category, String address,
+      String city, double latitude, double longitude, boolean availability) {
+    return new ServiceEntity(id, name, category, latitude, longitude, address, city, "NY",
+        "10001", "1234567890", "9 AM - 5 PM", availability);
+  }
+
+  static ServiceText text(ServiceEntity service) {
+    return new ServiceText() {
+      @Override
+      public Long getId() {
+        return service.getId();
+      }
+
+      @Override
+      public String getName() {
+        return service.getName();
+      }
+
+      @Override
+      public String getAddress() {
+        return service.getAddress();
+      }
+
+      @Override
+      public String getCity() {
+        return service.getCity();
+      }
+
+      @Override
+      public Double getLatitude() {
+        return service.getLatitude();
+      }
+
+      @Override
+      public Double getLongitude() {
+        return service.getLongitude();
+      }
+
+      @Override
+      public String getCategory() {
+        return service.getCategory();
+      }
+
+      @Override
+      public Boolean getAvailability() {
+        return service.getAvailability();
+      }
+    };
+  }
+
+  private static List<Long> ids(List<ServiceTextIndex.Hit> hits) {
+    List<Long> ids = new ArrayList<>();
+    for (ServiceTextIndex.Hit hit : hits) {
+      ids.add(hit.getId());
+    }
+    return ids;
+  }
+
+  private static ServiceTextIndex index() {
+    ServiceTextIndex index = new ServiceTextIndex();
+    index.rebuild(List.of(
+        text(service(1, "Bronx Family Shelter", "shelters", "1 Grand Concourse", "Bronx",
+            40.8448, -73.8648, true)),
+        text(service(2, "Harlem Food Pantry", "food_banks", "2 Lenox Ave", "New York",
+            40.8116, -73.9465, true)),
+        text(service(3, "Midtown Men's Shelter", "shelters", "3 Bronx St", "New York",
+            40.7549, -73.9840, false)),
+        text(service(4, "Brooklyn Clinic", "clinics", "4 Atlantic Ave", "Brooklyn",
+            40.6782, -73.9442, true))));
+    return index;
+  }
+
+  @Test
+  public void testTokenize_ShouldLowercaseSplitAndDropPlurals() {
+    assertEquals(List.of("men", "s", "shelter", "food", "bank", "10001", "bus"),
+        ServiceTextIndex.tokenize("Men's SHELTERS, food_banks #10001 bus"));
+    assertTrue(ServiceTextIndex.tokenize(" -- ").isEmpty());
+  }
+
+  @Test
+  public void testSearch_ShouldRankByBm25AndFilter() {
+    ServiceTextIndex index = index();
+
+    // A word in the name counts more than the same word in the address
+    assertEquals(List.of(1L, 3L), ids(index.search("bronx", null, null, null, null, 10, 10)));
+    // Matching every word beats matching some of them
+    assertEquals(List.of(3L, 2L, 1L),
+        ids(index.search("Shelters New York", null, null, null, null, 10, 10)));
+    assertEquals(List.of(1L),
+        ids(index.search("shelter", null, true, null, null, 10, 10)));
+    assertEquals(List.of(2L),
+        ids(index.search("ave", "FOOD_BANKS", null, null, null, 10, 10)));
+    // Only the Harlem pantry is within 5 km of Central Park
+    assertEquals(List.of(2L),
+        ids(index.search("ave", null, null, 40.7829, -73.9654, 5, 10)));
+    assertEquals(1, index.search("ave", null, null, null, null, 10, 1).size());
+    assertTrue(index.search("library", null, null, null, null, 10, 10).isEmpty());
+  }
+
+  @Test
+  public void testSearch_ShouldCorrectMisspelledWords() {
+    ServiceTextIndex index = index();
+
+    assertEquals(List.of(1L, 3L),
+        ids(index.search("shleters in brnox", null, null, null, null, 10, 10)));
+    assertEquals(List.of(4L),
+        ids(index.search("Atlantc", null, null, null, null, 10, 10)));
+    // An exact match outranks a corrected one
+    assertEquals(List.of(2L, 4L),
+        ids(index.search("pantry clnic", null, null, null, null, 10, 10)));
+    assertTrue(index.search("xyzzy", null, null, null, null, 10, 10).isEmpty());
+  }
+
+  @Test
+  public void testOnServiceChanged_ShouldReindexAndDrop() {
+    ServiceTextIndex index = index();
+
+    index.onServiceChanged(new ServiceChangedEvent(4L, service(4, "Brooklyn Pantry",
+        "food_banks", "4 Atlantic Ave", "Brooklyn", 40.6782, -73.9442, true)));
+    index.onServiceChanged(new ServiceChangedEvent(2L, null));
+    index.onServiceChanged(new ServiceChangedEvent(5L, service(5, "Queens Pantry",
+        "food_banks", "5 Main St", "Queens", 40.7282, -73.7949, true)));
+
+    assertEquals(4, index.size());
+    assertEquals(List.of(4L, 5L), ids(index.search("pantry", null, null, null, null, 10, 10)));
+    assertTrue(index.search("clinic", null, null, null, null, 10, 10).isEmpty(),
+        "Words of the old version should be gone");
+    assertTrue(index.search("harlem", null, null, null, null, 10, 10).isEmpty());
+  }
+
+  @Test
+  public void testOnServiceChanged_ManyServicesSharingWords_ShouldKeepPostingsConsistent() {
+    ServiceTextIndex index = new ServiceTextIndex();
+    index.rebuild(List.of());
+    TreeSet<Long> shelters = new TreeSet<>();
+    TreeSet<Long> pantries = new TreeSet<>();
+    Random random = new Random(7);
+    // Every change moves some other service to a new place in the posting lists
+    for (int step = 0; step < 2000; step++) {
+      long id = 1 + random.nextInt(200);
+      shelters.remove(id);
+      pantries.remove(id);
+      int action = random.nextInt(3);
+      if (action == 0) {
+        index.onServiceChanged(new ServiceChangedEvent(id, null));
+      } else {
+        String kind = action == 1 ? "Shelter" : "Pantry";
+        index.onServiceChanged(new ServiceChangedEvent(id, service(id, "Bronx " + kind,
+            "other", id + " Main St", "Bronx", 40.8448, -73.8648, true)));
+        (action == 1 ? shelters : pantries).add(id);
+      }
+    }
+
+    assertEquals(shelters.size() + pantries.size(), index.size());
+    assertEquals(new ArrayList<>(shelters), sorted(index.search("shelter", null, null, null,
+        null, 10, 1000)));
+    assertEquals(new ArrayList<>(pantries), sorted(index.search("pantry", null, null, null,
+        null, 10, 1000)));
+    assertEquals(index.size(), index.search("bronx", null, null, null, null, 10, 1000).size());
+  }
+
+  private static List<Long> sorted(List<ServiceTextIndex.Hit> hits) {
+    return new ArrayList<>(new TreeSet<>(ids(hits)));
+  }
+}
@@ -0,0 +1,258 @@
+package com.ase.bytealchemists.service;
+
+import static com.ase.bytealchemists.service.ServiceSpatialIndexTest.service;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.ase.bytealchemists.model.ServiceEntity;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * This class contains the unit tests for the ServiceTileCache and ServiceTiles classes.
+ */
+public class ServiceTileCacheTest {
+
+  private static final ServiceTileCache.Clusterer NO_CLUSTERS = (z, x, y) -> null;
+
+  private final ObjectMapper objectMapper = new ObjectMapper();
+  private List<ServiceEntity> services;
+  private int loads;
+  private ServiceTileCache.Loader loader;
+  private Path directory;
+
+  @BeforeEach
+  public void setUp() throws Exception {
+    services = new ArrayList<>();
+    loads = 0;
+    // Stands in for the database: a scan of the rectangle, inclusive on every edge
+    loader = (minLat, maxLat, minLon, maxLon) -> {
+      loads++;
+      List<ServiceEntity> result = new ArrayList<>();
+      for (ServiceEntity service : services) {
+        if (service.getLatitude() >= minLat && service.getLatitude() <= maxLat
+            && service.getLongitude() >= minLon && service.getLongitude() <= maxLon) {
+          result.add(service);
+        }
+      }
+      return result;
+    };
+    directory = Files.createTempDirectory("service-tiles");
+  }
+
+  private Set<Long> ids(ServiceTileCache.Tile tile) throws Exception {
+    Set<Long> ids = new TreeSet<>();
+    for (JsonNode feature : objectMapper.readTree(tile.getContent()).get("features")) {
+      ids.add(feature.get(0).asLong());
+    }
+    return ids;
+  }
+
+  private long filesOnDisk() throws Exception {
+    try (Stream<Path> paths = Files.walk(directory)) {
+      return paths.filter(Files::isRegularFile).count();
+    }
+  }
+
+  @Test
+  public void testGet_ChildTilesShouldPartitionParentTile() throws Exception {
+    Random random = new Random(5);
+    int[] parent = ServiceTiles.tileOf(40.75, -73.98, 12);
+    double[] bounds = ServiceTiles.bounds(12, parent[0], parent[1]);
+    for (long id = 1; id <= 500; id++) {
+      services.add(service(id, bounds[0] + random.nextDouble() * (bounds[1] - bounds[0]),
+          bounds[2] + random.nextDouble() * (bounds[3] - bounds[2]), "shelters"));
+    }
+    // Exactly on the corner shared by the four children
+    double[] child = ServiceTiles.bounds(13, parent[0] * 2, parent[1] * 2);
+    services.add(service(501L, child[0], child[3], "shelters"));
+    ServiceTileCache cache = new ServiceTileCache(100, 0, 2000, directory.toString());
+
+    Set<Long> fromChildren = new TreeSet<>();
+    int total = 0;
+    for (int dx = 0; dx <= 1; dx++) {
+      for (int dy = 0; dy <= 1; dy++) {
+        Set<Long> ids = ids(cache.get(13, parent[0] * 2 + dx, parent[1] * 2 + dy, null, null,
+            loader, NO_CLUSTERS));
+        total += ids.size();
+        fromChildren.addAll(ids);
+      }
+    }
+
+    assertEquals(ids(cache.get(12, parent[0], parent[1], null, null, loader, NO_CLUSTERS)),
+        fromChildren);
+    assertEquals(501, total, "Every service should be in exactly one child tile");
+  }
+
+  @Test
+  public void testGet_ShouldServeFromMemoryThenDiskWithStableEtag() throws Exception {
+    services.add(service(1L, 40.7128, -74.0060, "shelters"));
+    int[] first = ServiceTiles.tileOf(40.7128, -74.0060, 14);
+    ServiceTileCache cache = new ServiceTileCache(1, 10, 2000, directory.toString());
+
+    ServiceTileCache.Tile rendered =
+        cache.get(14, first[0], first[1], null, null, loader, NO_CLUSTERS);
+    ServiceTileCache.Tile fromMemory =
+        cache.get(14, first[0], first[1], null, null, loader, NO_CLUSTERS);
+    // Evicts the first from memory
+    cache.get(14, first[0] + 1, first[1], null, null, loader, NO_CLUSTERS);
+    ServiceTileCache.Tile fromDisk =
+        cache.get(14, first[0], first[1], null, null, loader, NO_CLUSTERS);
+
+    assertEquals(2, loads, "Only the two distinct tiles should be rendered");
+    assertEquals(rendered.getEtag(), fromMemory.getEtag());
+    assertEquals(rendered.getEtag(), fromDisk.getEtag());
+    assertEquals(new String(rendered.getContent()), new String(fromDisk.getContent()));
+    assertEquals(2, filesOnDisk());
+  }
+
+  @Test
+  public void testOnServiceChanged_ShouldOnlyDropTilesCoveringTheService() throws Exception {
+    ServiceEntity newYork = service(1L, 40.7128, -74.0060, "shelters");
+    services.add(newYork);
+    services.add(service(2L, 34.0522, -118.2437, "shelters"));
+    int[] newYorkTile = ServiceTiles.tileOf(40.7128, -74.0060, 10);
+    int[] losAngelesTile = ServiceTiles.tileOf(34.0522, -118.2437, 10);
+    ServiceTileCache cache = new ServiceTileCache(100, 100, 2000, directory.toString());
+    String before = cache.get(10, newYorkTile[0], newYorkTile[1], null, null, loader,
+        NO_CLUSTERS).getEtag();
+    cache.get(10, losAngelesTile[0], losAngelesTile[1], null, null, loader, NO_CLUSTERS);
+    cache.get(10, losAngelesTile[0], losAngelesTile[1], "food_banks", null, loader,
+        NO_CLUSTERS);
+
+    // Moving the New York service to Los Angeles affects both tiles, but not the food banks
+    ServiceEntity moved = service(1L, 34.0523, -118.2436, "shelters");
+    services.set(0, moved);
+    cache.onServiceChanged(new ServiceChangedEvent(1L, moved));
+
+    assertEquals(1, cache.memorySize(), "Only the food bank tile should survive");
+    assertEquals(1, cache.diskSize());
+    assertEquals(1, filesOnDisk(), "Dropped tiles should be deleted from disk");
+    ServiceTileCache.Tile after =
+        cache.get(10, newYorkTile[0], newYorkTile[1], null, null, loader, NO_CLUSTERS);
+    assertNotEquals(before, after.getEtag(), "A changed tile should get a new ETag");
+    assertTrue(ids(after).isEmpty());
+    assertEquals(Set.of(1L, 2L),
+        ids(cache.get(10, losAngelesTile[0], losAngelesTile[1], null, null, loader,
+            NO_CLUSTERS)));
+  }
+
+  @Test
+  public void testGet_WriteDuringRender_ShouldNotCacheStaleTile() {
+    ServiceTileCache cache = new ServiceTileCache(100, 100, 2000, directory.toString());
+
+    cache.get(3, 2, 3, null, null, (minLat, maxLat, minLon, maxLon) -> {
+      cache.onServiceChanged(new ServiceChangedEvent(1L, null));
+      return List.of();
+    }, NO_CLUSTERS);
+
+    assertEquals(0, cache.memorySize(), "A tile rendered across a write is not cached");
+    assertEquals(0, cache.diskSize());
+  }
+
+  @Test
+  public void testConstructor_ShouldClearTilesOfPreviousRun() throws Exception {
+    Files.createDirectories(directory.resolve("3/2"));
+    Files.write(directory.resolve("3/2/3-all-all.json"), new byte[] {'{', '}'});
+
+    new ServiceTileCache(100, 100, 2000, directory.toString());
+
+    assertEquals(0, filesOnDisk());
+    assertFalse(Files.exists(directory.resolve("3")));
+  }
+
+  @Test
+  public void testGet_ConcurrentMisses_ShouldRenderOnceOutsideTheLock() throws Exception {
+    ServiceTileCache cache = new ServiceTileCache(100, 100, 2000, directory.toString());
+    CountDownLatch rendering = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    AtomicInteger renders = new AtomicInteger();
+    ServiceTileCache.Loader slowLoader = (minLat, maxLat, minLon, maxLon) -> {
+      renders.incrementAndGet();
+      rendering.countDown();
+      try {
+        release.await(10, TimeUnit.SECONDS);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      return List.of();
+    };
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+    try {
+      Future<ServiceTileCache.Tile> first =
+          executor.submit(() -> cache.get(5, 9, 12, null, null, slowLoader, NO_CLUSTERS));
+      assertTrue(rendering.await(10, TimeUnit.SECONDS));
+      Future<ServiceTileCache.Tile> second =
+          executor.submit(() -> cache.get(5, 9, 12, null, null, slowLoader, NO_CLUSTERS));
+
+      // Other tiles do not wait for the render
+      cache.get(5, 0, 0, null, null, loader, NO_CLUSTERS);
+      assertEquals(1, cache.memorySize());
+      release.countDown();
+
+      assertEquals(first.get(10, TimeUnit.SECONDS).getEtag(),
+          second.get(10, TimeUnit.SECONDS).getEtag());
+      assertEquals(1, renders.get(), "Concurrent misses of one tile should share a render");
+      assertEquals(2, cache.memorySize());
+    } finally {
+      release.countDown();
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  public void testGet_DenseTile_ShouldBeDrawnFromClustersWithoutLoading() throws Exception {
+    Random random = new Random(11);
+    for (long id = 1; id <= 300; id++) {
+      services.add(service(id, 40.6 + random.nextDouble() * 0.3,
+          -74.1 + random.nextDouble() * 0.3, id % 2 == 0 ? "shelters" : "food_banks"));
+    }
+    ServiceClusterIndex index = new ServiceClusterIndex(16, 64);
+    for (ServiceEntity service : services) {
+      index.onServiceChanged(new ServiceChangedEvent(service.getId(), service));
+    }
+    ServiceTileCache cache = new ServiceTileCache(100, 100, 100, directory.toString());
+
+    JsonNode world = objectMapper.readTree(cache.get(0, 0, 0, null, null, loader,
+        (z, x, y) -> index.tileClusters(z, x, y, null, null)).getContent());
+    JsonNode shelters = objectMapper.readTree(cache.get(0, 0, 0, "shelters", null, loader,
+        (z, x, y) -> index.tileClusters(z, x, y, "shelters", null)).getContent());
+
+    assertEquals(0, loads, "A dense tile should not load its services");
+    assertEquals(0, cache.memorySize(), "Clustered tiles are drawn on every request");
+    assertTrue(world.get("clustered").asBoolean());
+    int total = 0;
+    for (JsonNode feature : world.get("features")) {
+      total += feature.get(2).asInt();
+    }
+    assertEquals(300, total, "The clusters should account for every service");
+    assertEquals(150, shelters.get("features").get(0).get(3).get("shelters").asInt());
+    assertFalse(shelters.get("features").get(0).get(3).has("food_banks"),
+        "Only the filtered category should be counted");
+
+    // The filtered tile lists few enough services to be rendered as usual
+    ServiceTileCache.Tile sparse = cache.get(0, 0, 0, "shelters", false, loader,
+        (z, x, y) -> index.tileClusters(z, x, y, "shelters", false));
+    assertEquals(1, loads);
+    assertFalse(objectMapper.readTree(sparse.getContent()).has("clustered"));
+    assertEquals(1, cache.memorySize(), "A listed tile should be cached");
+  }
+}
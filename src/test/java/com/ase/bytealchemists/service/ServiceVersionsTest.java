@@ -0,0 +1,68 @@
+package com.ase.bytealchemists.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import com.ase.bytealchemists.model.ServiceEntity;
+import org.junit.jupiter.api.Test;
+
+/**
+ * This class contains the unit tests for the ServiceVersions class.
+ */
+public class ServiceVersionsTest {
+
+  private static ServiceEntity service(long id, long version) {
+    ServiceEntity service = new ServiceEntity(id, "Service " + id, "shelters", 40.7128,
+        -74.0060, "123 Main St", "New York", "NY", "10001", "1234567890", "9 AM - 5 PM", true);
+    service.setVersion(version);
+    return service;
+  }
+
+  @Test
+  public void testServiceEtag_ShouldCarryTheStoredVersion() {
+    assertEquals("\"2-4\"", ServiceVersions.serviceEtag(2L, 4L));
+    assertEquals(Long.valueOf(4L),
+        ServiceVersions.parseServiceEtag(2L, ServiceVersions.serviceEtag(2L, 4L)));
+  }
+
+  @Test
+  public void testBufferedEtag_ShouldNeverEqualAStoredOne() throws Exception {
+    ServiceVersions first = new ServiceVersions();
+    String buffered = first.bufferedEtag(2L, 5L);
+
+    assertNotEquals(ServiceVersions.serviceEtag(2L, 5L), buffered,
+        "The row may reach the same version with other content");
+    assertEquals(Long.valueOf(5L), ServiceVersions.parseServiceEtag(2L, buffered),
+        "If-Match with a buffered ETag should carry its version");
+    Thread.sleep(2);
+    assertNotEquals(buffered, new ServiceVersions().bufferedEtag(2L, 5L),
+        "Another instance should tag its own buffered changes");
+  }
+
+  @Test
+  public void testDatasetEtag_ShouldChangeWithAnyServiceAndQuery() {
+    ServiceVersions versions = new ServiceVersions();
+    String before = versions.datasetEtag("/services?sort=id");
+
+    assertEquals(before, versions.datasetEtag("/services?sort=id"),
+        "The ETag should be stable while nothing changes");
+    assertNotEquals(before, versions.datasetEtag("/services?sort=name"),
+        "Another query should get another ETag");
+
+    versions.onServiceChanged(new ServiceChangedEvent(9L, service(9L, 0L)));
+    assertNotEquals(before, versions.datasetEtag("/services?sort=id"),
+        "Any change should invalidate list ETags");
+  }
+
+  @Test
+  public void testParseServiceEtag_ShouldOnlyAcceptStrongTagsOfTheService() {
+    assertEquals(Long.valueOf(7L), ServiceVersions.parseServiceEtag(3L, "\"3-7\""));
+    assertEquals(Long.valueOf(7L), ServiceVersions.parseServiceEtag(3L, " \"3-7-0a1b\" "),
+        "A sparse fieldset ETag should carry the same version");
+    assertNull(ServiceVersions.parseServiceEtag(3L, "W/\"3-7\""), "Weak tags never match");
+    assertNull(ServiceVersions.parseServiceEtag(3L, "\"4-7\""), "Tags of other services");
+    assertNull(ServiceVersions.parseServiceEtag(3L, "\"3-x\""), "Malformed versions");
+    assertNull(ServiceVersions.parseServiceEtag(3L, "3-7"), "Unquoted tags");
+  }
+}
@@ -0,0 +1,144 @@
+package com.ase.bytealchemists.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import com.ase.bytealchemists.util.GeoUtils;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Compares the acos formula of {@code ServiceRepository.findByFilters} with the
+ * {@code MBRContains} + {@code ST_Distance_Sphere} query used in
+ * {@link GeoQueryMode#SPATIAL} mode, on a scratch table in a real MySQL 8 database.
+ *
+ * <p>
+ * Not part of the regular test run, and skipped unless a database is given:
+ * {@code mvn test -Dtest=SpatialQueryBenchmark -Dbenchmark.jdbc.url=jdbc:mysql://...
+ * -Dbenchmark.jdbc.username=... -Dbenchmark.jdbc.password=...}.
+ * The scratch table is dropped afterwards.
+ * </p>
+ */
+public class SpatialQueryBenchmark {
+
+  private static final String TABLE = "service_geo_benchmark";
+  private static final int SERVICES = 200_000;
+  private static final int QUERIES = 200;
+  private static final double RADIUS_KM = 10.0;
+
+  private static final String FORMULA_QUERY = "SELECT COUNT(*) FROM " + TABLE + " s "
+      + "WHERE (6371 * acos(least(1.0, cos(radians(?)) * cos(radians(s.latitude)) "
+      + "* cos(radians(s.longitude) - radians(?)) + sin(radians(?)) "
+      + "* sin(radians(s.latitude))))) < ?";
+
+  private static final String SPATIAL_QUERY = "SELECT COUNT(*) FROM " + TABLE + " s "
+      + "WHERE MBRContains(ST_GeomFromText(?, 4326, 'axis-order=long-lat'), s.location) "
+      + "AND ST_Distance_Sphere(s.location, ST_SRID(POINT(?, ?), 4326), 6371000) < ? * 1000";
+
+  @Test
+  public void compareSpatialIndexWithFormula() throws SQLException {
+    String url = System.getProperty("benchmark.jdbc.url");
+    assumeTrue(url != null, "Set -Dbenchmark.jdbc.url to run against MySQL");
+
+    try (Connection connection = DriverManager.getConnection(url,
+        System.getProperty("benchmark.jdbc.username", "root"),
+        System.getProperty("benchmark.jdbc.password", ""))) {
+      createTable(connection);
+      try {
+        Random random = new Random(7);
+        double[][] origins = new double[QUERIES][];
+        for (int i = 0; i < QUERIES; i++) {
+          origins[i] = new double[] {25.5 + random.nextDouble() * 23.0,
+              -124.5 + random.nextDouble() * 57.0};
+        }
+
+        long formulaHits = 0;
+        long formulaStart = System.nanoTime();
+        try (PreparedStatement statement = connection.prepareStatement(FORMULA_QUERY)) {
+          for (double[] origin : origins) {
+            statement.setDouble(1, origin[0]);
+            statement.setDouble(2, origin[1]);
+            statement.setDouble(3, origin[0]);
+            statement.setDouble(4, RADIUS_KM);
+            formulaHits += count(statement);
+          }
+        }
+        long formulaNanos = System.nanoTime() - formulaStart;
+
+        long spatialHits = 0;
+        long spatialStart = System.nanoTime();
+        try (PreparedStatement statement = connection.prepareStatement(SPATIAL_QUERY)) {
+          for (double[] origin : origins) {
+            statement.setString(1,
+                GeoUtils.boundingBox(origin[0], origin[1], RADIUS_KM).toWkt());
+            statement.setDouble(2, origin[1]);
+            statement.setDouble(3, origin[0]);
+            statement.setDouble(4, RADIUS_KM);
+            spatialHits += count(statement);
+          }
+        }
+        long spatialNanos = System.nanoTime() - spatialStart;
+
+        System.out.printf("services=%d queries=%d radius=%.1f km%n",
+            SERVICES, QUERIES, RADIUS_KM);
+        System.out.printf("acos formula: %.3f ms/query (%d hits)%n",
+            formulaNanos / 1e6 / QUERIES, formulaHits);
+        System.out.printf("spatial index: %.3f ms/query (%d hits)%n",
+            spatialNanos / 1e6 / QUERIES, spatialHits);
+        assertEquals(formulaHits, spatialHits, "Both queries should find the same services");
+      } finally {
+        try (Statement statement = connection.createStatement()) {
+          statement.execute("DROP TABLE " + TABLE);
+        }
+      }
+    }
+  }
+
+  private static void createTable(Connection connection) throws SQLException {
+    try (Statement statement = connection.createStatement()) {
+      statement.execute("DROP TABLE IF EXISTS " + TABLE);
+      statement.execute("CREATE TABLE " + TABLE + " (id BIGINT PRIMARY KEY, "
+          + "latitude DOUBLE, longitude DOUBLE)");
+    }
+    connection.setAutoCommit(false);
+    Random random = new Random(42);
+    try (PreparedStatement insert = connection.prepareStatement(
+        "INSERT INTO " + TABLE + " (id, latitude, longitude) VALUES (?, ?, ?)")) {
+      for (int i = 1; i <= SERVICES; i++) {
+        // Spread over the continental United States
+        insert.setLong(1, i);
+        insert.setDouble(2, 25.0 + random.nextDouble() * 24.0);
+        insert.setDouble(3, -125.0 + random.nextDouble() * 58.0);
+        insert.addBatch();
+        if (i % 5_000 == 0) {
+          insert.executeBatch();
+        }
+      }
+      insert.executeBatch();
+    }
+    connection.commit();
+    connection.setAutoCommit(true);
+
+    // Same column as SpatialSchemaInitializer; adding it backfills the rows above
+    try (Statement statement = connection.createStatement()) {
+      statement.execute("ALTER TABLE " + TABLE + " ADD COLUMN location POINT SRID 4326 "
+          + "GENERATED ALWAYS AS (ST_SRID(POINT(IFNULL(longitude, 0), "
+          + "IFNULL(latitude, 0)), 4326)) STORED NOT NULL");
+      statement.execute("CREATE SPATIAL INDEX idx_benchmark_location ON " + TABLE
+          + " (location)");
+    }
+  }
+
+  private static long count(PreparedStatement statement) throws SQLException {
+    try (ResultSet resultSet = statement.executeQuery()) {
+      resultSet.next();
+      return resultSet.getLong(1);
+    }
+  }
+}
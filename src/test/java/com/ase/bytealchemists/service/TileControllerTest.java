@@ -0,0 +1,76 @@
+package com.ase.bytealchemists.service;
+
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.ase.bytealchemists.config.TestSecurityConfig;
+import com.ase.bytealchemists.controller.TileController;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.web.servlet.MockMvc;
+
+/**
+ * This class contains the unit tests for the TileController class.
+ */
+@Import(TestSecurityConfig.class)
+
+@WebMvcTest(TileController.class)
+public class TileControllerTest {
+
+  private static final String CONTENT = "{\"z\":10,\"x\":301,\"y\":385,\"features\":[]}";
+
+  @Autowired
+  private MockMvc mockMvc;
+
+  @MockBean
+  private ServiceService serviceService;
+
+  private static ServiceTileCache.Tile tile() {
+    return new ServiceTileCache.Tile(CONTENT.getBytes(StandardCharsets.UTF_8),
+        "0123456789abcdef", Set.of());
+  }
+
+  @Test
+  public void testGetTile_ShouldReturnTileWithEtag() throws Exception {
+    when(serviceService.getTile(10, 301, 385, "shelters", null)).thenReturn(tile());
+
+    mockMvc.perform(get("/tiles/10/301/385").param("category", "shelters"))
+        .andExpect(status().isOk())
+        .andExpect(header().string("ETag", "\"0123456789abcdef\""))
+        .andExpect(header().string("Cache-Control", "max-age=60"))
+        .andExpect(content().json(CONTENT));
+  }
+
+  @Test
+  public void testGetTile_MatchingEtag_ShouldReturn304() throws Exception {
+    when(serviceService.getTile(eq(10), eq(301), eq(385), isNull(), isNull()))
+        .thenReturn(tile());
+
+    mockMvc.perform(get("/tiles/10/301/385").header("If-None-Match", "\"0123456789abcdef\""))
+        .andExpect(status().isNotModified())
+        .andExpect(content().string(""));
+  }
+
+  @Test
+  public void testGetTile_InvalidCoordinates_ShouldReturn400() throws Exception {
+    mockMvc.perform(get("/tiles/2/4/0"))
+        .andExpect(status().isBadRequest());
+    mockMvc.perform(get("/tiles/23/0/0"))
+        .andExpect(status().isBadRequest());
+
+    verify(serviceService, never()).getTile(anyInt(), anyInt(), anyInt(), isNull(), isNull());
+  }
+}
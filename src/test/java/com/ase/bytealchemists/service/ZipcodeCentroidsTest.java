@@ -0,0 +1,80 @@
+package com.ase.bytealchemists.service;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.StringReader;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+
+/**
+ * This class contains the unit tests for the ZipcodeCentroids class.
+ */
+public class ZipcodeCentroidsTest {
+
+  @Test
+  public void testCentroid_ShouldLookUpCsvRows() throws Exception {
+    ZipcodeCentroids centroids = new ZipcodeCentroids(new StringReader(
+        "zipcode,latitude,longitude\n"
+            + "10027,40.8116,-73.9531\n"
+            + "\n"
+            + "00601,18.1809,-66.7498\n"
+            + "99950,55.5410,-131.4300\n"
+            + "10027,40.8117,-73.9532\n"));
+
+    assertEquals(3, centroids.size(), "A repeated zipcode should be kept once");
+    assertArrayEquals(new double[] {40.8117, -73.9532}, centroids.centroid("10027"), 1e-4,
+        "The last row for a zipcode should win");
+    assertArrayEquals(new double[] {18.1809, -66.7498}, centroids.centroid("00601"), 1e-4,
+        "Leading zeros should be kept");
+    assertArrayEquals(new double[] {40.8117, -73.9532}, centroids.centroid(" 10027-6902 "),
+        1e-4, "A ZIP+4 suffix should be ignored");
+    assertNull(centroids.centroid("10028"), "An unknown zipcode has no centroid");
+    assertNull(centroids.centroid("1002x"), "A malformed zipcode has no centroid");
+    assertNull(centroids.centroid(null));
+  }
+
+  @Test
+  public void testConstructor_ShouldReadCensusGazetteer() throws Exception {
+    ZipcodeCentroids centroids = new ZipcodeCentroids(new StringReader(
+        "GEOID\tALAND\tAWATER\tALAND_SQMI\tAWATER_SQMI\tINTPTLAT\tINTPTLONG               \n"
+            + "10027\t2157840\t0\t0.833\t0.000\t40.811407\t-73.953060              \n"));
+
+    assertArrayEquals(new double[] {40.811407, -73.953060}, centroids.centroid("10027"),
+        1e-4, "The tab separated gazetteer columns should be found by name");
+  }
+
+  @Test
+  public void testConstructor_MalformedFile_ShouldThrow() {
+    assertThrows(IllegalArgumentException.class, () -> new ZipcodeCentroids(
+        new StringReader("zipcode,lat\n10027,40.8116\n")));
+    assertThrows(IllegalArgumentException.class, () -> new ZipcodeCentroids(
+        new StringReader("zipcode,latitude,longitude\n10027,north,-73.9531\n")));
+    assertThrows(IllegalArgumentException.class, () -> new ZipcodeCentroids(
+        new StringReader("zipcode,latitude,longitude\n1002,40.8116,-73.9531\n")));
+  }
+
+  @Test
+  public void testConstructor_ShouldLoadBundledTable() throws Exception {
+    ZipcodeCentroids centroids = new ZipcodeCentroids(new ClassPathResource("zipcodes.csv"));
+    ZipcodeCentroids missing = new ZipcodeCentroids(new ClassPathResource("missing.csv"));
+
+    assertTrue(centroids.size() > 0, "The bundled table should not be empty");
+    assertEquals(40.81, centroids.centroid("10027")[0], 0.01);
+    assertEquals(0, missing.size(), "A missing file should give an empty table");
+  }
+
+  @Test
+  public void testIsValid() {
+    assertTrue(ZipcodeCentroids.isValid("10027"));
+    assertTrue(ZipcodeCentroids.isValid("10027-6902"));
+    assertFalse(ZipcodeCentroids.isValid("1002"));
+    assertFalse(ZipcodeCentroids.isValid("10027-69"));
+    assertFalse(ZipcodeCentroids.isValid("\uff11\uff10\uff10\uff12\uff17"),
+        "Only ASCII digits are accepted");
+  }
+}